@@ -3,14 +3,23 @@ package com.restaurant;
 import akka.actor.typed.ActorRef;
 import akka.actor.typed.ActorSystem;
 import akka.actor.typed.Behavior;
+import akka.actor.typed.javadsl.ActorContext;
 import akka.actor.typed.javadsl.Behaviors;
+import akka.actor.typed.javadsl.Routers;
+import akka.actor.typed.receptionist.Receptionist;
+import akka.actor.typed.receptionist.ServiceKey;
 import akka.cluster.typed.Cluster;
 import com.restaurant.actors.*;
+import com.restaurant.cluster.ServiceKeys;
+import com.restaurant.corpus.CorpusStores;
 import com.restaurant.http.RestaurantHttpServer;
+import com.restaurant.llm.StubLLMServer;
 import com.restaurant.messages.Messages.RestaurantMessage;
+import com.restaurant.routing.WorkerPools;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
 
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
 /**
@@ -29,6 +38,16 @@ public class Main {
         // Latch to keep main thread alive
         CountDownLatch latch = new CountDownLatch(1);
 
+        // Start the local stub LLM endpoint when configured as the backend
+        Config llmConfig = ConfigFactory.load().getConfig("forkfind.llm");
+        if ("stub".equals(llmConfig.getString("backend")) && llmConfig.getBoolean("stub.autostart")) {
+            try {
+                new StubLLMServer(llmConfig.getConfig("stub")).start();
+            } catch (Exception e) {
+                System.err.println("❌ Error starting stub LLM server: " + e.getMessage());
+            }
+        }
+
         // Start Node2 (Backend) in a separate thread
         Thread node2Thread = new Thread(() -> {
             try {
@@ -84,12 +103,13 @@ public class Main {
     }
 
     /**
-     * Starts Node2 (Backend) with LLMActor, MenuActor, DietarySpecialistActor,
-     * ReservationActor
+     * Starts Node2 (Backend) with the services in forkfind.services.hosted (LLMActor,
+     * MenuActor + DietarySpecialistActor, ReservationActor, RetrievalActor), retrieval shards
+     * and entity shards
      */
     private static void startNode2() {
         Config config = ConfigFactory.parseString("akka.cluster.roles = [backend]")
-                .withFallback(ConfigFactory.load("node2"));
+                .withFallback(ConfigFactory.load("Node2"));
 
         ActorSystem<Void> system = ActorSystem.create(
                 Behaviors.setup(context -> {
@@ -100,45 +120,38 @@ public class Main {
                     context.getLog().info("Address: {}", cluster.selfMember().address());
                     context.getLog().info("========================================");
 
-                    // Create LLMActor on Node2 (responds to ASK messages)
-                    ActorRef<RestaurantMessage> llmActor = context.spawn(LLMActor.create(), "llm-actor");
-                    context.getLog().info("✅ LLMActor created on Node2");
+                    // Log to the frontend's LoggingActor, found through the Receptionist
+                    ActorRef<RestaurantMessage> loggingActor = context.spawn(service(ServiceKeys.LOGGING),
+                            "logging-service");
 
-                    // Create placeholder for LoggingActor (exists on Node1)
-                    ActorRef<RestaurantMessage> loggingActorPlaceholder = context.spawn(Behaviors.empty(),
-                            "logging-actor-placeholder");
+                    // Services listed in forkfind.services.hosted, registered for the frontends
+                    startServices(context, loggingActor);
 
-                    // Create DietarySpecialistActor on Node2 (receives FORWARD messages)
-                    ActorRef<RestaurantMessage> dietarySpecialistActor = context.spawn(
-                            DietarySpecialistActor.create(loggingActorPlaceholder),
-                            "dietary-specialist-actor");
-                    context.getLog().info("✅ DietarySpecialistActor created on Node2");
-
-                    // Create MenuActor on Node2 (uses FORWARD pattern)
-                    ActorRef<RestaurantMessage> menuActor = context.spawn(
-                            MenuActor.create(loggingActorPlaceholder, dietarySpecialistActor),
-                            "menu-actor");
-                    context.getLog().info("✅ MenuActor created on Node2");
-
-                    // Create ReservationActor on Node2
-                    ActorRef<RestaurantMessage> reservationActor = context.spawn(
-                            ReservationActor.create(loggingActorPlaceholder),
-                            "reservation-actor");
-                    context.getLog().info("✅ ReservationActor created on Node2");
-
-                    // Create RetrievalActor (RAG) on Node2
-                    ActorRef<RestaurantMessage> retrievalActor = context.spawn(
-                            RetrievalActor.create(loggingActorPlaceholder),
-                            "retrieval-actor");
-                    context.getLog().info("✅ RetrievalActor created on Node2");
+                    // Host order entity shards; shards rebalance across the nodes as they join
+                    OrderEntity.init(context.getSystem());
+                    context.getLog().info("✅ Order shard region started on Node2");
+
+                    // Host reservation shards (one entity per restaurant-date)
+                    ReservationEntity.init(context.getSystem());
+                    context.getLog().info("✅ Reservation shard region started on Node2");
+
+                    // Create this node's retrieval shards (RAG); the frontend finds them via the Receptionist
+                    Config sharding = context.getSystem().settings().config()
+                            .getConfig("forkfind.retrieval.sharding");
+                    int shardCount = sharding.getInt("shards");
+                    CorpusStores.get(context.getSystem()); // map the corpus once, before the shards share it
+                    for (int shardId : sharding.getIntList("local-shards")) {
+                        context.spawn(RetrievalShardActor.create(shardId, shardCount), "retrieval-shard-" + shardId);
+                    }
+                    context.getLog().info("✅ RetrievalShardActors {} created on Node2",
+                            sharding.getIntList("local-shards"));
 
                     context.getLog().info("========================================");
                     context.getLog().info("Node2 Actors Summary:");
-                    context.getLog().info("  - LLMActor (processes ASK)");
-                    context.getLog().info("  - MenuActor (uses FORWARD)");
-                    context.getLog().info("  - RetrievalActor (RAG Knowledge Base)");
-                    context.getLog().info("  - DietarySpecialistActor (receives FORWARD)");
-                    context.getLog().info("  - ReservationActor (handles reservations)");
+                    context.getLog().info("  - Services: {}", hostedServices(context.getSystem()));
+                    context.getLog().info("  - RetrievalShardActors (RAG Knowledge Base shards)");
+                    context.getLog().info("  - OrderEntity shards (one entity per order)");
+                    context.getLog().info("  - ReservationEntity shards (one entity per restaurant-date)");
                     context.getLog().info("========================================");
 
                     return Behaviors.empty();
@@ -153,7 +166,7 @@ public class Main {
      */
     private static void startNode1() {
         Config config = ConfigFactory.parseString("akka.cluster.roles = [frontend]")
-                .withFallback(ConfigFactory.load("node1"));
+                .withFallback(ConfigFactory.load("Node1"));
 
         ActorSystem<Void> system = ActorSystem.create(
                 Behaviors.setup(context -> {
@@ -164,45 +177,57 @@ public class Main {
                     context.getLog().info("Address: {}", cluster.selfMember().address());
                     context.getLog().info("========================================");
 
-                    // Create LoggingActor on Node 1
+                    // Create LoggingActor on Node 1; backend nodes log to it through the Receptionist
                     ActorRef<RestaurantMessage> loggingActor = context.spawn(LoggingActor.create(), "logging-actor");
+                    register(context, ServiceKeys.LOGGING, loggingActor);
                     context.getLog().info("✅ LoggingActor created on Node1");
 
-                    // Create LOCAL instances of backend actors (Monolith mode for reliability)
-                    ActorRef<RestaurantMessage> llmActor = context.spawn(LLMActor.create(), "llm-actor");
-
-                    ActorRef<RestaurantMessage> dietarySpecialistActor = context
-                            .spawn(DietarySpecialistActor.create(loggingActor), "dietary-specialist-actor");
+                    // Services this node hosts itself (none by default: they run on the backend)
+                    startServices(context, loggingActor);
 
-                    ActorRef<RestaurantMessage> menuActor = context
-                            .spawn(MenuActor.create(loggingActor, dietarySpecialistActor), "menu-actor");
+                    // Backend services wherever they run, this node's own instances first
+                    ActorRef<RestaurantMessage> llmActor = context.spawn(service(ServiceKeys.LLM), "llm-service");
+                    ActorRef<RestaurantMessage> menuActor = context.spawn(service(ServiceKeys.MENU), "menu-service");
+                    ActorRef<RestaurantMessage> reservationActor = context.spawn(service(ServiceKeys.RESERVATION),
+                            "reservation-service");
+                    ActorRef<RestaurantMessage> retrievalActor = context.spawn(service(ServiceKeys.RETRIEVAL),
+                            "retrieval-service");
+                    context.getLog().info("✅ Service routers for LLM, menu, reservation and retrieval created on Node1");
 
-                    ActorRef<RestaurantMessage> reservationActor = context
-                            .spawn(ReservationActor.create(loggingActor), "reservation-actor");
-
-                    // Create RetrievalActor on Node1 (Local instance for simplicity in this demo)
-                    ActorRef<RestaurantMessage> retrievalActor = context.spawn(
-                            RetrievalActor.create(loggingActor),
-                            "retrieval-actor");
-                    context.getLog().info("✅ RetrievalActor created on Node1");
+                    // Scatter-gather retrieval across the backend shards
+                    ActorRef<RestaurantMessage> retrievalGateway = context.spawn(
+                            RetrievalGatewayActor.create(retrievalActor),
+                            "retrieval-gateway");
+                    context.getLog().info("✅ RetrievalGatewayActor created on Node1");
 
                     // Create GeneralChatActor on Node1
-                    ActorRef<RestaurantMessage> generalChatActor = context
-                            .spawn(GeneralChatActor.create(llmActor, retrievalActor, loggingActor),
-                                    "general-chat-actor");
-                    context.getLog().info("✅ GeneralChatActor created on Node1");
-
-                    // Create OrderActor on Node1
-                    ActorRef<RestaurantMessage> orderActor = context.spawn(OrderActor.create(loggingActor, menuActor),
-                            "order-actor");
-                    context.getLog().info("✅ OrderActor created on Node1");
+                    WorkerPools pools = new WorkerPools(context.getSystem());
+                    ActorRef<RestaurantMessage> generalChatActor = context.spawn(
+                            pools.pool("general-chat", GeneralChatActor.create(llmActor, retrievalGateway, loggingActor),
+                                    GeneralChatActor::retrievalKey),
+                            "general-chat-actor");
+                    context.getLog().info("✅ GeneralChatActor pool ({} routees) created on Node1",
+                            pools.size("general-chat"));
+
+                    // Host order entity shards on Node1 too
+                    OrderEntity.init(context.getSystem());
+                    context.getLog().info("✅ Order shard region started on Node1");
+
+                    // Host reservation shards on Node1 too
+                    ReservationEntity.init(context.getSystem());
+                    context.getLog().info("✅ Reservation shard region started on Node1");
+
+                    // Create OrderActor on Node1 (order desk in front of the sharded order entities)
+                    ActorRef<RestaurantMessage> orderActor = context.spawn(
+                            pools.pool("order", OrderActor.create(loggingActor)), "order-actor");
+                    context.getLog().info("✅ OrderActor pool ({} routees) created on Node1", pools.size("order"));
 
                     // Create RoutingActor on Node1 with REAL actors
                     ActorRef<RestaurantMessage> routingActor = context.spawn(
-                            RoutingActor.create(menuActor, orderActor, reservationActor, generalChatActor,
-                                    loggingActor),
+                            pools.pool("routing", RoutingActor.create(menuActor, orderActor, reservationActor,
+                                    generalChatActor, loggingActor)),
                             "routing-actor");
-                    context.getLog().info("✅ RoutingActor created on Node1");
+                    context.getLog().info("✅ RoutingActor pool ({} routees) created on Node1", pools.size("routing"));
 
                     // Start HTTP server
                     RestaurantHttpServer httpServer = new RestaurantHttpServer(routingActor, loggingActor,
@@ -212,7 +237,10 @@ public class Main {
                     context.getLog().info("========================================");
                     context.getLog().info("Node1 Actors Summary:");
                     context.getLog().info("  - RoutingActor (routes queries)");
-                    context.getLog().info("  - OrderActor (handles orders)");
+                    context.getLog().info("  - GeneralChatActor + RetrievalGatewayActor (RAG orchestration)");
+                    context.getLog().info("  - Services: {}", hostedServices(context.getSystem()));
+                    context.getLog().info("  - OrderActor (order desk) + OrderEntity shards");
+                    context.getLog().info("  - ReservationEntity shards");
                     context.getLog().info("  - LoggingActor (receives TELL)");
                     context.getLog().info("========================================");
 
@@ -221,4 +249,56 @@ public class Main {
                 "RestaurantSystem",
                 config);
     }
-}
\ No newline at end of file
+
+    private static List<String> hostedServices(ActorSystem<?> system) {
+        return system.settings().config().getStringList("forkfind.services.hosted");
+    }
+
+    /**
+     * Spawns the services this node hosts, each as a worker pool, and registers them with the
+     * Receptionist so every node's service routers can reach them.
+     */
+    private static void startServices(ActorContext<Void> context, ActorRef<RestaurantMessage> loggingActor) {
+        WorkerPools pools = new WorkerPools(context.getSystem());
+        for (String service : hostedServices(context.getSystem())) {
+            switch (service) {
+                case "llm":
+                    // A single LLMActor: its max-in-flight bounds this node's concurrent LLM calls
+                    register(context, ServiceKeys.LLM, context.spawn(LLMActor.create(), "llm-actor"));
+                    break;
+                case "menu":
+                    // Dietary questions are forwarded to this node's own specialists
+                    ActorRef<RestaurantMessage> dietarySpecialistActor = context.spawn(
+                            pools.pool("dietary-specialist", DietarySpecialistActor.create(loggingActor)),
+                            "dietary-specialist-actor");
+                    register(context, ServiceKeys.MENU, context.spawn(
+                            pools.pool("menu", MenuActor.create(loggingActor, dietarySpecialistActor)), "menu-actor"));
+                    break;
+                case "reservation":
+                    register(context, ServiceKeys.RESERVATION, context.spawn(
+                            pools.pool("reservation", ReservationActor.create(loggingActor)), "reservation-actor"));
+                    break;
+                case "retrieval":
+                    CorpusStores.get(context.getSystem()); // map the corpus once, before the routees share it
+                    register(context, ServiceKeys.RETRIEVAL, context.spawn(
+                            pools.pool("retrieval", RetrievalActor.create(loggingActor)), "retrieval-actor"));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown service in forkfind.services.hosted: " + service
+                            + " (expected llm, menu, reservation or retrieval)");
+            }
+            context.getLog().info("✅ Service '{}' hosted and registered", service);
+        }
+    }
+
+    private static void register(ActorContext<Void> context, ServiceKey<RestaurantMessage> key,
+            ActorRef<RestaurantMessage> service) {
+        context.getSystem().receptionist().tell(Receptionist.register(key, service));
+    }
+
+    // Group router over a service's registered instances: only this node's while it has any,
+    // the other nodes' otherwise (and as soon as the local ones deregister)
+    private static Behavior<RestaurantMessage> service(ServiceKey<RestaurantMessage> key) {
+        return Routers.group(key).withRoundRobinRouting(true);
+    }
+}
@@ -7,6 +7,9 @@ import akka.actor.typed.javadsl.ActorContext;
 import akka.actor.typed.javadsl.Behaviors;
 import akka.actor.typed.javadsl.Receive;
 import com.restaurant.messages.Messages.*;
+import com.restaurant.messages.QueryIntent;
+import com.restaurant.messages.QueryIntent.Allergen;
+import com.restaurant.messages.QueryIntent.Diet;
 
 public class DietarySpecialistActor extends AbstractBehavior<RestaurantMessage> {
 
@@ -39,7 +42,7 @@ public class DietarySpecialistActor extends AbstractBehavior<RestaurantMessage>
         System.out.println("║ Will respond DIRECTLY to original sender (not to MenuActor)");
         System.out.println("╚════════════════════════════════════════════════════════════════╝");
 
-        String response = getDietaryResponse(request.query.toLowerCase());
+        String response = getDietaryResponse(request.intent);
         String specialistResponse = "🌿 **Dietary Specialist**: \n" + response;
 
         loggingActor.tell(new LogMessage("DietarySpecialistActor --[tell]--> User", "INFO"));
@@ -48,32 +51,32 @@ public class DietarySpecialistActor extends AbstractBehavior<RestaurantMessage>
         return this;
     }
 
-    private String getDietaryResponse(String query) {
-        if (query.contains("gluten")) {
+    private String getDietaryResponse(QueryIntent intent) {
+        if (intent.allergens.contains(Allergen.GLUTEN)) {
             return "**Gluten Policy**: \n" +
                     "We have a dedicated gluten-free fryer. Items marked **GF** are safe. \n" +
                     "However, our bakery uses flour, so severe celiac cross-contamination is possible.";
-        } else if (query.contains("vegan")) {
+        } else if (intent.diets.contains(Diet.VEGAN)) {
             return "**Vegan Options**: \n" +
                     "• **Impossible Burger** (Specify no mayo)\n" +
                     "• **House Pasta** (Ask for oil instead of cream)\n" +
                     "• **Garden Salad** (Balsamic is vegan)";
-        } else if (query.contains("nut") || query.contains("peanut")) {
+        } else if (intent.allergens.contains(Allergen.NUTS)) {
             return "⚠️ **Nut Allergy Warning**: \n" +
                     "We use peanuts and tree nuts in our desserts and pesto. Please inform your server immediately.";
-        } else if (query.contains("seafood") || query.contains("shellfish")) {
+        } else if (intent.allergens.contains(Allergen.SHELLFISH)) {
             return "⚠️ **Shellfish Sensitivity**: \n" +
                     "Our Calamari and Grilled Salmon are prepared in a kitchen that handles shellfish. \n" +
                     "Avoid the 'Seafood Platter' and 'Lobster Bisque'.";
-        } else if (query.contains("soy")) {
+        } else if (intent.allergens.contains(Allergen.SOY)) {
             return "**Soy Information**: \n" +
                     "Soy is present in our Teriyaki Glaze and some salad dressings. \n" +
                     "Please ask for 'No Soy' preparation on grilled items.";
-        } else if (query.contains("dairy") || query.contains("lactose")) {
+        } else if (intent.allergens.contains(Allergen.DAIRY)) {
             return "**Dairy Free**: \n" +
                     "Our burgers can be served without cheese. \n" +
                     "The Sorbet Trio is strictly dairy-free.";
-        } else if (query.contains("egg")) {
+        } else if (intent.allergens.contains(Allergen.EGG)) {
             return "⚠️ **Egg Allergy**: \n" +
                     "Our pasta and brioche buns contain eggs. \n" +
                     "Please request gluten-free buns or salad base instead.";
@@ -7,14 +7,25 @@ import akka.actor.typed.javadsl.ActorContext;
 import akka.actor.typed.javadsl.Behaviors;
 import akka.actor.typed.javadsl.Receive;
 import com.restaurant.messages.Messages.*;
+import com.restaurant.metrics.Metrics;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class GeneralChatActor extends AbstractBehavior<RestaurantMessage> {
 
     private final ActorRef<RestaurantMessage> llmActor;
     private final ActorRef<RestaurantMessage> retrievalActor;
     private final ActorRef<RestaurantMessage> loggingActor;
+    private final Metrics metrics;
+    private final Duration llmAskTimeout;
+    private final long replyMarginMillis;
+
+    // Single-flight: RAG queries waiting on an identical outstanding retrieval, by tenant and normalized keywords
+    private final Map<String, List<PendingQuery>> inFlightRetrievals = new HashMap<>();
 
     public static Behavior<RestaurantMessage> create(
             ActorRef<RestaurantMessage> llmActor,
@@ -31,19 +42,41 @@ public class GeneralChatActor extends AbstractBehavior<RestaurantMessage> {
         this.llmActor = llmActor;
         this.retrievalActor = retrievalActor;
         this.loggingActor = loggingActor;
+        this.metrics = Metrics.get(context.getSystem());
+        this.llmAskTimeout = context.getSystem().settings().config().getDuration("forkfind.llm.ask-timeout");
+        this.replyMarginMillis = context.getSystem().settings().config().getDuration("forkfind.llm.reply-margin")
+                .toMillis();
+        metrics.shareGauge("retrieval.coalesce.ratio", "retrieval.coalesce.followers", "retrieval.coalesce.leaders");
     }
 
-    // Internal wrapper class to carry context
-    private static class WrappedRetrievalResult implements RestaurantMessage {
-        public final RetrievalResponse response;
+    // A RAG query waiting for its retrieval context
+    private static class PendingQuery {
         public final String originalQuery;
         public final ActorRef<QueryResponse> originalReplyTo;
+        public final ActorRef<LLMStreamChunk> streamTo;
+        public final LLMPriority priority;
+        public final String tenantId;
+        public final long deadlineMillis; // the edge's, 0 for none
 
-        public WrappedRetrievalResult(RetrievalResponse response, String originalQuery,
-                ActorRef<QueryResponse> originalReplyTo) {
-            this.response = response;
+        public PendingQuery(String originalQuery, ActorRef<QueryResponse> originalReplyTo,
+                ActorRef<LLMStreamChunk> streamTo, LLMPriority priority, String tenantId, long deadlineMillis) {
             this.originalQuery = originalQuery;
             this.originalReplyTo = originalReplyTo;
+            this.streamTo = streamTo;
+            this.priority = priority;
+            this.tenantId = tenantId;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+
+    // Internal wrapper class to carry context
+    private static class WrappedRetrievalResult implements RestaurantMessage {
+        public final RetrievalResponse response;
+        public final String retrievalKey;
+
+        public WrappedRetrievalResult(RetrievalResponse response, String retrievalKey) {
+            this.response = response;
+            this.retrievalKey = retrievalKey;
         }
     }
 
@@ -56,36 +89,65 @@ public class GeneralChatActor extends AbstractBehavior<RestaurantMessage> {
                 .build();
     }
 
+    /**
+     * Key of the single-flight retrieval a query joins. Pools of this actor hash on it, so
+     * identical queries meet in the same routee and still share one retrieval.
+     */
+    public static String retrievalKey(RestaurantMessage message) {
+        if (!(message instanceof QueryRequest)) {
+            return "";
+        }
+        QueryRequest request = (QueryRequest) message;
+        return (request.tenantId != null ? request.tenantId + ":" : "")
+                + request.query.trim().toLowerCase().replaceAll("\\s+", " ");
+    }
+
     private Behavior<RestaurantMessage> onQueryRequest(QueryRequest request) {
         // If the query type is "chat", utilize DIRECT LLM (No RAG).
         // If the query type is "menu", "order", "reservation", utilize RAG (Context +
         // LLM).
 
         boolean isGeneralChat = "chat".equalsIgnoreCase(request.queryType);
+        LLMPriority priority = LLMPriority.forQueryType(request.queryType);
 
         if (isGeneralChat) {
             System.out.println("\n--- [GeneralChatActor] Processing CASUAL CHAT (No RAG) ---");
             String prompt = "You are a helpful and friendly AI assistant. Answer this: \"" + request.query + "\"";
-            askLLM(prompt, request.replyTo);
+            askLLM(prompt, request.replyTo, request.streamTo, priority, null, request.deadlineMillis);
         } else {
             System.out.println("\n--- [GeneralChatActor] Processing RAG QUERY (With Knowledge Base) ---");
             loggingActor.tell(new LogMessage("GeneralChatActor --[ask]--> RetrievalActor", "INFO"));
 
-            ActorRef<QueryResponse> originalReplyTo = request.replyTo;
-            String originalQuery = request.query;
+            PendingQuery pendingQuery = new PendingQuery(request.query, request.replyTo, request.streamTo,
+                    priority, request.tenantId, request.deadlineMillis);
+            String retrievalKey = retrievalKey(request);
+
+            List<PendingQuery> waiting = inFlightRetrievals.get(retrievalKey);
+            if (waiting != null) {
+                // ========== SINGLE-FLIGHT ==========
+                System.out.println("   ↳ Identical retrieval already in flight, attaching to it");
+                metrics.increment("retrieval.coalesce.followers");
+                waiting.add(pendingQuery);
+                return this;
+            }
+
+            metrics.increment("retrieval.coalesce.leaders");
+            waiting = new ArrayList<>();
+            waiting.add(pendingQuery);
+            inFlightRetrievals.put(retrievalKey, waiting);
 
             getContext().ask(
                     RetrievalResponse.class,
                     retrievalActor,
                     Duration.ofSeconds(3),
-                    (ActorRef<RetrievalResponse> ref) -> new RetrievalRequest(originalQuery, ref),
+                    (ActorRef<RetrievalResponse> ref) -> new RetrievalRequest(pendingQuery.originalQuery, ref,
+                            pendingQuery.tenantId, request.intent.wholeMenu),
                     (response, throwable) -> {
                         if (throwable != null) {
                             // Fallback to empty context on error
-                            return new WrappedRetrievalResult(new RetrievalResponse("", false), originalQuery,
-                                    originalReplyTo);
+                            return new WrappedRetrievalResult(new RetrievalResponse("", false), retrievalKey);
                         }
-                        return new WrappedRetrievalResult(response, originalQuery, originalReplyTo);
+                        return new WrappedRetrievalResult(response, retrievalKey);
                     });
         }
         return this;
@@ -93,37 +155,57 @@ public class GeneralChatActor extends AbstractBehavior<RestaurantMessage> {
 
     private Behavior<RestaurantMessage> onWrappedRetrievalResult(WrappedRetrievalResult wrapper) {
         String context = wrapper.response != null ? wrapper.response.context : "";
-        String query = wrapper.originalQuery;
-
-        System.out.println("   ↳ GeneralChatActor received RAG Context (" + context.length() + " chars)");
-
-        String prompt = "You are a specialized restaurant assistant for ForkFind.\n" +
-                "Use the following KNOWLEDGE BASE to answer the user request carefully.\n" +
-                "IMPORTANT: If the user asks to see the menu, you MUST list all the items found in the KNOWLEDGE BASE below. Do not summarize.\n"
-                +
-                "Format the output nicely with bullet points.\n\n" +
-                "=== KNOWLEDGE BASE ===\n" + context + "\n\n" +
-                "=== END KNOWLEDGE BASE ===\n\n" +
-                "User Query: \"" + query + "\"";
-
-        askLLM(prompt, wrapper.originalReplyTo);
+        List<PendingQuery> waiting = inFlightRetrievals.remove(wrapper.retrievalKey);
+
+        System.out.println("   ↳ GeneralChatActor received RAG Context (" + context.length() + " chars) for "
+                + waiting.size() + " waiting queries");
+
+        for (PendingQuery pendingQuery : waiting) {
+            String prompt = "You are a specialized restaurant assistant for ForkFind.\n" +
+                    "Use the following KNOWLEDGE BASE to answer the user request carefully.\n" +
+                    "IMPORTANT: If the user asks to see the menu, you MUST list all the items found in the KNOWLEDGE BASE below. Do not summarize.\n"
+                    +
+                    "Format the output nicely with bullet points.\n\n" +
+                    "=== KNOWLEDGE BASE ===\n" + context + "\n\n" +
+                    "=== END KNOWLEDGE BASE ===\n\n" +
+                    "User Query: \"" + pendingQuery.originalQuery + "\"";
+
+            askLLM(prompt, pendingQuery.originalReplyTo, pendingQuery.streamTo, pendingQuery.priority,
+                    wrapper.response != null && wrapper.response.success ? context : null,
+                    pendingQuery.deadlineMillis);
+        }
         return this;
     }
 
-    private void askLLM(String prompt, ActorRef<QueryResponse> replyTo) {
+    private void askLLM(String prompt, ActorRef<QueryResponse> replyTo, ActorRef<LLMStreamChunk> streamTo,
+            LLMPriority priority, String fallbackContext, long edgeDeadlineMillis) {
+        // Stop waiting reply-margin before the edge gives up, so the fallback still reaches the guest
+        Duration askTimeout = llmAskTimeout;
+        if (edgeDeadlineMillis > 0) {
+            long left = edgeDeadlineMillis - replyMarginMillis - System.currentTimeMillis();
+            if (left <= 0) {
+                getContext().getSelf().tell(new WrappedLLMResponse(
+                        new LLMResponse("Error: no time left for the LLM", false), replyTo, fallbackContext));
+                return;
+            }
+            askTimeout = Duration.ofMillis(Math.min(left, llmAskTimeout.toMillis()));
+        }
         loggingActor.tell(new LogMessage("GeneralChatActor --[ask]--> LLMActor", "INFO"));
+        // When this ask gives up, which the edge's deadline bounds: LLMActor drops the request if
+        // it is still queued by then, and stops retrying it
+        long deadline = System.currentTimeMillis() + askTimeout.toMillis();
 
         getContext().ask(
                 LLMResponse.class,
                 llmActor,
-                Duration.ofSeconds(60),
-                (ActorRef<LLMResponse> ref) -> new LLMRequest(prompt, ref),
+                askTimeout,
+                (ActorRef<LLMResponse> ref) -> new LLMRequest(prompt, ref, streamTo, priority, deadline),
                 (response, throwable) -> {
                     if (throwable != null) {
                         return new WrappedLLMResponse(
-                                new LLMResponse("Error: " + throwable.getMessage(), false), replyTo);
+                                new LLMResponse("Error: " + throwable.getMessage(), false), replyTo, fallbackContext);
                     }
-                    return new WrappedLLMResponse(response, replyTo);
+                    return new WrappedLLMResponse(response, replyTo, fallbackContext);
                 });
     }
 
@@ -132,7 +214,17 @@ public class GeneralChatActor extends AbstractBehavior<RestaurantMessage> {
 
         if (wrapped.originalReplyTo != null) {
             loggingActor.tell(new LogMessage("GeneralChatActor --[tell]--> User", "INFO"));
-            wrapped.originalReplyTo.tell(new QueryResponse(wrapped.response.result, wrapped.response.success));
+            if (!wrapped.response.success && wrapped.fallbackContext != null && !wrapped.fallbackContext.isEmpty()) {
+                // LLM unavailable (breaker open, timeout, provider errors): answer from the knowledge base alone
+                System.out.println("   ↳ LLM failed, falling back to retrieval-only answer");
+                metrics.increment("llm.fallback.retrieval-only");
+                wrapped.originalReplyTo.tell(new QueryResponse(
+                        "Our assistant is busy right now, but here is what I found on our menu:\n\n"
+                                + wrapped.fallbackContext,
+                        true));
+            } else {
+                wrapped.originalReplyTo.tell(new QueryResponse(wrapped.response.result, wrapped.response.success));
+            }
         }
 
         return this;
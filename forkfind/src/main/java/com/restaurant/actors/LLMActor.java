@@ -1,206 +1,334 @@
 package com.restaurant.actors;
 
+import akka.actor.typed.ActorRef;
 import akka.actor.typed.Behavior;
+import akka.actor.typed.DispatcherSelector;
+import akka.actor.typed.PostStop;
 import akka.actor.typed.javadsl.AbstractBehavior;
 import akka.actor.typed.javadsl.ActorContext;
 import akka.actor.typed.javadsl.Behaviors;
 import akka.actor.typed.javadsl.Receive;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.llm.LLMBackends;
+import com.restaurant.llm.LLMResponseCache;
+import com.restaurant.llm.ResilientLLMBackend;
 import com.restaurant.messages.Messages.*;
-import io.github.cdimascio.dotenv.Dotenv;
-import okhttp3.*;
+import com.restaurant.metrics.Metrics;
+import com.typesafe.config.Config;
 
-import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class LLMActor extends AbstractBehavior<RestaurantMessage> {
 
-    private static String API_KEY;
-    private static final String API_URL = "https://openrouter.ai/api/v1/chat/completions";
-    private final OkHttpClient httpClient;
-    private final ObjectMapper objectMapper;
-
-    static {
-        // Try to load from .env file first
-        try {
-            Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
-            // Prefer OPENROUTER_API_KEY, fallback to OPENAI_API_KEY
-            API_KEY = dotenv.get("OPENROUTER_API_KEY");
-            if (API_KEY == null || API_KEY.isEmpty()) {
-                API_KEY = dotenv.get("OPENAI_API_KEY");
-            }
+    private final ResilientLLMBackend backend;
+    private final String model;
+    private final int maxTokens;
+    private final LLMResponseCache cache; // null when caching is disabled
+    private final Metrics metrics;
 
-            if (API_KEY != null) {
-                System.out.println("✅ Loaded API Key from .env file");
-            }
-        } catch (Exception e) {
-            System.out.println("⚠️  Could not load .env file, trying environment variable...");
+    // Bound on concurrent LLM calls; calls beyond it wait in priority order, then arrival order
+    private final int maxInFlight;
+    private int inFlight = 0;
+    private final int maxQueueDepth;
+    private final TreeSet<InFlightCall> queue = new TreeSet<>(
+            Comparator.comparingInt((InFlightCall c) -> c.priority.ordinal()).thenComparingLong(c -> c.seq));
+    private long nextSeq = 0;
+
+    // This actor's share of the node's queue and in-flight gauges, published after each message
+    private final AtomicInteger queueDepthLevel;
+    private final AtomicInteger inFlightLevel;
+    private int publishedQueueDepth = 0;
+    private int publishedInFlight = 0;
+
+    // Single-flight: identical prompts share one outstanding (running or queued) call
+    private final Map<String, InFlightCall> calls = new HashMap<>();
+
+    // One provider call and every request waiting on its result
+    private static class InFlightCall {
+        final String key;
+        final String prompt;
+        final long seq;
+        final long createdNanos = System.nanoTime();
+        LLMPriority priority; // highest priority among the waiters
+        long deadlineMillis = -1; // latest deadline among the waiters, 0 when one has none
+        final List<LLMRequest> waiters = new ArrayList<>(); // touched only by the actor
+        private final StringBuilder streamed = new StringBuilder();
+        private final List<ActorRef<LLMStreamChunk>> subscribers = new ArrayList<>();
+
+        InFlightCall(String key, String prompt, LLMPriority priority, long seq) {
+            this.key = key;
+            this.prompt = prompt;
+            this.priority = priority;
+            this.seq = seq;
         }
 
-        // Fall back to system environment variable if still null
-        if (API_KEY == null || API_KEY.isEmpty()) {
-            API_KEY = System.getenv("OPENROUTER_API_KEY");
-            if (API_KEY == null || API_KEY.isEmpty()) {
-                API_KEY = System.getenv("OPENAI_API_KEY");
+        // Late subscribers first receive everything streamed so far
+        synchronized void subscribe(ActorRef<LLMStreamChunk> streamTo) {
+            if (streamed.length() > 0) {
+                streamTo.tell(new LLMStreamChunk(streamed.toString(), false, true));
             }
+            subscribers.add(streamTo);
+        }
 
-            if (API_KEY != null && !API_KEY.isEmpty()) {
-                System.out.println("✅ Loaded API Key from environment variable");
+        // Called from the backend's threads
+        synchronized void publish(String delta) {
+            streamed.append(delta);
+            for (ActorRef<LLMStreamChunk> subscriber : subscribers) {
+                subscriber.tell(new LLMStreamChunk(delta, false, true));
             }
         }
+    }
+
+    // Internal message: result of an asynchronous LLM call piped back to this actor
+    private static class LLMCallCompleted implements RestaurantMessage {
+        public final InFlightCall call;
+        public final String result;
+        public final Throwable failure;
 
-        if (API_KEY == null || API_KEY.isEmpty()) {
-            System.out.println("⚠️  WARNING: No API KEY found (checked OPENROUTER_API_KEY and OPENAI_API_KEY)");
-            System.out.println("   ↳ Will use mock responses instead of real LLM");
+        public LLMCallCompleted(InFlightCall call, String result, Throwable failure) {
+            this.call = call;
+            this.result = result;
+            this.failure = failure;
+        }
+    }
+
+    // Internal message: the disk tier of the cache was checked for a request that missed memory
+    private static class DiskCacheChecked implements RestaurantMessage {
+        public final LLMRequest request;
+        public final String key;
+        public final Optional<String> cached;
+
+        public DiskCacheChecked(LLMRequest request, String key, Optional<String> cached) {
+            this.request = request;
+            this.key = key;
+            this.cached = cached;
         }
     }
 
     public static Behavior<RestaurantMessage> create() {
-        return Behaviors.setup(LLMActor::new);
+        return Behaviors.setup(context -> new LLMActor(context,
+                context.getSystem().settings().config().getConfig("forkfind.llm")));
     }
 
-    private LLMActor(ActorContext<RestaurantMessage> context) {
+    private LLMActor(ActorContext<RestaurantMessage> context, Config config) {
         super(context);
-        this.httpClient = new OkHttpClient();
-        this.objectMapper = new ObjectMapper();
+        this.maxInFlight = Math.max(1, config.getInt("max-in-flight"));
+        this.maxQueueDepth = Math.max(0, config.getInt("queue.max-depth"));
+        this.model = config.getString("model");
+        this.maxTokens = config.getInt("max-tokens");
+        this.metrics = Metrics.get(context.getSystem());
+        metrics.shareGauge("llm.coalesce.ratio", "llm.coalesce.followers", "llm.coalesce.leaders");
+        this.queueDepthLevel = metrics.level("llm.queue.depth");
+        this.inFlightLevel = metrics.level("llm.in-flight");
+
+        this.backend = new ResilientLLMBackend(LLMBackends.fromConfig(config), config.getConfig("resilience"),
+                context.getSystem());
+
+        // Only real completions are cached: canned mock replies must not outlive the missing key
+        Config cacheConfig = config.getConfig("cache");
+        if (cacheConfig.getBoolean("enabled") && backend.cacheable()) {
+            String diskDir = cacheConfig.getString("disk-dir");
+            this.cache = new LLMResponseCache(
+                    cacheConfig.getInt("max-entries"),
+                    cacheConfig.getDuration("ttl"),
+                    diskDir.isEmpty() ? null : Paths.get(diskDir),
+                    cacheConfig.getInt("disk-max-entries"),
+                    context.getSystem().dispatchers().lookup(DispatcherSelector.blocking()),
+                    metrics);
+        } else {
+            this.cache = null;
+        }
     }
 
     @Override
     public Receive<RestaurantMessage> createReceive() {
         return newReceiveBuilder()
-                .onMessage(LLMRequest.class, this::onLLMRequest)
+                .onMessage(LLMRequest.class, request -> publishLevels(onLLMRequest(request)))
+                .onMessage(LLMCallCompleted.class, completed -> publishLevels(onLLMCallCompleted(completed)))
+                .onMessage(DiskCacheChecked.class, checked -> publishLevels(onDiskCacheChecked(checked)))
+                .onSignal(PostStop.class, signal -> onPostStop())
                 .build();
     }
 
+    private Behavior<RestaurantMessage> publishLevels(Behavior<RestaurantMessage> next) {
+        queueDepthLevel.addAndGet(queue.size() - publishedQueueDepth);
+        inFlightLevel.addAndGet(inFlight - publishedInFlight);
+        publishedQueueDepth = queue.size();
+        publishedInFlight = inFlight;
+        return next;
+    }
+
+    private Behavior<RestaurantMessage> onPostStop() {
+        queueDepthLevel.addAndGet(-publishedQueueDepth);
+        inFlightLevel.addAndGet(-publishedInFlight);
+        return this;
+    }
+
     private Behavior<RestaurantMessage> onLLMRequest(LLMRequest request) {
         System.out.println("\n╔════════════════════════════════════════════════════════════════╗");
-        System.out.println("║ 🤖 LLM ACTOR - Processing Request (via OpenRouter)              ║");
+        System.out.println("║ 🤖 LLM ACTOR - Processing Request                               ║");
         System.out.println("╠════════════════════════════════════════════════════════════════╣");
+        System.out.println("║ Backend: " + backend.name());
         System.out.println("║ Prompt: " + request.prompt.substring(0, Math.min(60, request.prompt.length())) + "...");
+        System.out.println("║ Priority: " + request.priority);
+        System.out.println("║ In flight: " + inFlight + "/" + maxInFlight + ", Queued: " + queue.size());
         System.out.println("╚════════════════════════════════════════════════════════════════╝");
 
-        try {
-            String response = callLLM(request.prompt);
-            System.out.println("\n✅ LLM Response received successfully");
-            System.out.println("   ↳ Sending response back to requester (completing ASK pattern)\n");
+        String key = LLMResponseCache.key(request.prompt, model, maxTokens);
+        if (cache != null) {
+            if (replyFromCache(request, cache.get(key))) {
+                return this;
+            }
+            if (cache.hasDiskTier()) {
+                // File reads stay off this actor, which every LLM call of the node goes through
+                getContext().pipeToSelf(cache.getFromDisk(key),
+                        (cached, failure) -> new DiskCacheChecked(request, key,
+                                failure == null ? cached : Optional.empty()));
+                return this;
+            }
+        }
+        return dispatch(request, key);
+    }
+
+    private Behavior<RestaurantMessage> onDiskCacheChecked(DiskCacheChecked checked) {
+        // A call for the same prompt may have completed while the disk was read
+        if (replyFromCache(checked.request, checked.cached.isPresent() ? checked.cached : cache.get(checked.key))) {
+            return this;
+        }
+        return dispatch(checked.request, checked.key);
+    }
 
-            // Reply back to the actor that asked (ASK pattern response)
-            request.replyTo.tell(new LLMResponse(response, true));
-        } catch (Exception e) {
-            System.err.println("\n❌ LLM API Error: " + e.getMessage());
-            request.replyTo.tell(new LLMResponse(
-                    "Sorry, I couldn't process your request: " + e.getMessage(),
-                    false));
+    private boolean replyFromCache(LLMRequest request, Optional<String> cached) {
+        if (cached.isEmpty()) {
+            return false;
+        }
+        System.out.println("   ↳ Cache hit, replying without calling the provider");
+        if (request.streamTo != null) {
+            request.streamTo.tell(new LLMStreamChunk(cached.get(), false, true));
+        }
+        request.replyTo.tell(new LLMResponse(cached.get(), true));
+        return true;
+    }
+
+    private Behavior<RestaurantMessage> dispatch(LLMRequest request, String key) {
+        InFlightCall call = calls.get(key);
+        if (call != null) {
+            // ========== SINGLE-FLIGHT ==========
+            System.out.println("   ↳ Identical prompt already in flight, attaching to it ("
+                    + call.waiters.size() + " waiting)");
+            metrics.increment("llm.coalesce.followers");
+            attach(call, request);
+            if (request.priority.compareTo(call.priority) < 0 && queue.remove(call)) {
+                // A more important request now waits on this queued call: move it up
+                call.priority = request.priority;
+                queue.add(call);
+            }
+            return this;
+        }
+
+        metrics.increment("llm.coalesce.leaders");
+        call = new InFlightCall(key, request.prompt, request.priority, nextSeq++);
+        calls.put(key, call);
+        attach(call, request);
+
+        if (inFlight < maxInFlight) {
+            startCall(call);
+        } else if (queue.size() < maxQueueDepth) {
+            System.out.println("   ↳ In-flight limit reached, queueing request");
+            queue.add(call);
+        } else if (!queue.isEmpty() && queue.last().priority.compareTo(call.priority) > 0) {
+            // Queue full: the least important queued call makes room for this one
+            shed(queue.pollLast());
+            queue.add(call);
+        } else {
+            shed(call);
         }
 
         return this;
     }
 
-    private String callLLM(String prompt) throws IOException {
-        // Check if API key is available
-        if (API_KEY == null || API_KEY.isEmpty()) {
-            System.out.println("   ↳ No API key found, using mock response");
-            return generateMockResponse(prompt);
+    // Overloaded: answer immediately with a degraded reply rather than queueing without bound
+    private void shed(InFlightCall call) {
+        System.out.println("   ↳ LLM queue full, shedding " + call.priority + " request");
+        calls.remove(call.key);
+        metrics.increment("llm.queue.shed");
+        metrics.increment("llm.queue.shed." + call.priority.name().toLowerCase());
+        for (LLMRequest waiter : call.waiters) {
+            waiter.replyTo.tell(new LLMResponse(
+                    "We're handling a lot of requests right now. Please try again in a moment.", false));
         }
+    }
 
-        System.out.println("   ↳ Calling OpenRouter API (Streaming Mode)...");
+    private void attach(InFlightCall call, LLMRequest request) {
+        call.waiters.add(request);
+        call.deadlineMillis = call.deadlineMillis == 0 || request.deadlineMillis == 0 ? 0
+                : Math.max(call.deadlineMillis, request.deadlineMillis);
+        if (request.streamTo != null) {
+            call.subscribe(request.streamTo);
+        }
+    }
 
-        // Build request body - Enable Streaming
-        String jsonBody = String.format(
-                "{\"model\": \"openai/gpt-4o-mini\", \"messages\": [{\"role\": \"user\", \"content\": \"%s\"}], \"max_tokens\": 300, \"stream\": true}",
-                prompt.replace("\"", "\\\"").replace("\n", "\\n"));
+    private void startCall(InFlightCall call) {
+        long waitedMillis = (System.nanoTime() - call.createdNanos) / 1_000_000;
+        metrics.histogram("llm.queue.wait-ms").record(waitedMillis);
+        metrics.histogram("llm.queue.wait-ms." + call.priority.name().toLowerCase()).record(waitedMillis);
+        inFlight++;
+        // The HTTP call runs off the actor; its outcome comes back as a message
+        getContext().pipeToSelf(
+                backend.complete(call.prompt, call::publish, call.deadlineMillis),
+                (result, failure) -> new LLMCallCompleted(call, result, failure));
+    }
 
-        RequestBody body = RequestBody.create(
-                jsonBody,
-                MediaType.parse("application/json"));
+    private Behavior<RestaurantMessage> onLLMCallCompleted(LLMCallCompleted completed) {
+        inFlight--;
+        calls.remove(completed.call.key);
+        List<LLMRequest> waiters = completed.call.waiters;
 
-        Request httpRequest = new Request.Builder()
-                .url(API_URL)
-                .addHeader("Authorization", "Bearer " + API_KEY)
-                .addHeader("Content-Type", "application/json")
-                .addHeader("HTTP-Referer", "http://localhost:8080") // Site URL
-                .addHeader("X-Title", "ForkFind Restaurant App") // Site Name
-                .post(body)
-                .build();
+        if (completed.failure == null) {
+            System.out.println("\n✅ LLM Response received successfully");
+            System.out.println("   ↳ Sending response back to requester (completing ASK pattern)\n");
 
-        // Execute request
-        try (Response response = httpClient.newCall(httpRequest).execute()) {
-            if (!response.isSuccessful()) {
-                if (response.code() == 401) {
-                    System.out.println("⚠️  API Key Invalid/Unauthorized (401) - Falling back to MOCK MODE");
-                    return generateMockResponse(prompt);
-                }
-                throw new IOException("API request failed: " + response.code() + " - " + response.message());
+            if (cache != null) {
+                cache.put(completed.call.key, completed.result);
             }
 
-            // Handle Streaming Response (Server-Sent Events)
-            java.io.BufferedReader reader = new java.io.BufferedReader(response.body().charStream());
-            StringBuilder fullResponse = new StringBuilder();
-            String line;
-
-            while ((line = reader.readLine()) != null) {
-                if (line.startsWith("data: ")) {
-                    String data = line.substring(6).trim();
-                    if ("[DONE]".equals(data)) {
-                        break;
-                    }
-
-                    try {
-                        JsonNode node = objectMapper.readTree(data);
-                        if (node.has("choices") && node.get("choices").size() > 0) {
-                            JsonNode choice = node.get("choices").get(0);
-                            if (choice.has("delta") && choice.get("delta").has("content")) {
-                                String content = choice.get("delta").get("content").asText();
-                                fullResponse.append(content);
-                            }
-                        }
-                    } catch (Exception e) {
-                        // Creating logging if parsing fails for a chunk, but continue streaming
-                        // System.err.println("Error parsing stream chunk: " + e.getMessage());
-                    }
-                }
+            // Reply back to every actor that asked (ASK pattern response)
+            for (LLMRequest waiter : waiters) {
+                waiter.replyTo.tell(new LLMResponse(completed.result, true));
             }
+        } else {
+            Throwable cause = completed.failure instanceof CompletionException
+                    && completed.failure.getCause() != null ? completed.failure.getCause() : completed.failure;
+            System.err.println("\n❌ LLM API Error: " + cause.getMessage());
+            for (LLMRequest waiter : waiters) {
+                waiter.replyTo.tell(new LLMResponse(
+                        "Sorry, I couldn't process your request: " + cause.getMessage(),
+                        false));
+            }
+        }
 
-            System.out.println("   ↳ OpenRouter API stream completed");
-            if (fullResponse.length() == 0) {
-                return "Error: Empty response from LLM provider";
+        long now = System.currentTimeMillis();
+        while (inFlight < maxInFlight && !queue.isEmpty()) {
+            InFlightCall next = queue.pollFirst();
+            // Callers whose ask already timed out will never read the answer
+            int before = next.waiters.size();
+            next.waiters.removeIf(waiter -> waiter.isExpired(now));
+            metrics.add("llm.queue.expired", before - next.waiters.size());
+            if (next.waiters.isEmpty()) {
+                calls.remove(next.key);
+                continue;
             }
-            return fullResponse.toString();
-        }
-    }
-
-    private String generateMockResponse(String prompt) {
-        // Generate contextual mock responses based on prompt content
-        String promptLower = prompt.toLowerCase();
-
-        if (promptLower.contains("dietary") || promptLower.contains("vegan") ||
-                promptLower.contains("gluten") || promptLower.contains("allergen")) {
-            return "Based on your dietary requirements:\n\n"
-                    + "✓ Our Grilled Vegetable Medley is completely vegan and gluten-free\n"
-                    + "✓ Ingredients: Seasonal vegetables, olive oil, herbs (no dairy, no gluten)\n"
-                    + "✓ Prepared on dedicated gluten-free equipment\n"
-                    + "✓ Alternative options: Quinoa Buddha Bowl, Mediterranean Salad\n\n"
-                    + "All dishes can be customized to meet your specific dietary needs!";
-        } else if (promptLower.contains("order")) {
-            return "Order Management Update:\n\n"
-                    + "📦 Your order has been received\n"
-                    + "✓ Current status: In preparation\n"
-                    + "✓ Estimated time: 25-30 minutes\n"
-                    + "✓ Modifications can be made up to 15 minutes before completion\n\n"
-                    + "Would you like to make any changes?";
-        } else if (promptLower.contains("reservation")) {
-            return "Reservation Information:\n\n"
-                    + "📅 Available time slots today:\n"
-                    + "• 6:30 PM - Window seating (2-4 guests)\n"
-                    + "• 7:15 PM - Patio area (2-6 guests)\n"
-                    + "• 8:00 PM - Main dining room (any party size)\n\n"
-                    + "Would you like to proceed with booking?";
-        } else {
-            return "Thank you for your inquiry! Here are some recommendations:\n\n"
-                    + "🍝 Pasta Specials: Truffle Carbonara, Seafood Linguine\n"
-                    + "🥗 Salads: Caesar, Mediterranean, Garden Fresh\n"
-                    + "🍰 Desserts: Tiramisu, Chocolate Lava Cake, Panna Cotta\n\n"
-                    + "All dishes are prepared fresh daily with premium ingredients!";
+            startCall(next);
         }
+
+        return this;
     }
-}
\ No newline at end of file
+}
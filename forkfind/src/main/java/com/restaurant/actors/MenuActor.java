@@ -6,7 +6,18 @@ import akka.actor.typed.javadsl.AbstractBehavior;
 import akka.actor.typed.javadsl.ActorContext;
 import akka.actor.typed.javadsl.Behaviors;
 import akka.actor.typed.javadsl.Receive;
+import com.restaurant.catalog.MenuCatalog;
+import com.restaurant.catalog.MenuCatalogs;
+import com.restaurant.catalog.MenuItem;
+import com.restaurant.catalog.MenuItemMatcher;
+import com.restaurant.catalog.TenantCatalogs;
 import com.restaurant.messages.Messages.*;
+import com.restaurant.messages.QueryIntent;
+import com.restaurant.order.OrderPricer;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public class MenuActor extends AbstractBehavior<RestaurantMessage> {
 
@@ -19,9 +30,28 @@ public class MenuActor extends AbstractBehavior<RestaurantMessage> {
         return Behaviors.setup(context -> new MenuActor(context, loggingActor, dietarySpecialistActor));
     }
 
-    // Cache for menu items (Name -> Price)
-    private final java.util.Map<String, Double> menuCache = new java.util.HashMap<>();
-    private final java.util.Map<String, String> descCache = new java.util.HashMap<>();
+    // Shared, hot-reloaded menu snapshot; tenants' catalogs are resolved per request
+    private final MenuCatalogs catalogs;
+    private final TenantCatalogs tenants;
+    private final double minMatchConfidence;
+    private final double ambiguityMargin;
+
+    private static final int MAX_ITEMS_SHOWN = 5;
+
+    // Internal message: the catalog of a request's restaurant (null for an unknown one) or why it failed to load
+    private static class CatalogResolved implements RestaurantMessage {
+        public final RestaurantMessage request;
+        public final String tenantId;
+        public final MenuCatalog catalog;
+        public final Throwable failure;
+
+        public CatalogResolved(RestaurantMessage request, String tenantId, MenuCatalog catalog, Throwable failure) {
+            this.request = request;
+            this.tenantId = tenantId;
+            this.catalog = catalog;
+            this.failure = failure;
+        }
+    }
 
     private MenuActor(ActorContext<RestaurantMessage> context,
             ActorRef<RestaurantMessage> loggingActor,
@@ -29,50 +59,12 @@ public class MenuActor extends AbstractBehavior<RestaurantMessage> {
         super(context);
         this.loggingActor = loggingActor;
         this.dietarySpecialistActor = dietarySpecialistActor;
-        loadMenuFromFile();
-    }
-
-    // Helper to load file content
-    private void loadMenuFromFile() {
-        try {
-            java.io.InputStream is = getClass().getClassLoader().getResourceAsStream("menu_knowledge.txt");
-            if (is == null) {
-                System.err.println("❌ MenuActor: Could not find menu_knowledge.txt");
-                return;
-            }
-            String content = new String(is.readAllBytes(), java.nio.charset.StandardCharsets.UTF_8);
-            String[] lines = content.split("\n");
-
-            String currentItem = "";
-            for (String line : lines) {
-                line = line.trim();
-                // Match lines like "Burger: $16"
-                if (line.contains(": $")) {
-                    String[] parts = line.split(": \\$");
-                    if (parts.length == 2) {
-                        String name = parts[0].trim();
-                        try {
-                            double price = Double.parseDouble(parts[1].split("\\s")[0]); // Handle "$16 (side)"
-                            menuCache.put(name.toLowerCase(), price);
-                            currentItem = name;
-
-                            // Add nicely formatted name to description cache initially
-                            descCache.put(name.toLowerCase(), name);
-                        } catch (Exception e) {
-                        }
-                    }
-                } else if (!currentItem.isEmpty() && !line.isEmpty() && !line.startsWith("===")
-                        && !line.startsWith("Dietary")) {
-                    // Add description detail
-                    String key = currentItem.toLowerCase();
-                    descCache.put(key, descCache.get(key) + ": " + line);
-                    currentItem = ""; // Only take first line of description for simple summary
-                }
-            }
-            System.out.println("✅ MenuActor: Loaded " + menuCache.size() + " items from knowledge base.");
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        this.catalogs = MenuCatalogs.get(context.getSystem());
+        this.tenants = TenantCatalogs.get(context.getSystem());
+        this.minMatchConfidence = context.getSystem().settings().config()
+                .getDouble("forkfind.catalog.min-match-confidence");
+        this.ambiguityMargin = context.getSystem().settings().config()
+                .getDouble("forkfind.catalog.ambiguity-margin");
     }
 
     @Override
@@ -80,6 +72,8 @@ public class MenuActor extends AbstractBehavior<RestaurantMessage> {
         return newReceiveBuilder()
                 .onMessage(QueryRequest.class, this::onQueryRequest)
                 .onMessage(ValidateItemRequest.class, this::onValidateItemRequest)
+                .onMessage(ValidateItemsRequest.class, this::onValidateItemsRequest)
+                .onMessage(CatalogResolved.class, this::onCatalogResolved)
                 .build();
     }
 
@@ -90,15 +84,8 @@ public class MenuActor extends AbstractBehavior<RestaurantMessage> {
         System.out.println("║ Query: " + request.query);
         System.out.println("╚════════════════════════════════════════════════════════════════╝");
 
-        // Check if query contains dietary keywords
-        String queryLower = request.query.toLowerCase();
-        boolean isDietaryQuery = queryLower.contains("vegan") ||
-                queryLower.contains("vegetarian") ||
-                queryLower.contains("gluten") ||
-                queryLower.contains("dairy") ||
-                queryLower.contains("allergy") ||
-                queryLower.contains("allergen") ||
-                queryLower.contains("dietary");
+        // Dietary keywords were found when the query came in
+        boolean isDietaryQuery = request.intent.intent == QueryIntent.Intent.DIETARY;
 
         if (isDietaryQuery) {
             // ========== FORWARD PATTERN ==========
@@ -112,48 +99,125 @@ public class MenuActor extends AbstractBehavior<RestaurantMessage> {
             // FORWARD: Pass request to specialist with original sender preserved
             dietarySpecialistActor.tell(request);
 
+        } else if (request.tenantId != null) {
+            resolve(request.tenantId, request);
         } else {
-            System.out.println("\n   ↳ Regular menu query - handling internally (Logic-Based)");
+            answerMenuQuery(request, catalogs.current());
+        }
 
-            String response = getMenuResponse(queryLower);
+        return this;
+    }
 
-            loggingActor.tell(new LogMessage("MenuActor --[tell]--> User", "INFO"));
-            request.replyTo.tell(new QueryResponse(response, true));
-        }
+    private void answerMenuQuery(QueryRequest request, MenuCatalog catalog) {
+        System.out.println("\n   ↳ Regular menu query - handling internally (Logic-Based)");
 
+        String response = menuResponse(catalog, request.query, minMatchConfidence, ambiguityMargin);
+
+        loggingActor.tell(new LogMessage("MenuActor --[tell]--> User", "INFO"));
+        request.replyTo.tell(new QueryResponse(response, true));
+    }
+
+    // A tenant's catalog may have to be read and indexed first, on the blocking dispatcher
+    private void resolve(String tenantId, RestaurantMessage request) {
+        getContext().pipeToSelf(tenants.catalog(tenantId),
+                (catalog, failure) -> new CatalogResolved(request, tenantId, catalog, failure));
+    }
+
+    private Behavior<RestaurantMessage> onCatalogResolved(CatalogResolved resolved) {
+        if (resolved.failure != null) {
+            System.err.println("❌ MenuActor: Could not load tenant " + resolved.tenantId + ": "
+                    + resolved.failure.getMessage());
+        }
+        MenuCatalog catalog = resolved.catalog; // null: unknown restaurant, or it could not be loaded
+        if (resolved.request instanceof QueryRequest) {
+            QueryRequest request = (QueryRequest) resolved.request;
+            if (catalog != null) {
+                answerMenuQuery(request, catalog);
+            } else if (resolved.failure != null) {
+                request.replyTo.tell(new QueryResponse(
+                        "⚠️ Sorry, we couldn't reach the menu. Please try again in a moment.", false));
+            } else {
+                request.replyTo.tell(new QueryResponse("📋 **Menu**: \n" +
+                        "Sorry, we couldn't find restaurant '" + resolved.tenantId + "'.", false));
+            }
+        } else if (resolved.request instanceof ValidateItemRequest) {
+            ValidateItemRequest request = (ValidateItemRequest) resolved.request;
+            request.replyTo.tell(catalog != null ? validateItem(catalog, request.itemName)
+                    : new ValidateItemResponse(false, 0.0, ""));
+        } else if (resolved.request instanceof ValidateItemsRequest) {
+            ValidateItemsRequest request = (ValidateItemsRequest) resolved.request;
+            request.replyTo.tell(catalog != null
+                    ? OrderPricer.price(catalog, request.lines, minMatchConfidence, ambiguityMargin)
+                    : OrderPricer.unknownMenu(request.lines));
+        }
         return this;
     }
 
     private Behavior<RestaurantMessage> onValidateItemRequest(ValidateItemRequest request) {
-        System.out.println("\n   ↳ MenuActor: Validating item '" + request.itemName + "' for OrderActor");
-
-        String reqItem = request.itemName.toLowerCase();
-        boolean valid = false;
-        double price = 0.0;
-        String desc = "";
-
-        // Fuzzy Match from loaded cache
-        for (String key : menuCache.keySet()) {
-            if (key.contains(reqItem) || reqItem.contains(key)) {
-                valid = true;
-                price = menuCache.get(key);
-                desc = descCache.get(key);
-                break;
-            }
+        System.out.println("\n   ↳ MenuActor: Validating item '" + request.itemName + "'");
+        if (request.tenantId != null) {
+            resolve(request.tenantId, request);
+            return this;
+        }
+
+        ValidateItemResponse response = validateItem(catalogs.current(), request.itemName);
+
+        loggingActor.tell(new LogMessage("MenuActor --[reply]--> Requester", "INFO"));
+        request.replyTo.tell(response);
+
+        return this;
+    }
+
+    // Fuzzy Match from the catalog snapshot: ranked, typo-tolerant, independent of menu size
+    private ValidateItemResponse validateItem(MenuCatalog catalog, String itemName) {
+        MenuItemMatcher.Match match = catalog.matcher.best(itemName);
+        ValidateItemResponse response;
+        if (match == null) {
+            response = new ValidateItemResponse(false, 0.0, "");
+        } else {
+            boolean valid = match.confidence >= minMatchConfidence;
+            System.out.println("   ↳ Best match: " + match.name() + " (confidence "
+                    + String.format("%.2f", match.confidence) + (valid ? ")" : ", too low)"));
+            response = new ValidateItemResponse(valid, valid ? catalog.table.price(match.id) : 0.0,
+                    valid ? match.summary() : "", match.name(), match.confidence);
         }
+        return response;
+    }
 
-        loggingActor.tell(new LogMessage("MenuActor --[reply]--> OrderActor", "INFO"));
-        request.replyTo.tell(new ValidateItemResponse(valid, price, desc));
+    // A whole order in one message: every line priced from the same snapshot
+    private Behavior<RestaurantMessage> onValidateItemsRequest(ValidateItemsRequest request) {
+        System.out.println("\n   ↳ MenuActor: Validating " + request.lines.size() + " order line(s) in one batch");
+        if (request.tenantId != null) {
+            resolve(request.tenantId, request);
+            return this;
+        }
 
+        ValidateItemsResponse response = OrderPricer.price(catalogs.current(), request.lines, minMatchConfidence,
+                ambiguityMargin);
+
+        loggingActor.tell(new LogMessage("MenuActor --[reply]--> Requester", "INFO"));
+        request.replyTo.tell(response);
         return this;
     }
 
-    private String getMenuResponse(String query) {
-        // Search in loaded cache
-        for (String key : descCache.keySet()) {
-            if (query.contains(key) || key.contains(query)) {
-                return "🍽️ **" + descCache.get(key) + "** ($" + menuCache.get(key) + ")";
+    // Every item the question names, or all that fit about equally well ("the burger")
+    static String menuResponse(MenuCatalog catalog, String query, double minConfidence, double ambiguityMargin) {
+        List<MenuItemMatcher.Match> matches = catalog.matcher.mentioned(query, MAX_ITEMS_SHOWN);
+        StringBuilder response = new StringBuilder();
+        Set<Integer> shown = new HashSet<>();
+        for (MenuItemMatcher.Match match : matches) {
+            if (match.confidence < minConfidence || match.confidence < matches.get(0).confidence - ambiguityMargin) {
+                break;
             }
+            if (!shown.add(match.id)) {
+                continue; // another variant of an item already shown
+            }
+            MenuItem item = match.item;
+            response.append(response.length() == 0 ? "" : "\n")
+                    .append("🍽️ **").append(item.summary()).append("** ($").append(item.price).append(")");
+        }
+        if (response.length() > 0) {
+            return response.toString();
         }
 
         return "📋 **Full Menu Available**: \n" +
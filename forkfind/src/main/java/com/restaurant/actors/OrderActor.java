@@ -1,39 +1,73 @@
 package com.restaurant.actors;
 
-import java.time.Duration;
-
 import akka.actor.typed.ActorRef;
 import akka.actor.typed.Behavior;
 import akka.actor.typed.javadsl.AbstractBehavior;
 import akka.actor.typed.javadsl.ActorContext;
 import akka.actor.typed.javadsl.Behaviors;
 import akka.actor.typed.javadsl.Receive;
+import akka.cluster.sharding.typed.javadsl.ClusterSharding;
+import com.restaurant.catalog.MenuCatalog;
+import com.restaurant.catalog.MenuCatalogs;
+import com.restaurant.catalog.TenantCatalogs;
 import com.restaurant.messages.Messages.*;
-
+import com.restaurant.messages.QueryIntent;
+import com.restaurant.order.Order;
+import com.restaurant.order.OrderPricer;
+
+import java.util.List;
+
+/**
+ * Order desk: parses and prices free-text orders and routes order commands to the sharded
+ * {@link OrderEntity} of each order. It keeps no order state, so its work per request is
+ * parsing only; the orders themselves are processed in parallel by their entities. A
+ * tenant's order is priced from that restaurant's catalog, resolved off this actor's
+ * dispatcher; everything else from the node's default menu.
+ */
 public class OrderActor extends AbstractBehavior<RestaurantMessage> {
 
     private final ActorRef<RestaurantMessage> loggingActor;
-    private final ActorRef<RestaurantMessage> menuActor;
+    // Shared, hot-reloaded menu snapshot: prices are read directly, no ask to MenuActor
+    private final MenuCatalogs catalogs;
+    private final TenantCatalogs tenants;
+    private final double minMatchConfidence;
+    private final double ambiguityMargin;
+    private final ClusterSharding sharding;
+
+    // Internal message: the catalog of the order's restaurant (null for an unknown one) or why it failed to load
+    private static class CatalogResolved implements RestaurantMessage {
+        public final QueryRequest request;
+        public final MenuCatalog catalog;
+        public final Throwable failure;
+
+        public CatalogResolved(QueryRequest request, MenuCatalog catalog, Throwable failure) {
+            this.request = request;
+            this.catalog = catalog;
+            this.failure = failure;
+        }
+    }
 
-    public static Behavior<RestaurantMessage> create(
-            ActorRef<RestaurantMessage> loggingActor,
-            ActorRef<RestaurantMessage> menuActor) {
-        return Behaviors.setup(context -> new OrderActor(context, loggingActor, menuActor));
+    public static Behavior<RestaurantMessage> create(ActorRef<RestaurantMessage> loggingActor) {
+        return Behaviors.setup(context -> new OrderActor(context, loggingActor));
     }
 
-    private OrderActor(ActorContext<RestaurantMessage> context,
-            ActorRef<RestaurantMessage> loggingActor,
-            ActorRef<RestaurantMessage> menuActor) {
+    private OrderActor(ActorContext<RestaurantMessage> context, ActorRef<RestaurantMessage> loggingActor) {
         super(context);
         this.loggingActor = loggingActor;
-        this.menuActor = menuActor;
+        this.catalogs = MenuCatalogs.get(context.getSystem());
+        this.tenants = TenantCatalogs.get(context.getSystem());
+        this.minMatchConfidence = context.getSystem().settings().config()
+                .getDouble("forkfind.catalog.min-match-confidence");
+        this.ambiguityMargin = context.getSystem().settings().config()
+                .getDouble("forkfind.catalog.ambiguity-margin");
+        this.sharding = ClusterSharding.get(context.getSystem());
     }
 
     @Override
     public Receive<RestaurantMessage> createReceive() {
         return newReceiveBuilder()
                 .onMessage(QueryRequest.class, this::onQueryRequest)
-                .onMessage(WrappedMenuValidationResponse.class, this::onMenuValidationResponse)
+                .onMessage(CatalogResolved.class, this::onCatalogResolved)
                 .build();
     }
 
@@ -44,87 +78,147 @@ public class OrderActor extends AbstractBehavior<RestaurantMessage> {
         System.out.println("║ Query: " + request.query);
         System.out.println("╚════════════════════════════════════════════════════════════════╝");
 
-        // Check if this is a "Place Order" request
-        if (request.query.toLowerCase().contains("order") && !request.query.toLowerCase().contains("status")) {
-            // Extract item name (simple heuristic: everything after "order")
-            String itemName = request.query.toLowerCase().replace("order", "").trim();
-            if (itemName.isEmpty()) {
-                request.replyTo.tell(
-                        new QueryResponse("⚠️ Please specify what you want to order. Example: 'Order Burger'", true));
-                return this;
-            }
-
-            // ========== ASK PATTERN ==========
-            System.out.println("\n❓ [ASK PATTERN] OrderActor → MenuActor");
-            System.out.println("   ↳ Asking: 'Is " + itemName + " valid?'");
-
-            loggingActor.tell(new LogMessage("OrderActor --[ask]--> MenuActor", "INFO"));
-
-            ActorRef<QueryResponse> replyTo = request.replyTo;
+        QueryIntent intent = request.intent;
+        switch (intent.intent) {
+            case ORDER_STATUS:
+                if (intent.orderId == null) {
+                    reply(request, askForOrderId("check on"));
+                } else {
+                    toEntity(intent.orderId, new GetOrderStatus(intent.orderId, request.replyTo));
+                }
+                break;
+            case CANCEL_ORDER:
+                if (intent.orderId == null) {
+                    reply(request, askForOrderId("cancel"));
+                } else {
+                    toEntity(intent.orderId, new CancelOrder(intent.orderId, request.replyTo));
+                }
+                break;
+            case CHANGE_ORDER:
+                reply(request, "✏️ **Modify Order**: \n" +
+                        "To modify your order, please call the front desk at 555-0199 immediately.");
+                break;
+            case PLACE_ORDER:
+                onPlaceOrder(request);
+                break;
+            default:
+                reply(request, "📦 **Order Assistant**: \n" +
+                        "I can help you check your **status**, **cancel** an order, or make **changes**.\n" +
+                        "What would you like to do?");
+        }
+        return this;
+    }
 
-            getContext().ask(
-                    ValidateItemResponse.class,
-                    menuActor,
-                    Duration.ofSeconds(3),
-                    (ActorRef<ValidateItemResponse> ref) -> new ValidateItemRequest(itemName, ref),
-                    (response, throwable) -> {
-                        if (throwable != null) {
-                            return new WrappedMenuValidationResponse(new ValidateItemResponse(false, 0, "Error"),
-                                    replyTo);
-                        }
-                        return new WrappedMenuValidationResponse(response, replyTo);
-                    });
+    private void onPlaceOrder(QueryRequest request) {
+        if (request.intent.items.isEmpty()) {
+            reply(request, "⚠️ Please specify what you want to order. Example: 'Order Burger'");
+            return;
+        }
+        if (request.tenantId != null) {
+            // The lines were parsed against the tenant's menu, so they are priced from it too
+            getContext().pipeToSelf(tenants.catalog(request.tenantId),
+                    (catalog, failure) -> new CatalogResolved(request, catalog, failure));
+            return;
+        }
+        price(request, catalogs.current());
+    }
 
+    private Behavior<RestaurantMessage> onCatalogResolved(CatalogResolved resolved) {
+        if (resolved.failure != null) {
+            System.err.println("❌ OrderActor: Could not load tenant " + resolved.request.tenantId + ": "
+                    + resolved.failure.getMessage());
+            resolved.request.replyTo.tell(new QueryResponse(
+                    "⚠️ Sorry, we couldn't reach the menu. Please try again in a moment.", false));
+        } else if (resolved.catalog == null) {
+            resolved.request.replyTo.tell(new QueryResponse("📦 **Order Assistant**: \n" +
+                    "Sorry, we couldn't find restaurant '" + resolved.request.tenantId + "'.", false));
         } else {
-            // Handle regular status queries immediately (TELL)
-            String response = getOrderResponse(request.query.toLowerCase());
-            loggingActor.tell(new LogMessage("OrderActor --[tell]--> User", "INFO"));
-            request.replyTo.tell(new QueryResponse(response, true));
+            price(resolved.request, resolved.catalog);
         }
-
         return this;
     }
 
-    private Behavior<RestaurantMessage> onMenuValidationResponse(WrappedMenuValidationResponse wrapper) {
-        ValidateItemResponse response = wrapper.response;
-
-        System.out.println("\n✅ [ASK RESPONSE] OrderActor received reply");
-        System.out.println("   ↳ Valid: " + response.isValid);
-        System.out.println("   ↳ Price: $" + response.price);
-
-        loggingActor.tell(new LogMessage("MenuActor --[reply]--> OrderActor", "INFO"));
-
-        String userResponse;
-        if (response.isValid) {
-            userResponse = "✅ **Order Confirmed**: \n" +
-                    "1x " + response.description + " ($" + response.price + ")\n" +
-                    "Your order has been sent to the kitchen.";
-        } else {
-            userResponse = "🚫 **Item Not Found**: \n" +
-                    "Sorry, we couldn't find that item on our menu.";
+    private void price(QueryRequest request, MenuCatalog catalog) {
+        // Lines with quantities, split at the edge: "order 2 burgers and a tiramisu"
+        List<OrderLine> lines = request.intent.items;
+
+        // ========== DIRECT SNAPSHOT READ ==========
+        System.out.println("\n📖 [SNAPSHOT READ] OrderActor → MenuCatalog");
+        System.out.println("   ↳ Pricing " + lines.size() + " order line(s) from the shared menu table "
+                + "(no ask, no timeout)");
+
+        ValidateItemsResponse priced = OrderPricer.price(catalog, lines, minMatchConfidence,
+                ambiguityMargin);
+        for (ValidatedLine line : priced.lines) {
+            System.out.println("   ↳ " + line.line.quantity + "x '" + line.line.itemName + "' → "
+                    + (line.isValid ? line.matchedName + " ($" + line.unitPrice + ")"
+                            : line.alternatives.isEmpty() ? "not found" : "ambiguous " + line.alternatives)
+                    + " (confidence " + String.format("%.2f", line.confidence) + ")");
+        }
+        if (!priced.allValid) {
+            reply(request, describe(priced, null));
+            return;
         }
+        String orderId = Order.newId();
+        toEntity(orderId, new PlaceOrder(orderId, priced, request.replyTo));
+    }
+
+    // The entity answers the guest directly
+    private void toEntity(String orderId, RestaurantMessage command) {
+        System.out.println("\n📤 [SHARDING] OrderActor → OrderEntity " + orderId);
+        loggingActor.tell(new LogMessage("OrderActor --[tell]--> OrderEntity " + orderId, "INFO"));
+        sharding.entityRefFor(OrderEntity.TYPE_KEY, orderId).tell(command);
+    }
 
+    private void reply(QueryRequest request, String response) {
         loggingActor.tell(new LogMessage("OrderActor --[tell]--> User", "INFO"));
-        wrapper.originalReplyTo.tell(new QueryResponse(userResponse, true));
+        request.replyTo.tell(new QueryResponse(response, true));
+    }
 
-        return this;
+    private static String askForOrderId(String action) {
+        return "📦 **Order Assistant**: \nWhich order would you like to " + action
+                + "? Please include your order number, e.g. 'status of order #7KQ2M9X'.";
     }
 
-    private String getOrderResponse(String query) {
-        if (query.contains("status") || query.contains("track") || query.contains("where")) {
-            return "📦 **Order Status**: \n" +
-                    "Order #1234 is currently **Cooking**. \n" +
-                    "Estimated time remaining: **15 minutes**.";
-        } else if (query.contains("cancel")) {
-            return "🚫 **Cancellation Failed**: \n" +
-                    "Sorry, Order #1234 is already in the kitchen and cannot be cancelled at this stage.";
-        } else if (query.contains("change") || query.contains("modify")) {
-            return "✏️ **Modify Order**: \n" +
-                    "To modify your order, please call the front desk at 555-0199 immediately.";
-        } else {
-            return "📦 **Order Assistant**: \n" +
-                    "I can help you check your **status**, **cancel** an order, or make **changes**.\n" +
-                    "What would you like to do?";
+    // Confirmation of a fully valid order, or what to correct
+    static String describe(ValidateItemsResponse priced, String orderId) {
+        StringBuilder reply = new StringBuilder();
+        if (priced.allValid) {
+            reply.append("✅ **Order #").append(orderId).append(" Confirmed**: \n");
+            for (ValidatedLine line : priced.lines) {
+                reply.append(line.line.quantity).append("x ").append(line.description)
+                        .append(" ($").append(line.unitPrice).append(")\n");
+            }
+            if (priced.lines.size() > 1 || priced.itemCount > 1) {
+                reply.append(String.format("**Total**: %d item(s), $%.2f\n", priced.itemCount, priced.total));
+            }
+            return reply.append("Your order has been sent to the kitchen.").toString();
+        }
+
+        // Nothing is sent to the kitchen until every line is on the menu and means one item
+        boolean notFound = false;
+        for (ValidatedLine line : priced.lines) {
+            notFound |= !line.isValid && line.alternatives.isEmpty();
+        }
+        reply.append(notFound ? "🚫 **Item Not Found**: \n" : "🤔 **Which One?**: \n");
+        for (ValidatedLine line : priced.lines) {
+            if (line.isValid) {
+                continue;
+            }
+            if (!line.alternatives.isEmpty()) {
+                reply.append("'").append(line.line.itemName).append("' could be **")
+                        .append(String.join("** or **", line.alternatives)).append("**. Which would you like?\n");
+                continue;
+            }
+            reply.append("Sorry, we couldn't find '").append(line.line.itemName).append("' on our menu.");
+            if (line.matchedName != null) {
+                reply.append(" Did you mean **").append(line.matchedName).append("**?");
+            }
+            reply.append("\n");
+        }
+        if (priced.itemCount > 0) {
+            reply.append("The rest of your order is fine; please correct the item(s) above and order again.");
         }
+        return reply.toString().trim();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,391 @@
+package com.restaurant.actors;
+
+import akka.actor.typed.ActorRef;
+import akka.actor.typed.ActorSystem;
+import akka.actor.typed.Behavior;
+import akka.actor.typed.DispatcherSelector;
+import akka.actor.typed.PostStop;
+import akka.actor.typed.PreRestart;
+import akka.actor.typed.SupervisorStrategy;
+import akka.actor.typed.javadsl.AbstractBehavior;
+import akka.actor.typed.javadsl.ActorContext;
+import akka.actor.typed.javadsl.Behaviors;
+import akka.actor.typed.javadsl.Receive;
+import akka.actor.typed.javadsl.StashBuffer;
+import akka.actor.typed.javadsl.TimerScheduler;
+import akka.cluster.sharding.typed.ClusterShardingSettings;
+import akka.cluster.sharding.typed.HashCodeMessageExtractor;
+import akka.cluster.sharding.typed.ShardingEnvelope;
+import akka.cluster.sharding.typed.javadsl.ClusterSharding;
+import akka.cluster.sharding.typed.javadsl.Entity;
+import akka.cluster.sharding.typed.javadsl.EntityTypeKey;
+import com.restaurant.messages.Messages.*;
+import com.restaurant.metrics.Metrics;
+import com.restaurant.order.Order;
+import com.restaurant.order.OrderEvent;
+import com.restaurant.order.OrderShardIndex;
+import com.restaurant.order.OrderShards;
+import com.restaurant.order.OrderStatus;
+import com.typesafe.config.Config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * One order, as a Cluster Sharding entity keyed by order id. Orders are spread over all
+ * nodes by shard, each with its own mailbox, so a busy order never delays unrelated ones.
+ *
+ * The order is event-sourced: its events go to the journal of its shard (shared by the
+ * shard's entities, so group commit still batches many orders into one fsync). An order
+ * recovers from the shard's {@link OrderShardIndex}, loaded once per node from the shard's
+ * snapshot, on the blocking dispatcher while commands wait in a stash. Events are applied
+ * at once and confirmed to the guest when committed; a failed append restarts the entity,
+ * which then recovers from a fresh index of what reached the disk. Idle orders are passivated; kitchen
+ * progress they missed meanwhile is caught up from the timestamps when they next start,
+ * wherever their shard then lives.
+ */
+public class OrderEntity extends AbstractBehavior<RestaurantMessage> {
+
+    public static final EntityTypeKey<RestaurantMessage> TYPE_KEY =
+            EntityTypeKey.create(RestaurantMessage.class, "Order");
+
+    private final String orderId;
+    private final String journalName;
+    private final TimerScheduler<RestaurantMessage> timers;
+    private final Metrics metrics;
+    private final Duration acceptAfter;
+    private final Duration cookTime;
+
+    private static final int RECOVERY_STASH = 1_000;
+
+    private final OrderShards shards;
+    private final OrderShardIndex index; // null: in-memory only
+    private boolean released = false;    // the shard's index was given up
+    private Order order; // null until placed
+
+    // Stop message for passivation and shard hand-off
+    private static final class Stop implements RestaurantMessage {
+        static final Stop INSTANCE = new Stop();
+    }
+
+    // Internal message: the shard's index is loaded (or could not be)
+    private static class Recovered implements RestaurantMessage {
+        public final OrderShardIndex index;
+        public final Throwable failure;
+
+        public Recovered(OrderShardIndex index, Throwable failure) {
+            this.index = index;
+            this.failure = failure;
+        }
+    }
+
+    // Internal message: the shard's journal is closed, or still used by other orders
+    private static class JournalReleased implements RestaurantMessage {
+        public final Throwable failure;
+
+        public JournalReleased(Throwable failure) {
+            this.failure = failure;
+        }
+    }
+
+    // Internal message: an append was committed (or failed); the guest can now be answered
+    private static class Persisted implements RestaurantMessage {
+        public final ActorRef<QueryResponse> replyTo;
+        public final String reply;
+        public final Throwable failure;
+
+        public Persisted(ActorRef<QueryResponse> replyTo, String reply, Throwable failure) {
+            this.replyTo = replyTo;
+            this.reply = reply;
+            this.failure = failure;
+        }
+    }
+
+    // Internal message: kitchen timer moving the order to its next status
+    private static class AdvanceOrder implements RestaurantMessage {
+        public final OrderStatus to;
+
+        public AdvanceOrder(OrderStatus to) {
+            this.to = to;
+        }
+    }
+
+    /**
+     * Starts the order shard region on this node. Every node hosts order shards, and
+     * shards are rebalanced onto nodes as they join.
+     */
+    public static ActorRef<ShardingEnvelope<RestaurantMessage>> init(ActorSystem<?> system) {
+        Config config = system.settings().config().getConfig("forkfind.orders");
+        // The shard id also names the shard's journal, so it must stay stable across restarts
+        HashCodeMessageExtractor<RestaurantMessage> extractor = new HashCodeMessageExtractor<>(config.getInt("shards"));
+        ClusterShardingSettings settings = ClusterShardingSettings.create(system);
+        return ClusterSharding.get(system).init(
+                Entity.of(TYPE_KEY, entity -> create(entity.getEntityId(), extractor.shardId(entity.getEntityId())))
+                        .withMessageExtractor(extractor)
+                        .withStopMessage(Stop.INSTANCE)
+                        .withSettings(settings.withPassivationStrategy(settings.passivationStrategySettings()
+                                .withIdleEntityPassivation(config.getDuration("passivate-after")))));
+    }
+
+    private static Behavior<RestaurantMessage> create(String orderId, String shardId) {
+        // Restarting re-runs recovery
+        return Behaviors.supervise(Behaviors.<RestaurantMessage>setup(context -> Behaviors.withStash(RECOVERY_STASH,
+                        stash -> Behaviors.withTimers(timers -> recovering(context, stash, timers, orderId,
+                                "orders/shard-" + shardId)))))
+                .onFailure(SupervisorStrategy.restartWithBackoff(Duration.ofMillis(200), Duration.ofSeconds(10), 0.2));
+    }
+
+    // Loading the shard's journal and index is file I/O, so it runs on the blocking dispatcher
+    private static Behavior<RestaurantMessage> recovering(ActorContext<RestaurantMessage> context,
+            StashBuffer<RestaurantMessage> stash, TimerScheduler<RestaurantMessage> timers, String orderId,
+            String journalName) {
+        OrderShards shards = OrderShards.get(context.getSystem());
+        if (!shards.enabled()) {
+            return new OrderEntity(context, timers, orderId, journalName, null, System.nanoTime());
+        }
+        long start = System.nanoTime();
+        Executor blocking = context.getSystem().dispatchers().lookup(DispatcherSelector.blocking());
+        CompletableFuture<OrderShardIndex> acquired = CompletableFuture.supplyAsync(() -> {
+            try {
+                return shards.acquire(journalName);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, blocking);
+        context.pipeToSelf(acquired, Recovered::new);
+
+        return Behaviors.receive(RestaurantMessage.class)
+                .onMessage(Recovered.class, recovered -> {
+                    if (recovered.failure != null) {
+                        throw new IllegalStateException("Could not load " + journalName, recovered.failure);
+                    }
+                    return stash.unstashAll(
+                            new OrderEntity(context, timers, orderId, journalName, recovered.index, start));
+                })
+                .onMessage(RestaurantMessage.class, command -> {
+                    stash.stash(command);
+                    return Behaviors.same();
+                })
+                // Stopped before the index arrived: give up the use it was acquired for
+                .onSignal(PostStop.class, signal -> {
+                    acquired.thenAccept(index -> shards.release(journalName, index));
+                    return Behaviors.same();
+                })
+                .build();
+    }
+
+    private OrderEntity(ActorContext<RestaurantMessage> context, TimerScheduler<RestaurantMessage> timers,
+            String orderId, String journalName, OrderShardIndex index, long recoveryStart) {
+        super(context);
+        this.orderId = orderId;
+        this.journalName = journalName;
+        this.timers = timers;
+        this.metrics = Metrics.get(context.getSystem());
+        Config config = context.getSystem().settings().config().getConfig("forkfind.orders");
+        this.acceptAfter = config.getDuration("accept-after");
+        this.cookTime = config.getDuration("cook-time");
+
+        this.shards = OrderShards.get(context.getSystem());
+        this.index = index;
+        if (index != null) {
+            recover(recoveryStart);
+        }
+    }
+
+    // This order's events from the shard's index; then the kitchen resumes where it was
+    private void recover(long start) {
+        List<OrderEvent> events = index.events(orderId);
+        for (OrderEvent event : events) {
+            order = Order.apply(order, event);
+        }
+        metrics.histogram("orders.recovery-ms").record((System.nanoTime() - start) / 1_000_000);
+        if (order == null) {
+            return;
+        }
+
+        // Catch up on transitions that fell due while the order was not running
+        long now = System.currentTimeMillis();
+        if (order.status() == OrderStatus.PLACED) {
+            long due = order.placedAt + acceptAfter.toMillis();
+            if (due <= now) {
+                persist(new OrderEvent.StatusChanged(orderId, OrderStatus.COOKING, due), null, null);
+            } else {
+                scheduleAdvance(OrderStatus.COOKING, due - now);
+            }
+        }
+        if (order.status() == OrderStatus.COOKING) {
+            long due = order.updatedAt() + cookTime.toMillis();
+            if (due <= now) {
+                persist(new OrderEvent.StatusChanged(orderId, OrderStatus.READY, due), null, null);
+            } else {
+                scheduleAdvance(OrderStatus.READY, due - now);
+            }
+        }
+        System.out.println("✅ OrderEntity " + orderId + ": Recovered from " + journalName + " (" + events.size()
+                + " event(s), now " + order.status().label + ")");
+    }
+
+    @Override
+    public Receive<RestaurantMessage> createReceive() {
+        return newReceiveBuilder()
+                .onMessage(PlaceOrder.class, this::onPlaceOrder)
+                .onMessage(GetOrderStatus.class, this::onGetOrderStatus)
+                .onMessage(CancelOrder.class, this::onCancelOrder)
+                .onMessage(Persisted.class, this::onPersisted)
+                .onMessage(AdvanceOrder.class, this::onAdvanceOrder)
+                .onMessage(Stop.class, this::onStop)
+                .onMessage(JournalReleased.class, this::onJournalReleased)
+                .onSignal(PreRestart.class, signal -> releaseIndex())
+                .onSignal(PostStop.class, signal -> releaseIndex())
+                .build();
+    }
+
+    private Behavior<RestaurantMessage> onPlaceOrder(PlaceOrder place) {
+        if (order != null) {
+            // Order ids are random; a collision is vanishingly rare but must not overwrite an order
+            place.replyTo.tell(new QueryResponse("⚠️ Sorry, we couldn't place that order. Please order again.", false));
+            return this;
+        }
+        List<OrderEvent.Line> lines = new ArrayList<>(place.priced.lines.size());
+        for (ValidatedLine line : place.priced.lines) {
+            lines.add(new OrderEvent.Line(line.line.quantity, line.matchedName, line.unitPrice));
+        }
+        System.out.println("📦 OrderEntity " + orderId + ": Placing " + lines.size() + " line(s) on "
+                + getContext().getSystem().address());
+        persist(new OrderEvent.Placed(orderId, lines, place.priced.total, System.currentTimeMillis()),
+                place.replyTo, OrderActor.describe(place.priced, orderId));
+        scheduleAdvance(OrderStatus.COOKING, acceptAfter.toMillis());
+        metrics.increment("orders.placed");
+        return this;
+    }
+
+    private Behavior<RestaurantMessage> onGetOrderStatus(GetOrderStatus request) {
+        request.replyTo.tell(new QueryResponse(describeStatus(), true));
+        return this;
+    }
+
+    private Behavior<RestaurantMessage> onCancelOrder(CancelOrder request) {
+        if (order == null) {
+            request.replyTo.tell(new QueryResponse(notFound(), true));
+        } else if (order.status() == OrderStatus.PLACED) {
+            timers.cancel(orderId);
+            persist(new OrderEvent.StatusChanged(orderId, OrderStatus.CANCELLED, System.currentTimeMillis()),
+                    request.replyTo, "✅ **Order Cancelled**: \nOrder #" + orderId
+                            + " has been cancelled before reaching the kitchen.");
+            metrics.increment("orders.cancelled");
+        } else if (order.status() == OrderStatus.COOKING) {
+            request.replyTo.tell(new QueryResponse("🚫 **Cancellation Failed**: \n" +
+                    "Sorry, Order #" + orderId + " is already in the kitchen and cannot be cancelled at this stage.",
+                    true));
+        } else {
+            request.replyTo.tell(new QueryResponse("🚫 **Cancellation Failed**: \n" +
+                    "Order #" + orderId + " is already **" + order.status().label + "**.", true));
+        }
+        return this;
+    }
+
+    private Behavior<RestaurantMessage> onAdvanceOrder(AdvanceOrder advance) {
+        if (order == null || order.status().isFinal() || order.status().ordinal() >= advance.to.ordinal()) {
+            return this;
+        }
+        persist(new OrderEvent.StatusChanged(orderId, advance.to, System.currentTimeMillis()), null, null);
+        System.out.println("🍳 OrderEntity " + orderId + ": Now " + advance.to.label);
+        if (advance.to == OrderStatus.COOKING) {
+            scheduleAdvance(OrderStatus.READY, cookTime.toMillis());
+        }
+        return this;
+    }
+
+    private Behavior<RestaurantMessage> onPersisted(Persisted persisted) {
+        if (persisted.failure != null) {
+            if (persisted.replyTo != null) {
+                persisted.replyTo.tell(new QueryResponse(
+                        "⚠️ Sorry, we couldn't save that change. Please try again in a moment.", false));
+            }
+            throw new IllegalStateException("Order journal append failed", persisted.failure);
+        }
+        if (persisted.replyTo != null) {
+            persisted.replyTo.tell(new QueryResponse(persisted.reply, true));
+        }
+        return this;
+    }
+
+    // Applies the event now; the reply waits for the group commit, the entity does not
+    private void persist(OrderEvent event, ActorRef<QueryResponse> replyTo, String reply) {
+        order = Order.apply(order, event);
+        if (index == null) {
+            getContext().getSelf().tell(new Persisted(replyTo, reply, null));
+            return;
+        }
+        CompletableFuture<Long> appended = index.append(event);
+        getContext().pipeToSelf(appended, (seqNr, failure) -> new Persisted(replyTo, reply, failure));
+    }
+
+    private void scheduleAdvance(OrderStatus to, long delayMillis) {
+        timers.startSingleTimer(orderId, new AdvanceOrder(to), Duration.ofMillis(Math.max(0, delayMillis)));
+    }
+
+    // Passivation or hand-off: the shard's next owner must see everything this order appended,
+    // so the entity stops once the shard's journal is closed (or still used by other orders)
+    private Behavior<RestaurantMessage> onStop(Stop stop) {
+        timers.cancelAll();
+        if (index == null) {
+            return Behaviors.stopped();
+        }
+        released = true;
+        getContext().pipeToSelf(shards.release(journalName, index), (seqNr, failure) -> new JournalReleased(failure));
+        return this;
+    }
+
+    private Behavior<RestaurantMessage> onJournalReleased(JournalReleased released) {
+        if (released.failure != null) {
+            System.err.println("⚠️ OrderEntity " + orderId + ": Closing " + journalName + " failed: "
+                    + released.failure);
+        }
+        return Behaviors.stopped();
+    }
+
+    // Stopped or restarted any other way: give up the shard without waiting for the close
+    private Behavior<RestaurantMessage> releaseIndex() {
+        if (index != null && !released) {
+            released = true;
+            shards.release(journalName, index);
+        }
+        return this;
+    }
+
+    private String describeStatus() {
+        if (order == null) {
+            return notFound();
+        }
+        long now = System.currentTimeMillis();
+        StringBuilder status = new StringBuilder("📦 **Order Status**: \n");
+        status.append("Order #").append(orderId).append(" is currently **").append(order.status().label)
+                .append("**.");
+        if (order.status() == OrderStatus.PLACED) {
+            long remaining = order.placedAt + acceptAfter.toMillis() + cookTime.toMillis() - now;
+            status.append(" It goes to the kitchen shortly and can still be cancelled.");
+            status.append(" \nEstimated time remaining: **").append(minutes(remaining)).append("**.");
+        } else if (order.status() == OrderStatus.COOKING) {
+            long remaining = order.updatedAt() + cookTime.toMillis() - now;
+            status.append(" \nEstimated time remaining: **").append(minutes(remaining)).append("**.");
+        } else if (order.status() == OrderStatus.READY) {
+            status.append(" Enjoy your meal!");
+        }
+        return status.toString();
+    }
+
+    private static String minutes(long millis) {
+        long minutes = Math.max(1, (millis + 59_999) / 60_000);
+        return minutes + (minutes == 1 ? " minute" : " minutes");
+    }
+
+    private String notFound() {
+        return "📦 **Order Status**: \nWe couldn't find order #" + orderId + ". Please check the order number.";
+    }
+}
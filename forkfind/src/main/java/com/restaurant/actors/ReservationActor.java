@@ -6,11 +6,47 @@ import akka.actor.typed.javadsl.AbstractBehavior;
 import akka.actor.typed.javadsl.ActorContext;
 import akka.actor.typed.javadsl.Behaviors;
 import akka.actor.typed.javadsl.Receive;
+import akka.cluster.sharding.typed.javadsl.ClusterSharding;
+import akka.cluster.sharding.typed.javadsl.EntityRef;
+import com.restaurant.catalog.MenuCatalog;
+import com.restaurant.catalog.TenantCatalogs;
 import com.restaurant.messages.Messages.*;
+import com.restaurant.messages.QueryIntent;
+import com.restaurant.reservation.FloorPlan;
+import com.restaurant.reservation.ReservationBook;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
 
 public class ReservationActor extends AbstractBehavior<RestaurantMessage> {
 
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("h:mm a", Locale.US);
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("EEE, MMM d", Locale.US);
+    private static final LocalTime DEFAULT_TIME = LocalTime.of(19, 0);
+    private static final int DEFAULT_GUESTS = 2;
+
     private final ActorRef<RestaurantMessage> loggingActor;
+    private final FloorPlan plan;
+    private final ClusterSharding sharding;
+    private final TenantCatalogs tenants;
+
+    // Internal message: whether the request's restaurant exists, looked up off this actor's dispatcher
+    private static class TenantChecked implements RestaurantMessage {
+        public final QueryRequest request;
+        public final MenuCatalog catalog; // null for an unknown restaurant
+        public final Throwable failure;
+
+        public TenantChecked(QueryRequest request, MenuCatalog catalog, Throwable failure) {
+            this.request = request;
+            this.catalog = catalog;
+            this.failure = failure;
+        }
+    }
 
     public static Behavior<RestaurantMessage> create(
             ActorRef<RestaurantMessage> loggingActor) {
@@ -21,15 +57,16 @@ public class ReservationActor extends AbstractBehavior<RestaurantMessage> {
             ActorRef<RestaurantMessage> loggingActor) {
         super(context);
         this.loggingActor = loggingActor;
+        this.plan = FloorPlan.fromConfig(context.getSystem().settings().config().getConfig("forkfind.reservations"));
+        this.sharding = ClusterSharding.get(context.getSystem());
+        this.tenants = TenantCatalogs.get(context.getSystem());
     }
 
-    // State to track active reservations (InMemory)
-    private final java.util.Set<String> activeReservations = new java.util.HashSet<>();
-
     @Override
     public Receive<RestaurantMessage> createReceive() {
         return newReceiveBuilder()
                 .onMessage(QueryRequest.class, this::onQueryRequest)
+                .onMessage(TenantChecked.class, this::onTenantChecked)
                 .build();
     }
 
@@ -40,87 +77,121 @@ public class ReservationActor extends AbstractBehavior<RestaurantMessage> {
         System.out.println("║ Query: " + request.query);
         System.out.println("╚════════════════════════════════════════════════════════════════╝");
 
-        String response = getReservationResponse(request.query); // Remove toLowerCase() here to preserve Case for ID
-                                                                 // extraction if needed, but safe to handle inside
-
         loggingActor.tell(new LogMessage("ReservationActor --[tell]--> User", "INFO"));
-        request.replyTo.tell(new QueryResponse(response, true));
+        if (request.tenantId != null) {
+            // Every restaurant-date gets its own journal, so only restaurants that exist get entities
+            getContext().pipeToSelf(tenants.catalog(request.tenantId),
+                    (catalog, failure) -> new TenantChecked(request, catalog, failure));
+            return this;
+        }
+        reply(request, handle(request));
+        return this;
+    }
 
+    private Behavior<RestaurantMessage> onTenantChecked(TenantChecked checked) {
+        if (checked.failure != null) {
+            checked.request.replyTo.tell(new QueryResponse(
+                    "⚠️ Sorry, we couldn't reach the reservation book. Please try again in a moment.", false));
+            return this;
+        }
+        if (checked.catalog == null) {
+            checked.request.replyTo.tell(new QueryResponse("📅 **Reservations**: \n" +
+                    "Sorry, we couldn't find restaurant '" + checked.request.tenantId + "'.", false));
+            return this;
+        }
+        reply(checked.request, handle(checked.request));
         return this;
     }
 
-    private String getReservationResponse(String query) {
-        String qLower = query.toLowerCase();
-
-        if (qLower.contains("cancel")) {
-            // Extract ID: Look for RES-XXXX
-            java.util.regex.Pattern idPattern = java.util.regex.Pattern.compile("RES-(\\d{4})",
-                    java.util.regex.Pattern.CASE_INSENSITIVE);
-            java.util.regex.Matcher idMatcher = idPattern.matcher(query);
-
-            if (idMatcher.find()) {
-                String idToCancel = idMatcher.group(0).toUpperCase(); // RES-XXXX
-
-                if (activeReservations.contains(idToCancel)) {
-                    activeReservations.remove(idToCancel);
-                    System.out.println("❌ [ReservationActor] Cancelled reservation: " + idToCancel);
-                    return "❌ **Reservation Cancelled**: \n" +
-                            "Reservation **" + idToCancel + "** has been successfully cancelled.";
-                } else {
-                    return "⚠️ **Cancellation Failed**: \n" +
-                            "Could not find active reservation with ID **" + idToCancel + "**.";
-                }
-            } else {
+    private void reply(QueryRequest request, String response) {
+        if (response != null) {
+            request.replyTo.tell(new QueryResponse(response, true));
+        }
+    }
+
+    // Answers what needs no bookings here; anything else goes to the restaurant-date's entity,
+    // which replies to the user directly (returns null then)
+    private String handle(QueryRequest request) {
+        QueryIntent intent = request.intent;
+        LocalDate today = LocalDate.now();
+
+        if (intent.intent == QueryIntent.Intent.CANCEL_RESERVATION) {
+            if (intent.reservationId == null) {
                 return "❓ **Missing ID**: \n" +
-                        "Please provide the reservation ID to cancel (e.g., 'Cancel RES-1234').";
-            }
-        } else if (qLower.contains("time") || qLower.contains("slot") || qLower.contains("available")) {
-            return "📅 **Availability Today**: \n" +
-                    "• **6:00 PM** (Patio)\n" +
-                    "• **7:30 PM** (Main Dining)\n" +
-                    "• **9:00 PM** (Bar Seating)\n" +
-                    "Reply with a time to book.";
-        } else if (qLower.contains("book") || qLower.contains("reserve") || qLower.contains("reservation")) {
-            // Dynamic Parsing Logic
-            String time = "7:00 PM"; // Default
-            String guests = "2"; // Default
-
-            // Extract Time
-            java.util.regex.Pattern timePattern = java.util.regex.Pattern
-                    .compile("(\\d{1,2}(?::\\d{2})?\\s?(?:AM|PM|am|pm)?)");
-            java.util.regex.Matcher timeMatcher = timePattern.matcher(query);
-            if (timeMatcher.find()) {
-                time = timeMatcher.group(1).toUpperCase();
+                        "Please provide the confirmation ID from your booking (e.g., 'Cancel RES-" +
+                        today.format(DateTimeFormatter.ofPattern("yyMMdd")) + "-001-K7Q2M4XP').";
             }
-
-            // Extract Party Size
-            java.util.regex.Pattern guestPattern = java.util.regex.Pattern
-                    .compile("(\\d+)\\s?(?:people|guests|persons|ppl)");
-            java.util.regex.Matcher guestMatcher = guestPattern.matcher(qLower);
-            if (guestMatcher.find()) {
-                guests = guestMatcher.group(1);
-            } else {
-                java.util.regex.Pattern tablePattern = java.util.regex.Pattern.compile("table for\\s?(\\d+)");
-                java.util.regex.Matcher tableMatcher = tablePattern.matcher(qLower);
-                if (tableMatcher.find()) {
-                    guests = tableMatcher.group(1);
-                }
+            LocalDate bookedFor = ReservationBook.dateOf(intent.reservationId);
+            // Only dates we take bookings for can hold one; any other date would start an entity
+            // (and a journal on disk) for nothing
+            if (bookedFor == null || bookedFor.isBefore(today) || bookedFor.isAfter(today.plusDays(plan.daysAhead))) {
+                return "⚠️ **Cancellation Failed**: \n" +
+                        "Could not find reservation with ID **" + intent.reservationId + "**.";
             }
+            entity(request.tenantId, bookedFor).tell(new CancelReservation(intent.reservationId, request.replyTo));
+            return null;
+        }
 
-            // Generte and Store ID
-            int confId = 1000 + (int) (Math.random() * 9000);
-            String fullId = "RES-" + confId;
-            activeReservations.add(fullId);
-            System.out.println("✅ [ReservationActor] Stored new reservation: " + fullId);
+        LocalDate date = intent.dateOr(today);
+        int guests = intent.partySize > 0 ? intent.partySize : DEFAULT_GUESTS;
+        if (date.isBefore(today) || date.isAfter(today.plusDays(plan.daysAhead))) {
+            return "📅 **Reservations**: \n" +
+                    "We take bookings from today up to " + plan.daysAhead + " days ahead.";
+        }
+        if (guests > plan.maxSeats()) {
+            return "📅 **Reservations**: \n" +
+                    "Our largest table seats " + plan.maxSeats() + ". For bigger parties please call 555-0199.";
+        }
 
-            return "✅ **Reservation Confirmed**: \n" +
-                    "Table for " + guests + " guests booked at **" + time + "** in Main Dining. \n" +
-                    "Confirmation **" + fullId + "**.\n" +
-                    "(Use this ID to cancel if needed)";
+        if (intent.intent == QueryIntent.Intent.CHECK_AVAILABILITY) {
+            // From now on for today, from opening otherwise
+            LocalTime from = date.equals(today) ? earliestToday() : plan.opening;
+            entity(request.tenantId, date).tell(new GetAvailability(from.toString(), guests, 6, request.replyTo));
+            return null;
+        } else if (intent.intent == QueryIntent.Intent.BOOK_TABLE) {
+            LocalTime time = intent.timeOr(DEFAULT_TIME);
+            if (plan.slot(time) < 0) {
+                return "📅 **Reservations**: \n" +
+                        "We seat guests every " + plan.slotMinutes + " minutes from "
+                        + format(plan.opening) + "; the last seating is at "
+                        + format(plan.time(plan.slotsPerDay - plan.seatingSlots)) + ".";
+            }
+            entity(request.tenantId, date).tell(new BookTable(time.toString(), guests, request.replyTo));
+            return null;
         } else {
             return "📅 **Reservations**: \n" +
-                    "We are open daily from 5pm to 10pm. \n" +
+                    "We are open daily from " + format(plan.opening) + " to "
+                    + format(plan.time(plan.slotsPerDay)) + ". \n" +
                     "Example: 'Book a table for 4 people at 8pm'";
         }
     }
-}
\ No newline at end of file
+
+    private EntityRef<RestaurantMessage> entity(String tenantId, LocalDate date) {
+        return sharding.entityRefFor(ReservationEntity.TYPE_KEY, ReservationEntity.entityId(tenantId, date));
+    }
+
+    static String dayName(LocalDate date, LocalDate today) {
+        if (date.equals(today)) {
+            return "today";
+        }
+        return date.equals(today.plusDays(1)) ? "tomorrow" : "on " + date.format(DATE_FORMAT);
+    }
+
+    // The first whole minute not yet begun: today's availability starts here and earlier bookings are refused
+    static LocalTime earliestToday() {
+        LocalTime now = LocalDateTime.now().toLocalTime();
+        return now.truncatedTo(ChronoUnit.MINUTES).plusMinutes(now.getSecond() > 0 ? 1 : 0);
+    }
+
+    static String format(LocalTime time) {
+        return time.format(TIME_FORMAT);
+    }
+
+    static String formatTimes(List<LocalTime> times) {
+        StringBuilder text = new StringBuilder();
+        for (LocalTime time : times) {
+            text.append(text.length() == 0 ? "" : ", ").append("**").append(format(time)).append("**");
+        }
+        return text.toString();
+    }
+}
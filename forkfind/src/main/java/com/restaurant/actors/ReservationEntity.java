@@ -0,0 +1,414 @@
+package com.restaurant.actors;
+
+import akka.actor.typed.ActorRef;
+import akka.actor.typed.ActorSystem;
+import akka.actor.typed.Behavior;
+import akka.actor.typed.DispatcherSelector;
+import akka.actor.typed.PostStop;
+import akka.actor.typed.PreRestart;
+import akka.actor.typed.SupervisorStrategy;
+import akka.actor.typed.javadsl.AbstractBehavior;
+import akka.actor.typed.javadsl.ActorContext;
+import akka.actor.typed.javadsl.Behaviors;
+import akka.actor.typed.javadsl.Receive;
+import akka.actor.typed.javadsl.StashBuffer;
+import akka.cluster.sharding.typed.ClusterShardingSettings;
+import akka.cluster.sharding.typed.HashCodeMessageExtractor;
+import akka.cluster.sharding.typed.ShardingEnvelope;
+import akka.cluster.sharding.typed.javadsl.ClusterSharding;
+import akka.cluster.sharding.typed.javadsl.Entity;
+import akka.cluster.sharding.typed.javadsl.EntityTypeKey;
+import com.restaurant.journal.EventJournal;
+import com.restaurant.journal.Journals;
+import com.restaurant.messages.Messages.*;
+import com.restaurant.metrics.Metrics;
+import com.restaurant.reservation.FloorPlan;
+import com.restaurant.reservation.ReservationBook;
+import com.restaurant.reservation.ReservationEvent;
+import com.typesafe.config.Config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * The table inventory of one restaurant-date, as a Cluster Sharding entity keyed by
+ * "restaurant/yyyy-MM-dd". Dates are spread over all nodes, so bookings for different days
+ * run on different mailboxes and nodes, while all bookings of one day stay serialized in
+ * one place.
+ *
+ * The day is event-sourced into its own journal (reservations/restaurant/date) and
+ * snapshotted every snapshot-every events, so a date recovers from its latest snapshot plus
+ * a short tail wherever its shard lands after a restart or rebalance. Recovery runs on the
+ * blocking dispatcher while commands wait in a stash.
+ *
+ * Past dates take no more commands. Every node hosting reservation shards deletes the
+ * journals of dates more than retention ago once an hour, skipping any still held by a
+ * running entity.
+ */
+public class ReservationEntity extends AbstractBehavior<RestaurantMessage> {
+
+    public static final EntityTypeKey<RestaurantMessage> TYPE_KEY =
+            EntityTypeKey.create(RestaurantMessage.class, "Reservations");
+
+    private static final String DEFAULT_RESTAURANT = "default";
+    private static final int RECOVERY_STASH = 1_000;
+    private static final Duration RETENTION_SWEEP_INTERVAL = Duration.ofHours(1);
+
+    private final String entityId;
+    private final LocalDate date;
+    private final String journalName;
+    private final Metrics metrics;
+    private final int snapshotEvery;
+    private final ReservationBook book;
+
+    private final Journals journals;
+    private final EventJournal journal; // null: in-memory only
+    private int eventsSinceSnapshot;
+    private boolean released = false; // the journal was given up
+
+    // Stop message for passivation and shard hand-off
+    private static final class Stop implements RestaurantMessage {
+        static final Stop INSTANCE = new Stop();
+    }
+
+    // Internal message: the day's journal is acquired and its book recovered (or could not be)
+    private static class Recovered implements RestaurantMessage {
+        public final EventJournal journal;
+        public final ReservationBook book;
+        public final int eventsSinceSnapshot;
+        public final Throwable failure;
+
+        public Recovered(EventJournal journal, ReservationBook book, int eventsSinceSnapshot, Throwable failure) {
+            this.journal = journal;
+            this.book = book;
+            this.eventsSinceSnapshot = eventsSinceSnapshot;
+            this.failure = failure;
+        }
+    }
+
+    // Internal message: the day's journal is closed
+    private static class JournalReleased implements RestaurantMessage {
+        public final Throwable failure;
+
+        public JournalReleased(Throwable failure) {
+            this.failure = failure;
+        }
+    }
+
+    // Internal message: an append was committed (or failed); the guest can now be answered
+    private static class Persisted implements RestaurantMessage {
+        public final ActorRef<QueryResponse> replyTo;
+        public final String reply;
+        public final Throwable failure;
+
+        public Persisted(ActorRef<QueryResponse> replyTo, String reply, Throwable failure) {
+            this.replyTo = replyTo;
+            this.reply = reply;
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * Starts the reservation shard region on this node. Every node hosts reservation
+     * shards, and shards are rebalanced onto nodes as they join.
+     */
+    public static ActorRef<ShardingEnvelope<RestaurantMessage>> init(ActorSystem<?> system) {
+        Config config = system.settings().config().getConfig("forkfind.reservations");
+        Journals journals = Journals.get(system);
+        if (journals.enabled()) {
+            Duration retention = config.getDuration("retention");
+            Metrics metrics = Metrics.get(system);
+            system.scheduler().scheduleAtFixedRate(Duration.ofMinutes(1), RETENTION_SWEEP_INTERVAL,
+                    () -> deleteExpiredDates(journals, LocalDate.now().minusDays(retention.toDays()), metrics),
+                    system.dispatchers().lookup(DispatcherSelector.blocking()));
+        }
+        ClusterShardingSettings settings = ClusterShardingSettings.create(system);
+        return ClusterSharding.get(system).init(
+                Entity.of(TYPE_KEY, entity -> create(entity.getEntityId()))
+                        .withMessageExtractor(new HashCodeMessageExtractor<>(config.getInt("shards")))
+                        .withStopMessage(Stop.INSTANCE)
+                        .withSettings(settings.withPassivationStrategy(settings.passivationStrategySettings()
+                                .withIdleEntityPassivation(config.getDuration("passivate-after")))));
+    }
+
+    // Deletes the journals of every restaurant's dates before the cutoff that no entity holds
+    static void deleteExpiredDates(Journals journals, LocalDate before, Metrics metrics) {
+        int deleted = 0;
+        try {
+            for (String restaurant : journals.children("reservations")) {
+                for (String day : journals.children("reservations/" + restaurant)) {
+                    LocalDate date;
+                    try {
+                        date = LocalDate.parse(day);
+                    } catch (DateTimeParseException e) {
+                        continue; // not a date's journal
+                    }
+                    if (date.isBefore(before) && journals.delete("reservations/" + restaurant + "/" + day)) {
+                        deleted++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("❌ ReservationEntity: Could not delete expired reservation journals: "
+                    + e.getMessage());
+        }
+        if (deleted > 0) {
+            System.out.println("🧹 ReservationEntity: Deleted the journals of " + deleted
+                    + " restaurant-date(s) before " + before);
+            metrics.add("reservations.dates-expired", deleted);
+        }
+    }
+
+    /**
+     * Entity id of a restaurant-date; tenantId null is the default restaurant.
+     */
+    public static String entityId(String tenantId, LocalDate date) {
+        return (tenantId == null ? DEFAULT_RESTAURANT : tenantId) + "/" + date;
+    }
+
+    private static Behavior<RestaurantMessage> create(String entityId) {
+        // Restarting re-runs recovery, so a failed append never leaves unjournaled bookings behind
+        return Behaviors.supervise(Behaviors.<RestaurantMessage>setup(context -> Behaviors.withStash(RECOVERY_STASH,
+                        stash -> recovering(context, stash, entityId))))
+                .onFailure(SupervisorStrategy.restartWithBackoff(Duration.ofMillis(200), Duration.ofSeconds(10), 0.2));
+    }
+
+    // Reading the day's snapshot and events is file I/O, so it runs on the blocking dispatcher
+    private static Behavior<RestaurantMessage> recovering(ActorContext<RestaurantMessage> context,
+            StashBuffer<RestaurantMessage> stash, String entityId) {
+        Journals journals = Journals.get(context.getSystem());
+        if (!journals.enabled()) {
+            return new ReservationEntity(context, entityId, null, null, 0);
+        }
+        String journalName = "reservations/" + entityId;
+        Config config = context.getSystem().settings().config().getConfig("forkfind.reservations");
+        LocalDate date = date(entityId);
+        Metrics metrics = Metrics.get(context.getSystem());
+        Executor blocking = context.getSystem().dispatchers().lookup(DispatcherSelector.blocking());
+        CompletableFuture<Recovered> acquired = CompletableFuture.supplyAsync(() -> {
+            try {
+                EventJournal journal = journals.acquire(journalName);
+                try {
+                    ReservationBook book = new ReservationBook(FloorPlan.fromConfig(config));
+                    return recover(entityId, date, journalName, journal, book, metrics);
+                } catch (IOException | RuntimeException e) {
+                    journals.release(journalName, journal);
+                    throw e;
+                }
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, blocking);
+        context.pipeToSelf(acquired, (recovered, failure) -> failure == null ? recovered
+                : new Recovered(null, null, 0, failure));
+
+        return Behaviors.receive(RestaurantMessage.class)
+                .onMessage(Recovered.class, recovered -> {
+                    if (recovered.failure != null) {
+                        throw new IllegalStateException("Could not recover " + journalName, recovered.failure);
+                    }
+                    return stash.unstashAll(new ReservationEntity(context, entityId, recovered.journal,
+                            recovered.book, recovered.eventsSinceSnapshot));
+                })
+                .onMessage(RestaurantMessage.class, command -> {
+                    stash.stash(command);
+                    return Behaviors.same();
+                })
+                // Stopped before recovery finished: give up the journal it was acquired for
+                .onSignal(PostStop.class, signal -> {
+                    acquired.thenAccept(recovered -> journals.release(journalName, recovered.journal));
+                    return Behaviors.same();
+                })
+                .build();
+    }
+
+    // Latest snapshot, then the events appended after it
+    private static Recovered recover(String entityId, LocalDate date, String journalName, EventJournal journal,
+            ReservationBook book, Metrics metrics) throws IOException {
+        long start = System.nanoTime();
+        EventJournal.Snapshot snapshot = journal.latestSnapshot();
+        if (snapshot != null) {
+            book.restore(date, snapshot.state);
+        }
+        long replayed = journal.replay(snapshot == null ? 0 : snapshot.seqNr,
+                (seqNr, payload) -> book.apply(ReservationEvent.fromBytes(payload)));
+        metrics.histogram("reservations.recovery-ms").record((System.nanoTime() - start) / 1_000_000);
+        if (snapshot != null || replayed > 0) {
+            System.out.println("✅ ReservationEntity " + entityId + ": Recovered " + book.bookings(date).size()
+                    + " booking(s) from " + journalName + " (" + (snapshot == null ? "no snapshot" : "snapshot")
+                    + " + " + replayed + " event(s))");
+        }
+        return new Recovered(journal, book, (int) replayed, null);
+    }
+
+    private static LocalDate date(String entityId) {
+        return LocalDate.parse(entityId.substring(entityId.lastIndexOf('/') + 1));
+    }
+
+    private ReservationEntity(ActorContext<RestaurantMessage> context, String entityId, EventJournal journal,
+            ReservationBook book, int eventsSinceSnapshot) {
+        super(context);
+        this.entityId = entityId;
+        this.date = date(entityId);
+        this.journalName = "reservations/" + entityId;
+        this.metrics = Metrics.get(context.getSystem());
+        Config config = context.getSystem().settings().config().getConfig("forkfind.reservations");
+        this.snapshotEvery = config.getInt("snapshot-every");
+        this.book = book != null ? book : new ReservationBook(FloorPlan.fromConfig(config));
+
+        this.journals = Journals.get(context.getSystem());
+        this.journal = journal;
+        this.eventsSinceSnapshot = eventsSinceSnapshot;
+    }
+
+    @Override
+    public Receive<RestaurantMessage> createReceive() {
+        return newReceiveBuilder()
+                .onMessage(BookTable.class, this::onBookTable)
+                .onMessage(GetAvailability.class, this::onGetAvailability)
+                .onMessage(CancelReservation.class, this::onCancelReservation)
+                .onMessage(Persisted.class, this::onPersisted)
+                .onMessage(Stop.class, this::onStop)
+                .onMessage(JournalReleased.class, this::onJournalReleased)
+                .onSignal(PreRestart.class, signal -> releaseJournal())
+                .onSignal(PostStop.class, signal -> releaseJournal())
+                .build();
+    }
+
+    private Behavior<RestaurantMessage> onBookTable(BookTable request) {
+        LocalTime time = LocalTime.parse(request.time);
+        LocalDate today = LocalDate.now();
+        // Checked here rather than by the router, so a request that waited past the time is refused too
+        LocalTime earliest = date.equals(today) ? ReservationActor.earliestToday() : null;
+        if (date.isBefore(today) || earliest != null && time.isBefore(earliest)) {
+            List<LocalTime> alternatives = earliest != null
+                    ? book.availableTimes(date, earliest, request.guests, 3) : List.of();
+            request.replyTo.tell(new QueryResponse("⏰ **Time Passed**: \n" +
+                    "**" + ReservationActor.format(time) + "** " + ReservationActor.dayName(date, today)
+                    + " has already passed. \n" + (alternatives.isEmpty()
+                            ? "There are no more seatings today. Try another day?"
+                            : "Next available: " + ReservationActor.formatTimes(alternatives)
+                                    + ". Reply with a time to book."), true));
+            metrics.increment("reservations.past");
+            return this;
+        }
+        ReservationBook.Booking booking = book.book(date, time, request.guests);
+        if (booking == null) {
+            List<LocalTime> alternatives = book.availableTimes(date, time, request.guests, 3);
+            String suggestion = alternatives.isEmpty()
+                    ? "We're fully booked after that time. Try another day?"
+                    : "Next available: " + ReservationActor.formatTimes(alternatives) + ". Reply with a time to book.";
+            request.replyTo.tell(new QueryResponse("⚠️ **Fully Booked**: \n" +
+                    "No table for " + request.guests + " guests at **" + ReservationActor.format(time) + "** "
+                    + ReservationActor.dayName(date, today) + ". \n" + suggestion, true));
+            metrics.increment("reservations.full");
+            return this;
+        }
+        System.out.println("✅ ReservationEntity " + entityId + ": Booked " + booking.id + " (table "
+                + booking.table.id + ") on " + getContext().getSystem().address());
+        persist(new ReservationEvent.Booked(booking.id, booking.table.id, booking.slot, booking.guests,
+                        System.currentTimeMillis()), request.replyTo,
+                "✅ **Reservation Confirmed**: \n" +
+                        "Table for " + booking.guests + " guests booked at **" + ReservationActor.format(booking.time)
+                        + "** " + ReservationActor.dayName(date, today) + " in " + booking.table.area
+                        + " (table " + booking.table.id + "). \n" +
+                        "Confirmation **" + booking.id + "**.\n" +
+                        "(Use this ID to cancel if needed)");
+        metrics.increment("reservations.booked");
+        return this;
+    }
+
+    private Behavior<RestaurantMessage> onGetAvailability(GetAvailability request) {
+        String day = ReservationActor.dayName(date, LocalDate.now());
+        List<LocalTime> times = book.availableTimes(date, LocalTime.parse(request.from), request.guests, request.limit);
+        if (times.isEmpty()) {
+            request.replyTo.tell(new QueryResponse("📅 **Availability " + day + "**: \n" +
+                    "Sorry, we're fully booked for " + request.guests + " guests. Try another day?", true));
+            return this;
+        }
+        StringBuilder reply = new StringBuilder("📅 **Availability " + day + "** for " + request.guests
+                + " guests: \n");
+        for (LocalTime time : times) {
+            reply.append("• **").append(ReservationActor.format(time)).append("**\n");
+        }
+        request.replyTo.tell(new QueryResponse(reply.append("Reply with a time to book.").toString(), true));
+        return this;
+    }
+
+    private Behavior<RestaurantMessage> onCancelReservation(CancelReservation request) {
+        ReservationBook.Booking cancelled = book.cancel(request.reservationId);
+        if (cancelled == null) {
+            request.replyTo.tell(new QueryResponse("⚠️ **Cancellation Failed**: \n" +
+                    "Could not find active reservation with ID **" + request.reservationId + "**.", true));
+            return this;
+        }
+        System.out.println("❌ ReservationEntity " + entityId + ": Cancelled reservation " + cancelled.id);
+        persist(new ReservationEvent.Cancelled(cancelled.id, System.currentTimeMillis()), request.replyTo,
+                "❌ **Reservation Cancelled**: \n" +
+                        "Reservation **" + cancelled.id + "** has been successfully cancelled.");
+        metrics.increment("reservations.cancelled");
+        return this;
+    }
+
+    private Behavior<RestaurantMessage> onPersisted(Persisted persisted) {
+        if (persisted.failure != null) {
+            persisted.replyTo.tell(new QueryResponse(
+                    "⚠️ Sorry, we couldn't save that change. Please try again in a moment.", false));
+            throw new IllegalStateException("Reservation journal append failed", persisted.failure);
+        }
+        persisted.replyTo.tell(new QueryResponse(persisted.reply, true));
+        return this;
+    }
+
+    // The book already holds the change; the reply waits for the group commit, the entity does not
+    private void persist(ReservationEvent event, ActorRef<QueryResponse> replyTo, String reply) {
+        if (journal == null) {
+            getContext().getSelf().tell(new Persisted(replyTo, reply, null));
+            return;
+        }
+        CompletableFuture<Long> appended = journal.append(event.toBytes());
+        getContext().pipeToSelf(appended, (seqNr, failure) -> new Persisted(replyTo, reply, failure));
+
+        // This entity is the journal's only writer, so the book is exactly the state after lastSeqNr
+        if (++eventsSinceSnapshot >= snapshotEvery) {
+            journal.saveSnapshot(journal.lastSeqNr(), book.snapshot(date));
+            eventsSinceSnapshot = 0;
+            metrics.increment("reservations.snapshots");
+        }
+    }
+
+    // Passivation or hand-off: the shard's next owner must see everything this incarnation
+    // appended, so the entity stops once the day's journal is closed
+    private Behavior<RestaurantMessage> onStop(Stop stop) {
+        if (journal == null) {
+            return Behaviors.stopped();
+        }
+        released = true;
+        getContext().pipeToSelf(journals.release(journalName, journal), (seqNr, failure) -> new JournalReleased(failure));
+        return this;
+    }
+
+    private Behavior<RestaurantMessage> onJournalReleased(JournalReleased released) {
+        if (released.failure != null) {
+            System.err.println("⚠️ ReservationEntity " + entityId + ": Closing " + journalName + " failed: "
+                    + released.failure);
+        }
+        return Behaviors.stopped();
+    }
+
+    // Stopped or restarted any other way: give up the journal without waiting for the close
+    private Behavior<RestaurantMessage> releaseJournal() {
+        if (journal != null && !released) {
+            released = true;
+            journals.release(journalName, journal);
+        }
+        return this;
+    }
+}
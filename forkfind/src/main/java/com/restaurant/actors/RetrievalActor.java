@@ -6,52 +6,74 @@ import akka.actor.typed.javadsl.AbstractBehavior;
 import akka.actor.typed.javadsl.ActorContext;
 import akka.actor.typed.javadsl.Behaviors;
 import akka.actor.typed.javadsl.Receive;
+import com.restaurant.catalog.MenuCatalog;
+import com.restaurant.catalog.MenuCatalogs;
+import com.restaurant.catalog.TenantCatalogs;
+import com.restaurant.corpus.CorpusStore;
+import com.restaurant.corpus.CorpusStores;
 import com.restaurant.messages.Messages.*;
+import com.restaurant.metrics.Metrics;
+import com.restaurant.retrieval.ContextPacker;
+import com.restaurant.retrieval.ContextPacker.Packed;
+import com.restaurant.retrieval.ContextPacker.ScoredChunk;
+import com.restaurant.retrieval.HybridRetriever;
+import com.restaurant.retrieval.KnowledgeChunk;
+import com.typesafe.config.Config;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Map;
 
 public class RetrievalActor extends AbstractBehavior<RestaurantMessage> {
 
     private final ActorRef<RestaurantMessage> loggingActor;
-    private final String knowledgeBaseContent;
+    private final MenuCatalogs catalogs;
+    private final TenantCatalogs tenants;
+    private final CorpusStore corpus; // the node's shared store; null unless forkfind.corpus.dir is set
+    private final int topK;
+    private final ContextPacker contextPacker;
+    private final Metrics metrics;
+
+    // Internal message: a tenant's catalog is resident (null for an unknown tenant) or failed to load
+    private static class TenantCatalogLoaded implements RestaurantMessage {
+        public final RetrievalRequest request;
+        public final MenuCatalog catalog;
+        public final Throwable failure;
+
+        public TenantCatalogLoaded(RetrievalRequest request, MenuCatalog catalog, Throwable failure) {
+            this.request = request;
+            this.catalog = catalog;
+            this.failure = failure;
+        }
+    }
 
     public static Behavior<RestaurantMessage> create(ActorRef<RestaurantMessage> loggingActor) {
-        return Behaviors.setup(context -> new RetrievalActor(context, loggingActor));
+        return Behaviors.setup(context -> new RetrievalActor(context, loggingActor,
+                context.getSystem().settings().config().getConfig("forkfind.retrieval")));
     }
 
-    private RetrievalActor(ActorContext<RestaurantMessage> context, ActorRef<RestaurantMessage> loggingActor) {
+    private RetrievalActor(ActorContext<RestaurantMessage> context, ActorRef<RestaurantMessage> loggingActor,
+            Config config) {
         super(context);
         this.loggingActor = loggingActor;
-        this.knowledgeBaseContent = loadKnowledgeBase();
-    }
-
-    private String loadKnowledgeBase() {
-        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream("menu_knowledge.txt")) {
-            if (inputStream == null) {
-                System.err.println("❌ RetrievalActor: menu_knowledge.txt not found in resources!");
-                return "";
-            }
-            try (Scanner scanner = new Scanner(inputStream, StandardCharsets.UTF_8.name())) {
-                String content = scanner.useDelimiter("\\A").next();
-                System.out.println(
-                        "✅ RetrievalActor: Knowledge base loaded successfully (" + content.length() + " chars)");
-                return content;
-            }
-        } catch (IOException e) {
-            System.err.println("❌ RetrievalActor: Error loading knowledge base: " + e.getMessage());
-            return "";
-        }
+        this.catalogs = MenuCatalogs.get(context.getSystem());
+        this.tenants = TenantCatalogs.get(context.getSystem());
+        this.topK = config.getInt("top-k");
+        int contextBudgetChars = config.getInt("context-budget-chars");
+        MenuCatalog catalog = catalogs.current();
+        System.out.println("✅ RetrievalActor: Using catalog v" + catalog.version + " (" + catalog.chunks.size()
+                + " chunks, " + catalog.retriever.keywordIndex().termCount() + " terms, "
+                + catalog.retriever.mode() + " retrieval)");
+        this.contextPacker = new ContextPacker(contextBudgetChars);
+        this.metrics = Metrics.get(context.getSystem());
+        this.corpus = CorpusStores.get(context.getSystem()).store();
     }
 
     @Override
     public Receive<RestaurantMessage> createReceive() {
         return newReceiveBuilder()
                 .onMessage(RetrievalRequest.class, this::onRetrievalRequest)
+                .onMessage(TenantCatalogLoaded.class, this::onTenantCatalogLoaded)
                 .build();
     }
 
@@ -60,62 +82,118 @@ public class RetrievalActor extends AbstractBehavior<RestaurantMessage> {
         System.out.println("║ 🔍 RETRIEVAL ACTOR - Searching Knowledge Base                   ║");
         System.out.println("╠════════════════════════════════════════════════════════════════╣");
         System.out.println("║ Keywords: " + request.keywords);
+        if (request.tenantId != null) {
+            System.out.println("║ Tenant: " + request.tenantId);
+        }
         System.out.println("╚════════════════════════════════════════════════════════════════╝");
 
         loggingActor.tell(new LogMessage("RetrievalActor: Searching for '" + request.keywords + "'", "INFO"));
 
-        String result = performSearch(request.keywords);
+        if (corpus == null && request.tenantId != null) {
+            // A cold tenant is read and indexed on the blocking dispatcher, not on this actor's
+            getContext().pipeToSelf(tenants.catalog(request.tenantId),
+                    (catalog, failure) -> new TenantCatalogLoaded(request, catalog, failure));
+            return this;
+        }
+        reply(request, performSearch(request, catalogs.current()));
+        return this;
+    }
+
+    private Behavior<RestaurantMessage> onTenantCatalogLoaded(TenantCatalogLoaded loaded) {
+        if (loaded.failure != null) {
+            System.err.println("❌ RetrievalActor: Could not load tenant " + loaded.request.tenantId + ": "
+                    + loaded.failure.getMessage());
+            loaded.request.replyTo.tell(new RetrievalResponse("", false));
+            return this;
+        }
+        reply(loaded.request, performSearch(loaded.request, loaded.catalog));
+        return this;
+    }
 
+    private void reply(RetrievalRequest request, String result) {
         System.out.println("   ↳ Found: "
                 + (result.isEmpty() ? "Nothing" : result.substring(0, Math.min(50, result.length())) + "..."));
 
         request.replyTo.tell(new RetrievalResponse(result, true));
-        return this;
     }
 
-    private String performSearch(String query) {
-        if (knowledgeBaseContent.isEmpty())
-            return "";
-
-        String q = query.toLowerCase();
-        // Fallback for generic "Show me the menu" queries
-        if (q.contains("menu") || q.contains("list") || q.contains("show") || q.contains("have")
-                || q.contains("options")) {
-            // Return the whole file or a large summary (limited to avoid token limits if
-            // file gets huge)
-            // Since our file is small (<3000 chars), we can return it all.
-            System.out.println("   ↳ General query detected. Returning FULL knowledge base.");
-            return knowledgeBaseContent;
+    // One catalog snapshot per request: a concurrent reload cannot mix two menu versions
+    private String performSearch(RetrievalRequest request, MenuCatalog catalog) {
+        String query = request.keywords;
+        String tenantId = request.tenantId;
+        if (corpus != null) {
+            return searchCorpus(query, tenantId);
         }
 
-        String[] keywords = q.split("\\s+");
-        List<String> matchingBlocks = new ArrayList<>();
-
-        // Simple chunking by double newlines (paragraphs)
-        String[] blocks = knowledgeBaseContent.split("\n\n");
+        if (catalog == null) {
+            return "No menu found for restaurant '" + tenantId + "'.";
+        }
+        List<KnowledgeChunk> chunks = catalog.chunks;
+        HybridRetriever retriever = catalog.retriever;
+        if (chunks.isEmpty())
+            return "";
 
-        for (String block : blocks) {
-            String blockLower = block.toLowerCase();
-            boolean match = false;
+        List<ScoredChunk> candidates;
+        int baselineChars;
 
-            // Check if any keyword matches
-            for (String keyword : keywords) {
-                // Ignore small words
-                if (keyword.length() > 3 && blockLower.contains(keyword)) {
-                    match = true;
-                    break;
-                }
+        // Generic "Show me the menu" queries (as the edge parsed them) consider every chunk; BM25 hits still rank first
+        if (request.wholeMenu) {
+            System.out.println("   ↳ General query detected. Packing knowledge base into the context budget.");
+            Map<Integer, Double> scores = retriever.scores(query, topK);
+            candidates = new ArrayList<>(chunks.size());
+            for (KnowledgeChunk chunk : chunks) {
+                candidates.add(new ScoredChunk(chunk, scores.getOrDefault(chunk.id, 0.0)));
             }
-
-            if (match) {
-                matchingBlocks.add(block.trim());
+            baselineChars = catalog.content.length();
+        } else {
+            candidates = retriever.search(query, topK);
+            if (candidates.isEmpty()) {
+                return "No specific menu details found for your query.";
+            }
+            baselineChars = 0;
+            for (ScoredChunk candidate : candidates) {
+                baselineChars += candidate.chunk.text.length() + 2;
             }
         }
 
-        if (matchingBlocks.isEmpty()) {
+        return pack(candidates, baselineChars);
+    }
+
+    // Multi-restaurant corpus: always top-k, the corpus is far too large to pack whole
+    private String searchCorpus(String query, String tenantId) {
+        List<CorpusStore.Hit> found;
+        if (tenantId != null) {
+            // A tenant is one restaurant document of the corpus
+            int tenantDocument = corpus.documentId(tenantId);
+            if (tenantDocument < 0) {
+                return "No menu found for restaurant '" + tenantId + "'.";
+            }
+            found = corpus.searchDocument(query, topK, tenantDocument);
+        } else {
+            found = corpus.search(query, topK);
+        }
+        List<ScoredChunk> candidates = new ArrayList<>();
+        int baselineChars = 0;
+        for (CorpusStore.Hit hit : found) {
+            String text = "[" + hit.document + "]\n" + hit.text;
+            candidates.add(new ScoredChunk(new KnowledgeChunk(candidates.size(), hit.document, text), hit.score));
+            baselineChars += text.length() + 2;
+        }
+        if (candidates.isEmpty()) {
             return "No specific menu details found for your query.";
         }
+        return pack(candidates, baselineChars);
+    }
+
+    private String pack(List<ScoredChunk> candidates, int baselineChars) {
+        Packed packed = contextPacker.pack(candidates, baselineChars);
+        metrics.add("rag.context.chars", packed.context.length());
+        metrics.add("rag.context.tokens-saved", packed.tokensSaved());
+        metrics.add("rag.context.chunks-skipped", packed.skippedChunks);
+        System.out.println("   ↳ Packed " + packed.includedChunks + " chunks (" + packed.context.length()
+                + " chars, ~" + packed.tokensSaved() + " prompt tokens saved, " + packed.skippedChunks
+                + " skipped)");
 
-        return String.join("\n\n", matchingBlocks);
+        return packed.context;
     }
 }
@@ -0,0 +1,245 @@
+package com.restaurant.actors;
+
+import akka.actor.typed.ActorRef;
+import akka.actor.typed.Behavior;
+import akka.actor.typed.javadsl.AbstractBehavior;
+import akka.actor.typed.javadsl.ActorContext;
+import akka.actor.typed.javadsl.Behaviors;
+import akka.actor.typed.javadsl.Receive;
+import akka.actor.typed.receptionist.Receptionist;
+import com.restaurant.cluster.ServiceKeys;
+import com.restaurant.messages.Messages.*;
+import com.restaurant.metrics.Metrics;
+import com.restaurant.retrieval.ContextPacker;
+import com.restaurant.retrieval.ContextPacker.Packed;
+import com.restaurant.retrieval.ContextPacker.ScoredChunk;
+import com.restaurant.retrieval.KnowledgeChunk;
+import com.restaurant.retrieval.ScoreFusion;
+import com.typesafe.config.Config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Frontend side of sharded retrieval. Speaks the same RetrievalRequest/RetrievalResponse
+ * protocol as RetrievalActor, but scatters each query to one replica of every retrieval
+ * shard found through the Receptionist, gathers their hits, merges the global top-k and
+ * packs the context. Shards return raw keyword and semantic scores with their best of
+ * each; the gateway fuses every hit against the best of all shards, so hits of different
+ * shards rank on one scale.
+ *
+ * Each shard gets shard-timeout to answer; a slow or missing shard only removes its hits
+ * (partial result) instead of failing the query. With no shards registered at all the
+ * request goes to the RetrievalActor service, which searches the whole index.
+ */
+public class RetrievalGatewayActor extends AbstractBehavior<RestaurantMessage> {
+
+    private final ActorRef<RestaurantMessage> fallback;
+    private final int shardCount;
+    private final Duration shardTimeout;
+    private final int topK;
+    private final ContextPacker contextPacker;
+    private final ScoreFusion fusion;
+    private final Metrics metrics;
+    private final AtomicInteger availableLevel; // published copy of availableShards() for the metrics thread
+
+    // Known replicas per shard, kept current by Receptionist listings
+    private final List<List<ActorRef<RestaurantMessage>>> replicas = new ArrayList<>();
+    private final int[] nextReplica;
+
+    private final Map<Long, Scatter> scatters = new HashMap<>();
+    private long nextRequestId = 0;
+
+    // One query waiting for its shards
+    private static class Scatter {
+        final RetrievalRequest request;
+        final boolean general;
+        final long startNanos = System.nanoTime();
+        final int expected; // shards that hold data for this query
+        int outstanding;
+        int answered = 0;
+        final List<ShardHit> hits = new ArrayList<>();
+        double keywordMax = 0;
+        double semanticMax = 0;
+
+        Scatter(RetrievalRequest request, boolean general, int outstanding, int expected) {
+            this.request = request;
+            this.general = general;
+            this.outstanding = outstanding;
+            this.expected = expected;
+        }
+    }
+
+    private static class ShardListing implements RestaurantMessage {
+        public final Receptionist.Listing listing;
+
+        public ShardListing(Receptionist.Listing listing) {
+            this.listing = listing;
+        }
+    }
+
+    private static class WrappedShardResponse implements RestaurantMessage {
+        public final long requestId;
+        public final ShardSearchResponse response; // null when the shard timed out or failed
+
+        public WrappedShardResponse(long requestId, ShardSearchResponse response) {
+            this.requestId = requestId;
+            this.response = response;
+        }
+    }
+
+    public static Behavior<RestaurantMessage> create(ActorRef<RestaurantMessage> fallback) {
+        return Behaviors.setup(context -> new RetrievalGatewayActor(context, fallback,
+                context.getSystem().settings().config().getConfig("forkfind.retrieval")));
+    }
+
+    private RetrievalGatewayActor(ActorContext<RestaurantMessage> context,
+            ActorRef<RestaurantMessage> fallback, Config config) {
+        super(context);
+        this.fallback = fallback;
+        this.shardCount = config.getInt("sharding.shards");
+        this.shardTimeout = config.getDuration("sharding.shard-timeout");
+        this.topK = config.getInt("top-k");
+        this.contextPacker = new ContextPacker(config.getInt("context-budget-chars"));
+        this.fusion = ScoreFusion.fromConfig(config);
+        this.metrics = Metrics.get(context.getSystem());
+        this.availableLevel = metrics.level("retrieval.shards.available");
+        this.nextReplica = new int[shardCount];
+
+        // A single adapter per message class; the listing's key tells which shard it is about
+        ActorRef<Receptionist.Listing> adapter = context.messageAdapter(Receptionist.Listing.class, ShardListing::new);
+        for (int shardId = 0; shardId < shardCount; shardId++) {
+            replicas.add(new ArrayList<>());
+            context.getSystem().receptionist().tell(Receptionist.subscribe(ServiceKeys.retrievalShard(shardId), adapter));
+        }
+    }
+
+    @Override
+    public Receive<RestaurantMessage> createReceive() {
+        return newReceiveBuilder()
+                .onMessage(RetrievalRequest.class, this::onRetrievalRequest)
+                .onMessage(WrappedShardResponse.class, this::onShardResponse)
+                .onMessage(ShardListing.class, this::onShardListing)
+                .build();
+    }
+
+    private Behavior<RestaurantMessage> onShardListing(ShardListing update) {
+        int shardId = ServiceKeys.retrievalShardId(update.listing.getKey());
+        if (shardId < 0 || shardId >= shardCount) {
+            return this;
+        }
+        List<ActorRef<RestaurantMessage>> shardReplicas = replicas.get(shardId);
+        shardReplicas.clear();
+        shardReplicas.addAll(update.listing.getServiceInstances(ServiceKeys.retrievalShard(shardId)));
+        availableLevel.set(availableShards());
+        System.out.println("   ↳ RetrievalGateway: shard " + shardId + " has " + shardReplicas.size()
+                + " replica(s)");
+        return this;
+    }
+
+    private Behavior<RestaurantMessage> onRetrievalRequest(RetrievalRequest request) {
+        // A tenant's catalog lives whole on its owning shard, so only that shard is asked
+        int ownerShard = request.tenantId != null ? Math.floorMod(request.tenantId.hashCode(), shardCount) : -1;
+        if (ownerShard >= 0 ? replicas.get(ownerShard).isEmpty() : availableShards() == 0) {
+            System.out.println("   ↳ RetrievalGateway: no shards registered, using RetrievalActor service");
+            metrics.increment("retrieval.scatter.local-fallback");
+            fallback.tell(request);
+            return this;
+        }
+
+        long requestId = nextRequestId++;
+        boolean general = request.wholeMenu;
+        List<ActorRef<RestaurantMessage>> targets = new ArrayList<>();
+        for (int shardId = 0; shardId < shardCount; shardId++) {
+            List<ActorRef<RestaurantMessage>> shardReplicas = replicas.get(shardId);
+            if (!shardReplicas.isEmpty() && (ownerShard < 0 || shardId == ownerShard)) {
+                // Round-robin across replicas: more backend nodes, more retrieval capacity
+                targets.add(shardReplicas.get(nextReplica[shardId]++ % shardReplicas.size()));
+            }
+        }
+        int expected = ownerShard >= 0 ? 1 : shardCount;
+
+        System.out.println("   ↳ RetrievalGateway: scattering to " + targets.size() + "/" + expected + " shards");
+        metrics.increment("retrieval.scatter.requests");
+        scatters.put(requestId, new Scatter(request, general, targets.size(), expected));
+
+        for (ActorRef<RestaurantMessage> shard : targets) {
+            getContext().ask(
+                    ShardSearchResponse.class,
+                    shard,
+                    shardTimeout,
+                    (ActorRef<ShardSearchResponse> ref) -> new ShardSearchRequest(request.keywords, topK, general, ref,
+                            request.tenantId),
+                    (response, throwable) -> new WrappedShardResponse(requestId, throwable == null ? response : null));
+        }
+        return this;
+    }
+
+    private Behavior<RestaurantMessage> onShardResponse(WrappedShardResponse wrapped) {
+        Scatter scatter = scatters.get(wrapped.requestId);
+        if (scatter == null) {
+            return this;
+        }
+        if (wrapped.response != null) {
+            scatter.answered++;
+            scatter.hits.addAll(wrapped.response.hits);
+            scatter.keywordMax = Math.max(scatter.keywordMax, wrapped.response.keywordMax);
+            scatter.semanticMax = Math.max(scatter.semanticMax, wrapped.response.semanticMax);
+        } else {
+            metrics.increment("retrieval.scatter.shard-timeouts");
+        }
+        if (--scatter.outstanding > 0) {
+            return this;
+        }
+
+        scatters.remove(wrapped.requestId);
+        if (scatter.answered < scatter.expected) {
+            metrics.increment("retrieval.scatter.partial");
+            System.out.println("   ↳ RetrievalGateway: partial result from " + scatter.answered + "/" + scatter.expected
+                    + " shards");
+        }
+        metrics.histogram("retrieval.scatter.latency-ms").record((System.nanoTime() - scatter.startNanos) / 1_000_000);
+        scatter.request.replyTo.tell(new RetrievalResponse(gather(scatter), true));
+        return this;
+    }
+
+    // Global top-k across shards (everything for general queries), packed into the context budget
+    private String gather(Scatter scatter) {
+        List<ScoredChunk> candidates = new ArrayList<>(scatter.hits.size());
+        for (ShardHit hit : scatter.hits) {
+            double score = fusion.fuse(hit.keywordScore, hit.semanticScore, scatter.keywordMax, scatter.semanticMax);
+            candidates.add(new ScoredChunk(new KnowledgeChunk(hit.position, hit.section, hit.text), score));
+        }
+        candidates.sort((a, b) -> Double.compare(b.score, a.score));
+        if (!scatter.general && candidates.size() > topK) {
+            candidates = new ArrayList<>(candidates.subList(0, topK));
+        }
+        if (candidates.isEmpty() || (!scatter.general && candidates.get(0).score <= 0)) {
+            return "No specific menu details found for your query.";
+        }
+
+        int baselineChars = 0;
+        for (ScoredChunk candidate : candidates) {
+            baselineChars += candidate.chunk.text.length() + 2;
+        }
+        Packed packed = contextPacker.pack(candidates, baselineChars);
+        metrics.add("rag.context.chars", packed.context.length());
+        metrics.add("rag.context.tokens-saved", packed.tokensSaved());
+        metrics.add("rag.context.chunks-skipped", packed.skippedChunks);
+        return packed.context;
+    }
+
+    private int availableShards() {
+        int available = 0;
+        for (List<ActorRef<RestaurantMessage>> shardReplicas : replicas) {
+            if (!shardReplicas.isEmpty()) {
+                available++;
+            }
+        }
+        return available;
+    }
+}
@@ -0,0 +1,227 @@
+package com.restaurant.actors;
+
+import akka.actor.typed.Behavior;
+import akka.actor.typed.DispatcherSelector;
+import akka.actor.typed.javadsl.AbstractBehavior;
+import akka.actor.typed.javadsl.ActorContext;
+import akka.actor.typed.javadsl.Behaviors;
+import akka.actor.typed.javadsl.Receive;
+import akka.actor.typed.receptionist.Receptionist;
+import com.restaurant.catalog.MenuCatalog;
+import com.restaurant.catalog.MenuCatalogs;
+import com.restaurant.catalog.TenantCatalogs;
+import com.restaurant.cluster.ServiceKeys;
+import com.restaurant.corpus.CorpusStore;
+import com.restaurant.corpus.CorpusStores;
+import com.restaurant.messages.Messages.*;
+import com.restaurant.retrieval.HybridRetriever;
+import com.restaurant.retrieval.KnowledgeChunk;
+import com.typesafe.config.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Searches one partition of the knowledge base for the scatter-gather retrieval
+ * gateway. Chunks (menu catalog) or corpus segments belong to shard
+ * position % shards, so a shard reads only its own postings. Registers with the Receptionist under its shard's key, so
+ * any number of replicas of a shard can run on any backend nodes. Hits carry raw
+ * keyword and semantic scores: the gateway fuses them once, across all shards.
+ */
+public class RetrievalShardActor extends AbstractBehavior<RestaurantMessage> {
+
+    private final int shardId;
+    private final int shardCount;
+    private final MenuCatalogs catalogs;
+    private final TenantCatalogs tenants;
+    private final CorpusStore corpus; // null unless forkfind.corpus.dir is set
+    private final Config retrievalConfig;
+    private final Executor blocking;
+
+    // This shard's slice of the current catalog, rebuilt off the actor's dispatcher when the
+    // catalog version changes; the previous slice keeps answering until the new one is ready
+    private long partitionVersion = -1;
+    private List<KnowledgeChunk> partition;
+    private HybridRetriever partitionRetriever;
+    private long buildingVersion = -1;
+    private final List<ShardSearchRequest> awaitingPartition = new ArrayList<>(); // before the first build
+
+    // Internal message: a partition's retriever (HNSW graph included) is built, or its build failed
+    private static class PartitionBuilt implements RestaurantMessage {
+        public final long version;
+        public final List<KnowledgeChunk> chunks;
+        public final HybridRetriever retriever;
+        public final Throwable failure;
+
+        public PartitionBuilt(long version, List<KnowledgeChunk> chunks, HybridRetriever retriever,
+                Throwable failure) {
+            this.version = version;
+            this.chunks = chunks;
+            this.retriever = retriever;
+            this.failure = failure;
+        }
+    }
+
+    // Internal message: a tenant's catalog is resident (null for an unknown tenant) or failed to load
+    private static class TenantCatalogLoaded implements RestaurantMessage {
+        public final ShardSearchRequest request;
+        public final MenuCatalog catalog;
+        public final Throwable failure;
+
+        public TenantCatalogLoaded(ShardSearchRequest request, MenuCatalog catalog, Throwable failure) {
+            this.request = request;
+            this.catalog = catalog;
+            this.failure = failure;
+        }
+    }
+
+    public static Behavior<RestaurantMessage> create(int shardId, int shardCount) {
+        return Behaviors.setup(context -> {
+            context.getSystem().receptionist().tell(
+                    Receptionist.register(ServiceKeys.retrievalShard(shardId), context.getSelf()));
+            return new RetrievalShardActor(context, shardId, shardCount);
+        });
+    }
+
+    private RetrievalShardActor(ActorContext<RestaurantMessage> context, int shardId, int shardCount) {
+        super(context);
+        this.shardId = shardId;
+        this.shardCount = shardCount;
+        this.catalogs = MenuCatalogs.get(context.getSystem());
+        this.tenants = TenantCatalogs.get(context.getSystem());
+        Config config = context.getSystem().settings().config();
+        this.retrievalConfig = config.getConfig("forkfind.retrieval");
+        this.blocking = context.getSystem().dispatchers().lookup(DispatcherSelector.blocking());
+        CorpusStore store = CorpusStores.get(context.getSystem()).store();
+        this.corpus = store != null ? store.forShard(shardId, shardCount) : null;
+        System.out.println("✅ RetrievalShardActor " + shardId + "/" + shardCount + " registered");
+    }
+
+    @Override
+    public Receive<RestaurantMessage> createReceive() {
+        return newReceiveBuilder()
+                .onMessage(ShardSearchRequest.class, this::onShardSearchRequest)
+                .onMessage(TenantCatalogLoaded.class, this::onTenantCatalogLoaded)
+                .onMessage(PartitionBuilt.class, this::onPartitionBuilt)
+                .build();
+    }
+
+    private Behavior<RestaurantMessage> onShardSearchRequest(ShardSearchRequest request) {
+        if (corpus != null) {
+            request.replyTo.tell(searchCorpus(request));
+        } else if (request.tenantId != null) {
+            // Tenants are not partitioned: this shard owns the tenant's whole catalog, loaded off this dispatcher
+            getContext().pipeToSelf(tenants.catalog(request.tenantId),
+                    (catalog, failure) -> new TenantCatalogLoaded(request, catalog, failure));
+        } else {
+            refreshPartition();
+            if (partition != null) {
+                request.replyTo.tell(search(request, partition, partitionRetriever));
+            } else {
+                awaitingPartition.add(request);
+            }
+        }
+        return this;
+    }
+
+    private Behavior<RestaurantMessage> onPartitionBuilt(PartitionBuilt built) {
+        if (built.version == buildingVersion) {
+            buildingVersion = -1;
+        }
+        if (built.failure != null) {
+            System.err.println("❌ RetrievalShardActor " + shardId + ": Could not build partition for catalog v"
+                    + built.version + ": " + built.failure.getMessage());
+        } else if (built.version > partitionVersion) {
+            partition = built.chunks;
+            partitionRetriever = built.retriever;
+            partitionVersion = built.version;
+        }
+        if (partition == null) {
+            // Still nothing to search: answer empty rather than leave the gateway waiting
+            for (ShardSearchRequest request : awaitingPartition) {
+                request.replyTo.tell(new ShardSearchResponse(shardId, new ArrayList<>(), 0, 0));
+            }
+        } else {
+            for (ShardSearchRequest request : awaitingPartition) {
+                request.replyTo.tell(search(request, partition, partitionRetriever));
+            }
+        }
+        awaitingPartition.clear();
+        return this;
+    }
+
+    private Behavior<RestaurantMessage> onTenantCatalogLoaded(TenantCatalogLoaded loaded) {
+        if (loaded.failure != null) {
+            System.err.println("❌ RetrievalShardActor " + shardId + ": Could not load tenant "
+                    + loaded.request.tenantId + ": " + loaded.failure.getMessage());
+        }
+        loaded.request.replyTo.tell(loaded.catalog != null
+                ? search(loaded.request, loaded.catalog.chunks, loaded.catalog.retriever)
+                : new ShardSearchResponse(shardId, new ArrayList<>(), 0, 0));
+        return this;
+    }
+
+    // Corpus BM25 uses corpus-wide statistics, so its scores already compare across shards
+    private ShardSearchResponse searchCorpus(ShardSearchRequest request) {
+        List<ShardHit> hits = new ArrayList<>();
+        int tenantDocument = request.tenantId != null ? corpus.documentId(request.tenantId) : -1;
+        if (request.tenantId == null || tenantDocument >= 0) {
+            List<CorpusStore.Hit> found = request.tenantId != null
+                    ? corpus.searchDocument(request.query, request.topK, tenantDocument)
+                    : corpus.search(request.query, request.topK);
+            for (CorpusStore.Hit hit : found) {
+                hits.add(new ShardHit(hits.size(), hit.document, "[" + hit.document + "]\n" + hit.text,
+                        hit.score, 0));
+            }
+        }
+        return new ShardSearchResponse(shardId, hits, hits.isEmpty() ? 0 : hits.get(0).keywordScore, 0);
+    }
+
+    // The shard's k best by its own fusion (every chunk for general queries), sent with raw scores
+    private ShardSearchResponse search(ShardSearchRequest request, List<KnowledgeChunk> chunks,
+            HybridRetriever retriever) {
+        HybridRetriever.RawScores raw = retriever.rawScores(request.query, request.topK);
+        List<Integer> selected = new ArrayList<>();
+        if (request.allChunks) {
+            for (int i = 0; i < chunks.size(); i++) {
+                selected.add(i);
+            }
+        } else {
+            Map<Integer, Double> local = retriever.fuse(raw);
+            selected.addAll(local.keySet());
+            selected.sort((a, b) -> Double.compare(local.get(b), local.get(a)));
+            if (selected.size() > request.topK) {
+                selected = new ArrayList<>(selected.subList(0, request.topK));
+            }
+        }
+        List<ShardHit> hits = new ArrayList<>(selected.size());
+        for (int i : selected) {
+            KnowledgeChunk chunk = chunks.get(i);
+            hits.add(new ShardHit(chunk.id, chunk.section, chunk.text, raw.keyword.getOrDefault(i, 0.0),
+                    raw.semantic.getOrDefault(i, 0.0)));
+        }
+        return new ShardSearchResponse(shardId, hits, raw.keywordMax, raw.semanticMax);
+    }
+
+    // Starts building the current catalog's partition unless it is built or being built
+    private void refreshPartition() {
+        MenuCatalog catalog = catalogs.current();
+        if (catalog.version == partitionVersion || catalog.version == buildingVersion) {
+            return;
+        }
+        List<KnowledgeChunk> chunks = new ArrayList<>();
+        for (KnowledgeChunk chunk : catalog.chunks) {
+            if (chunk.id % shardCount == shardId) {
+                chunks.add(chunk);
+            }
+        }
+        long version = catalog.version;
+        buildingVersion = version;
+        getContext().pipeToSelf(
+                CompletableFuture.supplyAsync(() -> new HybridRetriever(chunks, retrievalConfig), blocking),
+                (retriever, failure) -> new PartitionBuilt(version, chunks, retriever, failure));
+    }
+}
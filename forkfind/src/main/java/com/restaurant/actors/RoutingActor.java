@@ -53,6 +53,7 @@ public class RoutingActor extends AbstractBehavior<RestaurantMessage> {
         System.out.println("╠════════════════════════════════════════════════════════════════╣");
         System.out.println("║ Query: " + request.query);
         System.out.println("║ Type: " + request.queryType);
+        System.out.println("║ Intent: " + request.intent);
         System.out.println("╚════════════════════════════════════════════════════════════════╝");
 
         // ========== TELL PATTERN (Fire-and-Forget) ==========
@@ -62,45 +63,41 @@ public class RoutingActor extends AbstractBehavior<RestaurantMessage> {
                 "Routing query: '" + request.query + "' [Type: " + request.queryType + "]",
                 "INFO"));
 
-        // Override: specific keywords trigger GeneralChatActor (to demonstrate ASK
-        // pattern from main box)
-        if (request.query.toLowerCase().startsWith("chat") || request.query.toLowerCase().startsWith("ask")) {
-            System.out.println("\n📍 Routing to GeneralChatActor (Override for ASK pattern)");
-            loggingActor.tell(new LogMessage("RoutingActor --[sendto]--> GeneralChatActor", "INFO"));
-            generalChatActor.tell(request);
-            return this;
-        }
-
-        // Route to appropriate actor based on query type
-        switch (request.queryType.toLowerCase()) {
-            case "menu":
+        // Route on the intent parsed at the edge (query type plus keywords)
+        switch (request.intent.intent) {
+            case CHAT:
+                // "chat ..." / "ask ..." from any tab reach GeneralChatActor (to demonstrate ASK pattern)
+                System.out.println("\n📍 Routing to GeneralChatActor");
+                loggingActor.tell(new LogMessage("RoutingActor --[sendto]--> GeneralChatActor", "INFO"));
+                generalChatActor.tell(request);
+                break;
+            case DIETARY:
                 // INTELLIGENT ROUTING FOR MENU
                 // 1. If query implies dietary request -> MenuActor (to demonstrate FORWARD)
                 // 2. Else -> GeneralChatActor (to demonstrate RAG for general knowledge like
                 // price, desc)
-                String q = request.query.toLowerCase();
-                if (q.contains("vegan") || q.contains("vegetarian") || q.contains("gluten") || q.contains("allergy")
-                        || q.contains("dairy")) {
-                    System.out.println("\n📍 Routing to MenuActor (Dietary Request detected -> Will trigger FORWARD)");
-                    loggingActor.tell(new LogMessage("RoutingActor --[sendto]--> MenuActor", "INFO"));
-                    menuActor.tell(request);
-                } else {
-                    System.out.println("\n📍 Routing to GeneralChatActor (General Menu Query -> Will trigger RAG)");
-                    loggingActor.tell(new LogMessage("RoutingActor --[sendto]--> GeneralChatActor", "INFO"));
-                    generalChatActor.tell(request);
-                }
+                System.out.println("\n📍 Routing to MenuActor (Dietary Request detected -> Will trigger FORWARD)");
+                loggingActor.tell(new LogMessage("RoutingActor --[sendto]--> MenuActor", "INFO"));
+                menuActor.tell(request);
                 break;
-            case "order":
+            case MENU:
+                System.out.println("\n📍 Routing to GeneralChatActor (General Menu Query -> Will trigger RAG)");
+                loggingActor.tell(new LogMessage("RoutingActor --[sendto]--> GeneralChatActor", "INFO"));
+                generalChatActor.tell(request);
+                break;
+            case PLACE_ORDER:
+            case ORDER_STATUS:
+            case CANCEL_ORDER:
+            case CHANGE_ORDER:
+            case ORDER_HELP:
                 System.out.println("\n📍 Routing to OrderActor");
                 loggingActor.tell(new LogMessage("RoutingActor --[sendto]--> OrderActor", "INFO"));
                 orderActor.tell(request);
                 break;
-            case "chat":
-                System.out.println("\n📍 Routing to GeneralChatActor");
-                loggingActor.tell(new LogMessage("RoutingActor --[sendto]--> GeneralChatActor", "INFO"));
-                generalChatActor.tell(request);
-                break;
-            case "reservation":
+            case BOOK_TABLE:
+            case CHECK_AVAILABILITY:
+            case CANCEL_RESERVATION:
+            case RESERVATION_INFO:
                 System.out.println("\n📍 Routing to ReservationActor");
                 loggingActor.tell(new LogMessage("RoutingActor --[sendto]--> ReservationActor", "INFO"));
                 reservationActor.tell(request);
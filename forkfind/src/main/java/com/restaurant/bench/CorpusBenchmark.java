@@ -0,0 +1,120 @@
+package com.restaurant.bench;
+
+import com.restaurant.corpus.CorpusStore;
+import com.restaurant.corpus.CorpusWriter;
+import com.restaurant.retrieval.Bm25Index;
+import com.restaurant.retrieval.KnowledgeChunker;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Builds synthetic multi-restaurant corpora and compares, per size, the heap held by
+ * the in-memory approach (whole text as a String plus an on-heap index) with the
+ * memory-mapped CorpusStore, along with store open time and query latency.
+ *
+ * Run with: mvn exec:java -Dexec.mainClass="com.restaurant.bench.CorpusBenchmark"
+ */
+public class CorpusBenchmark {
+
+    private static final int[] RESTAURANTS = { 100, 1_000, 10_000 };
+    private static final String[] QUERIES = { "vegan dessert", "truffle fries", "grilled salmon quinoa",
+            "private parties", "gluten free pasta" };
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+    private static Object retained;
+
+    public static void main(String[] args) throws Exception {
+        String menu;
+        try (InputStream in = CorpusBenchmark.class.getClassLoader().getResourceAsStream("menu_knowledge.txt")) {
+            menu = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        for (int restaurants : RESTAURANTS) {
+            Path dir = Files.createTempDirectory("forkfind-corpus");
+            try {
+                long buildStart = System.nanoTime();
+                try (CorpusWriter writer = new CorpusWriter(dir, 100_000, 64L * 1024 * 1024)) {
+                    for (int r = 0; r < restaurants; r++) {
+                        writer.addDocument("restaurant-" + r, new BufferedReader(new StringReader(document(menu, r))));
+                    }
+                }
+                long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+                long heapBefore = usedHeap();
+                long openStart = System.nanoTime();
+                CorpusStore store = CorpusStore.open(dir);
+                double openMillis = (System.nanoTime() - openStart) / 1e6;
+                retained = store;
+                long mappedHeap = usedHeap() - heapBefore;
+                double queryMicros = measure(store);
+
+                String inMemoryHeap = "-";
+                if (restaurants <= 1_000) {
+                    retained = null;
+                    heapBefore = usedHeap();
+                    StringBuilder all = new StringBuilder();
+                    for (int r = 0; r < restaurants; r++) {
+                        all.append(document(menu, r)).append("\n\n");
+                    }
+                    String content = all.toString();
+                    retained = new Object[] { content, new Bm25Index(KnowledgeChunker.chunk(content)) };
+                    inMemoryHeap = (usedHeap() - heapBefore) / 1024 / 1024 + " MB";
+                }
+                retained = null;
+
+                System.out.printf("%6d restaurants, %7d chunks, %5d MB on disk (built in %6d ms): open %6.2f ms, "
+                        + "heap mapped %5d KB vs in-memory %8s, query %7.1f us%n",
+                        restaurants, store.chunkCount(), store.mappedBytes() / 1024 / 1024, buildMillis, openMillis,
+                        mappedHeap / 1024, inMemoryHeap, queryMicros);
+            } finally {
+                try (Stream<Path> files = Files.walk(dir)) {
+                    files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+                }
+            }
+        }
+    }
+
+    private static double measure(CorpusStore store) {
+        int rounds = 2_000;
+        for (int i = 0; i < rounds; i++) {
+            store.search(QUERIES[i % QUERIES.length], 8);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            store.search(QUERIES[i % QUERIES.length], 8);
+        }
+        return (System.nanoTime() - start) / 1000.0 / rounds;
+    }
+
+    // The bundled menu with restaurant-specific dish names and some filler text
+    private static String document(String menu, int restaurant) {
+        Random random = new Random(restaurant);
+        StringBuilder doc = new StringBuilder();
+        for (String block : menu.split("\n\n")) {
+            doc.append(block.replaceFirst(":", " " + restaurant + ":"));
+            doc.append("\nChef note:");
+            for (int w = 0; w < 8; w++) {
+                doc.append(" word").append(random.nextInt(50_000));
+            }
+            doc.append("\n\n");
+        }
+        return doc.toString();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+}
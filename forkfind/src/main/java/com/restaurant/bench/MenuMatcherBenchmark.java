@@ -0,0 +1,137 @@
+package com.restaurant.bench;
+
+import com.restaurant.catalog.MenuItem;
+import com.restaurant.catalog.MenuItemMatcher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares the old first-hit substring scan of MenuActor.onValidateItemRequest with
+ * MenuItemMatcher on synthetic menus of growing size, for exact names, typos, partial
+ * names and names wrapped in filler words.
+ *
+ * Run with: mvn exec:java -Dexec.mainClass="com.restaurant.bench.MenuMatcherBenchmark"
+ */
+public class MenuMatcherBenchmark {
+
+    private static final int[] MENU_ITEMS = { 100, 1_000, 10_000 };
+
+    private static final String[] STYLES = { "Smoked", "Grilled", "Crispy", "Braised", "Roasted", "Spicy", "Glazed",
+            "Seared", "Pickled", "Charred", "Honey", "Garlic", "Lemon", "Truffle", "Herb", "Chili", "Maple", "Ginger",
+            "Tandoori", "Cajun", "Teriyaki", "Balsamic", "Sesame", "Pesto", "Buffalo", "Korean", "Sicilian", "Tuscan",
+            "Miso", "Harissa", "Jerk", "Chipotle", "Saffron", "Coconut", "Szechuan", "Basque", "Provencal", "Creole" };
+    private static final String[] MAINS = { "Salmon", "Chicken", "Duck", "Pork Belly", "Short Rib", "Tofu", "Shrimp",
+            "Cauliflower", "Lamb", "Halibut", "Octopus", "Mushroom", "Eggplant", "Scallop", "Venison", "Tuna", "Beef",
+            "Crab", "Lobster", "Quail", "Paneer", "Chickpea", "Squid", "Cod" };
+    private static final String[] DISHES = { "Risotto", "Tacos", "Burger", "Salad", "Ramen", "Flatbread", "Bowl",
+            "Skewers", "Sandwich", "Curry", "Linguine", "Gnocchi", "Dumplings", "Wrap", "Pizza", "Frites", "Stew",
+            "Tagine", "Paella", "Bao", "Quesadilla", "Pho", "Kebab", "Pie" };
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        for (int size : MENU_ITEMS) {
+            List<MenuItem> items = syntheticMenu(size);
+            Map<String, MenuItem> byName = new HashMap<>();
+            for (MenuItem item : items) {
+                byName.put(item.name.toLowerCase(), item);
+            }
+
+            long buildStart = System.nanoTime();
+            MenuItemMatcher matcher = new MenuItemMatcher(items);
+            long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+            List<String> queries = queries(items);
+            int rounds = Math.max(2_000, 2_000_000 / size);
+            double scanMicros = measure(rounds, queries, q -> linearScan(byName, q));
+            double matcherMicros = measure(rounds * 5, queries, q -> {
+                MenuItemMatcher.Match match = matcher.best(q);
+                return match == null ? 0 : match.item.name.length();
+            });
+
+            int scanFound = 0;
+            int matcherCorrect = 0;
+            for (int i = 0; i < queries.size(); i += 4) {
+                // Every 4 queries target the same item; the first is its exact name
+                String expected = queries.get(i);
+                for (int j = i; j < i + 4; j++) {
+                    if (linearScan(byName, queries.get(j)) > 0) {
+                        scanFound++;
+                    }
+                    MenuItemMatcher.Match match = matcher.best(queries.get(j));
+                    if (match != null && match.item.name.equalsIgnoreCase(expected)) {
+                        matcherCorrect++;
+                    }
+                }
+            }
+
+            System.out.printf("%6d items (%5d words, built in %4d ms): scan %8.1f us/lookup (%3d%% found anything), "
+                    + "matcher %6.1f us/lookup (%3d%% resolved to the intended item)%n",
+                    size, matcher.vocabularySize(), buildMillis, scanMicros, 100 * scanFound / queries.size(),
+                    matcherMicros, 100 * matcherCorrect / queries.size());
+        }
+    }
+
+    private interface Lookup {
+        int run(String query);
+    }
+
+    private static double measure(int rounds, List<String> queries, Lookup lookup) {
+        for (int i = 0; i < rounds; i++) {
+            sink += lookup.run(queries.get(i % queries.size()));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink += lookup.run(queries.get(i % queries.size()));
+        }
+        return (System.nanoTime() - start) / 1000.0 / rounds;
+    }
+
+    // What MenuActor.onValidateItemRequest did before the matcher
+    private static int linearScan(Map<String, MenuItem> byName, String query) {
+        String reqItem = query.toLowerCase();
+        for (Map.Entry<String, MenuItem> entry : byName.entrySet()) {
+            String key = entry.getKey();
+            if (key.contains(reqItem) || reqItem.contains(key)) {
+                return key.length();
+            }
+        }
+        return 0;
+    }
+
+    // Distinct "Style Main Dish" names
+    private static List<MenuItem> syntheticMenu(int size) {
+        Random random = new Random(7);
+        Set<String> names = new LinkedHashSet<>();
+        while (names.size() < size) {
+            names.add(STYLES[random.nextInt(STYLES.length)] + " " + MAINS[random.nextInt(MAINS.length)] + " "
+                    + DISHES[random.nextInt(DISHES.length)]);
+        }
+        List<MenuItem> items = new ArrayList<>(size);
+        for (String name : names) {
+            items.add(new MenuItem(name, 8 + random.nextInt(30), "", "House " + name.toLowerCase(), ""));
+        }
+        return items;
+    }
+
+    // Per sampled item: exact name, a typo, the name in a sentence, a dropped-letter plural
+    private static List<String> queries(List<MenuItem> items) {
+        Random random = new Random(11);
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String name = items.get(random.nextInt(items.size())).name;
+            queries.add(name);
+            int at = 2 + random.nextInt(name.length() - 3);
+            queries.add(name.substring(0, at) + name.charAt(at + 1) + name.charAt(at) + name.substring(at + 2));
+            queries.add("i would like the " + name.toLowerCase() + " please");
+            queries.add(name.replaceFirst("(\\w)(\\w)\\b", "$1") + "s");
+        }
+        return queries;
+    }
+}
@@ -0,0 +1,160 @@
+package com.restaurant.bench;
+
+import com.restaurant.journal.EventJournal;
+import com.restaurant.journal.GroupCommitWriter;
+import com.restaurant.metrics.Metrics;
+import com.restaurant.order.Order;
+import com.restaurant.order.OrderEvent;
+import com.restaurant.order.OrderShardIndex;
+import com.restaurant.order.OrderStatus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Measures the order journals: append throughput with an fsync per acknowledged event versus
+ * group commit (appends keep flowing while an fsync runs, as order entities issue them),
+ * into one journal and spread over the shard journals, and how long loading a shard's order
+ * index (snapshot plus the events after it) and recovering one order from it take as the
+ * shard's history grows.
+ *
+ * Run with: mvn exec:java -Dexec.mainClass="com.restaurant.bench.OrderJournalBenchmark"
+ */
+public class OrderJournalBenchmark {
+
+    private static final int SHARDS = 100;
+    // Orders in one shard's journal
+    private static final int[] SHARD_ORDERS = { 100, 1_000, 10_000 };
+    private static final int SNAPSHOT_EVERY = 1_000;
+    private static final Duration RETENTION = Duration.ofDays(7);
+
+    public static void main(String[] args) throws Exception {
+        Path root = Files.createTempDirectory("order-journal-bench");
+        try {
+            appendThroughput(root);
+            for (int orders : SHARD_ORDERS) {
+                recovery(root, orders);
+            }
+        } finally {
+            delete(root);
+        }
+    }
+
+    private static void appendThroughput(Path root) throws IOException {
+        int events = 2_000;
+        List<byte[]> payloads = new ArrayList<>(events);
+        for (int i = 0; i < events; i++) {
+            payloads.add(placed(Order.newId()).toBytes());
+        }
+
+        // Baseline: every append waits for its own fsync before the next one is issued
+        Metrics serialMetrics = new Metrics();
+        try (GroupCommitWriter writer = new GroupCommitWriter(true, 1024, serialMetrics)) {
+            EventJournal journal = EventJournal.open(root.resolve("serial"), writer);
+            long start = System.nanoTime();
+            for (byte[] payload : payloads) {
+                journal.append(payload).join();
+            }
+            report("fsync per append", events, System.nanoTime() - start, serialMetrics);
+        }
+
+        // Group commit: appends are issued without waiting, acknowledgements arrive per batch
+        for (int journals : new int[] { 1, SHARDS }) {
+            Metrics groupMetrics = new Metrics();
+            try (GroupCommitWriter writer = new GroupCommitWriter(true, 1024, groupMetrics)) {
+                List<EventJournal> shards = new ArrayList<>(journals);
+                for (int i = 0; i < journals; i++) {
+                    shards.add(EventJournal.open(root.resolve("group-" + journals + "/shard-" + i), writer));
+                }
+                long start = System.nanoTime();
+                List<CompletableFuture<Long>> acks = new ArrayList<>(events);
+                for (int i = 0; i < events; i++) {
+                    acks.add(shards.get(i % journals).append(payloads.get(i)));
+                }
+                CompletableFuture.allOf(acks.toArray(new CompletableFuture<?>[0])).join();
+                report("group commit, " + journals + " journal(s)", events, System.nanoTime() - start, groupMetrics);
+            }
+        }
+    }
+
+    private static void report(String label, int events, long nanos, Metrics metrics) {
+        long fsyncs = metrics.count("journal.fsyncs");
+        System.out.printf("%-30s %6d appends in %6d ms: %8.0f appends/s, %5d fsync rounds\n",
+                label, events, nanos / 1_000_000, events * 1e9 / nanos, fsyncs);
+    }
+
+    // One shard's journal: each order is placed, starts cooking and becomes ready
+    private static void recovery(Path root, int orders) throws IOException {
+        Path shard = root.resolve("recovery-" + orders);
+        List<String> ids = new ArrayList<>(orders);
+        try (GroupCommitWriter writer = new GroupCommitWriter(false, 1024, new Metrics())) {
+            OrderShardIndex index = OrderShardIndex.load(EventJournal.open(shard, writer), SNAPSHOT_EVERY,
+                    RETENTION);
+            CompletableFuture<Long> last = null;
+            for (int i = 0; i < orders; i++) {
+                String id = Order.newId();
+                ids.add(id);
+                long time = System.currentTimeMillis();
+                for (OrderEvent event : Arrays.asList(placed(id),
+                        new OrderEvent.StatusChanged(id, OrderStatus.COOKING, time),
+                        new OrderEvent.StatusChanged(id, OrderStatus.READY, time))) {
+                    last = index.append(event);
+                }
+            }
+            last.join();
+        }
+
+        try (GroupCommitWriter writer = new GroupCommitWriter(false, 1024, new Metrics())) {
+            // Once per shard and node, when its first order starts
+            long loadStart = System.nanoTime();
+            OrderShardIndex index = OrderShardIndex.load(EventJournal.open(shard, writer), SNAPSHOT_EVERY,
+                    RETENTION);
+            long loadMicros = (System.nanoTime() - loadStart) / 1_000;
+
+            long recoverNanos = 0;
+            int rounds = 1_000;
+            for (int round = -100; round < rounds; round++) { // the first rounds warm up
+                long start = System.nanoTime();
+                Order order = recover(index, ids.get(Math.floorMod(round * 7919, orders)));
+                if (round >= 0) {
+                    recoverNanos += System.nanoTime() - start;
+                }
+                if (order == null || order.status() != OrderStatus.READY) {
+                    throw new IllegalStateException("Order not recovered from " + shard);
+                }
+            }
+            System.out.printf("shard journal of %6d orders (%6d events): index loads in %8d us (%4d events "
+                            + "replayed), order entity recovers in %6.1f us\n",
+                    orders, orders * 3, loadMicros, index.replayed(), recoverNanos / 1e3 / rounds);
+        }
+    }
+
+    // What OrderEntity does when it starts
+    private static Order recover(OrderShardIndex index, String orderId) {
+        Order order = null;
+        for (OrderEvent event : index.events(orderId)) {
+            order = Order.apply(order, event);
+        }
+        return order;
+    }
+
+    private static OrderEvent.Placed placed(String orderId) {
+        return new OrderEvent.Placed(orderId,
+                Arrays.asList(new OrderEvent.Line(2, "Impossible Burger", 18.0), new OrderEvent.Line(1, "Tiramisu", 12.0)),
+                48.0, System.currentTimeMillis());
+    }
+
+    private static void delete(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
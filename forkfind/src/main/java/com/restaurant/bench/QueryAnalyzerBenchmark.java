@@ -0,0 +1,170 @@
+package com.restaurant.bench;
+
+import com.restaurant.messages.QueryIntent;
+import com.restaurant.order.Order;
+import com.restaurant.order.OrderLineParser;
+import com.restaurant.query.QueryAnalyzer;
+import com.restaurant.reservation.ReservationBook;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.TextStyle;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cost of understanding a query: one QueryAnalyzer pass at the edge, against the parsing
+ * the actors used to do on the way (RoutingActor, then MenuActor and DietarySpecialistActor,
+ * OrderActor or ReservationActor, each lower-casing the text and probing it again with its
+ * own keyword chains and patterns). Prints the intent of every sample query first.
+ *
+ * Run with: mvn exec:java -Dexec.mainClass="com.restaurant.bench.QueryAnalyzerBenchmark"
+ */
+public class QueryAnalyzerBenchmark {
+
+    private static final String[][] QUERIES = {
+            { "menu", "Do you have anything gluten free?" },
+            { "menu", "Which desserts are vegan?" },
+            { "menu", "I have a peanut allergy, what is safe?" },
+            { "menu", "How much is the Impossible Burger?" },
+            { "menu", "What seafood do you have?" },
+            { "order", "Order 2 burgers, a tiramisu and 3x coke please" },
+            { "order", "Where is my order #7KQ2M9X?" },
+            { "order", "Cancel order 7KQ2M9X" },
+            { "reservation", "Book a table for 4 people at 8pm tomorrow" },
+            { "reservation", "What times are available on Friday for a party of 6?" },
+            { "reservation", "Cancel RES-261018-001-K7Q2M4XP" },
+            { "chat", "What wine goes with salmon?" },
+            { "menu", "ask the chef about tonight's specials" },
+    };
+
+    private static final Pattern GUESTS = Pattern.compile(
+            "(\\d+)\\s*(?:people|guests|persons|ppl|pax)|(?:table|party|reservation|booking) for\\s*(\\d+)"
+                    + "|party of\\s*(\\d+)");
+    private static final Pattern TIME_12H = Pattern.compile("\\b(\\d{1,2})(?::(\\d{2}))?\\s*([ap])\\.?m\\b");
+    private static final Pattern TIME_24H = Pattern.compile("\\b(\\d{1,2}):(\\d{2})\\b");
+    private static final Pattern TIME_AT = Pattern.compile("\\bat\\s+(\\d{1,2})\\b(?!\\s*(?:people|guests|persons|ppl))");
+    private static final Pattern ISO_DATE = Pattern.compile("\\b(\\d{4}-\\d{2}-\\d{2})\\b");
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        LocalDate today = LocalDate.now();
+        for (String[] query : QUERIES) {
+            QueryIntent intent = QueryAnalyzer.analyze(query[1], query[0], name -> false, today);
+            System.out.printf("%-12s %-60s -> %s\n", query[0], query[1], intent);
+        }
+        System.out.println();
+
+        for (String type : new String[] { "menu", "order", "reservation", "chat" }) {
+            String[][] queries = Arrays.stream(QUERIES).filter(query -> query[0].equals(type)).toArray(String[][]::new);
+            double analyzer = time(() -> {
+                int found = 0;
+                for (String[] query : queries) {
+                    found += QueryAnalyzer.analyze(query[1], query[0], name -> false, today).intent.ordinal();
+                }
+                return found;
+            });
+            double rescans = time(() -> {
+                int found = 0;
+                for (String[] query : queries) {
+                    found += legacy(query[1], query[0]);
+                }
+                return found;
+            });
+            System.out.printf("%-12s analyzer once: %6.0f ns/query, per-actor rescans: %6.0f ns/query\n", type,
+                    analyzer / queries.length, rescans / queries.length);
+        }
+    }
+
+    // What the request used to cost on its way through the actors
+    private static int legacy(String query, String queryType) {
+        int found = 0;
+        // RoutingActor
+        if (query.toLowerCase().startsWith("chat") || query.toLowerCase().startsWith("ask")) {
+            return 1;
+        }
+        String q = query.toLowerCase();
+        switch (queryType) {
+            case "menu":
+                if (q.contains("vegan") || q.contains("vegetarian") || q.contains("gluten") || q.contains("allergy")
+                        || q.contains("dairy")) {
+                    // MenuActor
+                    String queryLower = query.toLowerCase();
+                    if (queryLower.contains("vegan") || queryLower.contains("vegetarian")
+                            || queryLower.contains("gluten") || queryLower.contains("dairy")
+                            || queryLower.contains("allergy") || queryLower.contains("allergen")
+                            || queryLower.contains("dietary")) {
+                        // DietarySpecialistActor
+                        String dietary = query.toLowerCase();
+                        for (String word : new String[] { "gluten", "vegan", "nut", "peanut", "seafood", "shellfish",
+                                "soy", "dairy", "lactose", "egg" }) {
+                            if (dietary.contains(word)) {
+                                found++;
+                                break;
+                            }
+                        }
+                    }
+                }
+                break;
+            case "order":
+                // OrderActor
+                String order = query.toLowerCase();
+                if (order.contains("status") || order.contains("track") || order.contains("where")
+                        || order.contains("cancel")) {
+                    found += Order.findId(query) == null ? 0 : 1;
+                } else if (order.contains("order")) {
+                    found += OrderLineParser.parse(query).size();
+                }
+                break;
+            case "reservation":
+                // ReservationActor
+                String reservation = query.toLowerCase();
+                if (reservation.contains("cancel")) {
+                    found += ReservationBook.findId(query) == null ? 0 : 1;
+                    break;
+                }
+                Matcher iso = ISO_DATE.matcher(reservation);
+                if (iso.find()) {
+                    found++;
+                } else if (reservation.contains("tomorrow")) {
+                    found++;
+                } else {
+                    for (DayOfWeek day : DayOfWeek.values()) {
+                        if (reservation.contains(day.getDisplayName(TextStyle.FULL, Locale.US).toLowerCase())) {
+                            found++;
+                            break;
+                        }
+                    }
+                }
+                found += GUESTS.matcher(reservation).find() ? 1 : 0;
+                if (reservation.contains("book") || reservation.contains("reserve")
+                        || reservation.contains("reservation")) {
+                    found += TIME_12H.matcher(reservation).find() || TIME_24H.matcher(reservation).find()
+                            || TIME_AT.matcher(reservation).find() ? 1 : 0;
+                }
+                break;
+            default:
+                break;
+        }
+        return found;
+    }
+
+    private interface Probe {
+        int run();
+    }
+
+    private static double time(Probe probe) {
+        int rounds = 500_000;
+        for (int i = 0; i < rounds; i++) {
+            sink += probe.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink += probe.run();
+        }
+        return (double) (System.nanoTime() - start) / rounds;
+    }
+}
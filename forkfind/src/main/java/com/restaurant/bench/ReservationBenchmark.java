@@ -0,0 +1,198 @@
+package com.restaurant.bench;
+
+import com.restaurant.journal.EventJournal;
+import com.restaurant.journal.GroupCommitWriter;
+import com.restaurant.metrics.Metrics;
+import com.restaurant.reservation.FloorPlan;
+import com.restaurant.reservation.ReservationBook;
+import com.restaurant.reservation.ReservationEvent;
+import com.typesafe.config.ConfigFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Hammers one ReservationBook (the configured floor plan) from several threads with
+ * "earliest table for N guests from time T" requests until every day is full, then checks
+ * that no table was ever double-booked or given to a party it cannot seat. Also times the
+ * read paths, and how long a restaurant-date entity takes to recover from its journal with
+ * and without snapshots.
+ *
+ * Run with: mvn exec:java -Dexec.mainClass="com.restaurant.bench.ReservationBenchmark"
+ */
+public class ReservationBenchmark {
+
+    private static final int DAYS = 3_650;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2030, 1, 1);
+
+    private static long sink;
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        FloorPlan plan = FloorPlan.fromConfig(ConfigFactory.load().getConfig("forkfind.reservations"));
+        int threads = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+        System.out.println(plan.tables.size() + " tables, " + plan.slotsPerDay + " slots/day, seating "
+                + plan.seatingSlots + " slots, " + DAYS + " days, " + threads + " threads");
+
+        ReservationBook book = new ReservationBook(plan);
+        AtomicLong booked = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        long start = System.nanoTime();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            // Every thread walks all days, so the threads contend for the same tables
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int d = 0; d < DAYS; d++) {
+                    LocalDate date = FIRST_DAY.plusDays(d);
+                    int misses = 0;
+                    while (misses < 8) {
+                        int guests = 1 + random.nextInt(plan.maxSeats());
+                        LocalTime from = plan.time(random.nextInt(plan.slotsPerDay - plan.seatingSlots + 1));
+                        if (book.bookEarliest(date, from, guests) != null) {
+                            booked.incrementAndGet();
+                            misses = 0;
+                        } else {
+                            rejected.incrementAndGet();
+                            misses++;
+                        }
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long nanos = System.nanoTime() - start;
+        System.out.printf("booked %d seatings (%d full-day rejections) in %d ms: %.0f bookings/s\n",
+                booked.get(), rejected.get(), nanos / 1_000_000, booked.get() * 1e9 / nanos);
+        System.out.println("overbooked or oversized seatings: " + verify(book, plan));
+
+        // Read paths on the now full book, and on an empty day
+        LocalDate full = FIRST_DAY.plusDays(DAYS / 2);
+        LocalDate empty = FIRST_DAY.minusDays(1);
+        System.out.printf("isAvailable: %.0f ns, availableTimes(limit 6): %.0f ns (full day) / %.0f ns (empty day)\n",
+                time(() -> book.isAvailable(full, plan.time(4), 4) ? 1 : 0),
+                time(() -> book.availableTimes(full, plan.opening, 4, 6).size()),
+                time(() -> book.availableTimes(empty, plan.opening, 4, 6).size()));
+
+        int snapshotEvery = ConfigFactory.load().getInt("forkfind.reservations.snapshot-every");
+        Path root = Files.createTempDirectory("reservation-journal-bench");
+        try {
+            for (int events : new int[] { 1_000, 10_000, 100_000 }) {
+                recovery(root, plan, events, 0);
+                recovery(root, plan, events, snapshotEvery);
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(root)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    // One busy date: bookings and cancellations churning a full floor, as its entity journals them
+    private static void recovery(Path root, FloorPlan plan, int events, int snapshotEvery) throws IOException {
+        Path directory = root.resolve(events + "-" + snapshotEvery);
+        Random random = new Random(events);
+        ReservationBook book = new ReservationBook(plan);
+        try (GroupCommitWriter writer = new GroupCommitWriter(false, 1024, new Metrics())) {
+            EventJournal journal = EventJournal.open(directory, writer);
+            List<String> active = new ArrayList<>();
+            CompletableFuture<Long> last = null;
+            for (int i = 1; i <= events; i++) {
+                ReservationBook.Booking booking = random.nextInt(3) == 0 ? null : book.bookEarliest(FIRST_DAY,
+                        plan.time(random.nextInt(plan.slotsPerDay - plan.seatingSlots + 1)),
+                        1 + random.nextInt(plan.maxSeats()));
+                ReservationEvent event;
+                if (booking != null) {
+                    active.add(booking.id);
+                    event = new ReservationEvent.Booked(booking.id, booking.table.id, booking.slot, booking.guests, i);
+                } else if (!active.isEmpty()) {
+                    String id = active.remove(random.nextInt(active.size()));
+                    book.cancel(id);
+                    event = new ReservationEvent.Cancelled(id, i);
+                } else {
+                    continue;
+                }
+                last = journal.append(event.toBytes());
+                if (snapshotEvery > 0 && i % snapshotEvery == 0) {
+                    last = journal.saveSnapshot(journal.lastSeqNr(), book.snapshot(FIRST_DAY));
+                }
+            }
+            last.join();
+        }
+
+        try (GroupCommitWriter writer = new GroupCommitWriter(false, 1024, new Metrics())) {
+            EventJournal journal = EventJournal.open(directory, writer);
+            long micros = 0;
+            int rounds = 20;
+            for (int round = -5; round < rounds; round++) { // the first rounds warm up
+                long start = System.nanoTime();
+                ReservationBook recovered = new ReservationBook(plan);
+                // What ReservationEntity does when it starts
+                EventJournal.Snapshot snapshot = journal.latestSnapshot();
+                if (snapshot != null) {
+                    recovered.restore(FIRST_DAY, snapshot.state);
+                }
+                journal.replay(snapshot == null ? 0 : snapshot.seqNr,
+                        (seqNr, payload) -> recovered.apply(ReservationEvent.fromBytes(payload)));
+                if (round >= 0) {
+                    micros += (System.nanoTime() - start) / 1_000;
+                }
+                if (recovered.bookings(FIRST_DAY).size() != book.bookings(FIRST_DAY).size()) {
+                    throw new IllegalStateException("Bookings not recovered from " + directory);
+                }
+            }
+            System.out.printf("date journal of %6d events, %-22s: entity recovers in %8.0f us\n", events,
+                    snapshotEvery == 0 ? "no snapshots" : "snapshot every " + snapshotEvery, (double) micros / rounds);
+        }
+    }
+
+    // Replays every booking into fresh per-table words; any overlap is a double booking
+    private static int verify(ReservationBook book, FloorPlan plan) {
+        int problems = 0;
+        for (int d = 0; d < DAYS; d++) {
+            Map<String, Long> occupied = new HashMap<>();
+            for (ReservationBook.Booking booking : book.bookings(FIRST_DAY.plusDays(d))) {
+                int slot = plan.slot(booking.time);
+                long mask = ((1L << plan.seatingSlots) - 1) << slot;
+                long before = occupied.getOrDefault(booking.table.id, 0L);
+                if ((before & mask) != 0 || booking.guests > booking.table.seats) {
+                    problems++;
+                }
+                occupied.put(booking.table.id, before | mask);
+            }
+        }
+        return problems;
+    }
+
+    private interface Probe {
+        int run();
+    }
+
+    private static double time(Probe probe) {
+        int rounds = 2_000_000;
+        for (int i = 0; i < rounds; i++) {
+            sink += probe.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink += probe.run();
+        }
+        return (double) (System.nanoTime() - start) / rounds;
+    }
+}
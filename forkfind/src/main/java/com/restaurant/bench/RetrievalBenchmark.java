@@ -0,0 +1,106 @@
+package com.restaurant.bench;
+
+import com.restaurant.retrieval.Bm25Index;
+import com.restaurant.retrieval.KnowledgeChunk;
+import com.restaurant.retrieval.KnowledgeChunker;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * Compares the old per-request linear keyword scan with Bm25Index search on
+ * synthetic knowledge bases of growing size (the real menu, replicated with
+ * renamed dishes and filler vocabulary).
+ *
+ * Run with: mvn exec:java -Dexec.mainClass="com.restaurant.bench.RetrievalBenchmark"
+ */
+public class RetrievalBenchmark {
+
+    private static final int[] CORPUS_CHUNKS = { 1_000, 10_000, 100_000 };
+    private static final int TOP_K = 8;
+    private static final String[] QUERIES = {
+            "vegan gluten free dessert",
+            "what comes with the steak frites",
+            "truffle fries",
+            "is the calamari fried",
+            "spicy seafood pasta with garlic",
+    };
+
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        String menu = loadMenu();
+        for (int size : CORPUS_CHUNKS) {
+            String corpus = syntheticCorpus(menu, size);
+
+            long buildStart = System.nanoTime();
+            Bm25Index index = new Bm25Index(KnowledgeChunker.chunk(corpus));
+            long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+            int rounds = Math.max(20, 2_000_000 / size);
+            double scanMicros = measure(rounds, q -> linearScan(corpus, q));
+            double indexMicros = measure(rounds * 20, q -> index.search(q, TOP_K).size());
+
+            System.out.printf("%7d chunks (%5.1f MB, index built in %5d ms): scan %10.1f us/query, "
+                    + "bm25 %8.1f us/query (%.0fx)%n",
+                    size, corpus.length() / 1e6, buildMillis, scanMicros, indexMicros, scanMicros / indexMicros);
+        }
+    }
+
+    private interface Search {
+        int run(String query);
+    }
+
+    private static double measure(int rounds, Search search) {
+        for (int i = 0; i < rounds; i++) {
+            sink += search.run(QUERIES[i % QUERIES.length]);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink += search.run(QUERIES[i % QUERIES.length]);
+        }
+        return (System.nanoTime() - start) / 1000.0 / rounds;
+    }
+
+    // What RetrievalActor.performSearch did before the index
+    private static int linearScan(String content, String query) {
+        String[] keywords = query.toLowerCase().split("\\s+");
+        int matches = 0;
+        for (String block : content.split("\n\n")) {
+            String blockLower = block.toLowerCase();
+            for (String keyword : keywords) {
+                if (keyword.length() > 3 && blockLower.contains(keyword)) {
+                    matches++;
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static String syntheticCorpus(String menu, int targetChunks) {
+        List<KnowledgeChunk> base = KnowledgeChunker.chunk(menu);
+        Random random = new Random(42);
+        StringBuilder corpus = new StringBuilder();
+        for (int i = 0; i < targetChunks; i++) {
+            KnowledgeChunk chunk = base.get(i % base.size());
+            corpus.append(chunk.text.replaceFirst(":", " No. " + i + ":"));
+            corpus.append("\nNotes:");
+            for (int w = 0; w < 12; w++) {
+                corpus.append(" term").append(random.nextInt(20_000));
+            }
+            corpus.append("\n\n");
+        }
+        return corpus.toString();
+    }
+
+    private static String loadMenu() throws Exception {
+        try (InputStream in = RetrievalBenchmark.class.getClassLoader().getResourceAsStream("menu_knowledge.txt");
+                Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name())) {
+            return scanner.useDelimiter("\\A").next();
+        }
+    }
+}
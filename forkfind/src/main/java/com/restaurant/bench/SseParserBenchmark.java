@@ -0,0 +1,104 @@
+package com.restaurant.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.llm.SseDeltaParser;
+import okio.Buffer;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares the old readLine + readTree SSE handling with SseDeltaParser
+ * on a synthetic 300-token OpenAI-style stream.
+ *
+ * Run with: mvn exec:java -Dexec.mainClass="com.restaurant.bench.SseParserBenchmark"
+ */
+public class SseParserBenchmark {
+
+    private static final int TOKENS = 300;
+    private static final int WARMUP_ROUNDS = 2_000;
+    private static final int MEASURED_ROUNDS = 5_000;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        byte[] stream = syntheticStream();
+        System.out.println("Stream: " + TOKENS + " chunks, " + stream.length + " bytes");
+
+        run("readLine + readTree ", stream, SseParserBenchmark::treeParse);
+        run("SseDeltaParser      ", stream, SseParserBenchmark::streamingParse);
+    }
+
+    private interface Parser {
+        int parse(byte[] stream) throws Exception;
+    }
+
+    private static void run(String label, byte[] stream, Parser parser) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += parser.parse(stream);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink += parser.parse(stream);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("%s %8.1f us/stream %10d bytes allocated/stream%n",
+                label, elapsed / 1000.0 / MEASURED_ROUNDS, allocated / MEASURED_ROUNDS);
+    }
+
+    // The approach LLMActor used before SseDeltaParser
+    private static int treeParse(byte[] stream) throws Exception {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(stream), StandardCharsets.UTF_8));
+        StringBuilder fullResponse = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("data: ")) {
+                String data = line.substring(6).trim();
+                if ("[DONE]".equals(data)) {
+                    break;
+                }
+                JsonNode node = objectMapper.readTree(data);
+                if (node.has("choices") && node.get("choices").size() > 0) {
+                    JsonNode choice = node.get("choices").get(0);
+                    if (choice.has("delta") && choice.get("delta").has("content")) {
+                        fullResponse.append(choice.get("delta").get("content").asText());
+                    }
+                }
+            }
+        }
+        return fullResponse.length();
+    }
+
+    private static int streamingParse(byte[] stream) throws Exception {
+        Buffer source = new Buffer().write(stream);
+        StringBuilder fullResponse = new StringBuilder();
+        new SseDeltaParser().parse(source, fullResponse::append);
+        return fullResponse.length();
+    }
+
+    private static byte[] syntheticStream() {
+        StringBuilder sse = new StringBuilder();
+        for (int i = 0; i < TOKENS; i++) {
+            sse.append("data: {\"id\":\"gen-1718000000-abcdefghijklmnop\",\"provider\":\"OpenAI\",")
+                    .append("\"model\":\"openai/gpt-4o-mini\",\"object\":\"chat.completion.chunk\",")
+                    .append("\"created\":1718000000,\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\",")
+                    .append("\"content\":\" token").append(i).append("\"},\"finish_reason\":null,")
+                    .append("\"logprobs\":null}],\"system_fingerprint\":\"fp_0123456789\"}\n\n");
+        }
+        sse.append(": OPENROUTER PROCESSING\n\n");
+        sse.append("data: [DONE]\n\n");
+        return sse.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,91 @@
+package com.restaurant.bench;
+
+import akka.actor.typed.ActorRef;
+import akka.actor.typed.ActorSystem;
+import akka.actor.typed.Behavior;
+import akka.actor.typed.javadsl.Behaviors;
+import com.restaurant.actors.MenuActor;
+import com.restaurant.messages.Messages.OrderLine;
+import com.restaurant.messages.Messages.RestaurantMessage;
+import com.restaurant.messages.Messages.ValidateItemsRequest;
+import com.restaurant.messages.Messages.ValidateItemsResponse;
+import com.restaurant.routing.WorkerPools;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the MenuActor pool (forkfind.pools.menu) validating order lines, the
+ * CPU-bound fuzzy matching every order goes through, at pool sizes 1, 2, 4 and one per
+ * processor. All requests are sent at once and the pool drains them.
+ *
+ * Run with: mvn exec:java -Dexec.mainClass="com.restaurant.bench.WorkerPoolBenchmark"
+ */
+public class WorkerPoolBenchmark {
+
+    private static final int REQUESTS = 20_000;
+
+    private static final List<OrderLine> LINES = Arrays.asList(
+            new OrderLine(2, "impossble burger"),
+            new OrderLine(1, "tiramisu"),
+            new OrderLine(3, "coke"),
+            new OrderLine(1, "spagetti carbonara"));
+
+    public static void main(String[] args) throws Exception {
+        int processors = Runtime.getRuntime().availableProcessors();
+        System.out.println("Available processors: " + processors);
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // the actors' banners
+        try {
+            run(processors, REQUESTS); // warm-up
+            for (int size : new int[] { 1, 2, 4, processors }) {
+                double perSecond = run(size, REQUESTS);
+                out.printf("pool of %2d: %,9.0f validations/s\n", size, perSecond);
+            }
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    private static double run(int size, int requests) throws Exception {
+        Config config = ConfigFactory.parseString("akka.actor.provider = local\n"
+                + "akka.loglevel = WARNING\n"
+                + "forkfind.pools.menu.size = " + size + "\n"
+                + "forkfind.pools.menu.routing = round-robin")
+                .withFallback(ConfigFactory.load());
+        CompletableFuture<Long> started = new CompletableFuture<>();
+        CompletableFuture<Long> done = new CompletableFuture<>();
+        ActorSystem<RestaurantMessage> system = ActorSystem.create(Behaviors.setup(context -> {
+            ActorRef<RestaurantMessage> nobody = context.spawn(Behaviors.ignore(), "nobody");
+            ActorRef<RestaurantMessage> menu = context.spawn(
+                    new WorkerPools(context.getSystem()).pool("menu", MenuActor.create(nobody, nobody)), "menu");
+            ActorRef<ValidateItemsResponse> collector = context.spawn(collect(requests, done), "collector");
+            started.complete(System.nanoTime());
+            for (int i = 0; i < requests; i++) {
+                menu.tell(new ValidateItemsRequest(LINES, collector));
+            }
+            return Behaviors.<RestaurantMessage>ignore();
+        }), "WorkerPoolBenchmark", config);
+        long end = done.get(5, TimeUnit.MINUTES);
+        long start = started.get();
+        system.terminate();
+        system.getWhenTerminated().toCompletableFuture().get(30, TimeUnit.SECONDS);
+        return requests * 1e9 / (end - start);
+    }
+
+    private static Behavior<ValidateItemsResponse> collect(int requests, CompletableFuture<Long> done) {
+        int[] received = { 0 };
+        return Behaviors.receiveMessage(response -> {
+            if (++received[0] == requests) {
+                done.complete(System.nanoTime());
+            }
+            return Behaviors.same();
+        });
+    }
+}
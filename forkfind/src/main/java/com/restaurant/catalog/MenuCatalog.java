@@ -0,0 +1,128 @@
+package com.restaurant.catalog;
+
+import com.restaurant.retrieval.HybridRetriever;
+import com.restaurant.retrieval.KnowledgeChunk;
+import com.restaurant.retrieval.KnowledgeChunker;
+import com.typesafe.config.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable, fully parsed snapshot of the menu knowledge base: the raw text,
+ * its retrieval chunks and indexes, and the priced menu items with their name matcher and primitive
+ * lookup table.
+ *
+ * Built once per version and shared read-only by every actor in the system
+ * through {@link MenuCatalogs}; a reload builds a new snapshot and swaps it in.
+ */
+public class MenuCatalog {
+
+    public final long version;
+    public final String content;
+    public final List<KnowledgeChunk> chunks;
+    public final HybridRetriever retriever;
+    public final List<MenuItem> items;
+    public final MenuItemMatcher matcher;
+    public final MenuTable table;
+
+    private MenuCatalog(long version, String content, List<KnowledgeChunk> chunks, HybridRetriever retriever,
+            List<MenuItem> items) {
+        this.version = version;
+        this.content = content;
+        this.chunks = chunks;
+        this.retriever = retriever;
+        this.items = items;
+        this.matcher = new MenuItemMatcher(items);
+        this.table = MenuTable.of(items);
+    }
+
+    /**
+     * @param retrievalConfig the forkfind.retrieval config section
+     * @param previous        the snapshot being replaced, whose chunk embeddings are reused; may be null
+     */
+    public static MenuCatalog build(long version, String content, Config retrievalConfig, MenuCatalog previous) {
+        List<KnowledgeChunk> chunks = Collections.unmodifiableList(KnowledgeChunker.chunk(content));
+        HybridRetriever retriever = new HybridRetriever(chunks, retrievalConfig,
+                previous != null ? previous.retriever : null);
+        return new MenuCatalog(version, content, chunks, retriever, Collections.unmodifiableList(parseItems(content)));
+    }
+
+    // Item with exactly this name (any case), or null
+    public MenuItem item(String name) {
+        int id = table.id(name);
+        return id < 0 ? null : items.get(id);
+    }
+
+    // Rough heap footprint, used to keep many tenants' catalogs within a memory budget
+    public long estimatedBytes() {
+        long text = content.length() * 2L;
+        for (KnowledgeChunk chunk : chunks) {
+            text += chunk.text.length() * 2L;
+        }
+        return text + items.size() * 256L + retriever.estimatedBytes();
+    }
+
+    // Items are "Name: $Price" lines, optionally followed by variants in parentheses
+    // ("Soft Drinks: $3 (Coke, Sprite)"), then a description line and a "Dietary:" line
+    private static List<MenuItem> parseItems(String content) {
+        List<MenuItem> items = new ArrayList<>();
+        String section = "";
+        String name = null;
+        double price = 0;
+        List<String> variants = new ArrayList<>();
+        String description = "";
+        String dietary = "";
+
+        for (String rawLine : content.split("\n")) {
+            String line = rawLine.trim();
+            if (line.startsWith("===")) {
+                section = line;
+            }
+            int priceAt = line.indexOf(": $");
+            boolean itemLine = priceAt > 0;
+            if (itemLine || line.isEmpty() || line.startsWith("===")) {
+                if (name != null) {
+                    items.add(new MenuItem(name, price, section, description, dietary, variants));
+                    name = null;
+                }
+            }
+            if (itemLine) {
+                try {
+                    // Handle "$16 (side)"
+                    price = Double.parseDouble(line.substring(priceAt + 3).split("\\s")[0]);
+                    name = line.substring(0, priceAt).trim();
+                    variants = variants(line.substring(priceAt + 3));
+                    description = "";
+                    dietary = "";
+                } catch (NumberFormatException e) {
+                    name = null;
+                }
+            } else if (name != null && line.startsWith("Dietary")) {
+                dietary = line.substring(line.indexOf(':') + 1).trim();
+            } else if (name != null && !line.isEmpty() && description.isEmpty()) {
+                description = line;
+            }
+        }
+        if (name != null) {
+            items.add(new MenuItem(name, price, section, description, dietary, variants));
+        }
+        return items;
+    }
+
+    // "3 (Coke, Diet Coke, Sprite)" -> [Coke, Diet Coke, Sprite]
+    private static List<String> variants(String priceText) {
+        List<String> variants = new ArrayList<>();
+        int open = priceText.indexOf('(');
+        int close = priceText.lastIndexOf(')');
+        if (open >= 0 && close > open) {
+            for (String variant : priceText.substring(open + 1, close).split(",")) {
+                if (!variant.trim().isEmpty()) {
+                    variants.add(variant.trim());
+                }
+            }
+        }
+        return variants;
+    }
+}
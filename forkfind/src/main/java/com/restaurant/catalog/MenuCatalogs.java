@@ -0,0 +1,157 @@
+package com.restaurant.catalog;
+
+import akka.actor.typed.ActorSystem;
+import akka.actor.typed.Extension;
+import akka.actor.typed.ExtensionId;
+import com.restaurant.metrics.Metrics;
+import com.typesafe.config.Config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Per-ActorSystem holder of the current {@link MenuCatalog}.
+ *
+ * Actors call {@link #current()} for every request; it is a single volatile read.
+ * When forkfind.catalog.path points at a file and watching is on, a daemon thread
+ * rebuilds the catalog whenever the file changes and swaps it in atomically, so
+ * requests keep being served from the old snapshot while the new one is built.
+ */
+public class MenuCatalogs implements Extension {
+
+    public static final ExtensionId<MenuCatalogs> ID = new ExtensionId<MenuCatalogs>() {
+        @Override
+        public MenuCatalogs createExtension(ActorSystem<?> system) {
+            return new MenuCatalogs(system);
+        }
+    };
+
+    public static MenuCatalogs get(ActorSystem<?> system) {
+        return ID.apply(system);
+    }
+
+    private static final String BUNDLED_RESOURCE = "menu_knowledge.txt";
+
+    private final Config retrievalConfig;
+    private final Metrics metrics;
+    private final Path path; // null when serving the bundled resource
+    private final AtomicReference<MenuCatalog> current = new AtomicReference<>();
+
+    private MenuCatalogs(ActorSystem<?> system) {
+        Config config = system.settings().config();
+        this.retrievalConfig = config.getConfig("forkfind.retrieval");
+        this.metrics = Metrics.get(system);
+
+        String configuredPath = config.getString("forkfind.catalog.path");
+        Path candidate = configuredPath.isEmpty() ? null : Paths.get(configuredPath).toAbsolutePath();
+        if (candidate != null && !Files.isRegularFile(candidate)) {
+            System.err.println("⚠️  MenuCatalog: " + candidate + " not found, using bundled " + BUNDLED_RESOURCE);
+            candidate = null;
+        }
+        this.path = candidate;
+
+        current.set(MenuCatalog.build(1, load(), retrievalConfig, null));
+        System.out.println("✅ MenuCatalog: Loaded " + current.get().items.size() + " items, "
+                + current.get().chunks.size() + " chunks from " + (path != null ? path : BUNDLED_RESOURCE));
+
+        metrics.gauge("catalog.version", () -> current.get().version);
+        metrics.gauge("catalog.items", () -> current.get().items.size());
+
+        if (path != null && config.getBoolean("forkfind.catalog.watch")) {
+            Thread watcher = new Thread(this::watch, "menu-catalog-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+            system.getWhenTerminated().thenRun(watcher::interrupt);
+        }
+    }
+
+    public MenuCatalog current() {
+        return current.get();
+    }
+
+    /**
+     * Re-reads the knowledge base and swaps in a new snapshot. On failure the current one stays.
+     */
+    public synchronized void reload() {
+        long start = System.nanoTime();
+        try {
+            String content = load();
+            MenuCatalog previous = current.get();
+            if (content.equals(previous.content)) {
+                return;
+            }
+            MenuCatalog next = MenuCatalog.build(previous.version + 1, content, retrievalConfig, previous);
+            current.set(next);
+
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            metrics.increment("catalog.reloads");
+            metrics.histogram("catalog.reload-ms").record(millis);
+            System.out.println("🔄 MenuCatalog: Reloaded v" + next.version + " (" + next.items.size() + " items, "
+                    + next.chunks.size() + " chunks, " + next.retriever.reusedEmbeddings()
+                    + " embeddings reused) in " + millis + " ms");
+        } catch (Exception e) {
+            metrics.increment("catalog.reload-failures");
+            System.err.println("❌ MenuCatalog: Reload failed, keeping v" + current.get().version + ": " + e);
+        }
+    }
+
+    private String load() {
+        try {
+            if (path != null) {
+                return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+            }
+            try (InputStream in = MenuCatalogs.class.getClassLoader().getResourceAsStream(BUNDLED_RESOURCE)) {
+                if (in == null) {
+                    System.err.println("❌ MenuCatalog: " + BUNDLED_RESOURCE + " not found in resources!");
+                    return "";
+                }
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read knowledge base: " + e.getMessage(), e);
+        }
+    }
+
+    // Watches the parent directory: editors often replace the file instead of writing it in place
+    private void watch() {
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            path.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (path.getFileName().equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (changed) {
+                    // Let the writer finish; a burst of events becomes one reload
+                    Thread.sleep(200);
+                    WatchKey burst;
+                    while ((burst = watchService.poll()) != null) {
+                        burst.pollEvents();
+                        burst.reset();
+                    }
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // System shutting down
+        } catch (IOException e) {
+            System.err.println("❌ MenuCatalog: Cannot watch " + path + ": " + e.getMessage());
+        }
+    }
+}
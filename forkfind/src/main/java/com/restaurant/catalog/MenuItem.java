@@ -0,0 +1,35 @@
+package com.restaurant.catalog;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One priced dish or drink parsed from the knowledge base ("Name: $Price" lines).
+ */
+public class MenuItem {
+    public final String name;
+    public final double price;
+    public final String section;     // e.g. "=== DESSERTS ===", may be empty
+    public final String description; // first description line, may be empty
+    public final String dietary;     // text after "Dietary:", may be empty
+    public final List<String> variants; // orderable choices listed after the price, e.g. "Coke", "Sprite"
+
+    public MenuItem(String name, double price, String section, String description, String dietary) {
+        this(name, price, section, description, dietary, Collections.emptyList());
+    }
+
+    public MenuItem(String name, double price, String section, String description, String dietary,
+            List<String> variants) {
+        this.name = name;
+        this.price = price;
+        this.section = section;
+        this.description = description;
+        this.dietary = dietary;
+        this.variants = Collections.unmodifiableList(variants);
+    }
+
+    // "Name: first description line", as shown in menu replies
+    public String summary() {
+        return description.isEmpty() ? name : name + ": " + description;
+    }
+}
@@ -0,0 +1,454 @@
+package com.restaurant.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves free-text item names ("burgers", "tiramisoo", "the salmon please") to menu items.
+ * An item's variants ("Coke" of Soft Drinks) are matched as names of their own that resolve
+ * to the item; the item's name words still help pick one ("red wine"), but are not required.
+ *
+ * Item names are split into words. Every distinct word is indexed SymSpell-style under all
+ * strings obtained by deleting up to two of its characters, so finding the vocabulary words
+ * within edit distance of a query word is a few hash lookups instead of a scan of the menu.
+ * Filler words ("please", "the") are ignored; other words that match no menu word count
+ * against every item, so "unicorn steak" is not taken for a steak dish. Questions about the
+ * menu ("how much is the burger?") are matched with {@link #mentioned}, which ignores them.
+ *
+ * Items are ranked by a confidence in [0, 1]: how much of the (IDF-weighted) query the item
+ * covers, scaled by how much of the item's name the query covers, discounted by edit distance.
+ * An exact name is 1.0. Ties are broken by shorter, then alphabetically first name, so the
+ * result never depends on hash iteration order. Immutable and safe for concurrent use; each
+ * thread keeps its own scratch accumulators.
+ */
+public class MenuItemMatcher {
+
+    public static class Match {
+        public final int id; // item position, as in MenuCatalog.items and MenuTable
+        public final MenuItem item;
+        public final String variant; // the variant named, e.g. "Coke"; null for the item itself
+        public final double confidence;
+
+        Match(int id, MenuItem item, String variant, double confidence) {
+            this.id = id;
+            this.item = item;
+            this.variant = variant;
+            this.confidence = confidence;
+        }
+
+        // "Soft Drinks (Coke)" for a variant
+        public String name() {
+            return variant == null ? item.name : item.name + " (" + variant + ")";
+        }
+
+        public String summary() {
+            return variant == null ? item.summary()
+                    : item.description.isEmpty() ? name() : name() + ": " + item.description;
+        }
+    }
+
+    private static final int MAX_EDIT_DISTANCE = 2;
+
+    private static final Set<String> FILLER = new HashSet<>(Arrays.asList("a", "an", "the", "some", "of", "and",
+            "with", "for", "to", "me", "my", "i", "id", "we", "us", "please", "thanks", "like", "would", "want", "get",
+            "have", "can", "could", "may", "order", "one", "two", "three", "four", "five", "six", "seven", "eight",
+            "nine", "ten", "another", "more", "x"));
+
+    private final List<MenuItem> items;
+    // Matchable names: every item, then each of its variants
+    private final int[] entryItems;                                  // entry -> item
+    private final String[] entryVariants;                            // entry -> variant, null for the item
+    private final Map<String, Integer> exactNames = new HashMap<>(); // normalized name -> entry
+    private final String[] words;                                    // vocabulary
+    private final double[] wordWeights;                              // IDF over items
+    private final int[][] wordEntries;                               // word -> entries named with it
+    private final int[][] wordContextEntries;                        // word -> variants of items named with it
+    private final double[] entryWeights;                             // sum of the entry's name word weights
+    private final Map<String, int[]> deletes = new HashMap<>();      // delete variant -> words
+    private final ThreadLocal<Scratch> scratch;
+
+    // One thread's accumulators over all entries, allocated once; a lookup resets only the
+    // entries it touched, so its cost follows the query words' postings, not the menu size
+    private static final class Scratch {
+        final double[] queryCover;      // weight of the query covered by each entry
+        final double[] nameCover;       // weight of each entry's name covered
+        final double[] tokenSimilarity; // for the current query word
+        final double[] tokenNameCover;
+        final int[] lastToken;          // last query word that reached the entry, -1 for none
+        int[] touched = new int[16];
+        int touchedCount = 0;
+
+        Scratch(int entryCount) {
+            queryCover = new double[entryCount];
+            nameCover = new double[entryCount];
+            tokenSimilarity = new double[entryCount];
+            tokenNameCover = new double[entryCount];
+            lastToken = new int[entryCount];
+            Arrays.fill(lastToken, -1);
+        }
+
+        void touch(int entry) {
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+            }
+            touched[touchedCount++] = entry;
+        }
+
+        void clear() {
+            for (int n = 0; n < touchedCount; n++) {
+                int entry = touched[n];
+                queryCover[entry] = 0;
+                nameCover[entry] = 0;
+                tokenSimilarity[entry] = 0;
+                tokenNameCover[entry] = 0;
+                lastToken[entry] = -1;
+            }
+            touchedCount = 0;
+        }
+    }
+
+    public MenuItemMatcher(List<MenuItem> items) {
+        this.items = items;
+        List<Integer> entryItemList = new ArrayList<>();
+        List<String> entryVariantList = new ArrayList<>();
+        List<Set<Integer>> entryWordList = new ArrayList<>();
+        Map<String, Integer> vocabulary = new LinkedHashMap<>();
+        List<List<Integer>> postings = new ArrayList<>();
+        List<List<Integer>> contextPostings = new ArrayList<>();
+        int[] itemDocuments = new int[0]; // word -> items using it, for the IDF
+
+        for (int i = 0; i < items.size(); i++) {
+            MenuItem item = items.get(i);
+            Set<Integer> itemWordIds = new HashSet<>();
+            Set<Integer> nameWords = null;
+            for (String variant : withVariants(item)) {
+                List<String> tokens = tokenize(variant == null ? item.name : variant);
+                if (tokens.isEmpty()) {
+                    continue;
+                }
+                int entry = entryItemList.size();
+                entryItemList.add(i);
+                entryVariantList.add(variant);
+                exactNames.putIfAbsent(String.join(" ", tokens), entry);
+                Set<Integer> distinct = new LinkedHashSet<>();
+                for (String token : tokens) {
+                    Integer word = vocabulary.get(token);
+                    if (word == null) {
+                        word = vocabulary.size();
+                        vocabulary.put(token, word);
+                        postings.add(new ArrayList<>());
+                        contextPostings.add(new ArrayList<>());
+                    }
+                    if (distinct.add(word)) {
+                        postings.get(word).add(entry);
+                    }
+                }
+                entryWordList.add(distinct);
+                itemWordIds.addAll(distinct);
+                if (variant == null) {
+                    nameWords = distinct;
+                } else if (nameWords != null) {
+                    for (int word : nameWords) {
+                        if (!distinct.contains(word)) {
+                            contextPostings.get(word).add(entry);
+                        }
+                    }
+                }
+            }
+            if (itemDocuments.length < vocabulary.size()) {
+                itemDocuments = Arrays.copyOf(itemDocuments, vocabulary.size() * 2);
+            }
+            for (int word : itemWordIds) {
+                itemDocuments[word]++;
+            }
+        }
+
+        this.entryItems = entryItemList.stream().mapToInt(Integer::intValue).toArray();
+        this.entryVariants = entryVariantList.toArray(new String[0]);
+        int entryCount = entryItems.length;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(entryCount));
+        this.words = vocabulary.keySet().toArray(new String[0]);
+        this.wordWeights = new double[words.length];
+        this.wordEntries = new int[words.length][];
+        this.wordContextEntries = new int[words.length][];
+        for (int w = 0; w < words.length; w++) {
+            wordEntries[w] = postings.get(w).stream().mapToInt(Integer::intValue).toArray();
+            wordContextEntries[w] = contextPostings.get(w).stream().mapToInt(Integer::intValue).toArray();
+            wordWeights[w] = Math.log(1 + (double) items.size() / itemDocuments[w]);
+        }
+        this.entryWeights = new double[entryItems.length];
+        for (int e = 0; e < entryItems.length; e++) {
+            for (int w : entryWordList.get(e)) {
+                entryWeights[e] += wordWeights[w];
+            }
+        }
+
+        Map<String, List<Integer>> variants = new HashMap<>();
+        for (int w = 0; w < words.length; w++) {
+            for (String variant : deleteVariants(words[w], maxDistance(words[w]))) {
+                variants.computeIfAbsent(variant, v -> new ArrayList<>(2)).add(w);
+            }
+        }
+        variants.forEach((variant, ws) -> deletes.put(variant, ws.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    // The item's own name (null) followed by its variants
+    private static List<String> withVariants(MenuItem item) {
+        List<String> names = new ArrayList<>(1 + item.variants.size());
+        names.add(null);
+        names.addAll(item.variants);
+        return names;
+    }
+
+    public int vocabularySize() {
+        return words.length;
+    }
+
+    /**
+     * The best match, or null when no menu word is even close to the query.
+     */
+    public Match best(String query) {
+        List<Match> matches = match(query, 1);
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+
+    /**
+     * Up to limit matches for the query, most confident first.
+     */
+    public List<Match> match(String query, int limit) {
+        return match(query, limit, false);
+    }
+
+    /**
+     * Up to limit items named somewhere in free text, most confident first. Unlike
+     * {@link #match(String, int)}, words that are not on the menu do not count against an item.
+     */
+    public List<Match> mentioned(String text, int limit) {
+        return match(text, limit, true);
+    }
+
+    private List<Match> match(String query, int limit, boolean ignoreUnknownWords) {
+        List<String> tokens = tokenize(query);
+        Integer exact = exactNames.get(String.join(" ", tokens));
+        if (exact != null) {
+            return Collections.singletonList(match(exact, 1.0));
+        }
+
+        Scratch accumulators = scratch.get();
+        try {
+            return rank(tokens, limit, ignoreUnknownWords, accumulators);
+        } finally {
+            accumulators.clear();
+        }
+    }
+
+    // Primitive accumulators over the entries reached through the query words' postings
+    private List<Match> rank(List<String> tokens, int limit, boolean ignoreUnknownWords, Scratch accumulators) {
+        int itemCount = items.size();
+        double[] queryCover = accumulators.queryCover;
+        double[] nameCover = accumulators.nameCover;
+        double[] tokenSimilarity = accumulators.tokenSimilarity;
+        double[] tokenNameCover = accumulators.tokenNameCover;
+        int[] lastToken = accumulators.lastToken;
+
+        double queryWeight = 0;
+        int t = 0;
+        for (String token : new LinkedHashSet<>(tokens)) {
+            if (FILLER.contains(token) || Character.isDigit(token.charAt(0))) {
+                continue;
+            }
+            Map<Integer, Double> similar = similarWords(token);
+            if (similar.isEmpty()) {
+                // Not on the menu at all: weighs like the rarest menu word
+                if (!ignoreUnknownWords) {
+                    queryWeight += Math.log(1 + itemCount);
+                }
+                continue;
+            }
+            double tokenWeight = 0;
+            for (int w : similar.keySet()) {
+                tokenWeight = Math.max(tokenWeight, wordWeights[w]);
+            }
+            queryWeight += tokenWeight;
+
+            // Each entry counts its best matching word for this query word once; a variant's
+            // item name words cover the query but not the variant's name
+            for (Map.Entry<Integer, Double> similarWord : similar.entrySet()) {
+                int w = similarWord.getKey();
+                double similarity = similarWord.getValue();
+                for (int kind = 0; kind < 2; kind++) {
+                    int[] entries = kind == 0 ? wordEntries[w] : wordContextEntries[w];
+                    double nameWeight = kind == 0 ? wordWeights[w] : 0;
+                    for (int entry : entries) {
+                        if (lastToken[entry] == t) {
+                            if (similarity <= tokenSimilarity[entry]) {
+                                continue;
+                            }
+                            queryCover[entry] -= tokenSimilarity[entry] * tokenWeight;
+                            nameCover[entry] -= tokenNameCover[entry];
+                        } else {
+                            if (lastToken[entry] < 0) {
+                                accumulators.touch(entry);
+                            }
+                            lastToken[entry] = t;
+                        }
+                        tokenSimilarity[entry] = similarity;
+                        tokenNameCover[entry] = similarity * nameWeight;
+                        queryCover[entry] += similarity * tokenWeight;
+                        nameCover[entry] += tokenNameCover[entry];
+                    }
+                }
+            }
+            t++;
+        }
+        if (queryWeight == 0) {
+            return Collections.emptyList();
+        }
+
+        // Keep the best `limit` in a small sorted list instead of sorting every candidate
+        int touchedCount = accumulators.touchedCount;
+        List<Match> matches = new ArrayList<>(Math.min(limit, touchedCount) + 1);
+        for (int n = 0; n < touchedCount; n++) {
+            int entry = accumulators.touched[n];
+            double nameShare = Math.min(1.0, nameCover[entry] / entryWeights[entry]);
+            double confidence = Math.min(1.0, queryCover[entry] / queryWeight * (0.5 + 0.5 * nameShare));
+            Match match = match(entry, confidence);
+            if (matches.size() == limit && !ranksBefore(match, matches.get(limit - 1))) {
+                continue;
+            }
+            int at = matches.size();
+            while (at > 0 && ranksBefore(match, matches.get(at - 1))) {
+                at--;
+            }
+            matches.add(at, match);
+            if (matches.size() > limit) {
+                matches.remove(limit);
+            }
+        }
+        return matches;
+    }
+
+    private Match match(int entry, double confidence) {
+        return new Match(entryItems[entry], items.get(entryItems[entry]), entryVariants[entry], confidence);
+    }
+
+    // Higher confidence first, then the shorter and alphabetically first name
+    private static boolean ranksBefore(Match match, Match other) {
+        if (match.confidence != other.confidence) {
+            return match.confidence > other.confidence;
+        }
+        String name = match.name();
+        String otherName = other.name();
+        if (name.length() != otherName.length()) {
+            return name.length() < otherName.length();
+        }
+        return name.compareTo(otherName) < 0;
+    }
+
+    // Vocabulary words within the edit distance allowed for this token -> similarity in (0, 1]
+    private Map<Integer, Double> similarWords(String token) {
+        int maxDistance = maxDistance(token);
+        Map<Integer, Double> similar = new HashMap<>();
+        for (String variant : deleteVariants(token, maxDistance)) {
+            int[] candidates = deletes.get(variant);
+            if (candidates == null) {
+                continue;
+            }
+            for (int w : candidates) {
+                if (similar.containsKey(w)) {
+                    continue;
+                }
+                String word = words[w];
+                int allowed = Math.min(maxDistance, maxDistance(word));
+                int distance = editDistance(token, word, allowed);
+                if (distance <= allowed) {
+                    similar.put(w, 1.0 - (double) distance / Math.max(token.length(), word.length()));
+                }
+            }
+        }
+        return similar;
+    }
+
+    // Short words must match exactly: one typo in "ipa" is a different word
+    private static int maxDistance(String word) {
+        if (word.length() <= 3) {
+            return 0;
+        }
+        return word.length() <= 6 ? 1 : MAX_EDIT_DISTANCE;
+    }
+
+    // The word and every string obtained by deleting up to maxDistance of its characters
+    private static Set<String> deleteVariants(String word, int maxDistance) {
+        Set<String> variants = new HashSet<>();
+        variants.add(word);
+        List<String> frontier = Collections.singletonList(word);
+        for (int d = 0; d < maxDistance; d++) {
+            List<String> next = new ArrayList<>();
+            for (String current : frontier) {
+                if (current.length() <= 1) {
+                    continue;
+                }
+                for (int i = 0; i < current.length(); i++) {
+                    String deleted = current.substring(0, i) + current.substring(i + 1);
+                    if (variants.add(deleted)) {
+                        next.add(deleted);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return variants;
+    }
+
+    // Optimal string alignment distance (adjacent transpositions count as one edit), or max + 1 beyond max
+    static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase().split("[^a-z0-9]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
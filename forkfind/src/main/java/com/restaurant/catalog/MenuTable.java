@@ -0,0 +1,140 @@
+package com.restaurant.catalog;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable, primitive-backed view of the priced menu items for hot-path reads.
+ *
+ * Item ids are positions in {@link MenuCatalog#items} (and ids of {@link MenuItemMatcher}
+ * matches); names are interned, prices and dietary flags live in parallel arrays, and
+ * name lookups go through an open-addressing table without boxing. Published as part of
+ * the catalog snapshot, so any actor can read it directly and thread-safely instead of
+ * asking MenuActor.
+ */
+public final class MenuTable {
+
+    // Dietary flags, parsed from the "Dietary:" line
+    public static final long VEGAN = 1L;
+    public static final long VEGETARIAN = 1L << 1;
+    public static final long GLUTEN_FREE = 1L << 2;
+    public static final long PESCATARIAN = 1L << 3;
+    public static final long CONTAINS_GLUTEN = 1L << 4;
+    public static final long CONTAINS_DAIRY = 1L << 5;
+    public static final long CONTAINS_SEAFOOD = 1L << 6;
+    public static final long CONTAINS_CAFFEINE = 1L << 7;
+
+    private final String[] names;
+    private final double[] prices;
+    private final long[] flags;
+
+    // Lower-cased name -> id; power-of-two capacity, linear probing, -1 marks a free slot
+    private final String[] slotKeys;
+    private final int[] slotIds;
+    private final int mask;
+
+    private MenuTable(List<MenuItem> items) {
+        int size = items.size();
+        this.names = new String[size];
+        this.prices = new double[size];
+        this.flags = new long[size];
+
+        int capacity = Integer.highestOneBit(Math.max(4, size * 2 - 1)) << 1;
+        this.slotKeys = new String[capacity];
+        this.slotIds = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(slotIds, -1);
+
+        for (int id = 0; id < size; id++) {
+            MenuItem item = items.get(id);
+            names[id] = item.name.intern();
+            prices[id] = item.price;
+            flags[id] = parseFlags(item.dietary);
+
+            String key = item.name.toLowerCase().intern();
+            int slot = key.hashCode() & mask;
+            while (slotIds[slot] >= 0 && !slotKeys[slot].equals(key)) {
+                slot = (slot + 1) & mask;
+            }
+            if (slotIds[slot] < 0) { // the first of duplicate names wins
+                slotKeys[slot] = key;
+                slotIds[slot] = id;
+            }
+        }
+    }
+
+    static MenuTable of(List<MenuItem> items) {
+        return new MenuTable(items);
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Id of the item with exactly this name (any case), or -1.
+     */
+    public int id(String name) {
+        String key = name.toLowerCase();
+        int slot = key.hashCode() & mask;
+        while (slotIds[slot] >= 0) {
+            if (slotKeys[slot].equals(key)) {
+                return slotIds[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    public double price(int id) {
+        return prices[id];
+    }
+
+    public long flags(int id) {
+        return flags[id];
+    }
+
+    public boolean has(int id, long flag) {
+        return (flags[id] & flag) == flag;
+    }
+
+    // "Vegan, Gluten-Free." / "Contains Dairy, Gluten (bun). Patty is gluten-free."
+    static long parseFlags(String dietary) {
+        long result = 0;
+        for (String sentence : dietary.toLowerCase().split("\\.")) {
+            boolean contains = false;
+            for (String rawPart : sentence.split(",")) {
+                String part = rawPart.trim();
+                if (part.startsWith("contains")) {
+                    contains = true;
+                    part = part.substring("contains".length()).trim();
+                }
+                if (contains) {
+                    if (part.startsWith("gluten")) {
+                        result |= CONTAINS_GLUTEN;
+                    } else if (part.startsWith("dairy")) {
+                        result |= CONTAINS_DAIRY;
+                    } else if (part.startsWith("seafood")) {
+                        result |= CONTAINS_SEAFOOD;
+                    } else if (part.startsWith("caffeine")) {
+                        result |= CONTAINS_CAFFEINE;
+                    }
+                } else if (part.equals("vegan")) {
+                    result |= VEGAN | VEGETARIAN;
+                } else if (part.equals("vegetarian")) {
+                    result |= VEGETARIAN;
+                } else if (part.equals("gluten-free")) {
+                    result |= GLUTEN_FREE;
+                } else if (part.equals("pescatarian")) {
+                    result |= PESCATARIAN;
+                }
+            }
+        }
+        // "Vegan, Contains Gluten (bun)": whatever else the text says, gluten wins
+        return (result & CONTAINS_GLUTEN) != 0 ? result & ~GLUTEN_FREE : result;
+    }
+}
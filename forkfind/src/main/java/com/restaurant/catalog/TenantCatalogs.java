@@ -0,0 +1,188 @@
+package com.restaurant.catalog;
+
+import akka.actor.typed.ActorSystem;
+import akka.actor.typed.DispatcherSelector;
+import akka.actor.typed.Extension;
+import akka.actor.typed.ExtensionId;
+import com.restaurant.metrics.Metrics;
+import com.typesafe.config.Config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.regex.Pattern;
+
+/**
+ * Per-ActorSystem registry of restaurant (tenant) catalogs for multi-tenant deployments.
+ *
+ * A tenant's knowledge base is forkfind.tenants.dir/&lt;tenant-id&gt;.txt. Its catalog and
+ * retrieval indexes are built on first use and kept resident while they are used; when
+ * the estimated size of all resident catalogs exceeds forkfind.tenants.memory-budget the
+ * least recently used ones are dropped and rebuilt on their next request. Loads run on the
+ * blocking dispatcher; concurrent requests for a tenant that is being loaded share that
+ * one load.
+ */
+public class TenantCatalogs implements Extension {
+
+    public static final ExtensionId<TenantCatalogs> ID = new ExtensionId<TenantCatalogs>() {
+        @Override
+        public TenantCatalogs createExtension(ActorSystem<?> system) {
+            return new TenantCatalogs(system);
+        }
+    };
+
+    public static TenantCatalogs get(ActorSystem<?> system) {
+        return ID.apply(system);
+    }
+
+    // Tenant ids become file and journal names
+    private static final Pattern TENANT_ID = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_-]{0,63}");
+
+    private final Config retrievalConfig;
+    private final Metrics metrics;
+    private final Path directory; // null when no tenants are configured
+    private final long memoryBudget;
+    private final Executor blocking;
+
+    // Resident catalogs in access order, least recently used first; guarded by this
+    private final LinkedHashMap<String, MenuCatalog> resident = new LinkedHashMap<>(16, 0.75f, true);
+    private long residentBytes = 0;
+    private final ConcurrentHashMap<String, CompletableFuture<MenuCatalog>> loading = new ConcurrentHashMap<>();
+
+    private TenantCatalogs(ActorSystem<?> system) {
+        Config config = system.settings().config();
+        this.retrievalConfig = config.getConfig("forkfind.retrieval");
+        this.metrics = Metrics.get(system);
+        String dir = config.getString("forkfind.tenants.dir");
+        this.directory = dir.isEmpty() ? null : Paths.get(dir).toAbsolutePath();
+        this.memoryBudget = config.getBytes("forkfind.tenants.memory-budget");
+        this.blocking = system.dispatchers().lookup(DispatcherSelector.blocking());
+
+        metrics.gauge("tenants.resident", () -> residentCount());
+        metrics.gauge("tenants.resident-bytes", () -> residentBytes());
+        if (directory != null) {
+            System.out.println("✅ TenantCatalogs: Serving tenants from " + directory + " (budget "
+                    + memoryBudget / 1024 + " KB)");
+        }
+    }
+
+    /**
+     * Whether the id can name a tenant at all; checked where requests enter, since tenant ids
+     * end up in file and journal paths.
+     */
+    public static boolean isValidId(String tenantId) {
+        return tenantId != null && TENANT_ID.matcher(tenantId).matches();
+    }
+
+    /**
+     * The tenant's catalog, completing at once when it is resident and after the tenant's
+     * knowledge base is read and indexed otherwise; completes with null for an unknown tenant.
+     */
+    public CompletionStage<MenuCatalog> catalog(String tenantId) {
+        if (directory == null || !isValidId(tenantId)) {
+            metrics.increment("tenants.unknown");
+            return CompletableFuture.completedFuture(null);
+        }
+        synchronized (this) {
+            MenuCatalog catalog = resident.get(tenantId);
+            if (catalog != null) {
+                metrics.increment("tenants.hits");
+                return CompletableFuture.completedFuture(catalog);
+            }
+        }
+
+        CompletableFuture<MenuCatalog> load = new CompletableFuture<>();
+        CompletableFuture<MenuCatalog> existing = loading.putIfAbsent(tenantId, load);
+        if (existing != null) {
+            metrics.increment("tenants.load-waits");
+            return existing;
+        }
+        blocking.execute(() -> {
+            try {
+                load.complete(load(tenantId));
+            } catch (RuntimeException e) {
+                load.completeExceptionally(e);
+            } finally {
+                loading.remove(tenantId);
+            }
+        });
+        return load;
+    }
+
+    private MenuCatalog load(String tenantId) {
+        // Another caller may have finished loading it since the resident check
+        synchronized (this) {
+            MenuCatalog catalog = resident.get(tenantId);
+            if (catalog != null) {
+                return catalog;
+            }
+        }
+
+        Path file = directory.resolve(tenantId + ".txt");
+        if (!Files.isRegularFile(file)) {
+            metrics.increment("tenants.unknown");
+            return null;
+        }
+        long start = System.nanoTime();
+        String content;
+        try {
+            content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            metrics.increment("tenants.load-failures");
+            throw new IllegalStateException("Could not read knowledge base of tenant " + tenantId + ": "
+                    + e.getMessage(), e);
+        }
+        MenuCatalog catalog = MenuCatalog.build(1, content, retrievalConfig, null);
+        long bytes = catalog.estimatedBytes();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        metrics.increment("tenants.loads");
+        metrics.histogram("tenants.load-ms").record(millis);
+
+        int evicted;
+        synchronized (this) {
+            resident.put(tenantId, catalog);
+            residentBytes += bytes;
+            evicted = evictOverBudget(tenantId);
+        }
+        System.out.println("📂 TenantCatalogs: Loaded " + tenantId + " (" + catalog.items.size() + " items, "
+                + catalog.chunks.size() + " chunks, ~" + bytes / 1024 + " KB) in " + millis + " ms"
+                + (evicted > 0 ? ", evicted " + evicted + " cold tenant(s)" : ""));
+        return catalog;
+    }
+
+    // Drops least recently used tenants until the budget holds; the one just loaded always stays
+    private int evictOverBudget(String keep) {
+        int evicted = 0;
+        Iterator<Map.Entry<String, MenuCatalog>> eldest = resident.entrySet().iterator();
+        while (residentBytes > memoryBudget && eldest.hasNext()) {
+            Map.Entry<String, MenuCatalog> entry = eldest.next();
+            if (entry.getKey().equals(keep)) {
+                continue;
+            }
+            residentBytes -= entry.getValue().estimatedBytes();
+            eldest.remove();
+            evicted++;
+        }
+        if (evicted > 0) {
+            metrics.add("tenants.evictions", evicted);
+        }
+        return evicted;
+    }
+
+    public synchronized int residentCount() {
+        return resident.size();
+    }
+
+    public synchronized long residentBytes() {
+        return residentBytes;
+    }
+}
@@ -0,0 +1,40 @@
+package com.restaurant.cluster;
+
+import akka.actor.typed.receptionist.ServiceKey;
+import com.restaurant.messages.Messages.RestaurantMessage;
+
+/**
+ * Receptionist keys under which backend actors register, so frontends find them
+ * anywhere in the cluster instead of spawning local copies.
+ */
+public class ServiceKeys {
+
+    // Backend services, one registration per hosting node (its pool router)
+    public static final ServiceKey<RestaurantMessage> LLM = ServiceKey.create(RestaurantMessage.class, "llm");
+    public static final ServiceKey<RestaurantMessage> MENU = ServiceKey.create(RestaurantMessage.class, "menu");
+    public static final ServiceKey<RestaurantMessage> RESERVATION =
+            ServiceKey.create(RestaurantMessage.class, "reservation");
+    public static final ServiceKey<RestaurantMessage> RETRIEVAL =
+            ServiceKey.create(RestaurantMessage.class, "retrieval");
+
+    // The frontend's LoggingActor, whose log the HTTP server serves
+    public static final ServiceKey<RestaurantMessage> LOGGING = ServiceKey.create(RestaurantMessage.class, "logging");
+
+    private static final String RETRIEVAL_SHARD_PREFIX = "retrieval-shard-";
+
+    private ServiceKeys() {
+    }
+
+    // One key per retrieval shard; every replica of a shard registers under the same key
+    public static ServiceKey<RestaurantMessage> retrievalShard(int shardId) {
+        return ServiceKey.create(RestaurantMessage.class, RETRIEVAL_SHARD_PREFIX + shardId);
+    }
+
+    // Shard id of a retrieval shard key, or -1 for any other key
+    public static int retrievalShardId(ServiceKey<?> key) {
+        if (!key.id().startsWith(RETRIEVAL_SHARD_PREFIX)) {
+            return -1;
+        }
+        return Integer.parseInt(key.id().substring(RETRIEVAL_SHARD_PREFIX.length()));
+    }
+}
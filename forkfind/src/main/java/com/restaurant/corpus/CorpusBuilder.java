@@ -0,0 +1,53 @@
+package com.restaurant.corpus;
+
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Command-line tool that precompiles a directory of .txt/.md documents (one per
+ * restaurant menu or FAQ, named after the file) into a corpus directory for
+ * forkfind.corpus.dir.
+ *
+ * Run with: mvn exec:java -Dexec.mainClass="com.restaurant.corpus.CorpusBuilder" -Dexec.args="docs/ corpus/"
+ */
+public class CorpusBuilder {
+
+    private static final int MAX_SEGMENT_CHUNKS = 200_000;
+    private static final long MAX_SEGMENT_BYTES = 256L * 1024 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: CorpusBuilder <source-dir> <corpus-dir>");
+            System.exit(1);
+        }
+        build(Paths.get(args[0]), Paths.get(args[1]));
+    }
+
+    public static void build(Path sourceDir, Path corpusDir) throws Exception {
+        long start = System.nanoTime();
+        List<Path> sources;
+        try (Stream<Path> files = Files.list(sourceDir)) {
+            sources = files
+                    .filter(p -> p.toString().endsWith(".txt") || p.toString().endsWith(".md"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        try (CorpusWriter writer = new CorpusWriter(corpusDir, MAX_SEGMENT_CHUNKS, MAX_SEGMENT_BYTES)) {
+            for (Path source : sources) {
+                String name = source.getFileName().toString().replaceFirst("\\.(txt|md)$", "");
+                try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+                    writer.addDocument(name, reader);
+                }
+            }
+            System.out.println("✅ Indexed " + sources.size() + " documents into " + corpusDir + " in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+}
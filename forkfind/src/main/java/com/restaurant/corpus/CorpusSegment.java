@@ -0,0 +1,151 @@
+package com.restaurant.corpus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only view of one segment written by {@link SegmentWriter}. Both files are
+ * memory-mapped; opening reads only the header, and the chunk, term and postings
+ * tables are read in place, so a segment costs almost no heap whatever its size.
+ * Safe for concurrent readers.
+ */
+class CorpusSegment {
+
+    private final ByteBuffer index;
+    private final ByteBuffer data;
+    private final int chunkCount;
+    private final int termCount;
+    private final long totalTokens;
+    private final int termBytesStart;
+    private final int postingsStart;
+
+    private CorpusSegment(ByteBuffer index, ByteBuffer data) throws IOException {
+        this.index = index;
+        this.data = data;
+        if (index.getInt(0) != SegmentWriter.MAGIC || index.getInt(4) != SegmentWriter.VERSION) {
+            throw new IOException("Not a ForkFind corpus segment (bad magic or version)");
+        }
+        this.chunkCount = index.getInt(8);
+        this.termCount = index.getInt(12);
+        this.totalTokens = index.getLong(16);
+        this.termBytesStart = (int) index.getLong(24);
+        this.postingsStart = (int) index.getLong(32);
+    }
+
+    static CorpusSegment open(Path dataFile, Path indexFile) throws IOException {
+        return new CorpusSegment(map(indexFile), map(dataFile));
+    }
+
+    // The mapping stays valid after the channel is closed
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " exceeds the 2 GB segment limit");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    int chunkCount() {
+        return chunkCount;
+    }
+
+    long totalTokens() {
+        return totalTokens;
+    }
+
+    long mappedBytes() {
+        return (long) index.capacity() + data.capacity();
+    }
+
+    // Documents are written one after another, so a segment holds one contiguous range of them
+    int firstDocument() {
+        return chunkCount == 0 ? -1 : documentId(0);
+    }
+
+    int lastDocument() {
+        return chunkCount == 0 ? -1 : documentId(chunkCount - 1);
+    }
+
+    int tokenCount(int chunk) {
+        return index.getInt(chunkEntry(chunk) + 12);
+    }
+
+    int documentId(int chunk) {
+        return index.getInt(chunkEntry(chunk) + 16);
+    }
+
+    String text(int chunk) {
+        int entry = chunkEntry(chunk);
+        int offset = (int) index.getLong(entry);
+        int length = index.getInt(entry + 8);
+        byte[] bytes = new byte[length];
+        data.duplicate().position(offset).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Position of the term in the term table, or -1. Binary search over the mapped, sorted dictionary.
+     */
+    int findTerm(byte[] term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareTerm(mid, term);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    int docFreq(int term) {
+        return index.getInt(termEntry(term) + 12);
+    }
+
+    interface PostingVisitor {
+        void visit(int chunk, int termFrequency);
+    }
+
+    void postings(int term, PostingVisitor visitor) {
+        int entry = termEntry(term);
+        int docFreq = index.getInt(entry + 12);
+        int position = postingsStart + (int) index.getLong(entry + 16);
+        for (int i = 0; i < docFreq; i++, position += 8) {
+            visitor.visit(index.getInt(position), index.getInt(position + 4));
+        }
+    }
+
+    private int compareTerm(int term, byte[] key) {
+        int entry = termEntry(term);
+        int offset = termBytesStart + (int) index.getLong(entry);
+        int length = index.getInt(entry + 8);
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Integer.compare(index.get(offset + i) & 0xff, key[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private static int chunkEntry(int chunk) {
+        return SegmentWriter.HEADER_BYTES + chunk * SegmentWriter.CHUNK_ENTRY_BYTES;
+    }
+
+    private int termEntry(int term) {
+        return SegmentWriter.HEADER_BYTES + chunkCount * SegmentWriter.CHUNK_ENTRY_BYTES
+                + term * SegmentWriter.TERM_ENTRY_BYTES;
+    }
+}
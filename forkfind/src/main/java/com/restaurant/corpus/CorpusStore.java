@@ -0,0 +1,229 @@
+package com.restaurant.corpus;
+
+import com.restaurant.retrieval.Tokenizer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Memory-mapped, read-only corpus built by {@link CorpusWriter}, searched with BM25
+ * using corpus-wide statistics across all segments.
+ *
+ * Opening maps the segment files and reads their headers, which takes milliseconds
+ * regardless of corpus size. Only the text of the top hits is decoded onto the heap.
+ * Safe for concurrent searches.
+ *
+ * A shard's view of the store ({@link #forShard}) owns the segments numbered
+ * shardId modulo the shard count, and its searches walk only those segments' postings.
+ * The other segments are consulted only for document frequencies (a dictionary lookup
+ * per query term), so scores stay corpus-wide and comparable between shards.
+ */
+public class CorpusStore {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    public static class Hit {
+        public final String document;
+        public final int documentId;
+        public final String text;
+        public final double score;
+
+        Hit(String document, int documentId, String text, double score) {
+            this.document = document;
+            this.documentId = documentId;
+            this.text = text;
+            this.score = score;
+        }
+    }
+
+    private final List<CorpusSegment> segments;
+    private final List<CorpusSegment> owned; // segments this store searches
+    private final List<String> documents;
+    private final Map<String, Integer> documentIds;
+    private final long chunkCount;
+    private final double averageTokens;
+
+    private CorpusStore(List<CorpusSegment> segments, List<CorpusSegment> owned, List<String> documents,
+            Map<String, Integer> documentIds) {
+        this.segments = segments;
+        this.owned = owned;
+        this.documents = documents;
+        this.documentIds = documentIds;
+        long chunks = 0;
+        long tokens = 0;
+        for (CorpusSegment segment : segments) {
+            chunks += segment.chunkCount();
+            tokens += segment.totalTokens();
+        }
+        this.chunkCount = chunks;
+        this.averageTokens = chunks == 0 ? 0 : (double) tokens / chunks;
+    }
+
+    public static CorpusStore open(Path directory) throws IOException {
+        List<Path> indexFiles = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "segment-*.idx")) {
+            stream.forEach(indexFiles::add);
+        }
+        Collections.sort(indexFiles);
+
+        List<CorpusSegment> segments = new ArrayList<>();
+        for (Path indexFile : indexFiles) {
+            String name = indexFile.getFileName().toString();
+            Path dataFile = indexFile.resolveSibling(name.substring(0, name.length() - 4) + ".dat");
+            segments.add(CorpusSegment.open(dataFile, indexFile));
+        }
+        List<String> documents = Files.readAllLines(directory.resolve(CorpusWriter.DOCUMENTS_FILE),
+                StandardCharsets.UTF_8);
+        Map<String, Integer> documentIds = new HashMap<>();
+        for (int id = 0; id < documents.size(); id++) {
+            documentIds.putIfAbsent(documents.get(id), id);
+        }
+        return new CorpusStore(segments, segments, documents, documentIds);
+    }
+
+    /**
+     * View of this store for one of shardCount retrieval shards: its searches cover only the
+     * segments assigned to shardId. Shares the mapped segments and document names.
+     */
+    public CorpusStore forShard(int shardId, int shardCount) {
+        List<CorpusSegment> shardSegments = new ArrayList<>();
+        for (int s = shardId; s < segments.size(); s += shardCount) {
+            shardSegments.add(segments.get(s));
+        }
+        return new CorpusStore(segments, shardSegments, documents, documentIds);
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    // Segments searched by this store: all of them unless it is a shard's view
+    public int ownedSegmentCount() {
+        return owned.size();
+    }
+
+    public long chunkCount() {
+        return chunkCount;
+    }
+
+    public List<String> documents() {
+        return documents;
+    }
+
+    // Id of the named document (e.g. a restaurant), or -1
+    public int documentId(String name) {
+        return documentIds.getOrDefault(name, -1);
+    }
+
+    public long mappedBytes() {
+        long bytes = 0;
+        for (CorpusSegment segment : segments) {
+            bytes += segment.mappedBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * The k best chunks of this store's segments for the query, best first. Postings of the
+     * query terms are read in place from the mapped index; only the k winners' texts are decoded.
+     */
+    public List<Hit> search(String query, int k) {
+        return search(query, k, owned, -1);
+    }
+
+    /**
+     * The k best chunks of one document (e.g. a restaurant), whichever segments hold it.
+     */
+    public List<Hit> searchDocument(String query, int k, int documentId) {
+        List<CorpusSegment> holding = new ArrayList<>();
+        for (CorpusSegment segment : segments) {
+            if (segment.firstDocument() <= documentId && documentId <= segment.lastDocument()) {
+                holding.add(segment);
+            }
+        }
+        return search(query, k, holding, documentId);
+    }
+
+    // BM25 over the searched segments with document frequencies of the whole corpus; document -1 takes all
+    private List<Hit> search(String query, int k, List<CorpusSegment> searched, int document) {
+        int segmentCount = searched.size();
+        List<byte[]> terms = new ArrayList<>();
+        for (String term : new LinkedHashSet<>(Tokenizer.tokenize(query))) {
+            terms.add(term.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Per-segment primitive accumulators, allocated only for segments with matching postings
+        double[][] scores = new double[segmentCount][];
+        for (byte[] term : terms) {
+            long docFreq = 0;
+            for (CorpusSegment segment : segments) {
+                int position = segment.findTerm(term);
+                if (position >= 0) {
+                    docFreq += segment.docFreq(position);
+                }
+            }
+            if (docFreq == 0) {
+                continue;
+            }
+            double idf = Math.log(1 + (chunkCount - docFreq + 0.5) / (docFreq + 0.5));
+            for (int s = 0; s < segmentCount; s++) {
+                CorpusSegment segment = searched.get(s);
+                int position = segment.findTerm(term);
+                if (position < 0) {
+                    continue;
+                }
+                if (scores[s] == null) {
+                    scores[s] = new double[segment.chunkCount()];
+                }
+                double[] segmentScores = scores[s];
+                segment.postings(position, (chunk, tf) -> {
+                    if (document >= 0 && segment.documentId(chunk) != document) {
+                        return;
+                    }
+                    double norm = K1 * (1 - B + B * segment.tokenCount(chunk) / averageTokens);
+                    segmentScores[chunk] += idf * tf * (K1 + 1) / (tf + norm);
+                });
+            }
+        }
+
+        // Min-heap of the k best { score, segment, chunk }
+        PriorityQueue<double[]> top = new PriorityQueue<>(Comparator.comparingDouble((double[] e) -> e[0]));
+        for (int s = 0; s < segmentCount; s++) {
+            double[] segmentScores = scores[s];
+            if (segmentScores == null) {
+                continue;
+            }
+            for (int chunk = 0; chunk < segmentScores.length; chunk++) {
+                double score = segmentScores[chunk];
+                if (score > 0 && (top.size() < k || score > top.peek()[0])) {
+                    top.add(new double[] { score, s, chunk });
+                    if (top.size() > k) {
+                        top.poll();
+                    }
+                }
+            }
+        }
+        List<Hit> hits = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            double[] entry = top.poll();
+            CorpusSegment segment = searched.get((int) entry[1]);
+            int chunk = (int) entry[2];
+            int documentId = segment.documentId(chunk);
+            hits.add(new Hit(documents.get(documentId), documentId, segment.text(chunk), entry[0]));
+        }
+        Collections.reverse(hits);
+        return hits;
+    }
+}
@@ -0,0 +1,60 @@
+package com.restaurant.corpus;
+
+import akka.actor.typed.ActorSystem;
+import akka.actor.typed.Extension;
+import akka.actor.typed.ExtensionId;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Per-ActorSystem holder of the corpus store named by forkfind.corpus.dir.
+ *
+ * The corpus is mapped and its document names read once per node, when the extension
+ * is first used; every retrieval routee and retrieval shard searches that one store (a
+ * shard through {@link CorpusStore#forShard}), so adding routees adds no heap or mappings.
+ */
+public class CorpusStores implements Extension {
+
+    public static final ExtensionId<CorpusStores> ID = new ExtensionId<CorpusStores>() {
+        @Override
+        public CorpusStores createExtension(ActorSystem<?> system) {
+            return new CorpusStores(system);
+        }
+    };
+
+    public static CorpusStores get(ActorSystem<?> system) {
+        return ID.apply(system);
+    }
+
+    private final CorpusStore store; // null when no corpus is configured or it cannot be opened
+
+    private CorpusStores(ActorSystem<?> system) {
+        this.store = open(system.settings().config().getString("forkfind.corpus.dir"));
+    }
+
+    private static CorpusStore open(String dir) {
+        if (dir.isEmpty()) {
+            return null;
+        }
+        try {
+            long start = System.nanoTime();
+            CorpusStore store = CorpusStore.open(Paths.get(dir));
+            System.out.println("✅ CorpusStore: Mapped corpus " + dir + " (" + store.documents().size()
+                    + " documents, " + store.chunkCount() + " chunks, " + store.segmentCount() + " segments) in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return store;
+        } catch (IOException e) {
+            System.err.println("❌ CorpusStore: Cannot open corpus " + dir + ", using the menu catalog: "
+                    + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The node's whole corpus, or null when retrieval uses the menu catalog.
+     */
+    public CorpusStore store() {
+        return store;
+    }
+}
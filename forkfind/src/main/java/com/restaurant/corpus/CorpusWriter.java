@@ -0,0 +1,72 @@
+package com.restaurant.corpus;
+
+import com.restaurant.retrieval.StreamingChunker;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds a segmented corpus directory from any number of documents (one per
+ * restaurant menu or FAQ). Documents are chunked while streaming; a new segment is
+ * started whenever the current one reaches maxSegmentChunks or maxSegmentBytes,
+ * so memory use is bounded by one segment's postings, not by the corpus.
+ */
+public class CorpusWriter implements Closeable {
+
+    static final String DOCUMENTS_FILE = "documents.txt";
+
+    private final Path directory;
+    private final int maxSegmentChunks;
+    private final long maxSegmentBytes;
+    private final List<String> documents = new ArrayList<>();
+    private SegmentWriter segment;
+    private int segmentCount = 0;
+
+    public CorpusWriter(Path directory, int maxSegmentChunks, long maxSegmentBytes) throws IOException {
+        this.directory = directory;
+        this.maxSegmentChunks = maxSegmentChunks;
+        this.maxSegmentBytes = maxSegmentBytes;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Chunks and indexes one document read from the reader.
+     */
+    public void addDocument(String name, BufferedReader reader) throws IOException {
+        int documentId = documents.size();
+        documents.add(name);
+        StreamingChunker.chunk(reader, (section, text) -> {
+            if (segment == null || segment.chunkCount() >= maxSegmentChunks
+                    || segment.dataBytes() >= maxSegmentBytes) {
+                rollSegment();
+            }
+            segment.add(documentId, text);
+        });
+    }
+
+    public int segmentCount() {
+        return segmentCount;
+    }
+
+    private void rollSegment() throws IOException {
+        if (segment != null) {
+            segment.close();
+        }
+        String name = String.format("segment-%05d", segmentCount++);
+        segment = new SegmentWriter(directory.resolve(name + ".dat"), directory.resolve(name + ".idx"));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (segment != null) {
+            segment.close();
+        }
+        Files.write(directory.resolve(DOCUMENTS_FILE), documents, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,185 @@
+package com.restaurant.corpus;
+
+import com.restaurant.retrieval.Tokenizer;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes one corpus segment: chunk text is streamed to the .dat file as it
+ * arrives, postings are collected in memory (bounded by the segment size) and
+ * the .idx file is written on close.
+ *
+ * .idx layout, big-endian:
+ * <pre>
+ *   header   int magic, int version, int chunkCount, int termCount, long totalTokens,
+ *            long termBytesStart, long postingsStart
+ *   chunks   chunkCount x (long textOffset, int textLength, int tokenCount, int documentId)
+ *   terms    termCount x (long termBytesOffset, int termLength, int docFreq, long postingsOffset),
+ *            sorted by term bytes (unsigned)
+ *   term bytes, UTF-8
+ *   postings docFreq x (int chunk, int termFrequency) per term
+ * </pre>
+ */
+class SegmentWriter implements Closeable {
+
+    static final int MAGIC = 0x46464958; // "FFIX"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 40;
+    static final int CHUNK_ENTRY_BYTES = 20;
+    static final int TERM_ENTRY_BYTES = 24;
+
+    // (chunk, tf) pairs for one term
+    private static class PostingList {
+        int[] entries = new int[4];
+        int size = 0;
+
+        void add(int chunk, int frequency) {
+            if (size + 2 > entries.length) {
+                entries = Arrays.copyOf(entries, entries.length * 2);
+            }
+            entries[size++] = chunk;
+            entries[size++] = frequency;
+        }
+    }
+
+    private final Path indexFile;
+    private final OutputStream data;
+    private long dataBytes = 0;
+    private long totalTokens = 0;
+
+    private long[] textOffsets = new long[256];
+    private int[] textLengths = new int[256];
+    private int[] tokenCounts = new int[256];
+    private int[] documentIds = new int[256];
+    private int chunkCount = 0;
+    private final Map<String, PostingList> postings = new HashMap<>();
+
+    SegmentWriter(Path dataFile, Path indexFile) throws IOException {
+        this.indexFile = indexFile;
+        this.data = new BufferedOutputStream(Files.newOutputStream(dataFile), 1 << 16);
+    }
+
+    int chunkCount() {
+        return chunkCount;
+    }
+
+    long dataBytes() {
+        return dataBytes;
+    }
+
+    void add(int documentId, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (chunkCount == textOffsets.length) {
+            int capacity = chunkCount * 2;
+            textOffsets = Arrays.copyOf(textOffsets, capacity);
+            textLengths = Arrays.copyOf(textLengths, capacity);
+            tokenCounts = Arrays.copyOf(tokenCounts, capacity);
+            documentIds = Arrays.copyOf(documentIds, capacity);
+        }
+        data.write(bytes);
+        textOffsets[chunkCount] = dataBytes;
+        textLengths[chunkCount] = bytes.length;
+        documentIds[chunkCount] = documentId;
+        dataBytes += bytes.length;
+
+        List<String> tokens = Tokenizer.tokenize(text);
+        tokenCounts[chunkCount] = tokens.size();
+        totalTokens += tokens.size();
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), t -> new PostingList()).add(chunkCount, entry.getValue());
+        }
+        chunkCount++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        data.close();
+
+        List<byte[]> terms = new ArrayList<>(postings.size());
+        for (String term : postings.keySet()) {
+            terms.add(term.getBytes(StandardCharsets.UTF_8));
+        }
+        terms.sort(SegmentWriter::compareBytes);
+
+        long termBytesStart = HEADER_BYTES + (long) chunkCount * CHUNK_ENTRY_BYTES
+                + (long) terms.size() * TERM_ENTRY_BYTES;
+        long termBytesLength = 0;
+        for (byte[] term : terms) {
+            termBytesLength += term.length;
+        }
+        long postingsStart = termBytesStart + termBytesLength;
+
+        // Written to a temp file and renamed, so readers never see a half-written index
+        Path temp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(chunkCount);
+            out.writeInt(terms.size());
+            out.writeLong(totalTokens);
+            out.writeLong(termBytesStart);
+            out.writeLong(postingsStart);
+
+            for (int i = 0; i < chunkCount; i++) {
+                out.writeLong(textOffsets[i]);
+                out.writeInt(textLengths[i]);
+                out.writeInt(tokenCounts[i]);
+                out.writeInt(documentIds[i]);
+            }
+
+            long termOffset = 0;
+            long postingsOffset = 0;
+            for (byte[] term : terms) {
+                PostingList list = postings.get(new String(term, StandardCharsets.UTF_8));
+                out.writeLong(termOffset);
+                out.writeInt(term.length);
+                out.writeInt(list.size / 2);
+                out.writeLong(postingsOffset);
+                termOffset += term.length;
+                postingsOffset += list.size * 4L;
+            }
+
+            for (byte[] term : terms) {
+                out.write(term);
+            }
+
+            for (byte[] term : terms) {
+                PostingList list = postings.get(new String(term, StandardCharsets.UTF_8));
+                for (int i = 0; i < list.size; i++) {
+                    out.writeInt(list.entries[i]);
+                }
+            }
+        }
+        Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        postings.clear();
+    }
+
+    static int compareBytes(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            int cmp = Integer.compare(a[i] & 0xff, b[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(a.length, b.length);
+    }
+}
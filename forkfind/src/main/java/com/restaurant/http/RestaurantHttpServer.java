@@ -1,21 +1,38 @@
 package com.restaurant.http;
 
+import akka.NotUsed;
 import akka.actor.typed.ActorRef;
 import akka.actor.typed.ActorSystem;
 import akka.actor.typed.javadsl.AskPattern;
 import akka.http.javadsl.Http;
 import akka.http.javadsl.marshallers.jackson.Jackson;
+import akka.http.javadsl.marshalling.sse.EventStreamMarshalling;
 import akka.http.javadsl.model.ContentTypes;
 import akka.http.javadsl.model.HttpEntities;
 import akka.http.javadsl.model.StatusCodes;
+import akka.http.javadsl.model.sse.ServerSentEvent;
 import akka.http.javadsl.server.AllDirectives;
+import akka.http.javadsl.server.PathMatchers;
 import akka.http.javadsl.server.Route;
+import akka.japi.Pair;
+import akka.stream.OverflowStrategy;
+import akka.stream.javadsl.Source;
+import akka.stream.typed.javadsl.ActorSource;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.catalog.MenuCatalog;
+import com.restaurant.catalog.MenuCatalogs;
+import com.restaurant.catalog.TenantCatalogs;
 import com.restaurant.messages.Messages.*;
+import com.restaurant.messages.QueryIntent;
+import com.restaurant.metrics.Metrics;
+import com.restaurant.query.QueryAnalyzer;
 
 import java.time.Duration;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
 public class RestaurantHttpServer extends AllDirectives {
@@ -24,6 +41,9 @@ public class RestaurantHttpServer extends AllDirectives {
     private final ActorRef<RestaurantMessage> loggingActor; // Add logging actor
     private final ActorSystem<?> system;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MenuCatalogs catalogs;
+    private final TenantCatalogs tenants;
+    private final Duration requestTimeout;
 
     public RestaurantHttpServer(ActorRef<RestaurantMessage> routingActor,
             ActorRef<RestaurantMessage> loggingActor,
@@ -31,6 +51,9 @@ public class RestaurantHttpServer extends AllDirectives {
         this.routingActor = routingActor;
         this.loggingActor = loggingActor;
         this.system = system;
+        this.catalogs = MenuCatalogs.get(system);
+        this.tenants = TenantCatalogs.get(system);
+        this.requestTimeout = system.settings().config().getDuration("forkfind.http.request-timeout");
     }
 
     public Route createRoute() {
@@ -38,12 +61,11 @@ public class RestaurantHttpServer extends AllDirectives {
                 // API endpoint for queries
                 pathPrefix("api", () -> concat(
                         path("query", () -> post(() -> entity(Jackson.unmarshaller(QueryRequestDTO.class), dto -> {
+                            if (!validTenant(dto)) {
+                                return complete(StatusCodes.BAD_REQUEST, "Invalid tenantId");
+                            }
                             // Use ASK pattern to get response from actor system
-                            CompletionStage<QueryResponse> futureResponse = AskPattern.ask(
-                                    routingActor,
-                                    replyTo -> new QueryRequest(dto.query, dto.queryType, replyTo),
-                                    Duration.ofSeconds(30),
-                                    system.scheduler());
+                            CompletionStage<QueryResponse> futureResponse = ask(dto, null);
 
                             return onSuccess(futureResponse, response -> {
                                 Map<String, Object> result = new HashMap<>();
@@ -60,6 +82,9 @@ public class RestaurantHttpServer extends AllDirectives {
                                 }
                             });
                         }))),
+                        // Streaming variant: LLM tokens are pushed to the browser as Server-Sent Events
+                        path(PathMatchers.segment("query").slash("stream"),
+                                () -> post(() -> entity(Jackson.unmarshaller(QueryRequestDTO.class), this::streamQuery))),
                         path("logs", () -> get(() -> {
                             // Ask LoggingActor for logs
                             CompletionStage<GetLogsResponse> futureLogs = AskPattern.ask(
@@ -70,17 +95,85 @@ public class RestaurantHttpServer extends AllDirectives {
 
                             return onSuccess(futureLogs,
                                     logsResp -> complete(StatusCodes.OK, logsResp.logs, Jackson.marshaller()));
-                        })))),
+                        })),
+                        path("metrics", () -> get(() -> complete(StatusCodes.OK,
+                                Metrics.get(system).snapshot(), Jackson.marshaller()))))),
                 // Serve index.html at root
                 path("", () -> get(() -> getFromResource("static/index.html"))),
                 // Serve static files
                 pathPrefix("static", () -> getFromResourceDirectory("static")));
     }
 
+    // Tenant ids end up in file and journal names, so malformed ones are refused here
+    private static boolean validTenant(QueryRequestDTO dto) {
+        return dto.tenantId == null || dto.tenantId.isEmpty() || TenantCatalogs.isValidId(dto.tenantId);
+    }
+
+    // Understood once here; every actor downstream reads the intent instead of the text.
+    // Dish names come from the restaurant asked about; an unknown tenant knows none. A cold
+    // tenant's catalog loads on the blocking dispatcher, so the ask is sent once it is resident.
+    private CompletionStage<QueryResponse> ask(QueryRequestDTO dto, ActorRef<LLMStreamChunk> streamTo) {
+        long deadline = System.currentTimeMillis() + requestTimeout.toMillis();
+        String tenantId = dto.tenantId == null || dto.tenantId.isEmpty() ? null : dto.tenantId;
+        CompletionStage<MenuCatalog> catalog = tenantId != null
+                ? tenants.catalog(tenantId).exceptionally(e -> null)
+                : CompletableFuture.completedFuture(catalogs.current());
+        return catalog.thenCompose(menu -> {
+            QueryIntent intent = QueryAnalyzer.analyze(dto.query, dto.queryType,
+                    name -> menu != null && menu.table.id(name) >= 0, LocalDate.now());
+            return AskPattern.ask(
+                    routingActor,
+                    replyTo -> new QueryRequest(dto.query, dto.queryType, replyTo, streamTo, tenantId, intent,
+                            deadline),
+                    Duration.ofMillis(Math.max(1, deadline - System.currentTimeMillis())),
+                    system.scheduler());
+        });
+    }
+
+    private Route streamQuery(QueryRequestDTO dto) {
+        if (!validTenant(dto)) {
+            return complete(StatusCodes.BAD_REQUEST, "Invalid tenantId");
+        }
+        // Token deltas are told to this source's actor; the final "done" chunk ends the stream
+        Pair<ActorRef<LLMStreamChunk>, Source<LLMStreamChunk, NotUsed>> stream = ActorSource
+                .<LLMStreamChunk>actorRef(
+                        chunk -> false,
+                        chunk -> Optional.empty(),
+                        1024,
+                        OverflowStrategy.dropHead())
+                .preMaterialize(system);
+        ActorRef<LLMStreamChunk> streamTo = stream.first();
+
+        CompletionStage<QueryResponse> futureResponse = ask(dto, streamTo);
+
+        // Every route ends with the full response, so non-LLM actors work over the stream too
+        futureResponse.whenComplete((response, throwable) -> {
+            if (throwable != null) {
+                streamTo.tell(new LLMStreamChunk("Error: " + throwable.getMessage(), true, false));
+            } else {
+                streamTo.tell(new LLMStreamChunk(response.response, true, response.success));
+            }
+        });
+
+        Source<ServerSentEvent, NotUsed> events = stream.second()
+                .takeWhile(chunk -> !chunk.done, true)
+                .map(chunk -> {
+                    Map<String, Object> data = new HashMap<>();
+                    data.put("text", chunk.text);
+                    data.put("success", chunk.success);
+                    return ServerSentEvent.create(objectMapper.writeValueAsString(data),
+                            chunk.done ? "done" : "token");
+                })
+                .keepAlive(Duration.ofSeconds(10), ServerSentEvent::heartbeat);
+
+        return completeOK(events, EventStreamMarshalling.toEventStream());
+    }
+
     // DTO for incoming requests
     public static class QueryRequestDTO {
         public String query;
         public String queryType;
+        public String tenantId; // optional restaurant id for multi-tenant deployments
 
         public QueryRequestDTO() {
         }
@@ -0,0 +1,365 @@
+package com.restaurant.journal;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only event stream of one persistent actor, stored in its own directory.
+ *
+ * Events go to segment files named by their first sequence number
+ * (journal-00000000000000000001.log), each record being
+ * [int payload length][int crc32][long seqNr][payload]. A record torn by a crash fails its
+ * checksum and is cut off when the journal is opened. Snapshots are written next to the
+ * segments (snapshot-<seqNr>.bin, via tmp file and atomic rename); each one starts a new
+ * segment, and segments older than the previous snapshot are deleted.
+ *
+ * Appends may come from several actors sharing the stream; sequence numbers follow the
+ * order of the calls. The file I/O itself happens on the shared {@link GroupCommitWriter}
+ * thread.
+ */
+public class EventJournal {
+
+    private static final int HEADER_BYTES = 16;
+    private static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+    private static final int KEEP_SNAPSHOTS = 2;
+
+    public interface EventHandler {
+        void onEvent(long seqNr, byte[] payload) throws IOException;
+    }
+
+    public static final class Snapshot {
+        public final long seqNr;
+        public final byte[] state;
+
+        Snapshot(long seqNr, byte[] state) {
+            this.seqNr = seqNr;
+            this.state = state;
+        }
+    }
+
+    private final Path directory;
+    private final GroupCommitWriter writer;
+    private long lastSeqNr;
+
+    // Owned by the writer thread after open
+    private FileChannel segment;
+    private long segmentFirstSeqNr;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer buffer = ByteBuffer.allocate(4096);
+    // Closed, or a write failed and the segment may end in a partial record: nothing more is
+    // appended or snapshotted; set on the writer thread before the failed write's future completes
+    private volatile boolean failed = false;
+
+    private EventJournal(Path directory, GroupCommitWriter writer) {
+        this.directory = directory;
+        this.writer = writer;
+    }
+
+    /**
+     * Opens (or creates) the journal in this directory, cutting off a torn tail record.
+     */
+    public static EventJournal open(Path directory, GroupCommitWriter writer) throws IOException {
+        Path existing = directory;
+        while (existing != null && !Files.isDirectory(existing)) {
+            existing = existing.getParent();
+        }
+        Files.createDirectories(directory);
+        if (writer.fsync()) {
+            // The new directories' own entries must survive a crash too
+            for (Path created = directory; created != null && !created.equals(existing);
+                    created = created.getParent()) {
+                forceDirectory(created.getParent());
+            }
+        }
+        EventJournal journal = new EventJournal(directory, writer);
+
+        List<Long> segments = journal.list("journal-", ".log");
+        Snapshot snapshot = journal.latestSnapshot();
+        long snapshotSeqNr = snapshot == null ? 0 : snapshot.seqNr;
+        if (segments.isEmpty()) {
+            journal.lastSeqNr = snapshotSeqNr;
+            journal.openSegment(snapshotSeqNr + 1, writer.fsync());
+            return journal;
+        }
+
+        long first = segments.get(segments.size() - 1);
+        Path last = journal.segmentPath(first);
+        long[] validEnd = { 0 };
+        long[] lastInSegment = { first - 1 };
+        scan(last, (seqNr, payload) -> lastInSegment[0] = seqNr, validEnd);
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+            if (channel.size() > validEnd[0]) {
+                System.err.println("⚠️ Journal " + directory.getFileName() + ": truncating "
+                        + (channel.size() - validEnd[0]) + " torn byte(s) after seqNr " + lastInSegment[0]);
+                channel.truncate(validEnd[0]);
+                channel.force(true);
+            }
+        }
+        journal.lastSeqNr = Math.max(lastInSegment[0], snapshotSeqNr);
+        journal.segmentFirstSeqNr = first;
+        journal.segment = FileChannel.open(last, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return journal;
+    }
+
+    /**
+     * Whether the journal takes no more writes because it was closed or a write failed. State
+     * built from its appends may then hold events that are not on disk: open it again and
+     * recover from the files instead.
+     */
+    public boolean failed() {
+        return failed;
+    }
+
+    public synchronized long lastSeqNr() {
+        return lastSeqNr;
+    }
+
+    /**
+     * Queues the event; the future completes with its sequence number once it is durable.
+     */
+    public synchronized CompletableFuture<Long> append(byte[] payload) {
+        lastSeqNr++;
+        return writer.submit(new GroupCommitWriter.Entry(GroupCommitWriter.Entry.APPEND, this, lastSeqNr, payload));
+    }
+
+    /**
+     * Queues a snapshot of the state after event seqNr (normally {@link #lastSeqNr()}).
+     */
+    public synchronized CompletableFuture<Long> saveSnapshot(long seqNr, byte[] state) {
+        return writer.submit(new GroupCommitWriter.Entry(GroupCommitWriter.Entry.SNAPSHOT, this, seqNr, state));
+    }
+
+    /**
+     * Queues closing the journal after everything appended so far is committed. Do not use
+     * the journal afterwards; open it again instead.
+     */
+    public synchronized CompletableFuture<Long> close() {
+        return writer.submit(new GroupCommitWriter.Entry(GroupCommitWriter.Entry.CLOSE, this, lastSeqNr, null));
+    }
+
+    /**
+     * Completes once everything appended so far is committed, e.g. before replaying a stream
+     * that other actors append to.
+     */
+    public synchronized CompletableFuture<Long> sync() {
+        return writer.submit(new GroupCommitWriter.Entry(GroupCommitWriter.Entry.SYNC, this, lastSeqNr, null));
+    }
+
+    public Snapshot latestSnapshot() throws IOException {
+        List<Long> snapshots = list("snapshot-", ".bin");
+        if (snapshots.isEmpty()) {
+            return null;
+        }
+        long seqNr = snapshots.get(snapshots.size() - 1);
+        return new Snapshot(seqNr, Files.readAllBytes(snapshotPath(seqNr)));
+    }
+
+    /**
+     * Feeds every event after afterSeqNr to the handler, oldest first.
+     *
+     * @return number of events replayed
+     */
+    public long replay(long afterSeqNr, EventHandler handler) throws IOException {
+        List<Long> segments = list("journal-", ".log");
+        long[] replayed = { 0 };
+        for (int i = 0; i < segments.size(); i++) {
+            if (i + 1 < segments.size() && segments.get(i + 1) <= afterSeqNr + 1) {
+                continue; // every event in this segment is covered by the snapshot
+            }
+            scan(segmentPath(segments.get(i)), (seqNr, payload) -> {
+                if (seqNr > afterSeqNr) {
+                    handler.onEvent(seqNr, payload);
+                    replayed[0]++;
+                }
+            }, new long[1]);
+        }
+        return replayed[0];
+    }
+
+    // Reads valid records up to the first torn or corrupt one; validEnd[0] is its offset
+    private static void scan(Path file, EventHandler handler, long[] validEnd) throws IOException {
+        try (InputStream in = Files.newInputStream(file);
+             DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16))) {
+            CRC32 crc = new CRC32();
+            long offset = 0;
+            while (true) {
+                int length;
+                try {
+                    length = data.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length < 0 || length > MAX_RECORD_BYTES) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                long seqNr;
+                int checksum;
+                try {
+                    checksum = data.readInt();
+                    seqNr = data.readLong();
+                    data.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                updateLong(crc, seqNr);
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                offset += HEADER_BYTES + length;
+                validEnd[0] = offset;
+                handler.onEvent(seqNr, payload);
+            }
+        }
+    }
+
+    private static void updateLong(CRC32 crc, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (value >>> shift));
+        }
+    }
+
+    // ---- writer thread ----
+
+    void write(long seqNr, byte[] payload) throws IOException {
+        if (failed) {
+            throw new IOException("Journal " + directory.getFileName() + " is closed or failed earlier; reopen it");
+        }
+        if (buffer.capacity() < HEADER_BYTES + payload.length) {
+            buffer = ByteBuffer.allocate(Integer.highestOneBit(HEADER_BYTES + payload.length) << 1);
+        }
+        crc.reset();
+        updateLong(crc, seqNr);
+        crc.update(payload);
+        buffer.clear();
+        buffer.putInt(payload.length).putInt((int) crc.getValue()).putLong(seqNr).put(payload).flip();
+        try {
+            while (buffer.hasRemaining()) {
+                segment.write(buffer);
+            }
+        } catch (IOException e) {
+            failed = true;
+            throw e;
+        }
+    }
+
+    void force(boolean fsync) throws IOException {
+        if (fsync) {
+            try {
+                segment.force(false);
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+    }
+
+    void writeSnapshot(long seqNr, byte[] state, boolean fsync) throws IOException {
+        if (failed) {
+            // The state may include the events that failed; it must not outlive them on disk
+            throw new IOException("Journal " + directory.getFileName() + " is closed or failed earlier; reopen it");
+        }
+        Path tmp = directory.resolve("snapshot.tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = ByteBuffer.wrap(state);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            if (fsync) {
+                channel.force(true);
+            }
+        }
+        Files.move(tmp, snapshotPath(seqNr), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        // The rename must be durable before anything older is deleted because of it
+        if (fsync) {
+            forceDirectory(directory);
+        }
+
+        // Later events go to a fresh segment, so whole segments can be dropped with old snapshots
+        if (segmentFirstSeqNr <= seqNr) {
+            segment.close();
+            openSegment(seqNr + 1, fsync);
+        }
+        List<Long> snapshots = list("snapshot-", ".bin");
+        if (snapshots.size() > KEEP_SNAPSHOTS) {
+            long oldestKept = snapshots.get(snapshots.size() - KEEP_SNAPSHOTS);
+            for (long old : snapshots.subList(0, snapshots.size() - KEEP_SNAPSHOTS)) {
+                Files.deleteIfExists(snapshotPath(old));
+            }
+            List<Long> segments = list("journal-", ".log");
+            for (int i = 0; i + 1 < segments.size() && segments.get(i + 1) <= oldestKept + 1; i++) {
+                Files.deleteIfExists(segmentPath(segments.get(i)));
+            }
+        }
+    }
+
+    void closeSegment() throws IOException {
+        failed = true; // closed for good
+        segment.close();
+    }
+
+    // Appends to the new segment are acknowledged after forcing only the file, so its directory
+    // entry is forced here, before any of them
+    private void openSegment(long firstSeqNr, boolean fsync) throws IOException {
+        segmentFirstSeqNr = firstSeqNr;
+        segment = FileChannel.open(segmentPath(firstSeqNr), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        if (fsync) {
+            try {
+                forceDirectory(directory);
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+    }
+
+    private static void forceDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private Path segmentPath(long firstSeqNr) {
+        return directory.resolve(String.format("journal-%020d.log", firstSeqNr));
+    }
+
+    private Path snapshotPath(long seqNr) {
+        return directory.resolve(String.format("snapshot-%020d.bin", seqNr));
+    }
+
+    // Sequence numbers of the files with this prefix and suffix, ascending
+    private List<Long> list(String prefix, String suffix) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .forEach(name -> {
+                        try {
+                            numbers.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                        } catch (NumberFormatException e) {
+                            // Not one of ours
+                        }
+                    });
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+}
@@ -0,0 +1,176 @@
+package com.restaurant.journal;
+
+import com.restaurant.metrics.Metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Single writer thread shared by all {@link EventJournal}s of a node.
+ *
+ * Appends are queued and the thread takes everything that queued up while it was busy as
+ * one batch: it writes every record, then fsyncs each touched journal once and only then
+ * completes the batch's futures. Under load many appends share one fsync (group commit);
+ * an idle journal still commits a lone append immediately, without waiting for company.
+ */
+public class GroupCommitWriter implements AutoCloseable {
+
+    // An append, snapshot, close or sync barrier of one journal, in the order they were issued
+    static final class Entry {
+        static final int APPEND = 0;
+        static final int SNAPSHOT = 1;
+        static final int CLOSE = 2;
+        static final int SYNC = 3;
+
+        final int kind;
+        final EventJournal journal;
+        final long seqNr;
+        final byte[] bytes;
+        final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        Entry(int kind, EventJournal journal, long seqNr, byte[] bytes) {
+            this.kind = kind;
+            this.journal = journal;
+            this.seqNr = seqNr;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final Entry STOP = new Entry(Entry.CLOSE, null, 0, null);
+
+    private final LinkedBlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final boolean fsync;
+    private final int maxBatch;
+    private final Metrics metrics;
+    private final Thread thread;
+    private volatile boolean closed = false;
+
+    /**
+     * @param fsync    force written records to the device before acknowledging them; off only
+     *                 trades crash durability for speed in development
+     * @param maxBatch most entries committed with one fsync
+     */
+    public GroupCommitWriter(boolean fsync, int maxBatch, Metrics metrics) {
+        this.fsync = fsync;
+        this.maxBatch = maxBatch;
+        this.metrics = metrics;
+        this.thread = new Thread(this::run, "journal-group-commit");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    CompletableFuture<Long> submit(Entry entry) {
+        if (closed) {
+            entry.future.completeExceptionally(new IOException("Journal writer is closed"));
+        } else {
+            queue.add(entry);
+        }
+        return entry.future;
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>(maxBatch);
+        Set<EventJournal> dirty = new LinkedHashSet<>();
+        List<Entry> written = new ArrayList<>(maxBatch);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, maxBatch - 1);
+                boolean stop = false;
+                for (Entry entry : batch) {
+                    if (entry == STOP) {
+                        stop = true;
+                    } else if (entry.kind == Entry.APPEND) {
+                        try {
+                            entry.journal.write(entry.seqNr, entry.bytes);
+                            dirty.add(entry.journal);
+                            written.add(entry);
+                        } catch (IOException e) {
+                            entry.future.completeExceptionally(e);
+                        }
+                    } else {
+                        // Everything appended before a snapshot, close or sync must be durable first
+                        commit(dirty, written);
+                        try {
+                            if (entry.kind == Entry.SNAPSHOT) {
+                                entry.journal.writeSnapshot(entry.seqNr, entry.bytes, fsync);
+                            } else if (entry.kind == Entry.CLOSE) {
+                                entry.journal.closeSegment();
+                            }
+                            entry.future.complete(entry.seqNr);
+                        } catch (IOException e) {
+                            entry.future.completeExceptionally(e);
+                        }
+                    }
+                }
+                commit(dirty, written);
+                metrics.histogram("journal.batch-size").record(batch.size());
+                batch.clear();
+                if (stop) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            // Shutting down
+        }
+    }
+
+    // One fsync per touched journal, then acknowledge its writes
+    private void commit(Set<EventJournal> dirty, List<Entry> written) {
+        if (written.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        Set<EventJournal> failed = new LinkedHashSet<>();
+        IOException failure = null;
+        for (EventJournal journal : dirty) {
+            try {
+                journal.force(fsync);
+            } catch (IOException e) {
+                failed.add(journal);
+                failure = e;
+            }
+        }
+        if (fsync) {
+            metrics.increment("journal.fsyncs");
+            metrics.histogram("journal.fsync-us").record((System.nanoTime() - start) / 1_000);
+        }
+        for (Entry entry : written) {
+            if (failed.contains(entry.journal)) {
+                entry.future.completeExceptionally(failure);
+            } else {
+                entry.future.complete(entry.seqNr);
+            }
+        }
+        metrics.add("journal.appends", written.size());
+        dirty.clear();
+        written.clear();
+    }
+
+    // Whether journals must also force new directory entries (segments, snapshots) to disk
+    boolean fsync() {
+        return fsync;
+    }
+
+    /**
+     * Commits what is queued, then stops the thread.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.add(STOP);
+        try {
+            thread.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.restaurant.journal;
+
+import akka.actor.typed.ActorSystem;
+import akka.actor.typed.DispatcherSelector;
+import akka.actor.typed.Extension;
+import akka.actor.typed.ExtensionId;
+import com.restaurant.metrics.Metrics;
+import com.typesafe.config.Config;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Per-ActorSystem access to the local event journals under forkfind.journal.dir.
+ *
+ * All journals of a node share one {@link GroupCommitWriter}, so concurrent appends from
+ * different persistent actors are committed by the same fsync. The writer commits what is
+ * queued when the system terminates.
+ *
+ * A journal written by several actors (e.g. all entities of one shard) is shared through
+ * {@link #acquire}/{@link #release}: it stays open while any of them runs, and is closed
+ * once the last one stops so another node can take the stream over. Each shared journal
+ * is locked on its own, so opening one never holds up releasing another. Once a write to a
+ * shared journal has failed, the next acquire closes that instance and reopens the files;
+ * the old instance's users keep it (and its failures) to themselves until they release it.
+ * A journal nobody holds can be deleted with {@link #delete}, e.g. once its data has expired.
+ */
+public class Journals implements Extension {
+
+    public static final ExtensionId<Journals> ID = new ExtensionId<Journals>() {
+        @Override
+        public Journals createExtension(ActorSystem<?> system) {
+            return new Journals(system);
+        }
+    };
+
+    public static Journals get(ActorSystem<?> system) {
+        return ID.apply(system);
+    }
+
+    private final Path directory; // null keeps persistent actors in memory only
+    private final GroupCommitWriter writer;
+    private final Executor blocking;
+
+    // One shared journal: open while it has users, then its close until that completes; guarded by itself
+    private static final class Shared {
+        int users = 0;
+        EventJournal journal;
+        CompletableFuture<Long> closing;
+        boolean retired = false; // removed from the map; acquire a fresh entry instead
+    }
+
+    private final ConcurrentHashMap<String, Shared> shared = new ConcurrentHashMap<>();
+
+    private Journals(ActorSystem<?> system) {
+        Config config = system.settings().config().getConfig("forkfind.journal");
+        String dir = config.getString("dir");
+        this.directory = dir.isEmpty() ? null : Paths.get(dir).toAbsolutePath().normalize();
+        this.writer = new GroupCommitWriter(config.getBoolean("fsync"), config.getInt("max-batch"),
+                Metrics.get(system));
+        this.blocking = system.dispatchers().lookup(DispatcherSelector.blocking());
+        system.getWhenTerminated().thenRun(writer::close);
+        if (directory != null) {
+            System.out.println("✅ Journals: Persisting events to " + directory
+                    + (config.getBoolean("fsync") ? " (group commit)" : " (fsync off)"));
+        }
+    }
+
+    public boolean enabled() {
+        return directory != null;
+    }
+
+    /**
+     * Opens the named journal (a directory below forkfind.journal.dir). Call it once per
+     * persistent actor incarnation, before replaying.
+     */
+    public EventJournal open(String name) throws IOException {
+        return EventJournal.open(path(name), writer);
+    }
+
+    /**
+     * Names of the directories directly below this one (e.g. the journals of
+     * "reservations/default"), empty if it does not exist.
+     */
+    public List<String> children(String name) throws IOException {
+        Path parent = path(name);
+        List<String> children = new ArrayList<>();
+        if (!Files.isDirectory(parent)) {
+            return children;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(parent, Files::isDirectory)) {
+            for (Path child : stream) {
+                children.add(child.getFileName().toString());
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Deletes the named journal's files unless it is acquired; an acquire arriving meanwhile
+     * waits and then starts an empty journal. Blocks on the file I/O.
+     *
+     * @return whether it was deleted (false while in use)
+     */
+    public boolean delete(String name) throws IOException {
+        Path path = path(name);
+        while (true) {
+            Shared entry = shared.computeIfAbsent(name, n -> new Shared());
+            synchronized (entry) {
+                if (entry.retired) {
+                    continue;
+                }
+                if (entry.journal != null) {
+                    return false;
+                }
+                if (entry.closing != null) {
+                    entry.closing.exceptionally(e -> 0L).join();
+                    entry.closing = null;
+                }
+                if (Files.exists(path)) {
+                    List<Path> files;
+                    try (Stream<Path> walk = Files.walk(path)) {
+                        files = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+                    }
+                    for (Path file : files) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+                entry.retired = true;
+                shared.remove(name, entry);
+                return true;
+            }
+        }
+    }
+
+    // Names are built from entity ids; none may reach outside the journal directory
+    private Path path(String name) throws IOException {
+        if (directory == null) {
+            throw new IOException("No journal directory configured (forkfind.journal.dir)");
+        }
+        Path path = directory.resolve(name).normalize();
+        if (!path.startsWith(directory) || path.equals(directory)) {
+            throw new IOException("Journal name " + name + " is outside " + directory);
+        }
+        return path;
+    }
+
+    /**
+     * The shared journal with this name, opened on first use. Every acquire must be paired
+     * with a {@link #release}. Blocks while the journal's previous instance finishes closing
+     * and while its files are opened.
+     */
+    public EventJournal acquire(String name) throws IOException {
+        while (true) {
+            Shared entry = shared.computeIfAbsent(name, n -> new Shared());
+            synchronized (entry) {
+                if (entry.retired) {
+                    continue;
+                }
+                if (entry.journal != null && entry.journal.failed()) {
+                    // Its users restart from the files too; their releases no longer count here
+                    entry.closing = entry.journal.close();
+                    entry.journal = null;
+                    entry.users = 0;
+                }
+                if (entry.journal == null) {
+                    // A previous instance must have committed its last appends before the files are re-read
+                    if (entry.closing != null) {
+                        entry.closing.exceptionally(e -> 0L).join();
+                        entry.closing = null;
+                    }
+                    entry.journal = open(name);
+                }
+                entry.users++;
+                return entry.journal;
+            }
+        }
+    }
+
+    /**
+     * Gives up one use of a shared journal, as returned by {@link #acquire}; the last user
+     * closes it. Never blocks on I/O.
+     *
+     * @return completes when the journal is closed (at once if others still use it, or if it
+     *         failed and was already replaced)
+     */
+    public CompletableFuture<Long> release(String name, EventJournal journal) {
+        Shared entry = shared.get(name);
+        if (entry == null) {
+            return CompletableFuture.completedFuture(0L);
+        }
+        CompletableFuture<Long> closed;
+        synchronized (entry) {
+            if (entry.journal != journal || entry.users == 0 || --entry.users > 0) {
+                return CompletableFuture.completedFuture(0L);
+            }
+            closed = entry.journal.close();
+            entry.journal = null;
+            entry.closing = closed;
+        }
+        // Not on the writer's thread: an acquire may hold the entry while it opens the files
+        closed.whenCompleteAsync((seqNr, failure) -> retire(name, entry, closed), blocking);
+        return closed;
+    }
+
+    // Drops a closed, unused journal's entry so names of finished entities do not pile up
+    private void retire(String name, Shared entry, CompletableFuture<Long> closed) {
+        synchronized (entry) {
+            if (entry.users == 0 && entry.journal == null && entry.closing == closed) {
+                entry.retired = true;
+                shared.remove(name, entry);
+            }
+        }
+    }
+}
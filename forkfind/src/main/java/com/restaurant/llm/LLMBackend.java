@@ -0,0 +1,22 @@
+package com.restaurant.llm;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * A source of LLM completions. Implementations must not block the caller:
+ * the returned future completes with the full text, and onDelta receives
+ * each streamed piece as it arrives (possibly from another thread).
+ */
+public interface LLMBackend {
+
+    CompletableFuture<String> complete(String prompt, Consumer<String> onDelta);
+
+    // Human readable name for logs, e.g. "OpenRouter" or "Mock"
+    String name();
+
+    // Whether completions are real model output, worth caching; canned replies are not
+    default boolean cacheable() {
+        return true;
+    }
+}
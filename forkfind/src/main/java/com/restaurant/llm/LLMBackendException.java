@@ -0,0 +1,27 @@
+package com.restaurant.llm;
+
+import java.io.IOException;
+
+// Non-2xx reply from an LLM endpoint
+public class LLMBackendException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public final int statusCode;
+    public final long retryAfterMillis; // from the Retry-After header, -1 when absent
+
+    public LLMBackendException(int statusCode, String message) {
+        this(statusCode, message, -1);
+    }
+
+    public LLMBackendException(int statusCode, String message, long retryAfterMillis) {
+        super("API request failed: " + statusCode + " - " + message);
+        this.statusCode = statusCode;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    // 429, 408 and 5xx are worth retrying; other client errors are not
+    public boolean isRetryable() {
+        return statusCode == 429 || statusCode == 408 || statusCode >= 500;
+    }
+}
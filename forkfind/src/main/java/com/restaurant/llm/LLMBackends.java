@@ -0,0 +1,83 @@
+package com.restaurant.llm;
+
+import com.typesafe.config.Config;
+import io.github.cdimascio.dotenv.Dotenv;
+
+/**
+ * Builds the {@link LLMBackend} selected by forkfind.llm.backend.
+ */
+public class LLMBackends {
+
+    private static String API_KEY;
+
+    static {
+        // Try to load from .env file first
+        try {
+            Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+            // Prefer OPENROUTER_API_KEY, fallback to OPENAI_API_KEY
+            API_KEY = dotenv.get("OPENROUTER_API_KEY");
+            if (API_KEY == null || API_KEY.isEmpty()) {
+                API_KEY = dotenv.get("OPENAI_API_KEY");
+            }
+
+            if (API_KEY != null) {
+                System.out.println("✅ Loaded API Key from .env file");
+            }
+        } catch (Exception e) {
+            System.out.println("⚠️  Could not load .env file, trying environment variable...");
+        }
+
+        // Fall back to system environment variable if still null
+        if (API_KEY == null || API_KEY.isEmpty()) {
+            API_KEY = System.getenv("OPENROUTER_API_KEY");
+            if (API_KEY == null || API_KEY.isEmpty()) {
+                API_KEY = System.getenv("OPENAI_API_KEY");
+            }
+
+            if (API_KEY != null && !API_KEY.isEmpty()) {
+                System.out.println("✅ Loaded API Key from environment variable");
+            }
+        }
+
+        if (API_KEY == null || API_KEY.isEmpty()) {
+            System.out.println("⚠️  WARNING: No API KEY found (checked OPENROUTER_API_KEY and OPENAI_API_KEY)");
+        }
+    }
+
+    private LLMBackends() {
+    }
+
+    /**
+     * @param llmConfig the forkfind.llm config section
+     */
+    public static LLMBackend fromConfig(Config llmConfig) {
+        String backend = llmConfig.getString("backend");
+        String model = llmConfig.getString("model");
+        int maxTokens = llmConfig.getInt("max-tokens");
+        int maxInFlight = Math.max(1, llmConfig.getInt("max-in-flight"));
+        boolean hasKey = API_KEY != null && !API_KEY.isEmpty();
+
+        switch (backend) {
+            case "auto":
+                if (!hasKey) {
+                    System.out.println("   ↳ Will use mock responses instead of real LLM");
+                    return new MockLLMBackend();
+                }
+                return new OpenAICompatibleBackend("OpenRouter", llmConfig.getString("endpoint"), API_KEY, model,
+                        maxTokens, maxInFlight);
+            case "openai":
+                if (!hasKey) {
+                    throw new IllegalStateException("forkfind.llm.backend = openai requires an API key");
+                }
+                return new OpenAICompatibleBackend("OpenRouter", llmConfig.getString("endpoint"), API_KEY, model,
+                        maxTokens, maxInFlight);
+            case "stub":
+                String stubEndpoint = "http://127.0.0.1:" + llmConfig.getInt("stub.port") + StubLLMServer.PATH;
+                return new OpenAICompatibleBackend("Stub", stubEndpoint, "stub-key", model, maxTokens, maxInFlight);
+            case "mock":
+                return new MockLLMBackend();
+            default:
+                throw new IllegalArgumentException("Unknown forkfind.llm.backend: " + backend);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.restaurant.llm;
+
+import com.restaurant.metrics.Metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+/**
+ * Bounded LRU cache of LLM completions with TTL expiry.
+ * Entries are keyed by a SHA-256 hash of the normalized prompt plus the model parameters.
+ * When a disk directory is configured, entries are also written there so they survive restarts;
+ * that tier is read and written on the given executor, never on the caller's thread. It holds
+ * at most diskMaxEntries files, dropping the oldest first. When the cache opens, expired
+ * entries and temporary files left by a crash are swept away before anything is written.
+ */
+public class LLMResponseCache {
+
+    private static class Entry {
+        final String value;
+        final long createdAt;
+
+        Entry(String value, long createdAt) {
+            this.value = value;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Path diskDir; // null = memory only
+    private final int diskMaxEntries;
+    private final Executor diskExecutor;
+    private final Metrics metrics;
+    private final LinkedHashMap<String, Entry> entries;
+
+    // Keys on disk, oldest write first; guarded by itself
+    private final LinkedHashSet<String> diskKeys = new LinkedHashSet<>();
+    // Completes once the disk tier is swept; writes wait for it so the sweep sees a quiet directory
+    private final CompletableFuture<Void> diskSwept;
+
+    public LLMResponseCache(int maxEntries, Duration ttl, Path diskDir, int diskMaxEntries, Executor diskExecutor,
+            Metrics metrics) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = ttl.toMillis();
+        this.diskDir = diskDir;
+        this.diskMaxEntries = Math.max(1, diskMaxEntries);
+        this.diskExecutor = diskExecutor;
+        this.metrics = metrics;
+
+        // Access order turns the LinkedHashMap into an LRU list
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > LLMResponseCache.this.maxEntries) {
+                    metrics.increment("llm.cache.evictions");
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.diskSwept = diskDir == null ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.runAsync(this::sweepDisk, diskExecutor);
+        metrics.gauge("llm.cache.size", this::size);
+    }
+
+    public static String key(String prompt, String model, int maxTokens) {
+        String normalized = prompt.trim().toLowerCase().replaceAll("\\s+", " ");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((model + '\u0000' + maxTokens + '\u0000' + normalized)
+                    .getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * The memory tier only; on a miss, {@link #hasDiskTier() a disk tier} may still hold the entry.
+     */
+    public synchronized Optional<String> get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && isExpired(entry, System.currentTimeMillis())) {
+            entries.remove(key);
+            metrics.increment("llm.cache.expirations");
+            entry = null;
+        }
+        if (entry == null) {
+            if (diskDir == null) {
+                metrics.increment("llm.cache.misses");
+            }
+            return Optional.empty();
+        }
+        metrics.increment("llm.cache.hits");
+        return Optional.of(entry.value);
+    }
+
+    public boolean hasDiskTier() {
+        return diskDir != null;
+    }
+
+    /**
+     * Looks the entry up in the disk tier, after a memory miss; a hit is kept in memory again.
+     */
+    public CompletionStage<Optional<String>> getFromDisk(String key) {
+        if (diskDir == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            Entry entry = readFromDisk(key, System.currentTimeMillis());
+            if (entry == null) {
+                metrics.increment("llm.cache.misses");
+                return Optional.empty();
+            }
+            synchronized (this) {
+                entries.put(key, entry);
+            }
+            metrics.increment("llm.cache.disk-hits");
+            metrics.increment("llm.cache.hits");
+            return Optional.of(entry.value);
+        }, diskExecutor);
+    }
+
+    public void put(String key, String value) {
+        Entry entry = new Entry(value, System.currentTimeMillis());
+        synchronized (this) {
+            entries.put(key, entry);
+        }
+        if (diskDir != null) {
+            diskSwept.thenRunAsync(() -> writeToDisk(key, entry), diskExecutor);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.createdAt > ttlMillis;
+    }
+
+    // Disk format: first line is the creation timestamp, the rest is the response text
+    private Entry readFromDisk(String key, long now) {
+        if (diskDir == null) {
+            return null;
+        }
+        Path file = diskDir.resolve(key + ".txt");
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            String content = Files.readString(file, StandardCharsets.UTF_8);
+            int newline = content.indexOf('\n');
+            if (newline < 0) {
+                return null;
+            }
+            Entry entry = new Entry(content.substring(newline + 1), Long.parseLong(content.substring(0, newline)));
+            if (isExpired(entry, now)) {
+                Files.deleteIfExists(file);
+                synchronized (diskKeys) {
+                    diskKeys.remove(key);
+                }
+                metrics.increment("llm.cache.expirations");
+                return null;
+            }
+            return entry;
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("⚠️  LLMResponseCache: Ignoring unreadable entry " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, Entry entry) {
+        try {
+            // Write then rename so a crash never leaves a half-written entry behind; the temporary
+            // name is unique, as concurrent writes of one key may run on different threads
+            Path tmp = Files.createTempFile(diskDir, key, ".tmp");
+            Files.writeString(tmp, entry.createdAt + "\n" + entry.value, StandardCharsets.UTF_8);
+            Files.move(tmp, diskDir.resolve(key + ".txt"), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("⚠️  LLMResponseCache: Could not persist entry: " + e.getMessage());
+            return;
+        }
+        List<String> evicted = new ArrayList<>();
+        synchronized (diskKeys) {
+            diskKeys.remove(key); // a rewrite moves the key to the young end
+            diskKeys.add(key);
+            Iterator<String> oldest = diskKeys.iterator();
+            while (diskKeys.size() > diskMaxEntries && oldest.hasNext()) {
+                evicted.add(oldest.next());
+                oldest.remove();
+            }
+        }
+        deleteFromDisk(evicted);
+    }
+
+    // Drops temporary files of interrupted writes and expired entries, then trims the rest to the
+    // bound. Entry files are written once, so their modification time is their creation time.
+    private void sweepDisk() {
+        long now = System.currentTimeMillis();
+        List<Path> entryFiles = new ArrayList<>();
+        int removed = 0;
+        try {
+            Files.createDirectories(diskDir);
+            try (Stream<Path> files = Files.list(diskDir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(".tmp")) {
+                        removed += Files.deleteIfExists(file) ? 1 : 0;
+                    } else if (name.endsWith(".txt")) {
+                        entryFiles.add(file);
+                    }
+                }
+            }
+            Map<Path, Long> modified = new LinkedHashMap<>();
+            for (Path file : entryFiles) {
+                FileTime time = Files.getLastModifiedTime(file);
+                if (now - time.toMillis() > ttlMillis) {
+                    removed += Files.deleteIfExists(file) ? 1 : 0;
+                } else {
+                    modified.put(file, time.toMillis());
+                }
+            }
+            List<Map.Entry<Path, Long>> byAge = new ArrayList<>(modified.entrySet());
+            byAge.sort(Map.Entry.comparingByValue());
+            List<String> evicted = new ArrayList<>();
+            synchronized (diskKeys) {
+                for (Map.Entry<Path, Long> file : byAge) {
+                    String name = file.getKey().getFileName().toString();
+                    diskKeys.add(name.substring(0, name.length() - ".txt".length()));
+                }
+                Iterator<String> oldest = diskKeys.iterator();
+                while (diskKeys.size() > diskMaxEntries && oldest.hasNext()) {
+                    evicted.add(oldest.next());
+                    oldest.remove();
+                }
+            }
+            deleteFromDisk(evicted);
+            removed += evicted.size();
+            System.out.println("✅ LLMResponseCache: Disk tier at " + diskDir + " holds " + diskEntryCount()
+                    + " entries" + (removed > 0 ? " (swept " + removed + " stale file(s))" : ""));
+        } catch (IOException e) {
+            System.err.println("❌ LLMResponseCache: Cannot sweep disk tier at " + diskDir + ": " + e.getMessage());
+        }
+    }
+
+    private void deleteFromDisk(List<String> keys) {
+        for (String key : keys) {
+            try {
+                Files.deleteIfExists(diskDir.resolve(key + ".txt"));
+                metrics.increment("llm.cache.disk-evictions");
+            } catch (IOException e) {
+                System.err.println("⚠️  LLMResponseCache: Could not evict entry " + key + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public int diskEntryCount() {
+        synchronized (diskKeys) {
+            return diskKeys.size();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.restaurant.llm;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import okhttp3.*;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Streaming chat completions from any OpenAI-compatible endpoint
+ * (OpenRouter, OpenAI, or the bundled {@link StubLLMServer}).
+ */
+public class OpenAICompatibleBackend implements LLMBackend {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final String name;
+    private final String endpoint;
+    private final String apiKey;
+    private final String model;
+    private final int maxTokens;
+    private final OkHttpClient httpClient;
+
+    public OpenAICompatibleBackend(String name, String endpoint, String apiKey, String model, int maxTokens,
+            int maxConcurrentCalls) {
+        this.name = name;
+        this.endpoint = endpoint;
+        this.apiKey = apiKey;
+        this.model = model;
+        this.maxTokens = maxTokens;
+
+        // OkHttp runs the calls on its own threads; keep its limits in line with the caller's
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxConcurrentCalls);
+        dispatcher.setMaxRequestsPerHost(maxConcurrentCalls);
+        this.httpClient = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .build();
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public CompletableFuture<String> complete(String prompt, Consumer<String> onDelta) {
+        System.out.println("   ↳ Calling " + name + " API (Streaming Mode)...");
+
+        String jsonBody;
+        try {
+            jsonBody = requestJson(prompt);
+        } catch (JsonProcessingException e) {
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        RequestBody body = RequestBody.create(
+                jsonBody,
+                MediaType.parse("application/json"));
+
+        Request httpRequest = new Request.Builder()
+                .url(endpoint)
+                .addHeader("Authorization", "Bearer " + apiKey)
+                .addHeader("Content-Type", "application/json")
+                .addHeader("HTTP-Referer", "http://localhost:8080") // Site URL
+                .addHeader("X-Title", "ForkFind Restaurant App") // Site Name
+                .post(body)
+                .build();
+
+        // Execute request asynchronously on OkHttp's dispatcher threads
+        CompletableFuture<String> future = new CompletableFuture<>();
+        Call httpCall = httpClient.newCall(httpRequest);
+        httpCall.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try {
+                    future.complete(readResponse(response, onDelta));
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        // A caller giving up (e.g. a timeout) aborts the HTTP call instead of letting it stream on
+        future.whenComplete((result, failure) -> {
+            if (failure != null) {
+                httpCall.cancel();
+            }
+        });
+        return future;
+    }
+
+    // Streaming chat request; Jackson escapes whatever the guest or the knowledge base put in the prompt
+    String requestJson(String prompt) throws JsonProcessingException {
+        ObjectNode request = JSON.createObjectNode();
+        request.put("model", model);
+        ObjectNode message = request.putArray("messages").addObject();
+        message.put("role", "user");
+        message.put("content", prompt);
+        request.put("max_tokens", maxTokens);
+        request.put("stream", true);
+        return JSON.writeValueAsString(request);
+    }
+
+    private String readResponse(Response httpResponse, Consumer<String> onDelta)
+            throws IOException {
+        try (Response response = httpResponse) {
+            if (!response.isSuccessful()) {
+                // A rejected key (401) fails like any other client error: callers fall back to the
+                // retrieved context instead of receiving canned text that would be cached as an answer
+                if (response.code() == 401) {
+                    System.out.println("⚠️  API Key Invalid/Unauthorized (401)");
+                }
+                throw new LLMBackendException(response.code(), response.message(),
+                        parseRetryAfter(response.header("Retry-After")));
+            }
+
+            // Handle Streaming Response (Server-Sent Events)
+            StringBuilder fullResponse = new StringBuilder();
+            new SseDeltaParser().parse(response.body().source(), content -> {
+                fullResponse.append(content);
+                onDelta.accept(content);
+            });
+
+            System.out.println("   ↳ " + name + " API stream completed");
+            if (fullResponse.length() == 0) {
+                throw new IOException("Empty response from LLM provider");
+            }
+            return fullResponse.toString();
+        }
+    }
+
+    // Retry-After is either delay-seconds or an HTTP date
+    private static long parseRetryAfter(String header) {
+        if (header == null || header.isEmpty()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(header.trim()) * 1000;
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime at = ZonedDateTime.parse(header.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, at.toInstant().toEpochMilli() - System.currentTimeMillis());
+            } catch (DateTimeParseException ignored) {
+                return -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.restaurant.llm;
+
+import akka.actor.typed.ActorSystem;
+import akka.pattern.CircuitBreaker;
+import akka.pattern.CircuitBreakerOpenException;
+import akka.pattern.Patterns;
+import com.restaurant.metrics.LatencyWindow;
+import com.restaurant.metrics.Metrics;
+import com.typesafe.config.Config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Wraps a backend with a circuit breaker, a latency-adaptive timeout and retries.
+ *
+ * - Each attempt times out at the recent p99 call latency times a multiplier,
+ *   clamped to [timeout.min, timeout.max]; until enough calls have been seen the
+ *   maximum is used.
+ * - Failed attempts (429, 408, 5xx, I/O errors, timeouts) are retried with jittered
+ *   exponential backoff, waiting at least as long as the provider's Retry-After.
+ *   An attempt that already streamed tokens to the user is never retried.
+ * - All attempts of a call, backoffs included, end after retry.max-total or at the
+ *   caller's deadline, whichever comes first: attempts are cut short to fit, and no
+ *   retry starts that could not run for at least timeout.min.
+ * - After max-failures consecutive provider failures (the retryable kinds above) the
+ *   breaker opens and calls fail immediately; a client error such as 400 or 401 says
+ *   nothing about the provider's health and does not count; after reset-timeout a single probe is let through (half-open) and
+ *   the breaker closes again if it succeeds.
+ */
+public class ResilientLLMBackend implements LLMBackend {
+
+    private static final int MIN_SAMPLES_FOR_ADAPTIVE_TIMEOUT = 20;
+
+    private final LLMBackend delegate;
+    private final ActorSystem<?> system;
+    private final CircuitBreaker breaker;
+    private final Metrics metrics;
+    private final LatencyWindow latencies;
+
+    private final long minTimeoutMillis;
+    private final long maxTimeoutMillis;
+    private final double timeoutPercentile;
+    private final double timeoutMultiplier;
+    private final int maxAttempts;
+    private final long maxTotalMillis;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    /**
+     * @param config the forkfind.llm.resilience config section
+     */
+    public ResilientLLMBackend(LLMBackend delegate, Config config, ActorSystem<?> system) {
+        this.delegate = delegate;
+        this.system = system;
+        this.metrics = Metrics.get(system);
+        this.latencies = metrics.histogram("llm.call.latency-ms");
+
+        this.minTimeoutMillis = config.getDuration("timeout.min").toMillis();
+        this.maxTimeoutMillis = config.getDuration("timeout.max").toMillis();
+        this.timeoutPercentile = config.getDouble("timeout.percentile");
+        this.timeoutMultiplier = config.getDouble("timeout.multiplier");
+        this.maxAttempts = Math.max(1, config.getInt("retry.max-attempts"));
+        this.maxTotalMillis = config.getDuration("retry.max-total").toMillis();
+        this.initialBackoffMillis = config.getDuration("retry.initial-backoff").toMillis();
+        this.maxBackoffMillis = config.getDuration("retry.max-backoff").toMillis();
+
+        // The breaker's own call timeout only backstops the adaptive one
+        this.breaker = CircuitBreaker.create(
+                system.classicSystem().scheduler(),
+                config.getInt("max-failures"),
+                Duration.ofMillis(maxTimeoutMillis + 1000),
+                config.getDuration("reset-timeout"))
+                .withExponentialBackoff(config.getDuration("max-reset-timeout"))
+                .addOnOpenListener(() -> System.out.println("🔌 LLM circuit breaker OPEN - failing fast"))
+                .addOnHalfOpenListener(() -> System.out.println("🔌 LLM circuit breaker HALF-OPEN - probing provider"))
+                .addOnCloseListener(() -> System.out.println("🔌 LLM circuit breaker CLOSED - provider healthy"));
+
+        metrics.gauge("llm.breaker.state", () -> breaker.isOpen() ? 2 : breaker.isHalfOpen() ? 1 : 0);
+        metrics.gauge("llm.timeout.current-ms", this::currentTimeoutMillis);
+    }
+
+    @Override
+    public String name() {
+        return delegate.name();
+    }
+
+    @Override
+    public boolean cacheable() {
+        return delegate.cacheable();
+    }
+
+    public boolean isOpen() {
+        return breaker.isOpen();
+    }
+
+    @Override
+    public CompletableFuture<String> complete(String prompt, Consumer<String> onDelta) {
+        return complete(prompt, onDelta, 0);
+    }
+
+    /**
+     * @param deadlineMillis epoch millis after which nobody waits for the result, 0 for none
+     */
+    public CompletableFuture<String> complete(String prompt, Consumer<String> onDelta, long deadlineMillis) {
+        long endMillis = System.currentTimeMillis() + maxTotalMillis;
+        if (deadlineMillis > 0) {
+            endMillis = Math.min(endMillis, deadlineMillis);
+        }
+        AtomicBoolean streamed = new AtomicBoolean();
+        Consumer<String> tracking = delta -> {
+            streamed.set(true);
+            onDelta.accept(delta);
+        };
+        CompletableFuture<String> result = new CompletableFuture<>();
+        attempt(prompt, tracking, streamed, 1, endMillis, result);
+        return result;
+    }
+
+    private void attempt(String prompt, Consumer<String> onDelta, AtomicBoolean streamed, int attempt,
+            long endMillis, CompletableFuture<String> result) {
+        long leftMillis = endMillis - System.currentTimeMillis();
+        if (leftMillis <= 0) {
+            metrics.increment("llm.timeouts");
+            result.completeExceptionally(new TimeoutException("LLM call ran out of time"));
+            return;
+        }
+        long timeoutMillis = Math.min(currentTimeoutMillis(), leftMillis);
+        long start = System.nanoTime();
+
+        CompletionStage<String> call = breaker.callWithCircuitBreakerCS(
+                () -> delegate.complete(prompt, onDelta).orTimeout(timeoutMillis, TimeUnit.MILLISECONDS),
+                ResilientLLMBackend::isProviderFailure);
+
+        call.whenComplete((text, failure) -> {
+            if (failure == null) {
+                latencies.record((System.nanoTime() - start) / 1_000_000);
+                result.complete(text);
+                return;
+            }
+
+            Throwable cause = unwrap(failure);
+            if (cause instanceof CircuitBreakerOpenException) {
+                metrics.increment("llm.breaker.rejected");
+                result.completeExceptionally(new IOException("LLM provider unavailable (circuit breaker open)"));
+                return;
+            }
+            if (cause instanceof TimeoutException) {
+                metrics.increment("llm.timeouts");
+                cause = new TimeoutException("LLM call timed out after " + timeoutMillis + "ms");
+            }
+
+            long backoff = attempt < maxAttempts && !streamed.get() ? backoffMillis(attempt, cause) : -1;
+            if (backoff >= 0 && System.currentTimeMillis() + backoff + minTimeoutMillis > endMillis) {
+                backoff = -1; // the retry would not get a fair attempt before the deadline
+            }
+            if (backoff < 0) {
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            metrics.increment("llm.retries");
+            System.out.println("   ↳ LLM attempt " + attempt + " failed (" + cause.getMessage() + "), retrying in "
+                    + backoff + "ms");
+            Patterns.after(Duration.ofMillis(backoff), system, () -> {
+                attempt(prompt, onDelta, streamed, attempt + 1, endMillis, result);
+                return CompletableFuture.completedFuture(null);
+            });
+        });
+    }
+
+    // What the breaker counts: I/O errors, timeouts and retryable statuses, not the caller's own mistakes
+    static boolean isProviderFailure(Optional<String> result, Optional<Throwable> failure) {
+        if (!failure.isPresent()) {
+            return false;
+        }
+        Throwable cause = unwrap(failure.get());
+        if (cause instanceof LLMBackendException) {
+            return ((LLMBackendException) cause).isRetryable();
+        }
+        return cause instanceof IOException || cause instanceof TimeoutException;
+    }
+
+    // Delay before the next attempt, or -1 when the failure should not be retried
+    private long backoffMillis(int attempt, Throwable cause) {
+        if (cause instanceof LLMBackendException) {
+            LLMBackendException error = (LLMBackendException) cause;
+            if (!error.isRetryable()) {
+                return -1;
+            }
+            if (error.retryAfterMillis > maxBackoffMillis) {
+                return -1; // provider asks for a longer pause than we are willing to hold the user
+            }
+            if (error.retryAfterMillis >= 0) {
+                return error.retryAfterMillis;
+            }
+        } else if (!(cause instanceof IOException) && !(cause instanceof TimeoutException)) {
+            return -1;
+        }
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        // Equal jitter: half fixed, half random, so synchronized clients spread out
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    private long currentTimeoutMillis() {
+        if (latencies.size() < MIN_SAMPLES_FOR_ADAPTIVE_TIMEOUT) {
+            return maxTimeoutMillis;
+        }
+        long adaptive = (long) (latencies.percentile(timeoutPercentile) * timeoutMultiplier);
+        return Math.max(minTimeoutMillis, Math.min(maxTimeoutMillis, adaptive));
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        while (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        return failure;
+    }
+}
@@ -0,0 +1,139 @@
+package com.restaurant.llm;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import okio.BufferedSource;
+import okio.ByteString;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Incremental parser for OpenAI-style streaming responses.
+ *
+ * Scans the SSE byte stream line by line directly on the OkHttp source, copies each
+ * "data:" payload into a reused byte buffer, and walks it with Jackson's streaming
+ * JsonParser to pull out choices[0].delta.content. No line Strings or JsonNode trees
+ * are built; the only per-chunk allocations are the parser and the content String.
+ *
+ * Not thread-safe: use one instance per stream.
+ */
+public class SseDeltaParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final ByteString DATA_PREFIX = ByteString.encodeUtf8("data:");
+    private static final byte[] DONE = { '[', 'D', 'O', 'N', 'E', ']' };
+
+    private byte[] buffer = new byte[1024];
+
+    /**
+     * Reads events until "[DONE]" or end of stream, passing every delta to onDelta.
+     */
+    public void parse(BufferedSource source, Consumer<String> onDelta) throws IOException {
+        while (true) {
+            long newline = source.indexOf((byte) '\n');
+            long lineLength = newline == -1 ? source.getBuffer().size() : newline;
+
+            if (lineLength >= DATA_PREFIX.size() && source.rangeEquals(0, DATA_PREFIX)) {
+                source.skip(DATA_PREFIX.size());
+                int length = (int) (lineLength - DATA_PREFIX.size());
+                if (buffer.length < length) {
+                    buffer = new byte[Math.max(length, buffer.length * 2)];
+                }
+                readFully(source, length);
+
+                int start = 0;
+                int end = length;
+                while (start < end && buffer[start] == ' ') {
+                    start++;
+                }
+                while (end > start && (buffer[end - 1] == '\r' || buffer[end - 1] == ' ')) {
+                    end--;
+                }
+                if (isDone(start, end)) {
+                    return;
+                }
+                extractDelta(start, end - start, onDelta);
+            } else {
+                source.skip(lineLength);
+            }
+
+            if (newline == -1) {
+                return;
+            }
+            source.skip(1);
+        }
+    }
+
+    private void readFully(BufferedSource source, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            int read = source.read(buffer, offset, length - offset);
+            if (read == -1) {
+                throw new EOFException();
+            }
+            offset += read;
+        }
+    }
+
+    private boolean isDone(int start, int end) {
+        if (end - start != DONE.length) {
+            return false;
+        }
+        for (int i = 0; i < DONE.length; i++) {
+            if (buffer[start + i] != DONE[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void extractDelta(int offset, int length, Consumer<String> onDelta) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(buffer, offset, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("choices".equals(field) && value == JsonToken.START_ARRAY) {
+                    // Only the first choice matters
+                    if (parser.nextToken() == JsonToken.START_OBJECT) {
+                        String content = readChoiceContent(parser);
+                        if (content != null) {
+                            onDelta.accept(content);
+                        }
+                    }
+                    return;
+                }
+                parser.skipChildren();
+            }
+        } catch (JsonProcessingException e) {
+            // Malformed chunk: skip it and keep streaming, as before
+        }
+    }
+
+    // Positioned on a choice's START_OBJECT; returns delta.content or null
+    private static String readChoiceContent(JsonParser parser) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("delta".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String deltaField = parser.getCurrentName();
+                    JsonToken deltaValue = parser.nextToken();
+                    if ("content".equals(deltaField) && deltaValue == JsonToken.VALUE_STRING) {
+                        return parser.getText();
+                    }
+                    parser.skipChildren();
+                }
+                return null;
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,150 @@
+package com.restaurant.llm;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for an OpenAI-compatible chat completions endpoint, for load testing
+ * the real HTTP/SSE path without network access or API cost.
+ *
+ * Every request is answered with a streamed completion shaped by forkfind.llm.stub:
+ * time to first token, delay between tokens, a random error rate, and periodic
+ * windows where all requests get 429 with a Retry-After header.
+ *
+ * Run standalone with: mvn exec:java -Dexec.mainClass="com.restaurant.llm.StubLLMServer"
+ */
+public class StubLLMServer {
+
+    public static final String PATH = "/v1/chat/completions";
+
+    private static final String[] WORDS = ("Our kitchen recommends the Classic ForkFind Burger with truffle fries, "
+            + "the House Pasta with wild mushrooms, or the Grilled Salmon with quinoa and asparagus. "
+            + "For dessert the Tiramisu and the Chocolate Lava Cake are favourites, and the Vegan Sorbet Trio "
+            + "is a lighter choice. Let us know about any allergies so the team can prepare your meal safely.")
+            .split(" ");
+
+    private final int port;
+    private final long timeToFirstTokenMillis;
+    private final long interTokenDelayMillis;
+    private final int responseTokens;
+    private final double errorRate;
+    private final long burstIntervalMillis;
+    private final long burstDurationMillis;
+    private final long retryAfterSeconds;
+    private final long startedAt = System.currentTimeMillis();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param stubConfig the forkfind.llm.stub config section
+     */
+    public StubLLMServer(Config stubConfig) {
+        this.port = stubConfig.getInt("port");
+        this.timeToFirstTokenMillis = stubConfig.getDuration("time-to-first-token").toMillis();
+        this.interTokenDelayMillis = stubConfig.getDuration("inter-token-delay").toMillis();
+        this.responseTokens = stubConfig.getInt("response-tokens");
+        this.errorRate = stubConfig.getDouble("error-rate");
+        this.burstIntervalMillis = stubConfig.getDuration("rate-limit.burst-interval").toMillis();
+        this.burstDurationMillis = stubConfig.getDuration("rate-limit.burst-duration").toMillis();
+        this.retryAfterSeconds = Math.max(1, stubConfig.getDuration("rate-limit.retry-after").getSeconds());
+    }
+
+    public static void main(String[] args) throws IOException {
+        new StubLLMServer(ConfigFactory.load().getConfig("forkfind.llm.stub")).start();
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        // Each streamed response sleeps between tokens, so every connection gets its own thread
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext(PATH, this::handle);
+        server.start();
+        System.out.println("🧪 Stub LLM server listening on http://127.0.0.1:" + port + PATH
+                + " (TTFT " + timeToFirstTokenMillis + "ms, " + interTokenDelayMillis + "ms/token, "
+                + "error rate " + errorRate + ")");
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean inRateLimitBurst() {
+        if (burstIntervalMillis <= 0) {
+            return false;
+        }
+        long elapsed = (System.currentTimeMillis() - startedAt) % burstIntervalMillis;
+        return elapsed >= burstIntervalMillis - burstDurationMillis;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            exchange.getRequestBody().readAllBytes();
+
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            if (inRateLimitBurst()) {
+                exchange.getResponseHeaders().add("Retry-After", String.valueOf(retryAfterSeconds));
+                sendError(exchange, 429, "rate limited");
+                return;
+            }
+            if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                sendError(exchange, 500, "injected failure");
+                return;
+            }
+
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+
+            sleep(timeToFirstTokenMillis);
+            for (int i = 0; i < responseTokens; i++) {
+                if (i > 0) {
+                    sleep(interTokenDelayMillis);
+                }
+                String token = (i == 0 ? "" : " ") + WORDS[i % WORDS.length];
+                String chunk = "{\"id\":\"stub\",\"object\":\"chat.completion.chunk\",\"choices\":[{\"index\":0,"
+                        + "\"delta\":{\"content\":\"" + token + "\"},\"finish_reason\":null}]}";
+                out.write(("data: " + chunk + "\n\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+            out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = ("{\"error\":{\"message\":\"" + message + "\"}}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -4,6 +4,10 @@ import akka.actor.typed.ActorRef;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
 public class Messages {
 
     // Base message interface - no Serializable needed for Jackson
@@ -15,15 +19,27 @@ public class Messages {
         public final String query;
         public final String queryType; // "menu", "order", "reservation"
         public final ActorRef<QueryResponse> replyTo;
+        public final ActorRef<LLMStreamChunk> streamTo; // optional, receives LLM tokens as they arrive
+        public final String tenantId; // restaurant to answer for, validated at the edge; null for the default menu
+        public final QueryIntent intent; // parsed once where the request enters; actors read this, not the text
+        public final long deadlineMillis; // epoch millis after which the edge has given up, 0 for none
 
         @JsonCreator
         public QueryRequest(
                 @JsonProperty("query") String query,
                 @JsonProperty("queryType") String queryType,
-                @JsonProperty("replyTo") ActorRef<QueryResponse> replyTo) {
+                @JsonProperty("replyTo") ActorRef<QueryResponse> replyTo,
+                @JsonProperty("streamTo") ActorRef<LLMStreamChunk> streamTo,
+                @JsonProperty("tenantId") String tenantId,
+                @JsonProperty("intent") QueryIntent intent,
+                @JsonProperty("deadlineMillis") long deadlineMillis) {
             this.query = query;
             this.queryType = queryType;
             this.replyTo = replyTo;
+            this.streamTo = streamTo;
+            this.tenantId = tenantId;
+            this.intent = Objects.requireNonNull(intent, "intent");
+            this.deadlineMillis = deadlineMillis;
         }
     }
 
@@ -52,16 +68,54 @@ public class Messages {
     }
 
     // LLM Request
+    // Scheduling class of an LLM request; lower ordinal is served first
+    public enum LLMPriority {
+        HIGH, NORMAL, LOW;
+
+        public static LLMPriority forQueryType(String queryType) {
+            switch (queryType == null ? "" : queryType.toLowerCase()) {
+                case "order":
+                case "reservation":
+                    return HIGH;
+                case "chat":
+                    return LOW;
+                default:
+                    return NORMAL;
+            }
+        }
+    }
+
     public static class LLMRequest implements RestaurantMessage {
         public final String prompt;
         public final ActorRef<LLMResponse> replyTo;
+        public final ActorRef<LLMStreamChunk> streamTo; // optional
+        public final LLMPriority priority;
+        public final long deadlineMillis; // epoch millis after which the caller has given up, 0 for none
+
+        public LLMRequest(String prompt, ActorRef<LLMResponse> replyTo) {
+            this(prompt, replyTo, null);
+        }
+
+        public LLMRequest(String prompt, ActorRef<LLMResponse> replyTo, ActorRef<LLMStreamChunk> streamTo) {
+            this(prompt, replyTo, streamTo, LLMPriority.NORMAL, 0);
+        }
 
         @JsonCreator
         public LLMRequest(
                 @JsonProperty("prompt") String prompt,
-                @JsonProperty("replyTo") ActorRef<LLMResponse> replyTo) {
+                @JsonProperty("replyTo") ActorRef<LLMResponse> replyTo,
+                @JsonProperty("streamTo") ActorRef<LLMStreamChunk> streamTo,
+                @JsonProperty("priority") LLMPriority priority,
+                @JsonProperty("deadlineMillis") long deadlineMillis) {
             this.prompt = prompt;
             this.replyTo = replyTo;
+            this.streamTo = streamTo;
+            this.priority = priority != null ? priority : LLMPriority.NORMAL;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        public boolean isExpired(long nowMillis) {
+            return deadlineMillis > 0 && nowMillis >= deadlineMillis;
         }
     }
 
@@ -79,6 +133,23 @@ public class Messages {
         }
     }
 
+    // Streaming chunk: a token delta while generating, or the final full text when done
+    public static class LLMStreamChunk implements RestaurantMessage {
+        public final String text;
+        public final boolean done;
+        public final boolean success;
+
+        @JsonCreator
+        public LLMStreamChunk(
+                @JsonProperty("text") String text,
+                @JsonProperty("done") boolean done,
+                @JsonProperty("success") boolean success) {
+            this.text = text;
+            this.done = done;
+            this.success = success;
+        }
+    }
+
     // Logging message
     public static class LogMessage implements RestaurantMessage {
         public final String message;
@@ -97,16 +168,22 @@ public class Messages {
     public static class WrappedLLMResponse implements RestaurantMessage {
         public final LLMResponse response;
         public final ActorRef<QueryResponse> originalReplyTo;
+        public final String fallbackContext; // retrieval-only answer if the LLM fails, may be null
 
         @JsonCreator
         public WrappedLLMResponse(@JsonProperty("response") LLMResponse response) {
-            this.response = response;
-            this.originalReplyTo = null;
+            this(response, null, null);
         }
 
         public WrappedLLMResponse(LLMResponse response, ActorRef<QueryResponse> originalReplyTo) {
+            this(response, originalReplyTo, null);
+        }
+
+        public WrappedLLMResponse(LLMResponse response, ActorRef<QueryResponse> originalReplyTo,
+                String fallbackContext) {
             this.response = response;
             this.originalReplyTo = originalReplyTo;
+            this.fallbackContext = fallbackContext;
         }
     }
 
@@ -115,13 +192,20 @@ public class Messages {
     public static class ValidateItemRequest implements RestaurantMessage {
         public final String itemName;
         public final ActorRef<ValidateItemResponse> replyTo;
+        public final String tenantId; // restaurant whose menu to match; null for the default menu
+
+        public ValidateItemRequest(String itemName, ActorRef<ValidateItemResponse> replyTo) {
+            this(itemName, replyTo, null);
+        }
 
         @JsonCreator
         public ValidateItemRequest(
                 @JsonProperty("itemName") String itemName,
-                @JsonProperty("replyTo") ActorRef<ValidateItemResponse> replyTo) {
+                @JsonProperty("replyTo") ActorRef<ValidateItemResponse> replyTo,
+                @JsonProperty("tenantId") String tenantId) {
             this.itemName = itemName;
             this.replyTo = replyTo;
+            this.tenantId = tenantId;
         }
     }
 
@@ -129,26 +213,202 @@ public class Messages {
         public final boolean isValid;
         public final double price;
         public final String description;
+        public final String matchedName; // best menu match, also when not confident enough; may be null
+        public final double confidence;
+
+        public ValidateItemResponse(boolean isValid, double price, String description) {
+            this(isValid, price, description, null, isValid ? 1.0 : 0.0);
+        }
 
         @JsonCreator
         public ValidateItemResponse(
                 @JsonProperty("isValid") boolean isValid,
                 @JsonProperty("price") double price,
-                @JsonProperty("description") String description) {
+                @JsonProperty("description") String description,
+                @JsonProperty("matchedName") String matchedName,
+                @JsonProperty("confidence") double confidence) {
             this.isValid = isValid;
             this.price = price;
             this.description = description;
+            this.matchedName = matchedName;
+            this.confidence = confidence;
         }
     }
 
-    // Adapter for OrderActor to receive the result of the ASK
-    public static class WrappedMenuValidationResponse implements RestaurantMessage {
-        public final ValidateItemResponse response;
-        public final ActorRef<QueryResponse> originalReplyTo;
+    // One parsed order line: "2 burgers" -> (2, "burgers")
+    public static class OrderLine {
+        public final int quantity;
+        public final String itemName;
 
-        public WrappedMenuValidationResponse(ValidateItemResponse response, ActorRef<QueryResponse> originalReplyTo) {
-            this.response = response;
-            this.originalReplyTo = originalReplyTo;
+        @JsonCreator
+        public OrderLine(
+                @JsonProperty("quantity") int quantity,
+                @JsonProperty("itemName") String itemName) {
+            this.quantity = quantity;
+            this.itemName = itemName;
+        }
+    }
+
+    // Validates and prices a whole order in one message instead of one ask per line
+    public static class ValidateItemsRequest implements RestaurantMessage {
+        public final List<OrderLine> lines;
+        public final ActorRef<ValidateItemsResponse> replyTo;
+        public final String tenantId; // restaurant whose menu prices the order; null for the default menu
+
+        public ValidateItemsRequest(List<OrderLine> lines, ActorRef<ValidateItemsResponse> replyTo) {
+            this(lines, replyTo, null);
+        }
+
+        @JsonCreator
+        public ValidateItemsRequest(
+                @JsonProperty("lines") List<OrderLine> lines,
+                @JsonProperty("replyTo") ActorRef<ValidateItemsResponse> replyTo,
+                @JsonProperty("tenantId") String tenantId) {
+            this.lines = lines;
+            this.replyTo = replyTo;
+            this.tenantId = tenantId;
+        }
+    }
+
+    public static class ValidatedLine {
+        public final OrderLine line;
+        public final boolean isValid;
+        public final String matchedName; // best menu match, also when not confident enough; may be null
+        public final double confidence;
+        public final double unitPrice;
+        public final double lineTotal;
+        public final String description;
+        public final List<String> alternatives; // items the name fits about equally well; never valid then
+
+        @JsonCreator
+        public ValidatedLine(
+                @JsonProperty("line") OrderLine line,
+                @JsonProperty("isValid") boolean isValid,
+                @JsonProperty("matchedName") String matchedName,
+                @JsonProperty("confidence") double confidence,
+                @JsonProperty("unitPrice") double unitPrice,
+                @JsonProperty("lineTotal") double lineTotal,
+                @JsonProperty("description") String description,
+                @JsonProperty("alternatives") List<String> alternatives) {
+            this.line = line;
+            this.isValid = isValid;
+            this.matchedName = matchedName;
+            this.confidence = confidence;
+            this.unitPrice = unitPrice;
+            this.lineTotal = lineTotal;
+            this.description = description;
+            this.alternatives = alternatives == null ? Collections.emptyList() : alternatives;
+        }
+    }
+
+    public static class ValidateItemsResponse implements RestaurantMessage {
+        public final List<ValidatedLine> lines;
+        public final boolean allValid;
+        public final int itemCount; // sum of the valid lines' quantities
+        public final double total;  // sum of the valid lines' totals
+
+        @JsonCreator
+        public ValidateItemsResponse(
+                @JsonProperty("lines") List<ValidatedLine> lines,
+                @JsonProperty("allValid") boolean allValid,
+                @JsonProperty("itemCount") int itemCount,
+                @JsonProperty("total") double total) {
+            this.lines = lines;
+            this.allValid = allValid;
+            this.itemCount = itemCount;
+            this.total = total;
+        }
+    }
+
+    // Commands to the sharded order entity of one order id
+    public static class PlaceOrder implements RestaurantMessage {
+        public final String orderId;
+        public final ValidateItemsResponse priced; // every line valid
+        public final ActorRef<QueryResponse> replyTo;
+
+        @JsonCreator
+        public PlaceOrder(
+                @JsonProperty("orderId") String orderId,
+                @JsonProperty("priced") ValidateItemsResponse priced,
+                @JsonProperty("replyTo") ActorRef<QueryResponse> replyTo) {
+            this.orderId = orderId;
+            this.priced = priced;
+            this.replyTo = replyTo;
+        }
+    }
+
+    public static class GetOrderStatus implements RestaurantMessage {
+        public final String orderId;
+        public final ActorRef<QueryResponse> replyTo;
+
+        @JsonCreator
+        public GetOrderStatus(
+                @JsonProperty("orderId") String orderId,
+                @JsonProperty("replyTo") ActorRef<QueryResponse> replyTo) {
+            this.orderId = orderId;
+            this.replyTo = replyTo;
+        }
+    }
+
+    public static class CancelOrder implements RestaurantMessage {
+        public final String orderId;
+        public final ActorRef<QueryResponse> replyTo;
+
+        @JsonCreator
+        public CancelOrder(
+                @JsonProperty("orderId") String orderId,
+                @JsonProperty("replyTo") ActorRef<QueryResponse> replyTo) {
+            this.orderId = orderId;
+            this.replyTo = replyTo;
+        }
+    }
+
+    // Reservation commands, sent to the entity of the restaurant-date they concern
+    public static class BookTable implements RestaurantMessage {
+        public final String time; // HH:mm, on the slot grid
+        public final int guests;
+        public final ActorRef<QueryResponse> replyTo;
+
+        @JsonCreator
+        public BookTable(
+                @JsonProperty("time") String time,
+                @JsonProperty("guests") int guests,
+                @JsonProperty("replyTo") ActorRef<QueryResponse> replyTo) {
+            this.time = time;
+            this.guests = guests;
+            this.replyTo = replyTo;
+        }
+    }
+
+    public static class GetAvailability implements RestaurantMessage {
+        public final String from; // HH:mm
+        public final int guests;
+        public final int limit;
+        public final ActorRef<QueryResponse> replyTo;
+
+        @JsonCreator
+        public GetAvailability(
+                @JsonProperty("from") String from,
+                @JsonProperty("guests") int guests,
+                @JsonProperty("limit") int limit,
+                @JsonProperty("replyTo") ActorRef<QueryResponse> replyTo) {
+            this.from = from;
+            this.guests = guests;
+            this.limit = limit;
+            this.replyTo = replyTo;
+        }
+    }
+
+    public static class CancelReservation implements RestaurantMessage {
+        public final String reservationId;
+        public final ActorRef<QueryResponse> replyTo;
+
+        @JsonCreator
+        public CancelReservation(
+                @JsonProperty("reservationId") String reservationId,
+                @JsonProperty("replyTo") ActorRef<QueryResponse> replyTo) {
+            this.reservationId = reservationId;
+            this.replyTo = replyTo;
         }
     }
 
@@ -176,13 +436,19 @@ public class Messages {
     public static class RetrievalRequest implements RestaurantMessage {
         public final String keywords;
         public final ActorRef<RetrievalResponse> replyTo;
+        public final String tenantId; // null for the default menu
+        public final boolean wholeMenu; // from the query's intent: consider every chunk, not just the top k
 
         @JsonCreator
         public RetrievalRequest(
                 @JsonProperty("keywords") String keywords,
-                @JsonProperty("replyTo") ActorRef<RetrievalResponse> replyTo) {
+                @JsonProperty("replyTo") ActorRef<RetrievalResponse> replyTo,
+                @JsonProperty("tenantId") String tenantId,
+                @JsonProperty("wholeMenu") boolean wholeMenu) {
             this.keywords = keywords;
             this.replyTo = replyTo;
+            this.tenantId = tenantId;
+            this.wholeMenu = wholeMenu;
         }
     }
 
@@ -198,4 +464,69 @@ public class Messages {
             this.success = success;
         }
     }
-}
\ No newline at end of file
+
+    // --- SHARDED RETRIEVAL (scatter-gather) ---
+    public static class ShardSearchRequest implements RestaurantMessage {
+        public final String query;
+        public final int topK;
+        public final boolean allChunks; // "show me the menu": every chunk of the shard, scored
+        public final ActorRef<ShardSearchResponse> replyTo;
+        public final String tenantId; // null for the default menu; a tenant lives entirely on one shard
+
+        @JsonCreator
+        public ShardSearchRequest(
+                @JsonProperty("query") String query,
+                @JsonProperty("topK") int topK,
+                @JsonProperty("allChunks") boolean allChunks,
+                @JsonProperty("replyTo") ActorRef<ShardSearchResponse> replyTo,
+                @JsonProperty("tenantId") String tenantId) {
+            this.query = query;
+            this.topK = topK;
+            this.allChunks = allChunks;
+            this.replyTo = replyTo;
+            this.tenantId = tenantId;
+        }
+    }
+
+    // Raw scores, fused by the gateway against the best of every shard
+    public static class ShardHit {
+        public final int position; // order of the chunk in its source, for rendering
+        public final String section;
+        public final String text;
+        public final double keywordScore;  // BM25, 0 when the keyword side did not find it
+        public final double semanticScore; // cosine similarity, 0 when the semantic side did not find it
+
+        @JsonCreator
+        public ShardHit(
+                @JsonProperty("position") int position,
+                @JsonProperty("section") String section,
+                @JsonProperty("text") String text,
+                @JsonProperty("keywordScore") double keywordScore,
+                @JsonProperty("semanticScore") double semanticScore) {
+            this.position = position;
+            this.section = section;
+            this.text = text;
+            this.keywordScore = keywordScore;
+            this.semanticScore = semanticScore;
+        }
+    }
+
+    public static class ShardSearchResponse implements RestaurantMessage {
+        public final int shardId;
+        public final List<ShardHit> hits;
+        public final double keywordMax;  // best BM25 score of the shard's candidates, also those not returned
+        public final double semanticMax; // best similarity of the shard's candidates, also those not returned
+
+        @JsonCreator
+        public ShardSearchResponse(
+                @JsonProperty("shardId") int shardId,
+                @JsonProperty("hits") List<ShardHit> hits,
+                @JsonProperty("keywordMax") double keywordMax,
+                @JsonProperty("semanticMax") double semanticMax) {
+            this.shardId = shardId;
+            this.hits = hits;
+            this.keywordMax = keywordMax;
+            this.semanticMax = semanticMax;
+        }
+    }
+}
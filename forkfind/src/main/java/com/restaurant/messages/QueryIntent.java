@@ -0,0 +1,92 @@
+package com.restaurant.messages;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.restaurant.messages.Messages.OrderLine;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * What a query asks for, as parsed once by the query analyzer when the request enters
+ * the system. It travels with the QueryRequest, so actors read these fields instead of
+ * scanning the text again. Fields a query does not mention are null, empty or 0.
+ */
+public final class QueryIntent {
+
+    public enum Intent {
+        MENU, DIETARY,
+        PLACE_ORDER, ORDER_STATUS, CANCEL_ORDER, CHANGE_ORDER, ORDER_HELP,
+        BOOK_TABLE, CHECK_AVAILABILITY, CANCEL_RESERVATION, RESERVATION_INFO,
+        CHAT,
+        UNKNOWN
+    }
+
+    public enum Allergen {
+        GLUTEN, NUTS, SHELLFISH, SOY, DAIRY, EGG
+    }
+
+    public enum Diet {
+        VEGAN, VEGETARIAN
+    }
+
+    public final Intent intent;
+    public final List<OrderLine> items; // order lines, for PLACE_ORDER
+    public final String date;           // yyyy-MM-dd
+    public final String time;           // HH:mm
+    public final int partySize;
+    public final Set<Allergen> allergens;
+    public final Set<Diet> diets;
+    public final String orderId;
+    public final String reservationId;
+    public final boolean wholeMenu;     // "show me the menu": retrieval should consider every chunk
+
+    @JsonCreator
+    public QueryIntent(
+            @JsonProperty("intent") Intent intent,
+            @JsonProperty("items") List<OrderLine> items,
+            @JsonProperty("date") String date,
+            @JsonProperty("time") String time,
+            @JsonProperty("partySize") int partySize,
+            @JsonProperty("allergens") Set<Allergen> allergens,
+            @JsonProperty("diets") Set<Diet> diets,
+            @JsonProperty("orderId") String orderId,
+            @JsonProperty("reservationId") String reservationId,
+            @JsonProperty("wholeMenu") boolean wholeMenu) {
+        this.intent = intent;
+        this.items = items == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(items));
+        this.date = date;
+        this.time = time;
+        this.partySize = partySize;
+        this.allergens = allergens == null || allergens.isEmpty() ? Collections.emptySet()
+                : Collections.unmodifiableSet(EnumSet.copyOf(allergens));
+        this.diets = diets == null || diets.isEmpty() ? Collections.emptySet()
+                : Collections.unmodifiableSet(EnumSet.copyOf(diets));
+        this.orderId = orderId;
+        this.reservationId = reservationId;
+        this.wholeMenu = wholeMenu;
+    }
+
+    public LocalDate dateOr(LocalDate otherwise) {
+        return date == null ? otherwise : LocalDate.parse(date);
+    }
+
+    public LocalTime timeOr(LocalTime otherwise) {
+        return time == null ? otherwise : LocalTime.parse(time);
+    }
+
+    @Override
+    public String toString() {
+        return intent + (items.isEmpty() ? "" : " items=" + items.size()) + (date == null ? "" : " date=" + date)
+                + (time == null ? "" : " time=" + time) + (partySize == 0 ? "" : " party=" + partySize)
+                + (allergens.isEmpty() ? "" : " allergens=" + allergens) + (diets.isEmpty() ? "" : " diets=" + diets)
+                + (orderId == null ? "" : " order=" + orderId)
+                + (reservationId == null ? "" : " reservation=" + reservationId)
+                + (wholeMenu ? " whole-menu" : "");
+    }
+}
@@ -0,0 +1,48 @@
+package com.restaurant.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window of the most recent latency samples (milliseconds) with percentile queries.
+ * Percentiles sort a copy of the window, so keep windows small (hundreds to a few thousand samples).
+ */
+public class LatencyWindow {
+
+    private final long[] samples;
+    private long recorded = 0;
+
+    public LatencyWindow(int capacity) {
+        this.samples = new long[Math.max(1, capacity)];
+    }
+
+    public synchronized void record(long millis) {
+        samples[(int) (recorded % samples.length)] = millis;
+        recorded++;
+    }
+
+    public synchronized long count() {
+        return recorded;
+    }
+
+    // Samples currently in the window
+    public synchronized int size() {
+        return (int) Math.min(recorded, samples.length);
+    }
+
+    /**
+     * @param percentile between 0.0 and 1.0, e.g. 0.99
+     * @return the sample at that percentile, or -1 when the window is empty
+     */
+    public long percentile(double percentile) {
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(samples, size());
+        }
+        if (sorted.length == 0) {
+            return -1;
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
@@ -0,0 +1,90 @@
+package com.restaurant.metrics;
+
+import akka.actor.typed.ActorSystem;
+import akka.actor.typed.Extension;
+import akka.actor.typed.ExtensionId;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Per-ActorSystem registry of simple counters and gauges.
+ * Actors record into it directly; the HTTP server exposes a snapshot at /api/metrics.
+ */
+public class Metrics implements Extension {
+
+    public static final ExtensionId<Metrics> ID = new ExtensionId<Metrics>() {
+        @Override
+        public Metrics createExtension(ActorSystem<?> system) {
+            return new Metrics();
+        }
+    };
+
+    public static Metrics get(ActorSystem<?> system) {
+        return ID.apply(system);
+    }
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, Supplier<Number>> gauges = new ConcurrentHashMap<>();
+    private final Map<String, LatencyWindow> histograms = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> levels = new ConcurrentHashMap<>();
+
+    public void increment(String name) {
+        add(name, 1);
+    }
+
+    public void add(String name, long delta) {
+        counters.computeIfAbsent(name, n -> new LongAdder()).add(delta);
+    }
+
+    public long count(String name) {
+        LongAdder counter = counters.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    // Gauges are sampled when a snapshot is taken; re-registering a name replaces it
+    public void gauge(String name, Supplier<Number> supplier) {
+        gauges.put(name, supplier);
+    }
+
+    // Gauge over a value that actors adjust by deltas, e.g. their queue lengths; the gauge is
+    // registered once however many actors share the name, and reads only the atomic
+    public AtomicInteger level(String name) {
+        return levels.computeIfAbsent(name, n -> {
+            AtomicInteger level = new AtomicInteger();
+            gauge(n, level::get);
+            return level;
+        });
+    }
+
+    // Gauge of part / (part + rest), e.g. the share of requests that were coalesced
+    public void shareGauge(String name, String part, String rest) {
+        gauge(name, () -> {
+            long p = count(part);
+            long total = p + count(rest);
+            return total == 0 ? 0.0 : (double) p / total;
+        });
+    }
+
+    // Latency histogram over the most recent samples, reported as p50/p90/p99 in snapshots
+    public LatencyWindow histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new LatencyWindow(1024));
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new TreeMap<>();
+        counters.forEach((name, counter) -> result.put(name, counter.sum()));
+        gauges.forEach((name, gauge) -> result.put(name, gauge.get()));
+        histograms.forEach((name, histogram) -> {
+            result.put(name + ".count", histogram.count());
+            result.put(name + ".p50", histogram.percentile(0.50));
+            result.put(name + ".p90", histogram.percentile(0.90));
+            result.put(name + ".p99", histogram.percentile(0.99));
+        });
+        return result;
+    }
+}
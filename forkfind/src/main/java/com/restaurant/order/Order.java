@@ -0,0 +1,73 @@
+package com.restaurant.order;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * State of one order, rebuilt from its {@link OrderEvent}s. Mutated only through
+ * {@link #apply}, so replaying the order's events always reproduces it.
+ */
+public final class Order {
+
+    // Order ids are handed out by any node without coordination: a non-zero digit and six
+    // Crockford base-32 symbols (no I, L, O, U), e.g. "7KQ2M9X", about 9.7 billion ids
+    private static final String ID_SYMBOLS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+    private static final Pattern ID_IN_TEXT = Pattern.compile("(?:#|\\b)([1-9][0-9a-hjkmnp-tv-z]{6})\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    public final String id;
+    public final List<OrderEvent.Line> lines;
+    public final double total;
+    public final long placedAt;
+    private OrderStatus status = OrderStatus.PLACED;
+    private long updatedAt;
+
+    private Order(OrderEvent.Placed placed) {
+        this.id = placed.orderId;
+        this.lines = placed.lines;
+        this.total = placed.total;
+        this.placedAt = placed.timestamp;
+        this.updatedAt = placed.timestamp;
+    }
+
+    public static String newId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder id = new StringBuilder(7).append((char) ('1' + random.nextInt(9)));
+        for (int i = 0; i < 6; i++) {
+            id.append(ID_SYMBOLS.charAt(random.nextInt(ID_SYMBOLS.length())));
+        }
+        return id.toString();
+    }
+
+    /**
+     * First order id mentioned in the text ("#7KQ2M9X", "order 7kq2m9x"), upper-cased, or null.
+     */
+    public static String findId(String text) {
+        Matcher matcher = ID_IN_TEXT.matcher(text);
+        return matcher.find() ? matcher.group(1).toUpperCase() : null;
+    }
+
+    /**
+     * Applies an event to the order, or creates it from its Placed event (order == null).
+     */
+    public static Order apply(Order order, OrderEvent event) {
+        if (event instanceof OrderEvent.Placed) {
+            return new Order((OrderEvent.Placed) event);
+        }
+        if (order != null) {
+            order.status = ((OrderEvent.StatusChanged) event).status;
+            order.updatedAt = event.timestamp;
+        }
+        return order;
+    }
+
+    public OrderStatus status() {
+        return status;
+    }
+
+    public long updatedAt() {
+        return updatedAt;
+    }
+}
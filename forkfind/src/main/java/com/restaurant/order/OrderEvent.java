@@ -0,0 +1,119 @@
+package com.restaurant.order;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Journaled facts of the order lifecycle, with a compact binary codec. The encoding is
+ * tagged and append-only: new event types get new tags, existing ones never change. Every
+ * event starts with its order id, so the orders sharing a journal can pick out their own.
+ */
+public abstract class OrderEvent {
+
+    private static final byte PLACED = 1;
+    private static final byte STATUS_CHANGED = 2;
+
+    public final String orderId;
+    public final long timestamp;
+
+    private OrderEvent(String orderId, long timestamp) {
+        this.orderId = orderId;
+        this.timestamp = timestamp;
+    }
+
+    /** Priced line as confirmed to the guest. */
+    public static final class Line {
+        public final int quantity;
+        public final String itemName;
+        public final double unitPrice;
+
+        public Line(int quantity, String itemName, double unitPrice) {
+            this.quantity = quantity;
+            this.itemName = itemName;
+            this.unitPrice = unitPrice;
+        }
+    }
+
+    public static final class Placed extends OrderEvent {
+        public final List<Line> lines;
+        public final double total;
+
+        public Placed(String orderId, List<Line> lines, double total, long timestamp) {
+            super(orderId, timestamp);
+            this.lines = Collections.unmodifiableList(new ArrayList<>(lines));
+            this.total = total;
+        }
+    }
+
+    public static final class StatusChanged extends OrderEvent {
+        public final OrderStatus status;
+
+        public StatusChanged(String orderId, OrderStatus status, long timestamp) {
+            super(orderId, timestamp);
+            this.status = status;
+        }
+    }
+
+    public byte[] toBytes() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            if (this instanceof Placed) {
+                Placed placed = (Placed) this;
+                out.writeByte(PLACED);
+                out.writeUTF(orderId);
+                out.writeLong(timestamp);
+                out.writeDouble(placed.total);
+                out.writeShort(placed.lines.size());
+                for (Line line : placed.lines) {
+                    out.writeShort(line.quantity);
+                    out.writeUTF(line.itemName);
+                    out.writeDouble(line.unitPrice);
+                }
+            } else {
+                out.writeByte(STATUS_CHANGED);
+                out.writeUTF(orderId);
+                out.writeLong(timestamp);
+                out.writeByte(((StatusChanged) this).status.ordinal());
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory stream
+        }
+    }
+
+    /**
+     * Order id of an encoded event, without decoding the rest.
+     */
+    public static String orderId(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload, 1, payload.length - 1));
+        return in.readUTF();
+    }
+
+    public static OrderEvent fromBytes(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte tag = in.readByte();
+        String orderId = in.readUTF();
+        long timestamp = in.readLong();
+        switch (tag) {
+            case PLACED:
+                double total = in.readDouble();
+                int count = in.readUnsignedShort();
+                List<Line> lines = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    lines.add(new Line(in.readUnsignedShort(), in.readUTF(), in.readDouble()));
+                }
+                return new Placed(orderId, lines, total, timestamp);
+            case STATUS_CHANGED:
+                return new StatusChanged(orderId, OrderStatus.values()[in.readUnsignedByte()], timestamp);
+            default:
+                throw new IOException("Unknown order event tag " + tag);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.restaurant.order;
+
+import com.restaurant.messages.Messages.OrderLine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a free-text order into lines with quantities:
+ * "Order 2 burgers, a tiramisu and 3x coke please" -> (2, burgers), (1, tiramisu), (3, coke).
+ *
+ * Items are separated by commas, semicolons, "and", "&", "plus" or "+". Quantities may be
+ * digits, number words up to twelve, "a"/"an", "a couple of", "a dozen", or "x2"/"2x".
+ * Item names are left as typed; matching them to the menu is MenuItemMatcher's job. Given
+ * the menu's exact names, a separator inside one ("fish and chips") does not split it.
+ */
+public final class OrderLineParser {
+
+    private static final int MAX_QUANTITY = 99;
+
+    private static final Pattern LEADING_REQUEST = Pattern.compile(
+            "^(?:please\\s+)?(?:(?:can|could|may) (?:i|we) (?:get|have|order)|i(?:'d| would) like(?: to order)?"
+                    + "|we(?:'d| would) like(?: to order)?|i want(?: to order)?|we want(?: to order)?"
+                    + "|place an order for|give me|get me|order(?: me)?)\\b\\s*(?:me\\s+)?");
+    private static final Pattern TRAILING_POLITENESS = Pattern.compile(
+            "\\s*(?:,\\s*)?(?:please|thanks|thank you)\\s*[.!]*$");
+    private static final Pattern SEPARATORS = Pattern.compile("\\s*(?:[,;+&]|\\band\\b|\\bplus\\b)\\s*");
+    private static final Pattern LEADING_QUANTITY = Pattern.compile("^(\\d{1,3})\\s*x?\\s+(.+)$");
+    private static final Pattern TRAILING_QUANTITY = Pattern.compile("^(.+?)\\s+(?:x\\s*(\\d{1,3})|(\\d{1,3})\\s*x)$");
+
+    private static final Map<String, Integer> NUMBER_WORDS = new HashMap<>();
+
+    static {
+        String[] words = { "one", "two", "three", "four", "five", "six", "seven", "eight", "nine", "ten", "eleven",
+                "twelve" };
+        for (int i = 0; i < words.length; i++) {
+            NUMBER_WORDS.put(words[i], i + 1);
+        }
+        NUMBER_WORDS.put("a", 1);
+        NUMBER_WORDS.put("an", 1);
+        NUMBER_WORDS.put("another", 1);
+        NUMBER_WORDS.put("single", 1);
+        NUMBER_WORDS.put("couple", 2);
+        NUMBER_WORDS.put("pair", 2);
+        NUMBER_WORDS.put("dozen", 12);
+    }
+
+    private OrderLineParser() {
+    }
+
+    public static List<OrderLine> parse(String text) {
+        return parse(text, name -> false);
+    }
+
+    /**
+     * @param isItemName exact menu names; separators inside them ("fish and chips") do not split
+     */
+    public static List<OrderLine> parse(String text, Predicate<String> isItemName) {
+        String order = text.toLowerCase().trim().replaceAll("\\s+", " ");
+        order = LEADING_REQUEST.matcher(order).replaceFirst("");
+        order = TRAILING_POLITENESS.matcher(order).replaceFirst("");
+
+        // Segments with the separator that follows each
+        List<String> segments = new ArrayList<>();
+        List<String> separators = new ArrayList<>();
+        Matcher separator = SEPARATORS.matcher(order);
+        int start = 0;
+        while (separator.find()) {
+            segments.add(order.substring(start, separator.start()));
+            separators.add(order.substring(separator.start(), separator.end()));
+            start = separator.end();
+        }
+        segments.add(order.substring(start));
+
+        List<OrderLine> lines = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            if (i + 1 < segments.size()) {
+                String joined = segment + separators.get(i) + segments.get(i + 1);
+                OrderLine candidate = parseLine(clean(joined));
+                if (candidate != null && isItemName.test(candidate.itemName)) {
+                    lines.add(candidate);
+                    i++;
+                    continue;
+                }
+            }
+            OrderLine line = parseLine(clean(segment));
+            if (line != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private static String clean(String segment) {
+        return segment.replaceAll("^[\\s.!?]+|[\\s.!?]+$", "");
+    }
+
+    // "2 burgers", "a couple of cokes", "tiramisu x3", "the salmon"
+    private static OrderLine parseLine(String segment) {
+        if (segment.isEmpty()) {
+            return null;
+        }
+        int quantity = 1;
+        String item = segment;
+
+        Matcher leading = LEADING_QUANTITY.matcher(item);
+        Matcher trailing = TRAILING_QUANTITY.matcher(item);
+        if (leading.matches()) {
+            quantity = Integer.parseInt(leading.group(1));
+            item = leading.group(2);
+        } else if (trailing.matches()) {
+            item = trailing.group(1);
+            quantity = Integer.parseInt(trailing.group(2) != null ? trailing.group(2) : trailing.group(3));
+        } else {
+            // Number words, possibly chained: "a couple of", "a dozen", "two"
+            String[] words = item.split(" ");
+            int consumed = 0;
+            int multiplier = 1;
+            while (consumed < words.length - 1) {
+                Integer value = NUMBER_WORDS.get(words[consumed]);
+                if (value == null) {
+                    break;
+                }
+                multiplier = words[consumed].equals("a") || words[consumed].equals("an") ? multiplier : value;
+                consumed++;
+                if (consumed < words.length - 1 && words[consumed].equals("of")) {
+                    consumed++;
+                }
+            }
+            if (consumed > 0) {
+                quantity = multiplier;
+                item = String.join(" ", Arrays.copyOfRange(words, consumed, words.length));
+            }
+        }
+
+        item = item.replaceFirst("^(?:the|some|of)\\s+", "").trim();
+        if (item.isEmpty() || quantity < 1) {
+            return null;
+        }
+        return new OrderLine(Math.min(quantity, MAX_QUANTITY), item);
+    }
+}
@@ -0,0 +1,114 @@
+package com.restaurant.order;
+
+import com.restaurant.catalog.MenuCatalog;
+import com.restaurant.catalog.MenuItemMatcher;
+import com.restaurant.messages.Messages.OrderLine;
+import com.restaurant.messages.Messages.ValidateItemsResponse;
+import com.restaurant.messages.Messages.ValidatedLine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Validates and prices all lines of an order against one catalog snapshot, so an order
+ * is never priced from two menu versions. Used directly by OrderActor and behind
+ * MenuActor's ValidateItemsRequest for callers on other nodes.
+ *
+ * A name that fits several items about equally well ("burgers") is not guessed: the line
+ * is invalid and lists the candidates. Adjacent lines that only name one item together
+ * ("a steak and fries") are priced as that one item.
+ */
+public final class OrderPricer {
+
+    private static final int MAX_ALTERNATIVES = 4;
+
+    private OrderPricer() {
+    }
+
+    /**
+     * @param ambiguityMargin how close to the best match another one counts as equally good
+     */
+    public static ValidateItemsResponse price(MenuCatalog catalog, List<OrderLine> lines, double minConfidence,
+            double ambiguityMargin) {
+        MenuItemMatcher matcher = catalog.matcher;
+        List<OrderLine> joined = joinSplitNames(matcher, lines);
+        List<ValidatedLine> validated = new ArrayList<>(joined.size());
+        boolean allValid = !joined.isEmpty();
+        int itemCount = 0;
+        double total = 0;
+        for (OrderLine line : joined) {
+            List<MenuItemMatcher.Match> matches = matcher.match(line.itemName, MAX_ALTERNATIVES);
+            MenuItemMatcher.Match match = matches.isEmpty() ? null : matches.get(0);
+            List<String> alternatives = alternatives(matches, minConfidence, ambiguityMargin);
+            if (match != null && match.confidence >= minConfidence && alternatives.isEmpty()) {
+                double unitPrice = catalog.table.price(match.id);
+                double lineTotal = unitPrice * line.quantity;
+                validated.add(new ValidatedLine(line, true, match.name(), match.confidence, unitPrice,
+                        lineTotal, match.summary(), null));
+                itemCount += line.quantity;
+                total += lineTotal;
+            } else {
+                allValid = false;
+                validated.add(new ValidatedLine(line, false, match != null ? match.name() : null,
+                        match != null ? match.confidence : 0.0, 0.0, 0.0, "", alternatives));
+            }
+        }
+        return new ValidateItemsResponse(validated, allValid, itemCount, total);
+    }
+
+    /**
+     * Every line invalid and unmatched: the order names a restaurant that has no menu.
+     */
+    public static ValidateItemsResponse unknownMenu(List<OrderLine> lines) {
+        List<ValidatedLine> validated = new ArrayList<>(lines.size());
+        for (OrderLine line : lines) {
+            validated.add(new ValidatedLine(line, false, null, 0.0, 0.0, 0.0, "", null));
+        }
+        return new ValidateItemsResponse(validated, false, 0, 0.0);
+    }
+
+    // Names of the confident matches within the margin of the best, when there is more than one
+    private static List<String> alternatives(List<MenuItemMatcher.Match> matches, double minConfidence,
+            double ambiguityMargin) {
+        List<String> close = new ArrayList<>();
+        for (MenuItemMatcher.Match match : matches) {
+            if (match.confidence < minConfidence || match.confidence < matches.get(0).confidence - ambiguityMargin) {
+                break;
+            }
+            close.add(match.name());
+        }
+        return close.size() > 1 ? close : Collections.emptyList();
+    }
+
+    // "a steak and fries": two lines of the same quantity resolving to the same item become
+    // one when their words together fit it better than either does alone
+    private static List<OrderLine> joinSplitNames(MenuItemMatcher matcher, List<OrderLine> lines) {
+        List<OrderLine> joined = new ArrayList<>(lines.size());
+        MenuItemMatcher.Match previousMatch = null;
+        for (OrderLine line : lines) {
+            MenuItemMatcher.Match match = matcher.best(line.itemName);
+            if (previousMatch != null && match != null && sameEntry(previousMatch, match)) {
+                OrderLine previous = joined.get(joined.size() - 1);
+                if (previous.quantity == line.quantity) {
+                    OrderLine both = new OrderLine(line.quantity, previous.itemName + " " + line.itemName);
+                    MenuItemMatcher.Match together = matcher.best(both.itemName);
+                    if (together != null && sameEntry(together, match)
+                            && together.confidence > Math.max(previousMatch.confidence, match.confidence)) {
+                        joined.set(joined.size() - 1, both);
+                        previousMatch = together;
+                        continue;
+                    }
+                }
+            }
+            joined.add(line);
+            previousMatch = match;
+        }
+        return joined;
+    }
+
+    private static boolean sameEntry(MenuItemMatcher.Match a, MenuItemMatcher.Match b) {
+        return a.id == b.id && Objects.equals(a.variant, b.variant);
+    }
+}
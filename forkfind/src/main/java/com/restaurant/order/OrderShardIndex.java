@@ -0,0 +1,174 @@
+package com.restaurant.order;
+
+import com.restaurant.journal.EventJournal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Latest events of every order in one shard journal, so an order entity recovers with a
+ * lookup instead of replaying the journal the whole shard shares.
+ *
+ * Loaded once per journal incarnation from the shard's latest snapshot and the events
+ * after it, then kept current by the shard's orders, which append through it. An order
+ * needs only two events to rebuild: its Placed event and its latest status change. Every
+ * snapshotEvery appends the whole index is snapshotted, leaving out orders that became
+ * final more than retention ago, so loading replays at most that many events. Thread-safe:
+ * the orders of a shard run concurrently.
+ *
+ * Events are recorded when queued, so the index can run ahead of the disk. Once a write has
+ * failed it may hold events that never got there: it is {@link #failed()} for good, and
+ * {@link OrderShards} loads a new one from the journal's files instead of handing it out.
+ */
+public final class OrderShardIndex {
+
+    private static final byte SNAPSHOT_FORMAT = 1;
+
+    private final EventJournal journal;
+    private final int snapshotEvery;
+    private final long retentionMillis;
+
+    // Order id -> { Placed, latest StatusChanged or null }; guarded by this
+    private final Map<String, OrderEvent[]> orders = new HashMap<>();
+    private int eventsSinceSnapshot = 0;
+    private long replayed = 0;
+
+    private OrderShardIndex(EventJournal journal, int snapshotEvery, Duration retention) {
+        this.journal = journal;
+        this.snapshotEvery = Math.max(1, snapshotEvery);
+        this.retentionMillis = retention.toMillis();
+    }
+
+    /**
+     * Reads the journal's latest snapshot and replays the events after it (blocking file I/O).
+     */
+    public static OrderShardIndex load(EventJournal journal, int snapshotEvery, Duration retention)
+            throws IOException {
+        OrderShardIndex index = new OrderShardIndex(journal, snapshotEvery, retention);
+        EventJournal.Snapshot snapshot = journal.latestSnapshot();
+        if (snapshot != null) {
+            index.restore(snapshot.state);
+        }
+        index.replayed = journal.replay(snapshot == null ? 0 : snapshot.seqNr,
+                (seqNr, payload) -> index.apply(OrderEvent.fromBytes(payload)));
+        index.eventsSinceSnapshot = (int) Math.min(index.replayed, index.snapshotEvery);
+        return index;
+    }
+
+    /**
+     * The order's events to replay, oldest first; empty for an order this shard does not know.
+     */
+    public synchronized List<OrderEvent> events(String orderId) {
+        OrderEvent[] events = orders.get(orderId);
+        if (events == null) {
+            return Collections.emptyList();
+        }
+        return events[1] == null ? Collections.singletonList(events[0]) : Arrays.asList(events[0], events[1]);
+    }
+
+    /**
+     * Records the event and queues it on the shard's journal.
+     *
+     * @return completes with the event's sequence number once it is durable
+     */
+    public synchronized CompletableFuture<Long> append(OrderEvent event) {
+        apply(event);
+        CompletableFuture<Long> appended = journal.append(event.toBytes());
+        if (++eventsSinceSnapshot >= snapshotEvery) {
+            // Queued behind the append, so it covers exactly the events up to lastSeqNr
+            journal.saveSnapshot(journal.lastSeqNr(), snapshot(System.currentTimeMillis()));
+            eventsSinceSnapshot = 0;
+        }
+        return appended;
+    }
+
+    /**
+     * Whether a write to the shard's journal failed, so this index must not be recovered from.
+     */
+    public boolean failed() {
+        return journal.failed();
+    }
+
+    EventJournal journal() {
+        return journal;
+    }
+
+    public synchronized int size() {
+        return orders.size();
+    }
+
+    // Events replayed after the snapshot when loading
+    public long replayed() {
+        return replayed;
+    }
+
+    private void apply(OrderEvent event) {
+        if (event instanceof OrderEvent.Placed) {
+            orders.put(event.orderId, new OrderEvent[] { event, null });
+        } else {
+            OrderEvent[] events = orders.get(event.orderId);
+            if (events != null) {
+                events[1] = event;
+            }
+        }
+    }
+
+    // [format][order count] then per order [event count] and per event [length][OrderEvent bytes]
+    private byte[] snapshot(long now) {
+        Iterator<OrderEvent[]> expired = orders.values().iterator();
+        while (expired.hasNext()) {
+            OrderEvent[] events = expired.next();
+            if (events[1] != null && ((OrderEvent.StatusChanged) events[1]).status.isFinal()
+                    && events[1].timestamp < now - retentionMillis) {
+                expired.remove();
+            }
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(orders.size() * 128 + 8);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(SNAPSHOT_FORMAT);
+            out.writeInt(orders.size());
+            for (OrderEvent[] events : orders.values()) {
+                out.writeByte(events[1] == null ? 1 : 2);
+                for (OrderEvent event : events) {
+                    if (event != null) {
+                        byte[] encoded = event.toBytes();
+                        out.writeInt(encoded.length);
+                        out.write(encoded);
+                    }
+                }
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory stream
+        }
+    }
+
+    private void restore(byte[] state) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(state));
+        byte format = in.readByte();
+        if (format != SNAPSHOT_FORMAT) {
+            throw new IOException("Unknown order shard snapshot format " + format);
+        }
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            int events = in.readUnsignedByte();
+            for (int e = 0; e < events; e++) {
+                byte[] encoded = new byte[in.readInt()];
+                in.readFully(encoded);
+                apply(OrderEvent.fromBytes(encoded));
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.restaurant.order;
+
+import akka.actor.typed.ActorSystem;
+import akka.actor.typed.Extension;
+import akka.actor.typed.ExtensionId;
+import com.restaurant.journal.EventJournal;
+import com.restaurant.journal.Journals;
+import com.restaurant.metrics.Metrics;
+import com.typesafe.config.Config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-ActorSystem access to the order shards' journals and their {@link OrderShardIndex}es.
+ *
+ * When the first order of a shard starts on this node, the shard's journal is acquired from
+ * {@link Journals} and its index loaded. Both are shared by the shard's orders and given up
+ * when the last of them stops, so the shard's next owner reads everything appended here.
+ * After a failed write the shard's index is dropped and the next acquire loads the shard
+ * from disk again, so no order recovers events that were never saved.
+ * {@link #acquire} does blocking file I/O: call it off the actors' dispatcher.
+ */
+public class OrderShards implements Extension {
+
+    public static final ExtensionId<OrderShards> ID = new ExtensionId<OrderShards>() {
+        @Override
+        public OrderShards createExtension(ActorSystem<?> system) {
+            return new OrderShards(system);
+        }
+    };
+
+    public static OrderShards get(ActorSystem<?> system) {
+        return ID.apply(system);
+    }
+
+    // One shard's users and index on this node; guarded by itself
+    private static final class Shard {
+        int users = 0;
+        OrderShardIndex index;
+    }
+
+    private final Journals journals;
+    private final Metrics metrics;
+    private final int snapshotEvery;
+    private final Duration retention;
+    private final ConcurrentHashMap<String, Shard> shards = new ConcurrentHashMap<>();
+
+    private OrderShards(ActorSystem<?> system) {
+        Config config = system.settings().config().getConfig("forkfind.orders");
+        this.journals = Journals.get(system);
+        this.metrics = Metrics.get(system);
+        this.snapshotEvery = config.getInt("snapshot-every");
+        this.retention = config.getDuration("retention");
+    }
+
+    public boolean enabled() {
+        return journals.enabled();
+    }
+
+    /**
+     * The shard's index, loading it with its journal if no order of the shard runs here yet.
+     * Every acquire must be paired with a {@link #release}.
+     */
+    public OrderShardIndex acquire(String name) throws IOException {
+        Shard shard = shards.computeIfAbsent(name, n -> new Shard());
+        synchronized (shard) {
+            if (shard.index != null && shard.index.failed()) {
+                // Its remaining users fail on their next append and come back here; their releases are ignored
+                System.err.println("⚠️ OrderShards: Reloading " + name + " after a failed write");
+                shard.index = null;
+                shard.users = 0;
+            }
+            if (shard.users == 0) {
+                long start = System.nanoTime();
+                EventJournal journal = journals.acquire(name);
+                try {
+                    shard.index = OrderShardIndex.load(journal, snapshotEvery, retention);
+                } catch (IOException | RuntimeException e) {
+                    journals.release(name, journal);
+                    throw e;
+                }
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                metrics.histogram("orders.shard-load-ms").record(millis);
+                System.out.println("✅ OrderShards: Loaded " + name + " (" + shard.index.size() + " order(s), "
+                        + shard.index.replayed() + " event(s) after the snapshot) in " + millis + " ms");
+            }
+            shard.users++;
+            return shard.index;
+        }
+    }
+
+    /**
+     * Gives up one use of the shard's index, as returned by {@link #acquire}; the last user
+     * closes its journal.
+     *
+     * @return completes when the journal is closed (at once if other orders still use it, or
+     *         if the index failed and was replaced)
+     */
+    public CompletableFuture<Long> release(String name, OrderShardIndex index) {
+        Shard shard = shards.get(name);
+        if (shard == null) {
+            return CompletableFuture.completedFuture(0L);
+        }
+        synchronized (shard) {
+            if (shard.index != index || shard.users == 0 || --shard.users > 0) {
+                return CompletableFuture.completedFuture(0L);
+            }
+            shard.index = null;
+            return journals.release(name, index.journal());
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.restaurant.order;
+
+/**
+ * Order lifecycle. Only a PLACED order can still be cancelled; READY and CANCELLED are final.
+ * New states are appended: the ordinal is journaled.
+ */
+public enum OrderStatus {
+    PLACED("Placed"),
+    COOKING("Cooking"),
+    READY("Ready"),
+    CANCELLED("Cancelled");
+
+    public final String label;
+
+    OrderStatus(String label) {
+        this.label = label;
+    }
+
+    public boolean isFinal() {
+        return this == READY || this == CANCELLED;
+    }
+}
@@ -0,0 +1,145 @@
+package com.restaurant.query;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aho-Corasick automaton over a fixed keyword set: one pass over the text finds every
+ * keyword, however many there are, without lower-casing or copying the text.
+ *
+ * Letters are matched case-insensitively; every other character is a word boundary, and
+ * runs of them count as one. Keywords are words separated by single spaces ("party of").
+ * They match whole words only, unless they end in '*', which makes the last word a prefix
+ * ("allerg*" matches allergy, allergic, allergens). Boundaries are part of the encoded
+ * patterns, so the automaton itself stays textbook. Each keyword sets one bit (0-63), and
+ * {@link #scan} returns the bits of all keywords found.
+ */
+public final class KeywordMatcher {
+
+    private static final int BOUNDARY = 0;
+    private static final int ALPHABET = 27; // boundary + a-z
+
+    private final int[] next;    // complete transition table: state * ALPHABET + symbol
+    private final long[] output; // bits of the keywords ending in each state, via failure links too
+
+    public KeywordMatcher(Map<String, Integer> keywordBits) {
+        // Trie of the encoded patterns
+        List<int[]> trie = new ArrayList<>();
+        List<Long> outputs = new ArrayList<>();
+        trie.add(newNode());
+        outputs.add(0L);
+        for (Map.Entry<String, Integer> keyword : keywordBits.entrySet()) {
+            int bit = keyword.getValue();
+            if (bit < 0 || bit > 63) {
+                throw new IllegalArgumentException("Keyword bit out of range: " + keyword);
+            }
+            int state = 0;
+            for (int symbol : encode(keyword.getKey())) {
+                if (trie.get(state)[symbol] < 0) {
+                    trie.get(state)[symbol] = trie.size();
+                    trie.add(newNode());
+                    outputs.add(0L);
+                }
+                state = trie.get(state)[symbol];
+            }
+            outputs.set(state, outputs.get(state) | 1L << bit);
+        }
+
+        // Breadth-first: failure links, inherited outputs and the missing transitions
+        int states = trie.size();
+        this.next = new int[states * ALPHABET];
+        this.output = new long[states];
+        int[] fail = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 0; symbol < ALPHABET; symbol++) {
+            int child = trie.get(0)[symbol];
+            next[symbol] = child < 0 ? 0 : child;
+            if (child > 0) {
+                queue.add(child);
+            }
+        }
+        output[0] = outputs.get(0);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            output[state] = outputs.get(state) | output[fail[state]];
+            for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                int child = trie.get(state)[symbol];
+                if (child < 0) {
+                    next[state * ALPHABET + symbol] = next[fail[state] * ALPHABET + symbol];
+                } else {
+                    next[state * ALPHABET + symbol] = child;
+                    fail[child] = next[fail[state] * ALPHABET + symbol];
+                    queue.add(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Bits of every keyword occurring in the text.
+     */
+    public long scan(CharSequence text) {
+        // The text is read as if framed by boundaries, so keywords at either end still match
+        int state = next[BOUNDARY];
+        long found = output[state];
+        boolean atBoundary = true;
+        for (int i = 0; i < text.length(); i++) {
+            int symbol = symbol(text.charAt(i));
+            if (symbol == BOUNDARY) {
+                if (atBoundary) {
+                    continue;
+                }
+                atBoundary = true;
+            } else {
+                atBoundary = false;
+            }
+            state = next[state * ALPHABET + symbol];
+            found |= output[state];
+        }
+        if (!atBoundary) {
+            found |= output[next[state * ALPHABET + BOUNDARY]];
+        }
+        return found;
+    }
+
+    private static int symbol(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 1;
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 1;
+        }
+        return BOUNDARY;
+    }
+
+    // " word word " for whole words, " word wor" for a prefix stem
+    private static int[] encode(String keyword) {
+        boolean stem = keyword.endsWith("*");
+        String words = (stem ? keyword.substring(0, keyword.length() - 1) : keyword).trim().replaceAll(" +", " ");
+        if (words.isEmpty()) {
+            throw new IllegalArgumentException("Empty keyword");
+        }
+        int[] symbols = new int[words.length() + (stem ? 1 : 2)];
+        symbols[0] = BOUNDARY;
+        for (int i = 0; i < words.length(); i++) {
+            char c = words.charAt(i);
+            if (c != ' ' && symbol(c) == BOUNDARY) {
+                throw new IllegalArgumentException("Keywords are letters and spaces: " + keyword);
+            }
+            symbols[i + 1] = c == ' ' ? BOUNDARY : symbol(c);
+        }
+        if (!stem) {
+            symbols[symbols.length - 1] = BOUNDARY;
+        }
+        return symbols;
+    }
+
+    private static int[] newNode() {
+        int[] children = new int[ALPHABET];
+        Arrays.fill(children, -1);
+        return children;
+    }
+}
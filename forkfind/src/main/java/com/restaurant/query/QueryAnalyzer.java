@@ -0,0 +1,291 @@
+package com.restaurant.query;
+
+import com.restaurant.messages.Messages.OrderLine;
+import com.restaurant.messages.QueryIntent;
+import com.restaurant.order.Order;
+import com.restaurant.order.OrderLineParser;
+import com.restaurant.messages.QueryIntent.Allergen;
+import com.restaurant.messages.QueryIntent.Diet;
+import com.restaurant.messages.QueryIntent.Intent;
+import com.restaurant.reservation.ReservationBook;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns a query into a {@link QueryIntent}, once, where the request enters the system.
+ *
+ * All keywords of every actor are found in a single pass by one {@link KeywordMatcher};
+ * the intent follows from the query type (the tab the guest typed into) and the keywords
+ * present. Only then are the extractors the intent needs run: precompiled patterns for
+ * times, dates, party sizes and ids, and the order line parser for items.
+ */
+public final class QueryAnalyzer {
+
+    // One bit each in the keyword scan
+    private enum Cue {
+        STATUS, CANCEL, CHANGE, ORDER, AVAILABILITY, BOOK, TODAY, TOMORROW,
+        MONDAY, TUESDAY, WEDNESDAY, THURSDAY, FRIDAY, SATURDAY, SUNDAY, // in DayOfWeek order
+        GLUTEN, NUTS, SHELLFISH, SOY, DAIRY, EGG, VEGAN, VEGETARIAN, DIETARY,
+        WHOLE_MENU;
+
+        long bit() {
+            return 1L << ordinal();
+        }
+    }
+
+    private static final KeywordMatcher KEYWORDS;
+    private static final Allergen[] ALLERGENS = Allergen.values();
+    private static final Diet[] DIETS = Diet.values();
+    private static final Cue[] ALLERGEN_CUES = new Cue[ALLERGENS.length];
+    private static final Cue[] DIET_CUES = new Cue[DIETS.length];
+
+    static {
+        Map<String, Integer> keywords = new LinkedHashMap<>();
+        add(keywords, Cue.STATUS, "status", "track", "tracking", "where");
+        add(keywords, Cue.CANCEL, "cancel*");
+        add(keywords, Cue.CHANGE, "change", "modify");
+        add(keywords, Cue.ORDER, "order*");
+        add(keywords, Cue.AVAILABILITY, "time", "times", "slot*", "availab*");
+        add(keywords, Cue.BOOK, "book*", "reserv*");
+        add(keywords, Cue.TODAY, "today", "tonight");
+        add(keywords, Cue.TOMORROW, "tomorrow");
+        for (DayOfWeek day : DayOfWeek.values()) {
+            add(keywords, Cue.values()[Cue.MONDAY.ordinal() + day.ordinal()], day.name().toLowerCase());
+        }
+        add(keywords, Cue.GLUTEN, "gluten*", "celiac", "coeliac", "wheat");
+        add(keywords, Cue.NUTS, "nut", "nuts", "peanut*", "walnut*", "almond*", "cashew*",
+                "hazelnut*", "pecan*", "pistachio*");
+        add(keywords, Cue.SHELLFISH, "seafood", "shellfish", "shrimp*", "prawn*", "crab*", "lobster*");
+        add(keywords, Cue.SOY, "soy", "soya");
+        add(keywords, Cue.DAIRY, "dairy", "lactose");
+        add(keywords, Cue.EGG, "egg", "eggs");
+        add(keywords, Cue.VEGAN, "vegan*", "plant based");
+        add(keywords, Cue.VEGETARIAN, "vegetarian*");
+        add(keywords, Cue.DIETARY, "allerg*", "dietary", "intoleran*");
+        add(keywords, Cue.WHOLE_MENU, "menu", "menus", "list", "options", "everything");
+        KEYWORDS = new KeywordMatcher(keywords);
+        for (Allergen allergen : ALLERGENS) {
+            ALLERGEN_CUES[allergen.ordinal()] = Cue.valueOf(allergen.name());
+        }
+        for (Diet diet : DIETS) {
+            DIET_CUES[diet.ordinal()] = Cue.valueOf(diet.name());
+        }
+    }
+
+    // Menu questions with any of these go to the dietary specialist; the other allergens
+    // ("what seafood do you have?") are ordinary menu questions unless allergies are mentioned
+    private static final long DIETARY_CUES = Cue.GLUTEN.bit() | Cue.DAIRY.bit() | Cue.VEGAN.bit()
+            | Cue.VEGETARIAN.bit() | Cue.DIETARY.bit();
+
+    private static final Pattern TIME_12H = Pattern.compile("\\b(\\d{1,2})(?::(\\d{2}))?\\s*([ap])\\.?m\\b",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern TIME_24H = Pattern.compile("\\b(\\d{1,2}):(\\d{2})\\b");
+    private static final Pattern TIME_AT = Pattern.compile(
+            "\\bat\\s+(\\d{1,2})\\b(?!\\s*(?:people|guests|persons|ppl))", Pattern.CASE_INSENSITIVE);
+    private static final Pattern GUESTS = Pattern.compile(
+            "(\\d+)\\s*(?:people|guests|persons|ppl|pax)|(?:table|party|reservation|booking) for\\s*(\\d+)"
+                    + "|party of\\s*(\\d+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ISO_DATE = Pattern.compile("\\b(\\d{4}-\\d{2}-\\d{2})\\b");
+
+    private QueryAnalyzer() {
+    }
+
+    private static void add(Map<String, Integer> keywords, Cue cue, String... words) {
+        for (String word : words) {
+            keywords.put(word, cue.ordinal());
+        }
+    }
+
+    /**
+     * Analysis without menu names (separators inside item names split order lines) for today.
+     */
+    public static QueryIntent analyze(String query, String queryType) {
+        return analyze(query, queryType, name -> false, LocalDate.now());
+    }
+
+    /**
+     * @param isItemName exact menu names, kept whole when splitting an order into lines
+     * @param today      what relative dates ("tomorrow", "friday") count from
+     */
+    public static QueryIntent analyze(String query, String queryType, Predicate<String> isItemName,
+            LocalDate today) {
+        String text = query == null ? "" : query;
+        long cues = KEYWORDS.scan(text);
+        Intent intent = intent(text, queryType, cues);
+
+        List<OrderLine> items = Collections.emptyList();
+        String date = null;
+        String time = null;
+        int partySize = 0;
+        String orderId = null;
+        String reservationId = null;
+        switch (intent) {
+            case PLACE_ORDER:
+                items = OrderLineParser.parse(text, isItemName);
+                break;
+            case ORDER_STATUS:
+            case CANCEL_ORDER:
+                orderId = Order.findId(text);
+                break;
+            case CANCEL_RESERVATION:
+                reservationId = ReservationBook.findId(text);
+                break;
+            case BOOK_TABLE:
+            case CHECK_AVAILABILITY:
+            case RESERVATION_INFO:
+                boolean digits = hasDigit(text); // every pattern below needs one
+                LocalDate day = date(text, digits, cues, today);
+                date = day == null ? null : day.toString();
+                LocalTime at = digits ? time(text) : null;
+                time = at == null ? null : at.toString();
+                partySize = digits ? partySize(text) : 0;
+                break;
+            default:
+                break;
+        }
+        return new QueryIntent(intent, items, date, time, partySize, allergens(cues), diets(cues), orderId,
+                reservationId, has(cues, Cue.WHOLE_MENU));
+    }
+
+    private static Intent intent(String text, String queryType, long cues) {
+        // "chat ..." / "ask ..." go to the assistant from any tab
+        if (text.regionMatches(true, 0, "chat", 0, 4) || text.regionMatches(true, 0, "ask", 0, 3)) {
+            return Intent.CHAT;
+        }
+        switch (queryType == null ? "" : queryType.toLowerCase()) {
+            case "menu":
+                return (cues & DIETARY_CUES) != 0 ? Intent.DIETARY : Intent.MENU;
+            case "order":
+                if (has(cues, Cue.STATUS)) {
+                    return Intent.ORDER_STATUS;
+                } else if (has(cues, Cue.CANCEL)) {
+                    return Intent.CANCEL_ORDER;
+                } else if (has(cues, Cue.CHANGE)) {
+                    return Intent.CHANGE_ORDER;
+                }
+                return has(cues, Cue.ORDER) ? Intent.PLACE_ORDER : Intent.ORDER_HELP;
+            case "reservation":
+                if (has(cues, Cue.CANCEL)) {
+                    return Intent.CANCEL_RESERVATION;
+                } else if (has(cues, Cue.AVAILABILITY)) {
+                    return Intent.CHECK_AVAILABILITY;
+                }
+                return has(cues, Cue.BOOK) ? Intent.BOOK_TABLE : Intent.RESERVATION_INFO;
+            case "chat":
+                return Intent.CHAT;
+            default:
+                return Intent.UNKNOWN;
+        }
+    }
+
+    // "2026-10-20", "tomorrow", "on friday" (the next one, or today); null when not given
+    private static LocalDate date(String text, boolean digits, long cues, LocalDate today) {
+        Matcher iso = digits ? ISO_DATE.matcher(text) : null;
+        if (iso != null && iso.find()) {
+            try {
+                return LocalDate.parse(iso.group(1));
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+        if (has(cues, Cue.TOMORROW)) {
+            return today.plusDays(1);
+        }
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (has(cues, Cue.values()[Cue.MONDAY.ordinal() + day.ordinal()])) {
+                return today.with(TemporalAdjusters.nextOrSame(day));
+            }
+        }
+        return has(cues, Cue.TODAY) ? today : null;
+    }
+
+    // "8pm", "7:30 PM", "19:00", "at 8". Bare hours before noon are read as afternoon or
+    // evening, when the restaurant serves
+    private static LocalTime time(String text) {
+        Matcher twelve = TIME_12H.matcher(text);
+        if (twelve.find()) {
+            int hour = Integer.parseInt(twelve.group(1)) % 12
+                    + (Character.toLowerCase(twelve.group(3).charAt(0)) == 'p' ? 12 : 0);
+            int minute = twelve.group(2) == null ? 0 : Integer.parseInt(twelve.group(2));
+            return hour < 24 && minute < 60 ? LocalTime.of(hour, minute) : null;
+        }
+        Matcher clock = TIME_24H.matcher(text);
+        Matcher at = TIME_AT.matcher(text);
+        int hour;
+        int minute = 0;
+        if (clock.find()) {
+            hour = Integer.parseInt(clock.group(1));
+            minute = Integer.parseInt(clock.group(2));
+        } else if (at.find()) {
+            hour = Integer.parseInt(at.group(1));
+        } else {
+            return null;
+        }
+        if (hour > 23 || minute > 59) {
+            return null;
+        }
+        return LocalTime.of(hour >= 1 && hour < 12 ? hour + 12 : hour, minute);
+    }
+
+    private static int partySize(String text) {
+        Matcher matcher = GUESTS.matcher(text);
+        if (matcher.find()) {
+            for (int group = 1; group <= 3; group++) {
+                if (matcher.group(group) != null) {
+                    try {
+                        return Math.max(1, Integer.parseInt(matcher.group(group)));
+                    } catch (NumberFormatException e) {
+                        return 0; // absurdly long number
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static Set<Allergen> allergens(long cues) {
+        Set<Allergen> allergens = EnumSet.noneOf(Allergen.class);
+        for (Allergen allergen : ALLERGENS) {
+            if (has(cues, ALLERGEN_CUES[allergen.ordinal()])) {
+                allergens.add(allergen);
+            }
+        }
+        return allergens;
+    }
+
+    private static Set<Diet> diets(long cues) {
+        Set<Diet> diets = EnumSet.noneOf(Diet.class);
+        for (Diet diet : DIETS) {
+            if (has(cues, DIET_CUES[diet.ordinal()])) {
+                diets.add(diet);
+            }
+        }
+        return diets;
+    }
+
+    private static boolean hasDigit(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean has(long cues, Cue cue) {
+        return (cues & cue.bit()) != 0;
+    }
+}
@@ -0,0 +1,104 @@
+package com.restaurant.reservation;
+
+import com.typesafe.config.Config;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tables and the booking grid of the restaurant (forkfind.reservations): service hours cut
+ * into fixed slots, each seating holding its table for a whole number of slots.
+ */
+public final class FloorPlan {
+
+    public static final class Table {
+        public final String id;
+        public final int seats;
+        public final String area;
+
+        public Table(String id, int seats, String area) {
+            this.id = id;
+            this.seats = seats;
+            this.area = area;
+        }
+    }
+
+    public final List<Table> tables;
+    public final LocalTime opening;
+    public final int slotMinutes;
+    public final int slotsPerDay;
+    public final int seatingSlots;
+    public final int daysAhead;
+
+    public FloorPlan(List<Table> tables, LocalTime opening, LocalTime closing, int slotMinutes, int seatingMinutes,
+            int daysAhead) {
+        int serviceMinutes = (int) Duration.between(opening, closing).toMinutes();
+        if (tables.isEmpty() || slotMinutes <= 0 || serviceMinutes <= 0 || serviceMinutes % slotMinutes != 0) {
+            throw new IllegalArgumentException("Service hours must be a positive multiple of the slot length");
+        }
+        // One 64-bit word per table and day keeps every availability check a single mask test
+        if (serviceMinutes / slotMinutes > 64) {
+            throw new IllegalArgumentException("At most 64 slots per day; use longer slots or shorter service hours");
+        }
+        this.tables = Collections.unmodifiableList(new ArrayList<>(tables));
+        this.opening = opening;
+        this.slotMinutes = slotMinutes;
+        this.slotsPerDay = serviceMinutes / slotMinutes;
+        this.seatingSlots = Math.max(1, (seatingMinutes + slotMinutes - 1) / slotMinutes);
+        this.daysAhead = daysAhead;
+        if (seatingSlots > slotsPerDay) {
+            throw new IllegalArgumentException("A seating does not fit into the service hours");
+        }
+    }
+
+    public static FloorPlan fromConfig(Config config) {
+        List<Table> tables = new ArrayList<>();
+        for (Config table : config.getConfigList("tables")) {
+            tables.add(new Table(table.getString("id"), table.getInt("seats"), table.getString("area")));
+        }
+        return new FloorPlan(tables,
+                LocalTime.parse(config.getString("opening")),
+                LocalTime.parse(config.getString("closing")),
+                (int) config.getDuration("slot").toMinutes(),
+                (int) config.getDuration("seating").toMinutes(),
+                config.getInt("days-ahead"));
+    }
+
+    /**
+     * Slot starting at this time, or -1 if the time is off the grid or a seating starting
+     * then would not end by closing.
+     */
+    public int slot(LocalTime time) {
+        int minutes = (int) Duration.between(opening, time).toMinutes();
+        if (minutes < 0 || minutes % slotMinutes != 0 || time.getSecond() != 0) {
+            return -1;
+        }
+        int slot = minutes / slotMinutes;
+        return slot + seatingSlots <= slotsPerDay ? slot : -1;
+    }
+
+    /**
+     * First slot starting at or after this time (clamped to opening), or -1 if none is left.
+     */
+    public int slotAtOrAfter(LocalTime time) {
+        long seconds = Duration.between(opening, time).getSeconds();
+        long slotSeconds = slotMinutes * 60L;
+        int slot = seconds <= 0 ? 0 : (int) ((seconds + slotSeconds - 1) / slotSeconds);
+        return slot + seatingSlots <= slotsPerDay ? slot : -1;
+    }
+
+    public LocalTime time(int slot) {
+        return opening.plusMinutes((long) slot * slotMinutes);
+    }
+
+    public int maxSeats() {
+        int max = 0;
+        for (Table table : tables) {
+            max = Math.max(max, table.seats);
+        }
+        return max;
+    }
+}
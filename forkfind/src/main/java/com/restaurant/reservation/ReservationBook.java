@@ -0,0 +1,365 @@
+package com.restaurant.reservation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Table inventory of a {@link FloorPlan}, per day.
+ *
+ * Every table has one 64-bit word per day whose bits are its booked slots. Checking or
+ * claiming a seating is one mask test and one compare-and-set on that word, so concurrent
+ * bookings are atomic without locks and can never overlap. The earliest free seating of a
+ * table is found with a few shifts over its word: bit s of AND(free >>> k, k < seating)
+ * is set exactly when slots s .. s + seating - 1 are free.
+ *
+ * Reservation ids (RES-yyMMdd-seq-code) end in a random code, since the id alone is
+ * enough to cancel a booking: the date and sequence are easy to guess, the code is not.
+ */
+public final class ReservationBook {
+
+    private static final DateTimeFormatter ID_DATE = DateTimeFormatter.ofPattern("uuMMdd")
+            .withResolverStyle(ResolverStyle.STRICT);
+    // Ids issued before the random code was added have none
+    private static final Pattern ID = Pattern.compile("\\bRES-(\\d{6})-(\\d{3,6})(?:-([0-9A-Z]{8}))?\\b",
+            Pattern.CASE_INSENSITIVE);
+    // Crockford's base 32: no I, L, O or U to misread when typed back; 8 characters are 40 bits
+    private static final char[] CODE_ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int CODE_LENGTH = 8;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    public static final class Booking {
+        public final String id;
+        public final LocalDate date;
+        public final LocalTime time;
+        public final int guests;
+        public final FloorPlan.Table table;
+        public final int slot;
+        final int tableIndex;
+
+        Booking(String id, LocalDate date, LocalTime time, int guests, FloorPlan.Table table, int tableIndex,
+                int slot) {
+            this.id = id;
+            this.date = date;
+            this.time = time;
+            this.guests = guests;
+            this.table = table;
+            this.tableIndex = tableIndex;
+            this.slot = slot;
+        }
+    }
+
+    private static final class Day {
+        final AtomicLongArray occupied; // per table, bit = slot
+        final AtomicInteger sequence = new AtomicInteger();
+        final ConcurrentHashMap<String, Booking> bookings = new ConcurrentHashMap<>();
+
+        Day(int tables) {
+            this.occupied = new AtomicLongArray(tables);
+        }
+    }
+
+    private final FloorPlan plan;
+    private final long seatingMask;
+    private final long dayMask;
+    // Table indexes that seat a party of n, smallest tables first (best fit)
+    private final int[][] tablesFor;
+    private final Map<String, Integer> tableIndex = new HashMap<>();
+    private final ConcurrentHashMap<LocalDate, Day> days = new ConcurrentHashMap<>();
+
+    public ReservationBook(FloorPlan plan) {
+        this.plan = plan;
+        this.seatingMask = plan.seatingSlots == 64 ? -1L : (1L << plan.seatingSlots) - 1;
+        this.dayMask = plan.slotsPerDay == 64 ? -1L : (1L << plan.slotsPerDay) - 1;
+
+        Integer[] bySize = new Integer[plan.tables.size()];
+        for (int i = 0; i < bySize.length; i++) {
+            bySize[i] = i;
+            tableIndex.put(plan.tables.get(i).id, i);
+        }
+        Arrays.sort(bySize, (a, b) -> Integer.compare(plan.tables.get(a).seats, plan.tables.get(b).seats));
+        this.tablesFor = new int[plan.maxSeats() + 1][];
+        for (int guests = 1; guests < tablesFor.length; guests++) {
+            final int party = guests;
+            tablesFor[guests] = Arrays.stream(bySize).filter(t -> plan.tables.get(t).seats >= party)
+                    .mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    public FloorPlan plan() {
+        return plan;
+    }
+
+    /**
+     * Date encoded in a reservation id, or null if the text holds none or an impossible date
+     * (an id we never issued, e.g. RES-261399-001).
+     */
+    public static LocalDate dateOf(String text) {
+        Matcher matcher = ID.matcher(text);
+        if (!matcher.find()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(matcher.group(1), ID_DATE);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * First reservation id in the text, upper-cased, or null.
+     */
+    public static String findId(String text) {
+        Matcher matcher = ID.matcher(text);
+        return matcher.find() ? matcher.group().toUpperCase() : null;
+    }
+
+    public boolean isAvailable(LocalDate date, LocalTime time, int guests) {
+        int slot = plan.slot(time);
+        if (slot < 0 || !seats(guests)) {
+            return false;
+        }
+        Day day = day(date);
+        long mask = seatingMask << slot;
+        for (int table : tablesFor[guests]) {
+            if ((day.occupied.get(table) & mask) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Books the smallest free table for the party at exactly this time; null if none is free.
+     */
+    public Booking book(LocalDate date, LocalTime time, int guests) {
+        int slot = plan.slot(time);
+        if (slot < 0 || !seats(guests)) {
+            return null;
+        }
+        Day day = day(date);
+        long mask = seatingMask << slot;
+        for (int table : tablesFor[guests]) {
+            if (claim(day, table, mask)) {
+                return record(date, day, table, slot, guests);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Books the earliest seating at or after this time that any fitting table can take
+     * (smallest table on ties); null if the day is full for the party.
+     */
+    public Booking bookEarliest(LocalDate date, LocalTime from, int guests) {
+        int fromSlot = plan.slotAtOrAfter(from);
+        if (fromSlot < 0 || !seats(guests)) {
+            return null;
+        }
+        Day day = day(date);
+        while (true) {
+            int bestTable = -1;
+            int bestSlot = Integer.MAX_VALUE;
+            for (int table : tablesFor[guests]) {
+                int slot = earliestStart(day.occupied.get(table), fromSlot);
+                if (slot < bestSlot) {
+                    bestSlot = slot;
+                    bestTable = table;
+                }
+            }
+            if (bestTable < 0) {
+                return null;
+            }
+            if (claim(day, bestTable, seatingMask << bestSlot)) {
+                return record(date, day, bestTable, bestSlot, guests);
+            }
+            // Someone else took it in the meantime: search again
+        }
+    }
+
+    /**
+     * Up to limit distinct start times at or after from with a free table for the party.
+     */
+    public List<LocalTime> availableTimes(LocalDate date, LocalTime from, int guests, int limit) {
+        List<LocalTime> times = new ArrayList<>();
+        int fromSlot = plan.slotAtOrAfter(from);
+        if (fromSlot < 0 || !seats(guests)) {
+            return times;
+        }
+        Day day = day(date);
+        long any = 0;
+        for (int table : tablesFor[guests]) {
+            any |= starts(day.occupied.get(table));
+        }
+        any &= -1L << fromSlot;
+        while (any != 0 && times.size() < limit) {
+            times.add(plan.time(Long.numberOfTrailingZeros(any)));
+            any &= any - 1;
+        }
+        return times;
+    }
+
+    public Booking booking(String id) {
+        LocalDate date = dateOf(id);
+        Day day = date == null ? null : days.get(date);
+        return day == null ? null : day.bookings.get(id.toUpperCase());
+    }
+
+    /**
+     * Frees the booking's table; returns the cancelled booking, or null if there is none.
+     */
+    public Booking cancel(String id) {
+        LocalDate date = dateOf(id);
+        Day day = date == null ? null : days.get(date);
+        Booking booking = day == null ? null : day.bookings.remove(id.toUpperCase());
+        if (booking != null) {
+            long mask = seatingMask << booking.slot;
+            day.occupied.getAndUpdate(booking.tableIndex, occupied -> occupied & ~mask);
+        }
+        return booking;
+    }
+
+    public Collection<Booking> bookings(LocalDate date) {
+        Day day = days.get(date);
+        return day == null ? new ArrayList<>() : day.bookings.values();
+    }
+
+    /**
+     * Replays a journaled event. Bookings are restored as recorded, without searching for a
+     * table again, so the result does not depend on the order bookings originally raced in.
+     */
+    public void apply(ReservationEvent event) {
+        LocalDate date = dateOf(event.reservationId);
+        if (event instanceof ReservationEvent.Cancelled) {
+            cancel(event.reservationId);
+            return;
+        }
+        ReservationEvent.Booked booked = (ReservationEvent.Booked) event;
+        Integer table = tableIndex.get(booked.tableId);
+        if (table == null || booked.slot + plan.seatingSlots > plan.slotsPerDay) {
+            throw new IllegalStateException("Booking " + booked.reservationId + " (table " + booked.tableId
+                    + ", slot " + booked.slot + ") does not fit the floor plan");
+        }
+        Day day = day(date);
+        day.occupied.getAndUpdate(table, occupied -> occupied | seatingMask << booked.slot);
+        day.sequence.accumulateAndGet(sequenceOf(booked.reservationId), Math::max);
+        day.bookings.put(booked.reservationId, new Booking(booked.reservationId, date, plan.time(booked.slot),
+                booked.guests, plan.tables.get(table), table, booked.slot));
+    }
+
+    /**
+     * The day's bookings and id sequence, for {@link #restore}.
+     */
+    public byte[] snapshot(LocalDate date) {
+        Day day = days.get(date);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(day == null ? 0 : day.sequence.get());
+            Collection<Booking> bookings = day == null ? new ArrayList<>() : new ArrayList<>(day.bookings.values());
+            out.writeInt(bookings.size());
+            for (Booking booking : bookings) {
+                out.writeUTF(booking.id);
+                out.writeUTF(booking.table.id);
+                out.writeByte(booking.slot);
+                out.writeShort(booking.guests);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory stream
+        }
+    }
+
+    /**
+     * Replaces the day with a {@link #snapshot} of it.
+     */
+    public void restore(LocalDate date, byte[] state) throws IOException {
+        days.remove(date);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(state));
+        int sequence = in.readInt();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            apply(new ReservationEvent.Booked(in.readUTF(), in.readUTF(), in.readUnsignedByte(),
+                    in.readUnsignedShort(), 0));
+        }
+        day(date).sequence.accumulateAndGet(sequence, Math::max);
+    }
+
+    private boolean seats(int guests) {
+        if (guests <= 0) {
+            throw new IllegalArgumentException("A party has at least one guest");
+        }
+        return guests < tablesFor.length;
+    }
+
+    private Day day(LocalDate date) {
+        return days.computeIfAbsent(date, d -> new Day(plan.tables.size()));
+    }
+
+    // Lock-free: succeeds only if none of the seating's slots were taken
+    private static boolean claim(Day day, int table, long mask) {
+        while (true) {
+            long occupied = day.occupied.get(table);
+            if ((occupied & mask) != 0) {
+                return false;
+            }
+            if (day.occupied.compareAndSet(table, occupied, occupied | mask)) {
+                return true;
+            }
+        }
+    }
+
+    private Booking record(LocalDate date, Day day, int table, int slot, int guests) {
+        String id = String.format("RES-%s-%03d-%s", date.format(ID_DATE), day.sequence.incrementAndGet(), code());
+        Booking booking = new Booking(id, date, plan.time(slot), guests, plan.tables.get(table), table, slot);
+        day.bookings.put(id, booking);
+        return booking;
+    }
+
+    private static String code() {
+        char[] code = new char[CODE_LENGTH];
+        for (int i = 0; i < code.length; i++) {
+            code[i] = CODE_ALPHABET[RANDOM.nextInt(CODE_ALPHABET.length)];
+        }
+        return new String(code);
+    }
+
+    private static int sequenceOf(String id) {
+        Matcher matcher = ID.matcher(id);
+        return matcher.find() ? Integer.parseInt(matcher.group(2)) : 0;
+    }
+
+    // Bit s set when a seating can start at slot s
+    private long starts(long occupied) {
+        long free = ~occupied & dayMask;
+        long starts = free;
+        for (int k = 1; k < plan.seatingSlots; k++) {
+            starts &= free >>> k;
+        }
+        return starts;
+    }
+
+    private int earliestStart(long occupied, int fromSlot) {
+        long starts = starts(occupied) & (-1L << fromSlot);
+        return starts == 0 ? Integer.MAX_VALUE : Long.numberOfTrailingZeros(starts);
+    }
+}
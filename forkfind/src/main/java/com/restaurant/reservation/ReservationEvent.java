@@ -0,0 +1,84 @@
+package com.restaurant.reservation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Journaled facts of one day's reservations, with a compact binary codec. Like order
+ * events, the encoding is tagged and append-only. The date is part of the reservation id,
+ * and tables are recorded by id so that reordering the floor plan keeps old journals valid.
+ */
+public abstract class ReservationEvent {
+
+    private static final byte BOOKED = 1;
+    private static final byte CANCELLED = 2;
+
+    public final String reservationId;
+    public final long timestamp;
+
+    private ReservationEvent(String reservationId, long timestamp) {
+        this.reservationId = reservationId;
+        this.timestamp = timestamp;
+    }
+
+    public static final class Booked extends ReservationEvent {
+        public final String tableId;
+        public final int slot;
+        public final int guests;
+
+        public Booked(String reservationId, String tableId, int slot, int guests, long timestamp) {
+            super(reservationId, timestamp);
+            this.tableId = tableId;
+            this.slot = slot;
+            this.guests = guests;
+        }
+    }
+
+    public static final class Cancelled extends ReservationEvent {
+        public Cancelled(String reservationId, long timestamp) {
+            super(reservationId, timestamp);
+        }
+    }
+
+    public byte[] toBytes() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(48);
+            DataOutputStream out = new DataOutputStream(bytes);
+            if (this instanceof Booked) {
+                Booked booked = (Booked) this;
+                out.writeByte(BOOKED);
+                out.writeUTF(reservationId);
+                out.writeLong(timestamp);
+                out.writeUTF(booked.tableId);
+                out.writeByte(booked.slot);
+                out.writeShort(booked.guests);
+            } else {
+                out.writeByte(CANCELLED);
+                out.writeUTF(reservationId);
+                out.writeLong(timestamp);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory stream
+        }
+    }
+
+    public static ReservationEvent fromBytes(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte tag = in.readByte();
+        String reservationId = in.readUTF();
+        long timestamp = in.readLong();
+        switch (tag) {
+            case BOOKED:
+                return new Booked(reservationId, in.readUTF(), in.readUnsignedByte(), in.readUnsignedShort(),
+                        timestamp);
+            case CANCELLED:
+                return new Cancelled(reservationId, timestamp);
+            default:
+                throw new IOException("Unknown reservation event tag " + tag);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.restaurant.retrieval;
+
+import com.restaurant.retrieval.ContextPacker.ScoredChunk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Inverted index over knowledge chunks with Okapi BM25 ranking.
+ *
+ * Built once; a search only walks the postings of the query's terms, so its
+ * cost grows with the number of matching postings rather than with corpus size.
+ * Immutable after construction and safe to share between threads.
+ */
+public class Bm25Index {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Postings for one term: parallel arrays of chunk position and term frequency
+    private static class Postings {
+        int[] chunks = new int[4];
+        int[] frequencies = new int[4];
+        int size = 0;
+
+        void add(int chunk, int frequency) {
+            if (size == chunks.length) {
+                chunks = Arrays.copyOf(chunks, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            chunks[size] = chunk;
+            frequencies[size] = frequency;
+            size++;
+        }
+    }
+
+    private final List<KnowledgeChunk> chunks;
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final int[] lengths;
+    private final double averageLength;
+
+    public Bm25Index(List<KnowledgeChunk> chunks) {
+        this.chunks = chunks;
+        this.lengths = new int[chunks.size()];
+        long totalLength = 0;
+
+        for (int i = 0; i < chunks.size(); i++) {
+            List<String> tokens = Tokenizer.tokenize(chunks.get(i).text);
+            lengths[i] = tokens.size();
+            totalLength += tokens.size();
+
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String token : tokens) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), t -> new Postings()).add(i, entry.getValue());
+            }
+        }
+        this.averageLength = chunks.isEmpty() ? 0 : (double) totalLength / chunks.size();
+    }
+
+    public int size() {
+        return chunks.size();
+    }
+
+    public int termCount() {
+        return postings.size();
+    }
+
+    /**
+     * BM25 scores of every chunk that matches at least one query term, by chunk position.
+     */
+    public Map<Integer, Double> scores(String query) {
+        Map<Integer, Double> scores = new HashMap<>();
+        // Repeated query terms are counted once
+        for (String term : new LinkedHashSet<>(Tokenizer.tokenize(query))) {
+            Postings termPostings = postings.get(term);
+            if (termPostings == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (chunks.size() - termPostings.size + 0.5) / (termPostings.size + 0.5));
+            for (int p = 0; p < termPostings.size; p++) {
+                int chunk = termPostings.chunks[p];
+                int tf = termPostings.frequencies[p];
+                double norm = K1 * (1 - B + B * lengths[chunk] / averageLength);
+                scores.merge(chunk, idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * The k best-scoring chunks for the query, best first. Empty when no term matches or k &lt;= 0.
+     */
+    public List<ScoredChunk> search(String query, int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        Comparator<ScoredChunk> byScore = Comparator.comparingDouble(c -> c.score);
+        PriorityQueue<ScoredChunk> top = new PriorityQueue<>(byScore);
+        for (Map.Entry<Integer, Double> entry : scores(query).entrySet()) {
+            if (top.size() < k) {
+                top.add(new ScoredChunk(chunks.get(entry.getKey()), entry.getValue()));
+            } else if (entry.getValue() > top.peek().score) {
+                top.poll();
+                top.add(new ScoredChunk(chunks.get(entry.getKey()), entry.getValue()));
+            }
+        }
+        List<ScoredChunk> result = new ArrayList<>(top);
+        result.sort(byScore.reversed());
+        return result;
+    }
+}
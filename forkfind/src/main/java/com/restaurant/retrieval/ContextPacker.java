@@ -0,0 +1,146 @@
+package com.restaurant.retrieval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Packs ranked knowledge chunks into a prompt context under a character budget.
+ *
+ * Chunks are taken best-first; one that does not fit is skipped so smaller,
+ * lower-ranked chunks can still use the remaining space. A chunk whose paragraph
+ * was already included (overlapping results) is dropped whole; identical lines
+ * inside different paragraphs are kept, since "Dietary: Contains Dairy, Gluten."
+ * belongs to each dish that has it. Only "=== SECTION ===" headers are collapsed,
+ * so each section is named once. The selected chunks are rendered in knowledge
+ * base order.
+ */
+public class ContextPacker {
+
+    // Rough average for English text with GPT-style tokenizers
+    public static final int CHARS_PER_TOKEN = 4;
+
+    public static class ScoredChunk {
+        public final KnowledgeChunk chunk;
+        public final double score;
+
+        public ScoredChunk(KnowledgeChunk chunk, double score) {
+            this.chunk = chunk;
+            this.score = score;
+        }
+    }
+
+    public static class Packed {
+        public final String context;
+        public final int includedChunks;
+        public final int skippedChunks;
+        public final int baselineChars; // what the unpacked context would have cost
+
+        public Packed(String context, int includedChunks, int skippedChunks, int baselineChars) {
+            this.context = context;
+            this.includedChunks = includedChunks;
+            this.skippedChunks = skippedChunks;
+            this.baselineChars = baselineChars;
+        }
+
+        public int tokensSaved() {
+            return Math.max(0, baselineChars - context.length()) / CHARS_PER_TOKEN;
+        }
+    }
+
+    private final int budgetChars;
+
+    public ContextPacker(int budgetChars) {
+        this.budgetChars = budgetChars;
+    }
+
+    /**
+     * @param ranked        candidate chunks, in any order (they are sorted by score here)
+     * @param baselineChars size of the context that would have been sent without packing
+     */
+    public Packed pack(List<ScoredChunk> ranked, int baselineChars) {
+        List<ScoredChunk> byScore = new ArrayList<>(ranked);
+        byScore.sort(Comparator.comparingDouble((ScoredChunk c) -> -c.score).thenComparingInt(c -> c.chunk.id));
+
+        Set<String> seenHeaders = new HashSet<>();
+        Set<String> seenBodies = new HashSet<>();
+        List<KnowledgeChunk> selected = new ArrayList<>();
+        int used = 0;
+        int skipped = 0;
+
+        for (ScoredChunk candidate : byScore) {
+            String body = body(candidate.chunk.text);
+            if (seenBodies.contains(body)) {
+                skipped++; // the same paragraph is already packed
+                continue;
+            }
+            int cost = body.length() + 1;
+            List<String> newHeaders = new ArrayList<>();
+            for (String header : headers(candidate.chunk.text)) {
+                if (!seenHeaders.contains(header) && !newHeaders.contains(header)) {
+                    newHeaders.add(header);
+                    cost += header.length() + 1;
+                }
+            }
+            if (used + cost + 1 > budgetChars) {
+                skipped++;
+                continue;
+            }
+            seenHeaders.addAll(newHeaders);
+            seenBodies.add(body);
+            selected.add(candidate.chunk);
+            used += cost + 1;
+        }
+
+        // Render in knowledge base order so the context reads naturally
+        selected.sort(Comparator.comparingInt(c -> c.id));
+        Set<String> renderedHeaders = new HashSet<>();
+        StringBuilder context = new StringBuilder();
+        for (KnowledgeChunk chunk : selected) {
+            if (context.length() > 0) {
+                context.append('\n');
+            }
+            for (String header : headers(chunk.text)) {
+                if (renderedHeaders.add(header)) {
+                    context.append(header).append('\n');
+                }
+            }
+            String body = body(chunk.text);
+            if (!body.isEmpty()) {
+                context.append(body).append('\n');
+            }
+        }
+
+        return new Packed(context.toString().trim(), selected.size(), skipped, baselineChars);
+    }
+
+    private static boolean isHeader(String line) {
+        String trimmed = line.trim();
+        return trimmed.length() >= 6 && trimmed.startsWith("===") && trimmed.endsWith("===");
+    }
+
+    // The "=== SECTION ===" lines a chunk starts with
+    private static List<String> headers(String text) {
+        List<String> headers = new ArrayList<>();
+        for (String line : text.split("\n")) {
+            if (!isHeader(line)) {
+                break;
+            }
+            headers.add(line.trim());
+        }
+        return headers;
+    }
+
+    // Everything after the leading headers
+    private static String body(String text) {
+        String[] lines = text.split("\n");
+        int start = 0;
+        while (start < lines.length && isHeader(lines[start])) {
+            start++;
+        }
+        return String.join("\n", Arrays.asList(lines).subList(start, lines.length)).trim();
+    }
+}
@@ -0,0 +1,107 @@
+package com.restaurant.retrieval;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local text embedding with no model files or network: the feature-hashing trick
+ * over word tokens, character trigrams and a small food-domain concept lexicon,
+ * projected into a fixed number of dimensions and L2-normalized (dot product = cosine).
+ *
+ * Trigrams let "fishy" land near "fish"; the lexicon lets "fishy" land near
+ * "salmon" and "light" near "salad", which a purely lexical index cannot do.
+ */
+public class HashingEmbedder {
+
+    private static final float WORD_WEIGHT = 1.0f;
+    private static final float TRIGRAM_WEIGHT = 0.35f;
+    private static final float CONCEPT_WEIGHT = 1.5f;
+
+    private static final Map<String, String> CONCEPTS = new HashMap<>();
+
+    static {
+        concept("seafood", "fish", "fishy", "seafood", "salmon", "squid", "calamari", "shrimp", "prawn",
+                "pescatarian", "tuna", "crab", "lobster", "ocean");
+        concept("light", "light", "healthy", "fresh", "salad", "greens", "lean", "veggie", "vegetable",
+                "refreshing", "quinoa", "asparagus", "sorbet");
+        concept("sweet", "sweet", "dessert", "cake", "chocolate", "sorbet", "sugar", "tiramisu", "treat",
+                "vanilla", "fruit");
+        concept("meat", "meat", "meaty", "beef", "steak", "burger", "chicken", "patty", "pork");
+        concept("drink", "drink", "beverage", "beer", "wine", "cocktail", "soda", "thirsty", "alcohol",
+                "lemonade", "coke", "ipa");
+        concept("plant", "vegetarian", "vegan", "plant", "meatless");
+        concept("hearty", "hearty", "filling", "hungry", "pasta", "burger", "fries", "parmesan");
+    }
+
+    private static void concept(String name, String... words) {
+        for (String word : words) {
+            CONCEPTS.merge(Tokenizer.stem(word), "#" + name, (a, b) -> a + " " + b);
+        }
+    }
+
+    private final int dimensions;
+
+    public HashingEmbedder(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    public float[] embed(String text) {
+        float[] vector = new float[dimensions];
+        List<String> tokens = Tokenizer.tokenize(text);
+        for (String token : tokens) {
+            add(vector, token, WORD_WEIGHT);
+            String padded = "<" + token + ">";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                add(vector, padded.substring(i, i + 3), TRIGRAM_WEIGHT);
+            }
+            String concepts = CONCEPTS.get(token);
+            if (concepts != null) {
+                for (String concept : concepts.split(" ")) {
+                    add(vector, concept, CONCEPT_WEIGHT);
+                }
+            }
+        }
+
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < dimensions; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    // Signed feature hashing: collisions cancel out on average instead of piling up
+    private void add(float[] vector, String feature, float weight) {
+        int hash = mix(feature.hashCode());
+        int index = Math.floorMod(hash, dimensions);
+        vector[index] += (hash & 0x4000_0000) == 0 ? weight : -weight;
+    }
+
+    // murmur3 finalizer, spreads String.hashCode over all bits
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    public static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
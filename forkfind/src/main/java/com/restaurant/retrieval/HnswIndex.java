@@ -0,0 +1,363 @@
+package com.restaurant.retrieval;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * Hierarchical Navigable Small World graph for approximate nearest-neighbour
+ * search over L2-normalized vectors (similarity = dot product).
+ *
+ * Vectors live in one flat float array and adjacency lists in two flat int arrays,
+ * so the index holds no per-node objects: layer 0 gives every node a fixed-size slot,
+ * and the lists of the few nodes on upper layers are packed into a second array.
+ * Nodes are added with {@link #add(float[])}; once building is done, concurrent
+ * searches are safe.
+ *
+ * m bounds the neighbours per node on the upper layers (2m on layer 0),
+ * efConstruction is the candidate list size while inserting and efSearch the
+ * default candidate list size while searching; larger values trade speed for recall.
+ */
+public class HnswIndex {
+
+    private final int dimensions;
+    private final int m;
+    private final int maxLayer0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+
+    private final int layer0Stride;
+    private final int upperStride;
+
+    private float[] vectors = new float[0];
+    private int[] levels = new int[0]; // top layer of each node
+    // Each list is { count, neighbour... }: node n's layer 0 list starts at n * layer0Stride,
+    // its layer l > 0 list at upperOffset[n] + (l - 1) * upperStride
+    private int[] layer0 = new int[0];
+    private int[] upperOffset = new int[0];
+    private int[] upper = new int[0];
+    private int upperSize = 0;
+    private int size = 0;
+    private int entryPoint = -1;
+    private int topLayer = -1;
+
+    public HnswIndex(int dimensions, int m, int efConstruction, int efSearch) {
+        this.dimensions = dimensions;
+        this.m = Math.max(2, m);
+        this.maxLayer0 = this.m * 2;
+        this.efConstruction = Math.max(efConstruction, this.m);
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1 / Math.log(this.m);
+        this.layer0Stride = 1 + maxLayer0;
+        this.upperStride = 1 + this.m;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public float[] vector(int node) {
+        return Arrays.copyOfRange(vectors, node * dimensions, (node + 1) * dimensions);
+    }
+
+    /**
+     * Inserts a vector and returns its node id (ids are assigned 0, 1, 2, ...).
+     */
+    public int add(float[] vector) {
+        int node = size;
+        ensureCapacity(node + 1);
+        System.arraycopy(vector, 0, vectors, node * dimensions, dimensions);
+        size++;
+
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        levels[node] = level;
+        upperOffset[node] = upperSize;
+        if (level > 0) {
+            upperSize += level * upperStride;
+            if (upper.length < upperSize) {
+                upper = Arrays.copyOf(upper, Math.max(upperSize, upper.length * 2 + 16 * upperStride));
+            }
+        }
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            topLayer = level;
+            return node;
+        }
+
+        int current = entryPoint;
+        for (int layer = topLayer; layer > level; layer--) {
+            current = greedyClosest(vector, current, layer);
+        }
+        for (int layer = Math.min(level, topLayer); layer >= 0; layer--) {
+            long[] candidates = searchLayer(vector, current, efConstruction, layer);
+            int maxLinks = layer == 0 ? maxLayer0 : m;
+            int linked = Math.min(m, candidates.length);
+            for (int i = 0; i < linked; i++) {
+                int neighbour = nodeOf(candidates[i]);
+                connect(node, neighbour, layer, maxLinks);
+                connect(neighbour, node, layer, maxLinks);
+            }
+            current = nodeOf(candidates[0]);
+        }
+
+        if (level > topLayer) {
+            topLayer = level;
+            entryPoint = node;
+        }
+        return node;
+    }
+
+    /**
+     * Up to k nearest nodes to the query, best first, as {node ids, similarities}.
+     */
+    public Result search(float[] query, int k) {
+        if (entryPoint < 0) {
+            return new Result(new int[0], new float[0]);
+        }
+        int current = entryPoint;
+        for (int layer = topLayer; layer > 0; layer--) {
+            current = greedyClosest(query, current, layer);
+        }
+        long[] candidates = searchLayer(query, current, Math.max(efSearch, k), 0);
+        int count = Math.min(k, candidates.length);
+        int[] nodes = new int[count];
+        float[] similarities = new float[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = nodeOf(candidates[i]);
+            similarities[i] = 1 - distanceOf(candidates[i]);
+        }
+        return new Result(nodes, similarities);
+    }
+
+    public static class Result {
+        public final int[] nodes;
+        public final float[] similarities;
+
+        Result(int[] nodes, float[] similarities) {
+            this.nodes = nodes;
+            this.similarities = similarities;
+        }
+    }
+
+    private int greedyClosest(float[] query, int start, int layer) {
+        int current = start;
+        float best = distance(query, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] lists = lists(layer);
+            int list = list(current, layer);
+            for (int i = 1; i <= lists[list]; i++) {
+                int neighbour = lists[list + i];
+                float d = distance(query, neighbour);
+                if (d < best) {
+                    best = d;
+                    current = neighbour;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Best-first search of one layer; returns up to ef encoded (distance, node) entries, closest first
+    private long[] searchLayer(float[] query, int start, int ef, int layer) {
+        BitSet visited = new BitSet(size);
+        LongHeap candidates = new LongHeap(ef * 2, false); // closest on top
+        LongHeap results = new LongHeap(ef + 1, true);     // furthest on top
+
+        long first = encode(distance(query, start), start);
+        visited.set(start);
+        candidates.push(first);
+        results.push(first);
+
+        while (candidates.size() > 0) {
+            long candidate = candidates.pop();
+            if (distanceOf(candidate) > distanceOf(results.peek()) && results.size() >= ef) {
+                break;
+            }
+            if (levels[nodeOf(candidate)] < layer) {
+                continue;
+            }
+            int[] lists = lists(layer);
+            int list = list(nodeOf(candidate), layer);
+            for (int i = 1; i <= lists[list]; i++) {
+                int neighbour = lists[list + i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                float d = distance(query, neighbour);
+                if (results.size() < ef || d < distanceOf(results.peek())) {
+                    long entry = encode(d, neighbour);
+                    candidates.push(entry);
+                    results.push(entry);
+                    if (results.size() > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+
+        long[] sorted = results.toArray();
+        Arrays.sort(sorted); // encoding sorts by distance
+        return sorted;
+    }
+
+    // Adds target to node's list on the layer, keeping only the closest maxLinks
+    private void connect(int node, int target, int layer, int maxLinks) {
+        int[] lists = lists(layer);
+        int list = list(node, layer);
+        int count = lists[list];
+        for (int i = 1; i <= count; i++) {
+            if (lists[list + i] == target) {
+                return;
+            }
+        }
+        if (count < maxLinks) {
+            lists[list + count + 1] = target;
+            lists[list] = count + 1;
+            return;
+        }
+        // Full: replace the furthest neighbour if the new one is closer
+        int furthest = -1;
+        float furthestDistance = distance(node, target);
+        for (int i = 1; i <= count; i++) {
+            float d = distance(node, lists[list + i]);
+            if (d > furthestDistance) {
+                furthestDistance = d;
+                furthest = i;
+            }
+        }
+        if (furthest > 0) {
+            lists[list + furthest] = target;
+        }
+    }
+
+    // The array holding a layer's lists, and where a node's list starts in it
+    private int[] lists(int layer) {
+        return layer == 0 ? layer0 : upper;
+    }
+
+    private int list(int node, int layer) {
+        return layer == 0 ? node * layer0Stride : upperOffset[node] + (layer - 1) * upperStride;
+    }
+
+    private float distance(float[] query, int node) {
+        float dot = 0;
+        int offset = node * dimensions;
+        for (int i = 0; i < dimensions; i++) {
+            dot += query[i] * vectors[offset + i];
+        }
+        // Clamp so the encoded float stays non-negative
+        return Math.max(0f, 1 - dot);
+    }
+
+    private float distance(int a, int b) {
+        float dot = 0;
+        int offsetA = a * dimensions;
+        int offsetB = b * dimensions;
+        for (int i = 0; i < dimensions; i++) {
+            dot += vectors[offsetA + i] * vectors[offsetB + i];
+        }
+        return Math.max(0f, 1 - dot);
+    }
+
+    private void ensureCapacity(int nodes) {
+        if (levels.length >= nodes) {
+            return;
+        }
+        int capacity = Math.max(nodes, levels.length * 2 + 16);
+        levels = Arrays.copyOf(levels, capacity);
+        upperOffset = Arrays.copyOf(upperOffset, capacity);
+        layer0 = Arrays.copyOf(layer0, capacity * layer0Stride);
+        vectors = Arrays.copyOf(vectors, capacity * dimensions);
+    }
+
+    // Non-negative floats order the same as their bit patterns, so (distance, node) packs into a sortable long
+    private static long encode(float distance, int node) {
+        return ((long) Float.floatToIntBits(distance) << 32) | (node & 0xffffffffL);
+    }
+
+    private static int nodeOf(long entry) {
+        return (int) entry;
+    }
+
+    private static float distanceOf(long entry) {
+        return Float.intBitsToFloat((int) (entry >>> 32));
+    }
+
+    // Binary heap of longs without boxing
+    private static class LongHeap {
+        private long[] heap;
+        private int size = 0;
+        private final boolean max;
+
+        LongHeap(int capacity, boolean max) {
+            this.heap = new long[Math.max(4, capacity)];
+            this.max = max;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long peek() {
+            return heap[0];
+        }
+
+        void push(long value) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            int i = size++;
+            heap[i] = value;
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!above(heap[i], heap[parent])) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        long pop() {
+            long top = heap[0];
+            heap[0] = heap[--size];
+            int i = 0;
+            while (true) {
+                int left = 2 * i + 1;
+                int best = i;
+                if (left < size && above(heap[left], heap[best])) {
+                    best = left;
+                }
+                if (left + 1 < size && above(heap[left + 1], heap[best])) {
+                    best = left + 1;
+                }
+                if (best == i) {
+                    return top;
+                }
+                swap(i, best);
+                i = best;
+            }
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(heap, size);
+        }
+
+        private boolean above(long a, long b) {
+            return max ? a > b : a < b;
+        }
+
+        private void swap(int i, int j) {
+            long t = heap[i];
+            heap[i] = heap[j];
+            heap[j] = t;
+        }
+    }
+}
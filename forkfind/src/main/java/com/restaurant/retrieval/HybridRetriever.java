@@ -0,0 +1,173 @@
+package com.restaurant.retrieval;
+
+import com.restaurant.retrieval.ContextPacker.ScoredChunk;
+import com.typesafe.config.Config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ranks knowledge chunks with BM25 keywords, embedding similarity, or both.
+ *
+ * In hybrid mode each retriever returns its own candidates, scores are scaled
+ * to [0, 1] by the best score of that retriever, and the final score is
+ * weight * semantic + (1 - weight) * keyword (see {@link ScoreFusion}). Semantic
+ * hits below min-similarity are ignored so unrelated queries still find nothing.
+ * {@link #rawScores} gives the scores before fusion, for callers that rank
+ * candidates from several retrievers together.
+ */
+public class HybridRetriever {
+
+    public enum Mode {
+        KEYWORD, SEMANTIC, HYBRID
+    }
+
+    /** BM25 and cosine scores of the relevant chunks by chunk position, with each one's best. */
+    public static final class RawScores {
+        public final Map<Integer, Double> keyword;
+        public final Map<Integer, Double> semantic;
+        public final double keywordMax;
+        public final double semanticMax;
+
+        RawScores(Map<Integer, Double> keyword, Map<Integer, Double> semantic) {
+            this.keyword = keyword;
+            this.semantic = semantic;
+            this.keywordMax = max(keyword);
+            this.semanticMax = max(semantic);
+        }
+    }
+
+    // Each retriever fetches more than k so the fused ranking has something to choose from
+    private static final int CANDIDATE_FACTOR = 3;
+
+    private final List<KnowledgeChunk> chunks;
+    private final Mode mode;
+    private final Bm25Index keywordIndex;
+    private final HashingEmbedder embedder;
+    private final HnswIndex vectorIndex; // null in keyword mode
+    private final float minSimilarity;
+    private final ScoreFusion fusion;
+    // Chunk text -> embedding, so a rebuilt retriever only embeds chunks that changed
+    private final Map<String, float[]> embeddings = new HashMap<>();
+    private int reusedEmbeddings = 0;
+
+    /**
+     * @param config the forkfind.retrieval config section
+     */
+    public HybridRetriever(List<KnowledgeChunk> chunks, Config config) {
+        this(chunks, config, null);
+    }
+
+    /**
+     * @param previous retriever over an earlier version of the same knowledge base whose
+     *                 embeddings of unchanged chunks are reused; may be null
+     */
+    public HybridRetriever(List<KnowledgeChunk> chunks, Config config, HybridRetriever previous) {
+        this.chunks = chunks;
+        this.mode = Mode.valueOf(config.getString("mode").toUpperCase());
+        this.keywordIndex = new Bm25Index(chunks);
+
+        Config semantic = config.getConfig("semantic");
+        this.embedder = new HashingEmbedder(semantic.getInt("dimensions"));
+        this.minSimilarity = (float) semantic.getDouble("min-similarity");
+        this.fusion = ScoreFusion.fromConfig(config);
+        if (mode == Mode.KEYWORD) {
+            this.vectorIndex = null;
+        } else {
+            this.vectorIndex = new HnswIndex(embedder.dimensions(), semantic.getInt("hnsw.m"),
+                    semantic.getInt("hnsw.ef-construction"), semantic.getInt("hnsw.ef-search"));
+            boolean compatible = previous != null && previous.embedder.dimensions() == embedder.dimensions();
+            for (KnowledgeChunk chunk : chunks) {
+                float[] vector = compatible ? previous.embeddings.get(chunk.text) : null;
+                if (vector != null) {
+                    reusedEmbeddings++;
+                } else {
+                    vector = embedder.embed(chunk.text);
+                }
+                embeddings.put(chunk.text, vector);
+                vectorIndex.add(vector); // node id == chunk id
+            }
+        }
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public Bm25Index keywordIndex() {
+        return keywordIndex;
+    }
+
+    // Chunk embeddings taken over from the previous retriever instead of recomputed
+    public int reusedEmbeddings() {
+        return reusedEmbeddings;
+    }
+
+    // Rough heap footprint: embeddings (kept here and in the HNSW index), graph links and postings
+    public long estimatedBytes() {
+        long vectors = mode == Mode.KEYWORD ? 0 : 2L * chunks.size() * embedder.dimensions() * Float.BYTES;
+        long links = mode == Mode.KEYWORD ? 0 : chunks.size() * 32L * Integer.BYTES;
+        long postings = 0;
+        for (KnowledgeChunk chunk : chunks) {
+            postings += chunk.text.length() * 4L;
+        }
+        return vectors + links + postings;
+    }
+
+    /**
+     * Keyword and semantic scores of the chunks relevant to the query, before fusion; the
+     * retriever the mode leaves out contributes none.
+     */
+    public RawScores rawScores(String query, int k) {
+        Map<Integer, Double> keyword = mode == Mode.SEMANTIC ? new HashMap<>() : keywordIndex.scores(query);
+        Map<Integer, Double> semantic = new HashMap<>();
+        if (mode != Mode.KEYWORD) {
+            HnswIndex.Result hits = vectorIndex.search(embedder.embed(query), k * CANDIDATE_FACTOR);
+            for (int i = 0; i < hits.nodes.length; i++) {
+                if (hits.similarities[i] >= minSimilarity) {
+                    semantic.put(hits.nodes[i], (double) hits.similarities[i]);
+                }
+            }
+        }
+        return new RawScores(keyword, semantic);
+    }
+
+    /**
+     * Scores of the chunks relevant to the query, by chunk position.
+     */
+    public Map<Integer, Double> scores(String query, int k) {
+        return fuse(rawScores(query, k));
+    }
+
+    /**
+     * This retriever's ranking scores for its raw scores, by chunk position.
+     */
+    public Map<Integer, Double> fuse(RawScores raw) {
+        Map<Integer, Double> fused = new HashMap<>();
+        raw.keyword.forEach((chunk, score) -> fused.put(chunk,
+                fusion.fuse(score, raw.semantic.getOrDefault(chunk, 0.0), raw.keywordMax, raw.semanticMax)));
+        raw.semantic.forEach((chunk, score) -> fused.computeIfAbsent(chunk,
+                c -> fusion.fuse(0.0, score, raw.keywordMax, raw.semanticMax)));
+        return fused;
+    }
+
+    /**
+     * The k best chunks for the query, best first.
+     */
+    public List<ScoredChunk> search(String query, int k) {
+        List<ScoredChunk> ranked = new ArrayList<>();
+        scores(query, k).forEach((chunk, score) -> ranked.add(new ScoredChunk(chunks.get(chunk), score)));
+        ranked.sort((a, b) -> Double.compare(b.score, a.score));
+        return ranked.size() > k ? new ArrayList<>(ranked.subList(0, k)) : ranked;
+    }
+
+    private static double max(Map<Integer, Double> scores) {
+        double max = 0;
+        for (double score : scores.values()) {
+            max = Math.max(max, score);
+        }
+        return max;
+    }
+}
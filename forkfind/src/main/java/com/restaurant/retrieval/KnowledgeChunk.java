@@ -0,0 +1,16 @@
+package com.restaurant.retrieval;
+
+/**
+ * One paragraph of the knowledge base, prefixed with its "=== SECTION ===" header.
+ */
+public class KnowledgeChunk {
+    public final int id; // position in the knowledge base
+    public final String section;
+    public final String text;
+
+    public KnowledgeChunk(int id, String section, String text) {
+        this.id = id;
+        this.section = section;
+        this.text = text;
+    }
+}
@@ -0,0 +1,30 @@
+package com.restaurant.retrieval;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits knowledge base text into paragraph chunks (blank-line separated).
+ * Each chunk carries the section header it appears under, so a chunk taken
+ * out of context still says whether it is a dessert or a drink.
+ */
+public class KnowledgeChunker {
+
+    private KnowledgeChunker() {
+    }
+
+    public static List<KnowledgeChunk> chunk(String content) {
+        List<KnowledgeChunk> chunks = new ArrayList<>();
+        try {
+            StreamingChunker.chunk(new BufferedReader(new StringReader(content)),
+                    (section, text) -> chunks.add(new KnowledgeChunk(chunks.size(), section, text)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // cannot happen for a StringReader
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,51 @@
+package com.restaurant.retrieval;
+
+import com.typesafe.config.Config;
+
+/**
+ * Turns a chunk's raw BM25 and embedding similarity into one ranking score, by the
+ * configured retrieval mode: either score alone, or in hybrid mode
+ * weight * semantic / semanticMax + (1 - weight) * keyword / keywordMax.
+ *
+ * The maxima must be taken over every candidate of the same ranking: one retriever's
+ * for a local search, all shards' together for a scatter-gather query. Scaling each
+ * shard by its own best score would put every shard's top hit near 1.0.
+ */
+public final class ScoreFusion {
+
+    private final HybridRetriever.Mode mode;
+    private final double semanticWeight;
+
+    public ScoreFusion(HybridRetriever.Mode mode, double semanticWeight) {
+        this.mode = mode;
+        this.semanticWeight = semanticWeight;
+    }
+
+    /**
+     * @param config the forkfind.retrieval config section
+     */
+    public static ScoreFusion fromConfig(Config config) {
+        return new ScoreFusion(HybridRetriever.Mode.valueOf(config.getString("mode").toUpperCase()),
+                config.getDouble("semantic.weight"));
+    }
+
+    public HybridRetriever.Mode mode() {
+        return mode;
+    }
+
+    public double fuse(double keyword, double semantic, double keywordMax, double semanticMax) {
+        switch (mode) {
+            case KEYWORD:
+                return keyword;
+            case SEMANTIC:
+                return semantic;
+            default:
+                return (1 - semanticWeight) * keyword / nonZero(keywordMax)
+                        + semanticWeight * semantic / nonZero(semanticMax);
+        }
+    }
+
+    private static double nonZero(double max) {
+        return max == 0 ? 1 : max;
+    }
+}
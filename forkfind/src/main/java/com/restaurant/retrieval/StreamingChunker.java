@@ -0,0 +1,53 @@
+package com.restaurant.retrieval;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Line-by-line version of the knowledge base chunking rules: blank lines separate
+ * chunks, and a block starting with "=== SECTION ===" sets the section that
+ * prefixes the chunks after it. Only the current block is held in memory, so
+ * documents of any size can be chunked from a Reader.
+ */
+public class StreamingChunker {
+
+    public interface Sink {
+        void accept(String section, String text) throws IOException;
+    }
+
+    private StreamingChunker() {
+    }
+
+    public static void chunk(BufferedReader reader, Sink sink) throws IOException {
+        String section = "";
+        StringBuilder block = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                section = emit(block, section, sink);
+            } else {
+                block.append(line).append('\n');
+            }
+        }
+        emit(block, section, sink);
+    }
+
+    // Returns the section in effect after this block
+    private static String emit(StringBuilder block, String section, Sink sink) throws IOException {
+        String trimmed = block.toString().trim();
+        block.setLength(0);
+        if (trimmed.isEmpty()) {
+            return section;
+        }
+        if (trimmed.startsWith("===")) {
+            int end = trimmed.indexOf('\n');
+            section = (end < 0 ? trimmed : trimmed.substring(0, end)).trim();
+            if (end < 0) {
+                return section; // header on its own
+            }
+            trimmed = trimmed.substring(end + 1).trim();
+        }
+        sink.accept(section, section.isEmpty() ? trimmed : section + "\n" + trimmed);
+        return section;
+    }
+}
@@ -0,0 +1,69 @@
+package com.restaurant.retrieval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lower-cases text, splits it on non-alphanumerics, drops stopwords and
+ * applies a light suffix stemmer, so "Desserts", "dessert" and "dessert's"
+ * all index as the same term. Queries and documents must go through the same
+ * tokenizer.
+ */
+public class Tokenizer {
+
+    private static final Set<String> STOPWORDS = new HashSet<>(Arrays.asList(
+            "a", "about", "all", "an", "and", "any", "are", "as", "at", "be", "but", "by", "can", "could",
+            "do", "does", "for", "from", "get", "give", "has", "have", "how", "i", "if", "in", "is", "it",
+            "its", "me", "my", "of", "on", "or", "please", "serve", "show", "so", "some", "tell", "that",
+            "the", "their", "there", "this", "to", "us", "want", "was", "we", "what", "which", "with",
+            "would", "you", "your"));
+
+    private Tokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String word = text.substring(start, i).toLowerCase();
+                start = -1;
+                if (word.length() > 1 && !STOPWORDS.contains(word)) {
+                    tokens.add(stem(word));
+                }
+            }
+        }
+        return tokens;
+    }
+
+    // Strips common English inflections; deliberately conservative to avoid merging unrelated words
+    static String stem(String word) {
+        int n = word.length();
+        if (n > 4 && word.endsWith("ies")) {
+            return word.substring(0, n - 3) + "y";
+        }
+        if (n > 4 && word.endsWith("sses")) {
+            return word.substring(0, n - 2);
+        }
+        if (n > 4 && (word.endsWith("ches") || word.endsWith("shes") || word.endsWith("xes"))) {
+            return word.substring(0, n - 2);
+        }
+        if (n > 3 && word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us")) {
+            return word.substring(0, n - 1);
+        }
+        if (n > 5 && word.endsWith("ing")) {
+            return word.substring(0, n - 3);
+        }
+        if (n > 4 && word.endsWith("ed")) {
+            return word.substring(0, n - 2);
+        }
+        return word;
+    }
+}
@@ -0,0 +1,79 @@
+package com.restaurant.routing;
+
+import akka.actor.typed.ActorSystem;
+import akka.actor.typed.Behavior;
+import akka.actor.typed.SupervisorStrategy;
+import akka.actor.typed.javadsl.Behaviors;
+import akka.actor.typed.javadsl.PoolRouter;
+import akka.actor.typed.javadsl.Routers;
+import com.restaurant.messages.Messages.RestaurantMessage;
+import com.typesafe.config.Config;
+
+import java.util.function.Function;
+
+/**
+ * Runs a worker actor type as a pool of identical routees behind one router, sized and
+ * routed as configured under forkfind.pools.&lt;type&gt;, so messages of that type are
+ * handled on several cores at once instead of queueing for a single actor.
+ *
+ * Routees are restarted when they fail, so a pool never shrinks. A pool of one is the
+ * worker itself, without a router in front.
+ */
+public class WorkerPools {
+
+    private static final int VIRTUAL_NODES_FACTOR = 10;
+
+    private final Config pools;
+
+    public WorkerPools(ActorSystem<?> system) {
+        this.pools = system.settings().config().getConfig("forkfind.pools");
+    }
+
+    // Routees of a pool type; a configured size of 0 means one per available processor
+    public int size(String type) {
+        int size = pools.getConfig(type).getInt("size");
+        if (size < 0) {
+            throw new IllegalArgumentException("forkfind.pools." + type + ".size must not be negative");
+        }
+        return size == 0 ? Runtime.getRuntime().availableProcessors() : size;
+    }
+
+    /**
+     * Pool of a stateless worker. Configuring consistent-hashing for it is an error.
+     */
+    public Behavior<RestaurantMessage> pool(String type, Behavior<RestaurantMessage> worker) {
+        return pool(type, worker, null);
+    }
+
+    /**
+     * @param hashKey what consistent-hashing routes on, so messages with the same key reach the
+     *                same routee (and whatever state it keeps for that key); null when the worker
+     *                keeps none
+     */
+    public Behavior<RestaurantMessage> pool(String type, Behavior<RestaurantMessage> worker,
+            Function<RestaurantMessage, String> hashKey) {
+        Behavior<RestaurantMessage> routee = Behaviors.supervise(worker).onFailure(SupervisorStrategy.restart());
+        String routing = pools.getConfig(type).getString("routing");
+        if ("consistent-hashing".equals(routing) && hashKey == null) {
+            throw new IllegalArgumentException("forkfind.pools." + type + " keeps no state to hash on; use "
+                    + "round-robin or random routing");
+        }
+        int size = size(type);
+        if (size == 1) {
+            return routee;
+        }
+
+        PoolRouter<RestaurantMessage> pool = Routers.pool(size, routee);
+        switch (routing) {
+            case "round-robin":
+                return pool.withRoundRobinRouting();
+            case "random":
+                return pool.withRandomRouting();
+            case "consistent-hashing":
+                return pool.withConsistentHashingRouting(VIRTUAL_NODES_FACTOR, hashKey);
+            default:
+                throw new IllegalArgumentException("Unknown routing for forkfind.pools." + type + ": " + routing
+                        + " (expected round-robin, random or consistent-hashing)");
+        }
+    }
+}
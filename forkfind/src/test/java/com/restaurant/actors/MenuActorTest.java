@@ -0,0 +1,59 @@
+package com.restaurant.actors;
+
+import com.restaurant.catalog.MenuCatalog;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MenuActorTest {
+
+    private static MenuCatalog catalog;
+
+    @BeforeAll
+    static void loadMenu() throws IOException {
+        try (InputStream in = MenuActorTest.class.getResourceAsStream("/menu_knowledge.txt")) {
+            catalog = MenuCatalog.build(1, new String(in.readAllBytes(), StandardCharsets.UTF_8),
+                    ConfigFactory.load().getConfig("forkfind.retrieval"), null);
+        }
+    }
+
+    private static String answer(String query) {
+        return MenuActor.menuResponse(catalog, query, 0.5, 0.1);
+    }
+
+    @Test
+    void answersQuestionsAboutADish() {
+        String response = answer("tell me about the tiramisu");
+
+        assertTrue(response.contains("Tiramisu"), response);
+        assertFalse(response.contains("Full Menu"), response);
+    }
+
+    @Test
+    void sharedWordsDoNotPullInOtherItems() {
+        String response = answer("what is the house pasta");
+
+        assertTrue(response.contains("House Pasta"), response);
+        assertFalse(response.contains("House Wine"), response);
+    }
+
+    @Test
+    void offersEveryItemTheQuestionFitsEquallyWell() {
+        String response = answer("how much is the burger");
+
+        assertTrue(response.contains("Classic ForkFind Burger") && response.contains("($16.0)"), response);
+        assertTrue(response.contains("Impossible Burger"), response);
+    }
+
+    @Test
+    void unrelatedQuestionsGetTheMenuHint() {
+        assertTrue(answer("what are your opening hours").contains("Full Menu"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.restaurant.corpus;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CorpusStoreTest {
+
+    @TempDir
+    Path dir;
+
+    // One chunk per segment, so four restaurants make four segments
+    private void write(String... menus) throws IOException {
+        try (CorpusWriter writer = new CorpusWriter(dir, 1, Long.MAX_VALUE)) {
+            for (int i = 0; i < menus.length; i++) {
+                writer.addDocument("r" + i, new BufferedReader(new StringReader(menus[i])));
+            }
+        }
+    }
+
+    private static List<String> documents(List<CorpusStore.Hit> hits) {
+        return hits.stream().map(hit -> hit.document).collect(Collectors.toList());
+    }
+
+    @Test
+    void shardsSplitTheSegmentsAndKeepCorpusWideScores() throws IOException {
+        write("Tiramisu: $12\nEspresso ladyfingers.", "Tiramisu: $9\nClassic.",
+                "Margherita pizza: $14", "Tiramisu gelato: $6");
+        CorpusStore whole = CorpusStore.open(dir);
+
+        List<CorpusStore.Hit> merged = new ArrayList<>();
+        int owned = 0;
+        for (int shard = 0; shard < 2; shard++) {
+            CorpusStore store = whole.forShard(shard, 2);
+            owned += store.ownedSegmentCount();
+            merged.addAll(store.search("tiramisu", 10));
+        }
+        merged.sort(Comparator.comparingDouble((CorpusStore.Hit hit) -> hit.score).reversed());
+
+        List<CorpusStore.Hit> expected = whole.search("tiramisu", 10);
+        assertEquals(whole.segmentCount(), owned);
+        assertEquals(new HashSet<>(documents(expected)), new HashSet<>(documents(merged)));
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).score, merged.get(i).score, 1e-9);
+        }
+    }
+
+    @Test
+    void documentSearchFindsTheDocumentWhicheverShardOwnsIt() throws IOException {
+        write("Tiramisu: $12", "Tiramisu: $9", "Tiramisu gelato: $6");
+        CorpusStore shardZero = CorpusStore.open(dir).forShard(0, 2);
+
+        List<CorpusStore.Hit> hits = shardZero.searchDocument("tiramisu", 5, shardZero.documentId("r1"));
+
+        assertEquals(List.of("r1"), documents(hits));
+        assertEquals(1, shardZero.documentId("r1"));
+        assertEquals(-1, shardZero.documentId("r9"));
+        assertTrue(documents(shardZero.search("tiramisu", 5)).stream().noneMatch("r1"::equals));
+    }
+}
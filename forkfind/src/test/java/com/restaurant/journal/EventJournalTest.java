@@ -0,0 +1,147 @@
+package com.restaurant.journal;
+
+import com.restaurant.metrics.Metrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private GroupCommitWriter writer;
+
+    @BeforeEach
+    void startWriter() {
+        writer = new GroupCommitWriter(false, 64, new Metrics());
+    }
+
+    @AfterEach
+    void stopWriter() {
+        writer.close();
+    }
+
+    private static byte[] event(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> replay(EventJournal journal, long afterSeqNr) throws IOException {
+        List<String> events = new ArrayList<>();
+        journal.replay(afterSeqNr, (seqNr, payload) ->
+                events.add(seqNr + ":" + new String(payload, StandardCharsets.UTF_8)));
+        return events;
+    }
+
+    private List<String> files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(file -> file.getFileName().toString()).filter(name -> name.startsWith(prefix))
+                    .sorted().collect(Collectors.toList());
+        }
+    }
+
+    private Path segment(long firstSeqNr) {
+        return dir.resolve(String.format("journal-%020d.log", firstSeqNr));
+    }
+
+    private EventJournal withEvents(String... events) throws IOException {
+        EventJournal journal = EventJournal.open(dir, writer);
+        for (String event : events) {
+            journal.append(event(event));
+        }
+        journal.sync().join();
+        return journal;
+    }
+
+    @Test
+    void reopeningCutsOffATornTailAndAppendsAfterIt() throws IOException {
+        withEvents("one", "two", "three").close().join();
+        long validEnd = Files.size(segment(1));
+        // A crash in the middle of the fourth record: its header promises more than was written
+        try (RandomAccessFile file = new RandomAccessFile(segment(1).toFile(), "rw")) {
+            file.seek(validEnd);
+            file.writeInt(100);
+            file.writeInt(0x1234);
+            file.write(new byte[10]);
+        }
+
+        EventJournal journal = EventJournal.open(dir, writer);
+
+        assertEquals(validEnd, Files.size(segment(1)));
+        assertEquals(3, journal.lastSeqNr());
+        assertEquals(4L, journal.append(event("four")).join());
+        assertEquals(List.of("1:one", "2:two", "3:three", "4:four"), replay(journal, 0));
+    }
+
+    @Test
+    void aRecordFailingItsChecksumEndsTheJournal() throws IOException {
+        withEvents("one", "two", "three").close().join();
+        // Flip the last payload byte of the second record; each record is 16 header bytes + 3 bytes here
+        try (RandomAccessFile file = new RandomAccessFile(segment(1).toFile(), "rw")) {
+            file.seek(2 * 19 - 1);
+            int last = file.read();
+            file.seek(2 * 19 - 1);
+            file.write(last ^ 0xFF);
+        }
+
+        EventJournal journal = EventJournal.open(dir, writer);
+
+        assertEquals(1, journal.lastSeqNr());
+        assertEquals(19, Files.size(segment(1)));
+        assertEquals(List.of("1:one"), replay(journal, 0));
+    }
+
+    @Test
+    void snapshotsStartNewSegmentsAndOnlyTheLastTwoAreKept() throws IOException {
+        EventJournal journal = withEvents("one", "two");
+        journal.saveSnapshot(2, event("state@2")).join();
+        journal.append(event("three"));
+        journal.saveSnapshot(3, event("state@3")).join();
+        journal.append(event("four"));
+        journal.saveSnapshot(4, event("state@4")).join();
+        journal.append(event("five")).join();
+
+        assertEquals(List.of("snapshot-00000000000000000003.bin", "snapshot-00000000000000000004.bin"),
+                files("snapshot-"));
+        // Segments 1 and 3 hold only events covered by the older of the two kept snapshots
+        assertEquals(List.of("journal-00000000000000000004.log", "journal-00000000000000000005.log"),
+                files("journal-"));
+        journal.close().join();
+
+        EventJournal reopened = EventJournal.open(dir, writer);
+        EventJournal.Snapshot snapshot = reopened.latestSnapshot();
+        assertEquals(4, snapshot.seqNr);
+        assertEquals("state@4", new String(snapshot.state, StandardCharsets.UTF_8));
+        assertEquals(List.of("5:five"), replay(reopened, snapshot.seqNr));
+        assertEquals(List.of("4:four", "5:five"), replay(reopened, 3));
+        assertEquals(5, reopened.lastSeqNr());
+    }
+
+    @Test
+    void aClosedJournalRefusesWrites() throws IOException {
+        EventJournal journal = withEvents("one");
+        journal.close().join();
+
+        assertTrue(journal.failed());
+        CompletionException append = assertThrows(CompletionException.class,
+                () -> journal.append(event("two")).join());
+        assertTrue(append.getCause() instanceof IOException);
+        assertThrows(CompletionException.class, () -> journal.saveSnapshot(1, event("state@1")).join());
+    }
+}
@@ -0,0 +1,80 @@
+package com.restaurant.llm;
+
+import com.restaurant.metrics.Metrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LLMResponseCacheTest {
+
+    // Disk reads and writes run inline, so every call has finished when it returns
+    private static final Executor INLINE = Runnable::run;
+
+    @TempDir
+    Path dir;
+
+    private LLMResponseCache open(int diskMaxEntries) {
+        return new LLMResponseCache(100, Duration.ofMinutes(10), dir, diskMaxEntries, INLINE, new Metrics());
+    }
+
+    private Optional<String> fromDisk(LLMResponseCache cache, String key) {
+        return cache.getFromDisk(key).toCompletableFuture().join();
+    }
+
+    @Test
+    void diskTierDropsTheOldestEntriesBeyondItsBound() {
+        LLMResponseCache cache = open(2);
+        cache.put("a", "first");
+        cache.put("b", "second");
+        cache.put("c", "third");
+
+        assertEquals(2, cache.diskEntryCount());
+        assertFalse(Files.exists(dir.resolve("a.txt")));
+
+        LLMResponseCache reopened = open(2);
+        assertFalse(fromDisk(reopened, "a").isPresent());
+        assertEquals(Optional.of("third"), fromDisk(reopened, "c"));
+    }
+
+    @Test
+    void openingSweepsExpiredAndTemporaryFiles() throws IOException {
+        open(10).put("fresh", "still good");
+        Files.writeString(dir.resolve("stale.txt"), "0\nold answer");
+        Files.setLastModifiedTime(dir.resolve("stale.txt"),
+                FileTime.fromMillis(System.currentTimeMillis() - Duration.ofHours(1).toMillis()));
+        Files.writeString(dir.resolve("fresh123.tmp"), "half written");
+
+        LLMResponseCache cache = open(10);
+
+        assertEquals(1, cache.diskEntryCount());
+        assertFalse(Files.exists(dir.resolve("stale.txt")));
+        assertFalse(Files.exists(dir.resolve("fresh123.tmp")));
+        assertTrue(Files.exists(dir.resolve("fresh.txt")));
+    }
+
+    @Test
+    void reopeningKeepsTheBoundAcrossRestarts() {
+        LLMResponseCache first = open(5);
+        for (int i = 0; i < 5; i++) {
+            first.put("key" + i, "answer " + i);
+        }
+
+        LLMResponseCache second = open(3);
+
+        assertEquals(3, second.diskEntryCount());
+        second.put("key5", "answer 5");
+        assertEquals(3, second.diskEntryCount());
+        assertEquals(Optional.of("answer 5"), fromDisk(second, "key5"));
+    }
+}
@@ -0,0 +1,26 @@
+package com.restaurant.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpenAICompatibleBackendTest {
+
+    @Test
+    void requestBodyCarriesAnyPromptAsValidJson() throws Exception {
+        OpenAICompatibleBackend backend = new OpenAICompatibleBackend("test", "http://localhost/", "key",
+                "some/model", 256, 4);
+        String prompt = "Saved at C:\\menus\\\tcol\r\nsaid \"hi\" \u0001 🍕";
+
+        JsonNode request = new ObjectMapper().readTree(backend.requestJson(prompt));
+
+        assertEquals("some/model", request.get("model").asText());
+        assertEquals(prompt, request.get("messages").get(0).get("content").asText());
+        assertEquals("user", request.get("messages").get(0).get("role").asText());
+        assertEquals(256, request.get("max_tokens").asInt());
+        assertTrue(request.get("stream").asBoolean());
+    }
+}
@@ -0,0 +1,32 @@
+package com.restaurant.llm;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResilientLLMBackendTest {
+
+    private static boolean counts(Throwable failure) {
+        return ResilientLLMBackend.isProviderFailure(Optional.empty(), Optional.of(failure));
+    }
+
+    @Test
+    void breakerCountsOnlyFailuresOfTheProvider() {
+        assertTrue(counts(new IOException("connection reset")));
+        assertTrue(counts(new CompletionException(new TimeoutException())));
+        assertTrue(counts(new LLMBackendException(429, "Too Many Requests")));
+        assertTrue(counts(new LLMBackendException(408, "Request Timeout")));
+        assertTrue(counts(new LLMBackendException(503, "Service Unavailable")));
+
+        assertFalse(counts(new LLMBackendException(400, "Bad Request")));
+        assertFalse(counts(new CompletionException(new LLMBackendException(401, "Unauthorized"))));
+        assertFalse(counts(new IllegalStateException("bug")));
+        assertFalse(ResilientLLMBackend.isProviderFailure(Optional.of("answer"), Optional.empty()));
+    }
+}
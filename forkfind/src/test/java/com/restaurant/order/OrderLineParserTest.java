@@ -0,0 +1,43 @@
+package com.restaurant.order;
+
+import com.restaurant.messages.Messages.OrderLine;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrderLineParserTest {
+
+    private static void assertLine(OrderLine line, int quantity, String itemName) {
+        assertEquals(quantity, line.quantity);
+        assertEquals(itemName, line.itemName);
+    }
+
+    @Test
+    void splitsAnOrderIntoLinesWithQuantities() {
+        List<OrderLine> lines = OrderLineParser.parse("Order 2 burgers, a tiramisu and a coke");
+
+        assertEquals(3, lines.size());
+        assertLine(lines.get(0), 2, "burgers");
+        assertLine(lines.get(1), 1, "tiramisu");
+        assertLine(lines.get(2), 1, "coke");
+    }
+
+    @Test
+    void readsNumberWordsAndMultipliers() {
+        List<OrderLine> lines = OrderLineParser.parse("I'd like a couple of cokes plus tiramisu x3 please");
+
+        assertEquals(2, lines.size());
+        assertLine(lines.get(0), 2, "cokes");
+        assertLine(lines.get(1), 3, "tiramisu");
+    }
+
+    @Test
+    void keepsMenuNamesWithSeparatorsWhole() {
+        List<OrderLine> lines = OrderLineParser.parse("order a fish and chips", "fish and chips"::equals);
+
+        assertEquals(1, lines.size());
+        assertLine(lines.get(0), 1, "fish and chips");
+    }
+}
@@ -0,0 +1,114 @@
+package com.restaurant.order;
+
+import com.restaurant.catalog.MenuCatalog;
+import com.restaurant.messages.Messages.ValidateItemsResponse;
+import com.restaurant.messages.Messages.ValidatedLine;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderPricerTest {
+
+    private static MenuCatalog catalog;
+
+    @BeforeAll
+    static void loadMenu() throws IOException {
+        try (InputStream in = OrderPricerTest.class.getResourceAsStream("/menu_knowledge.txt")) {
+            catalog = MenuCatalog.build(1, new String(in.readAllBytes(), StandardCharsets.UTF_8),
+                    ConfigFactory.load().getConfig("forkfind.retrieval"), null);
+        }
+    }
+
+    private static ValidateItemsResponse price(String order) {
+        return OrderPricer.price(catalog, OrderLineParser.parse(order), 0.5, 0.1);
+    }
+
+    @Test
+    void asksWhichBurgerInsteadOfGuessing() {
+        ValidateItemsResponse priced = price("Order 2 burgers, a tiramisu and a coke");
+
+        assertFalse(priced.allValid);
+        assertEquals(3, priced.lines.size());
+        ValidatedLine burgers = priced.lines.get(0);
+        assertFalse(burgers.isValid);
+        assertTrue(burgers.alternatives.contains("Classic ForkFind Burger"), burgers.alternatives.toString());
+        assertTrue(burgers.alternatives.contains("Impossible Burger"), burgers.alternatives.toString());
+
+        ValidatedLine tiramisu = priced.lines.get(1);
+        assertTrue(tiramisu.isValid);
+        assertEquals(12.0, tiramisu.unitPrice);
+        ValidatedLine coke = priced.lines.get(2);
+        assertTrue(coke.isValid);
+        assertEquals("Soft Drinks (Coke)", coke.matchedName);
+        assertEquals(3.0, coke.unitPrice);
+    }
+
+    @Test
+    void variantsAreOrderable() {
+        ValidateItemsResponse priced = price("order 2 cokes, a sprite, an ipa and a glass of red wine");
+
+        assertTrue(priced.allValid, () -> priced.lines.get(0).matchedName);
+        assertEquals("Soft Drinks (Coke)", priced.lines.get(0).matchedName);
+        assertEquals("Soft Drinks (Sprite)", priced.lines.get(1).matchedName);
+        assertEquals("Craft Beer (IPA)", priced.lines.get(2).matchedName);
+        assertEquals("House Wine (Red)", priced.lines.get(3).matchedName);
+        assertEquals(5, priced.itemCount);
+        assertEquals(2 * 3 + 3 + 8 + 10, priced.total, 0.001);
+    }
+
+    @Test
+    void onePartialNameSplitAcrossLinesIsOneItem() {
+        ValidateItemsResponse priced = price("order a steak and fries");
+
+        assertTrue(priced.allValid);
+        assertEquals(1, priced.lines.size());
+        assertEquals("Steak Frites", priced.lines.get(0).matchedName);
+        assertEquals(1, priced.itemCount);
+    }
+
+    @Test
+    void repeatedItemsStaySeparateLines() {
+        ValidateItemsResponse priced = price("order a tiramisu and 2 tiramisu");
+
+        assertTrue(priced.allValid);
+        assertEquals(2, priced.lines.size());
+        assertEquals(3, priced.itemCount);
+    }
+
+    @Test
+    void fullNamesResolveDirectly() {
+        ValidateItemsResponse priced = price("order a classic forkfind burger and a house pasta");
+
+        assertTrue(priced.allValid);
+        assertEquals("Classic ForkFind Burger", priced.lines.get(0).matchedName);
+        assertEquals(16 + 22, priced.total, 0.001);
+    }
+
+    @Test
+    void unknownItemsAreReported() {
+        ValidateItemsResponse priced = price("order a unicorn steak");
+
+        assertFalse(priced.allValid);
+        assertFalse(priced.lines.get(0).isValid);
+        assertTrue(priced.lines.get(0).alternatives.isEmpty());
+    }
+
+    @Test
+    void ordersForAnUnknownRestaurantMatchNothing() {
+        ValidateItemsResponse priced = OrderPricer.unknownMenu(OrderLineParser.parse("order 2 tiramisu"));
+
+        assertFalse(priced.allValid);
+        assertEquals(0, priced.itemCount);
+        assertFalse(priced.lines.get(0).isValid);
+        assertNull(priced.lines.get(0).matchedName);
+    }
+}
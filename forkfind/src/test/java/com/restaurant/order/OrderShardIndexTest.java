@@ -0,0 +1,81 @@
+package com.restaurant.order;
+
+import com.restaurant.journal.EventJournal;
+import com.restaurant.journal.GroupCommitWriter;
+import com.restaurant.metrics.Metrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderShardIndexTest {
+
+    @TempDir
+    Path dir;
+
+    private static OrderEvent.Placed placed(String orderId, long at) {
+        return new OrderEvent.Placed(orderId, Collections.singletonList(new OrderEvent.Line(1, "Tiramisu", 12.0)),
+                12.0, at);
+    }
+
+    private static Order recover(OrderShardIndex index, String orderId) {
+        Order order = null;
+        for (OrderEvent event : index.events(orderId)) {
+            order = Order.apply(order, event);
+        }
+        return order;
+    }
+
+    @Test
+    void reloadReplaysOnlyTheEventsAfterTheSnapshot() throws IOException {
+        long now = System.currentTimeMillis();
+        try (GroupCommitWriter writer = new GroupCommitWriter(false, 64, new Metrics())) {
+            OrderShardIndex index = OrderShardIndex.load(EventJournal.open(dir, writer), 10, Duration.ofDays(1));
+            for (int i = 0; i < 12; i++) {
+                index.append(placed("ORDER" + i, now));
+            }
+            index.append(new OrderEvent.StatusChanged("ORDER3", OrderStatus.COOKING, now + 1)).join();
+        }
+
+        try (GroupCommitWriter writer = new GroupCommitWriter(false, 64, new Metrics())) {
+            OrderShardIndex index = OrderShardIndex.load(EventJournal.open(dir, writer), 10, Duration.ofDays(1));
+
+            assertEquals(3, index.replayed());
+            assertEquals(12, index.size());
+            Order order = recover(index, "ORDER3");
+            assertEquals(OrderStatus.COOKING, order.status());
+            assertEquals(now + 1, order.updatedAt());
+            assertEquals(12.0, order.total);
+            assertTrue(index.events("UNKNOWN").isEmpty());
+        }
+    }
+
+    @Test
+    void snapshotsLeaveOutOrdersFinishedBeforeTheRetention() throws IOException {
+        long longAgo = System.currentTimeMillis() - Duration.ofDays(2).toMillis();
+        try (GroupCommitWriter writer = new GroupCommitWriter(false, 64, new Metrics())) {
+            OrderShardIndex index = OrderShardIndex.load(EventJournal.open(dir, writer), 4, Duration.ofDays(1));
+            index.append(placed("OLD", longAgo));
+            index.append(new OrderEvent.StatusChanged("OLD", OrderStatus.READY, longAgo));
+            index.append(placed("OPEN", longAgo));
+            index.append(placed("NEW", System.currentTimeMillis())).join();
+        }
+
+        try (GroupCommitWriter writer = new GroupCommitWriter(false, 64, new Metrics())) {
+            OrderShardIndex index = OrderShardIndex.load(EventJournal.open(dir, writer), 4, Duration.ofDays(1));
+
+            assertEquals(0, index.replayed());
+            assertTrue(index.events("OLD").isEmpty());
+            List<OrderEvent> open = index.events("OPEN");
+            assertEquals(1, open.size());
+            assertEquals(OrderStatus.PLACED, recover(index, "NEW").status());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.restaurant.query;
+
+import com.restaurant.messages.QueryIntent;
+import com.restaurant.messages.QueryIntent.Allergen;
+import com.restaurant.messages.QueryIntent.Diet;
+import com.restaurant.messages.QueryIntent.Intent;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryAnalyzerTest {
+
+    private static final LocalDate WEDNESDAY = LocalDate.of(2026, 10, 14);
+
+    private static QueryIntent analyze(String query, String queryType) {
+        return QueryAnalyzer.analyze(query, queryType, name -> false, WEDNESDAY);
+    }
+
+    @Test
+    void matchesWholeWordsUnlessTheKeywordIsAStem() {
+        Map<String, Integer> keywords = new LinkedHashMap<>();
+        keywords.put("nut", 0);
+        keywords.put("allerg*", 1);
+        KeywordMatcher matcher = new KeywordMatcher(keywords);
+
+        assertEquals(0L, matcher.scan("any nutrition facts?"));
+        assertEquals(0L, matcher.scan("a donut"));
+        assertEquals(1L, matcher.scan("one NUT, please"));
+        assertEquals(2L, matcher.scan("I'm allergic"));
+        assertEquals(2L, matcher.scan("allergens"));
+        assertEquals(0L, matcher.scan("hallergy"));
+        assertEquals(3L, matcher.scan("nut allergy"));
+    }
+
+    @Test
+    void matchesKeywordsAtTheStartAndEndOfTheText() {
+        Map<String, Integer> keywords = new LinkedHashMap<>();
+        keywords.put("nut", 0);
+        KeywordMatcher matcher = new KeywordMatcher(keywords);
+
+        assertEquals(1L, matcher.scan("nut"));
+        assertEquals(1L, matcher.scan("Nut free?"));
+        assertEquals(1L, matcher.scan("is it free of nut"));
+        assertEquals(0L, matcher.scan("nu"));
+        assertEquals(0L, matcher.scan(""));
+    }
+
+    @Test
+    void wholeMenuRequestsAreToldApartFromQuestionsAboutOneDish() {
+        assertTrue(analyze("Show me the menu", "menu").wholeMenu);
+        assertTrue(analyze("list your dessert options", "menu").wholeMenu);
+        assertFalse(analyze("do you have fish?", "menu").wholeMenu);
+        assertFalse(analyze("is the chef a pasta specialist?", "chat").wholeMenu);
+        assertFalse(analyze("showcase dish tonight?", "menu").wholeMenu);
+    }
+
+    @Test
+    void matchesPhrasesAcrossAnyRunOfSeparators() {
+        assertEquals(EnumSet.of(Diet.VEGAN), analyze("anything plant based?", "menu").diets);
+        assertEquals(EnumSet.of(Diet.VEGAN), analyze("Plant-based options", "menu").diets);
+        assertEquals(EnumSet.of(Diet.VEGAN), analyze("plant ,  based", "menu").diets);
+        assertEquals(EnumSet.noneOf(Diet.class), analyze("plantbased", "menu").diets);
+        assertEquals(EnumSet.noneOf(Diet.class), analyze("a plant, then based on that", "menu").diets);
+    }
+
+    @Test
+    void routesMenuQuestionsOnDietaryCues() {
+        QueryIntent nutrition = analyze("is there nutrition info?", "menu");
+        assertEquals(Intent.MENU, nutrition.intent);
+        assertEquals(EnumSet.noneOf(Allergen.class), nutrition.allergens);
+
+        QueryIntent allergic = analyze("I'm allergic to shrimp and walnuts", "menu");
+        assertEquals(Intent.DIETARY, allergic.intent);
+        assertEquals(EnumSet.of(Allergen.SHELLFISH, Allergen.NUTS), allergic.allergens);
+
+        QueryIntent seafood = analyze("what seafood do you have?", "menu");
+        assertEquals(Intent.MENU, seafood.intent);
+        assertEquals(EnumSet.of(Allergen.SHELLFISH), seafood.allergens);
+    }
+
+    @Test
+    void extractsTimes() {
+        assertEquals("20:00", analyze("book a table at 8pm", "reservation").time);
+        assertEquals("19:30", analyze("book a table at 7:30 PM", "reservation").time);
+        assertEquals("19:30", analyze("book for 19:30", "reservation").time);
+        assertEquals("20:00", analyze("book a table at 8", "reservation").time);
+        assertNull(analyze("book a table", "reservation").time);
+
+        QueryIntent people = analyze("book a table at 8 people", "reservation");
+        assertNull(people.time);
+        assertEquals(8, people.partySize);
+    }
+
+    @Test
+    void extractsPartySizes() {
+        assertEquals(4, analyze("book a table for 4 at 7pm", "reservation").partySize);
+        assertEquals(6, analyze("reserve for a party of 6", "reservation").partySize);
+        assertEquals(3, analyze("book for 3 guests", "reservation").partySize);
+        assertEquals(0, analyze("book a table at 7pm", "reservation").partySize);
+    }
+
+    @Test
+    void readsDatesRelativeToToday() {
+        assertEquals("2026-10-15", analyze("book for tomorrow", "reservation").date);
+        assertEquals("2026-10-14", analyze("book a table tonight", "reservation").date);
+        assertEquals("2026-10-16", analyze("book on Friday", "reservation").date);
+        assertEquals("2026-10-14", analyze("book on wednesday", "reservation").date);
+        assertEquals("2026-10-19", analyze("availability monday?", "reservation").date);
+        assertEquals("2026-10-20", analyze("book on 2026-10-20", "reservation").date);
+        assertNull(analyze("book a table", "reservation").date);
+    }
+
+    @Test
+    void readsTheIntentFromTheTabAndKeywords() {
+        assertEquals(Intent.BOOK_TABLE, analyze("book a table", "reservation").intent);
+        assertEquals(Intent.CHECK_AVAILABILITY, analyze("what times are available?", "reservation").intent);
+        assertEquals(Intent.CANCEL_RESERVATION, analyze("Cancel RES-261014-001", "reservation").intent);
+        assertEquals(Intent.PLACE_ORDER, analyze("order 2 burgers", "order").intent);
+        assertEquals(Intent.ORDER_STATUS, analyze("where is my order?", "order").intent);
+        assertEquals(Intent.CHAT, analyze("chat what's good here?", "order").intent);
+    }
+}
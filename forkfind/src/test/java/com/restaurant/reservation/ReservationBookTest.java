@@ -0,0 +1,135 @@
+package com.restaurant.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReservationBookTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 18);
+
+    // 17:00-22:00 in 30-minute slots (10 per day); a seating holds its table for 90 minutes (3 slots)
+    private static ReservationBook book(FloorPlan.Table... tables) {
+        return new ReservationBook(new FloorPlan(Arrays.asList(tables), LocalTime.of(17, 0), LocalTime.of(22, 0),
+                30, 90, 14));
+    }
+
+    private static FloorPlan.Table table(String id, int seats) {
+        return new FloorPlan.Table(id, seats, "Main");
+    }
+
+    @Test
+    void racingBookingsNeverShareATable() throws Exception {
+        ReservationBook book = book(table("T1", 4));
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<ReservationBook.Booking>> attempts = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            // Half want 19:00, half 19:30: every pair of these seatings overlaps
+            LocalTime time = i % 2 == 0 ? LocalTime.of(19, 0) : LocalTime.of(19, 30);
+            attempts.add(() -> {
+                start.await();
+                return book.book(DAY, time, 2);
+            });
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<ReservationBook.Booking>> results = new ArrayList<>();
+            for (Callable<ReservationBook.Booking> attempt : attempts) {
+                results.add(pool.submit(attempt));
+            }
+            start.countDown();
+            int booked = 0;
+            for (Future<ReservationBook.Booking> result : results) {
+                booked += result.get() != null ? 1 : 0;
+            }
+            assertEquals(1, booked);
+            assertEquals(1, book.bookings(DAY).size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void bookingTakesTheSmallestFreeTableAndFailsWhenAllFittingOnesAreTaken() {
+        ReservationBook book = book(table("T6", 6), table("T2", 2), table("T4", 4));
+
+        assertEquals("T2", book.book(DAY, LocalTime.of(19, 0), 2).table.id);
+        assertEquals("T4", book.book(DAY, LocalTime.of(19, 0), 2).table.id);
+        assertEquals("T6", book.book(DAY, LocalTime.of(19, 0), 2).table.id);
+        assertNull(book.book(DAY, LocalTime.of(19, 30), 2));
+        assertNotNull(book.book(DAY, LocalTime.of(20, 30), 2));
+    }
+
+    @Test
+    void earliestSeatingNeedsEveryOneOfItsSlotsFree() {
+        ReservationBook book = book(table("T1", 4));
+        book.book(DAY, LocalTime.of(18, 0), 2); // holds slots 2-4, 18:00-19:30
+
+        // 17:00 and 17:30 would run into 18:00; the last seating starts at 20:30 to end by closing
+        assertEquals(List.of(LocalTime.of(19, 30), LocalTime.of(20, 0), LocalTime.of(20, 30)),
+                book.availableTimes(DAY, LocalTime.of(17, 0), 2, 10));
+        assertEquals(LocalTime.of(19, 30), book.bookEarliest(DAY, LocalTime.of(17, 0), 2).time);
+        assertTrue(book.availableTimes(DAY, LocalTime.of(17, 0), 2, 10).isEmpty());
+        assertNull(book.bookEarliest(DAY, LocalTime.of(17, 0), 2));
+    }
+
+    @Test
+    void earliestSeatingPrefersTheEarlierSlotOverTheSmallerTable() {
+        ReservationBook book = book(table("T2", 2), table("T4", 4));
+        book.book(DAY, LocalTime.of(17, 0), 2); // T2 until 18:30
+
+        ReservationBook.Booking booking = book.bookEarliest(DAY, LocalTime.of(17, 0), 2);
+
+        assertEquals("T4", booking.table.id);
+        assertEquals(LocalTime.of(17, 0), booking.time);
+    }
+
+    @Test
+    void idsCarryTheirDateAndCannotBeGuessedFromTheSequence() {
+        ReservationBook book = book(table("T1", 4), table("T2", 4));
+        ReservationBook.Booking first = book.book(DAY, LocalTime.of(19, 0), 2);
+        ReservationBook.Booking second = book.book(DAY, LocalTime.of(19, 0), 2);
+
+        assertTrue(first.id.matches("RES-261018-001-[0-9A-HJKMNP-TV-Z]{8}"), first.id);
+        assertNotEquals(first.id.substring(15), second.id.substring(15));
+        assertEquals(DAY, ReservationBook.dateOf(first.id));
+        assertEquals(first.id, ReservationBook.findId("please cancel " + first.id.toLowerCase() + ", thanks"));
+
+        assertNull(book.cancel("RES-261018-001"));
+        assertNull(book.cancel("RES-261018-001-00000000"));
+        assertNotNull(book.booking(first.id));
+        assertEquals(first, book.cancel(first.id.toLowerCase()));
+        assertNull(book.booking(first.id));
+    }
+
+    @Test
+    void restoredDaysKeepTheirTablesAndSequence() throws IOException {
+        ReservationBook book = book(table("T1", 4));
+        book.book(DAY, LocalTime.of(17, 0), 2);
+        book.book(DAY, LocalTime.of(19, 0), 2);
+
+        ReservationBook restored = book(table("T1", 4));
+        restored.restore(DAY, book.snapshot(DAY));
+
+        assertEquals(2, restored.bookings(DAY).size());
+        assertNull(restored.book(DAY, LocalTime.of(18, 0), 2));
+        assertTrue(restored.book(DAY, LocalTime.of(20, 30), 2).id.startsWith("RES-261018-003-"));
+    }
+}
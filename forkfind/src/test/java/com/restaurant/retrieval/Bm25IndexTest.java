@@ -0,0 +1,28 @@
+package com.restaurant.retrieval;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Bm25IndexTest {
+
+    private final Bm25Index index = new Bm25Index(KnowledgeChunker.chunk(
+            "=== DESSERTS ===\nTiramisu: $12\nEspresso-soaked ladyfingers.\n\nVegan Sorbet Trio: $8\nFruit sorbet."));
+
+    @Test
+    void findsTheMatchingChunk() {
+        List<ContextPacker.ScoredChunk> hits = index.search("tiramisu", 5);
+
+        assertEquals(1, hits.size());
+        assertTrue(hits.get(0).chunk.text.contains("Tiramisu"));
+    }
+
+    @Test
+    void noResultsForNonPositiveK() {
+        assertTrue(index.search("tiramisu", 0).isEmpty());
+        assertTrue(index.search("tiramisu", -1).isEmpty());
+    }
+}
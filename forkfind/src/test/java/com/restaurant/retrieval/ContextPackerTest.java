@@ -0,0 +1,94 @@
+package com.restaurant.retrieval;
+
+import com.restaurant.retrieval.ContextPacker.Packed;
+import com.restaurant.retrieval.ContextPacker.ScoredChunk;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContextPackerTest {
+
+    private static List<KnowledgeChunk> menu() throws IOException {
+        try (InputStream in = ContextPackerTest.class.getResourceAsStream("/menu_knowledge.txt")) {
+            return KnowledgeChunker.chunk(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static List<ScoredChunk> scored(List<KnowledgeChunk> chunks) {
+        List<ScoredChunk> scored = new ArrayList<>();
+        for (KnowledgeChunk chunk : chunks) {
+            scored.add(new ScoredChunk(chunk, 1.0 / (chunk.id + 1)));
+        }
+        return scored;
+    }
+
+    private static int occurrences(String text, String part) {
+        int count = 0;
+        for (int at = text.indexOf(part); at >= 0; at = text.indexOf(part, at + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    void everyDishKeepsItsDietaryLine() throws IOException {
+        List<KnowledgeChunk> chunks = menu();
+        String context = new ContextPacker(Integer.MAX_VALUE).pack(scored(chunks), 0).context;
+
+        int dishes = 0;
+        for (KnowledgeChunk chunk : chunks) {
+            String[] lines = chunk.text.split("\n");
+            for (int i = 0; i < lines.length; i++) {
+                if (lines[i].startsWith("Dietary:")) {
+                    dishes++;
+                    // The dish and its Dietary line, still together
+                    String dish = lines[i - 2] + "\n" + lines[i - 1] + "\n" + lines[i];
+                    assertTrue(context.contains(dish), "Missing from the context:\n" + dish);
+                }
+            }
+        }
+        assertTrue(dishes >= 13, "Expected every dish of the menu, found " + dishes);
+        assertEquals(2, occurrences(context, "Dietary: Contains Dairy, Gluten."),
+                "Chicken Parmesan and Chocolate Lava Cake share a Dietary line");
+    }
+
+    @Test
+    void sectionHeadersAreCollapsed() throws IOException {
+        String context = new ContextPacker(Integer.MAX_VALUE).pack(scored(menu()), 0).context;
+
+        for (String header : new String[] { "=== APPETIZERS ===", "=== MAIN COURSES ===", "=== DESSERTS ===",
+                "=== DRINKS ===" }) {
+            assertEquals(1, occurrences(context, header), header);
+        }
+    }
+
+    @Test
+    void repeatedChunksArePackedOnce() throws IOException {
+        List<KnowledgeChunk> chunks = menu();
+        List<ScoredChunk> ranked = scored(chunks);
+        // The same paragraph coming back again, e.g. from an overlapping result
+        KnowledgeChunk first = chunks.get(0);
+        ranked.add(new ScoredChunk(new KnowledgeChunk(chunks.size(), first.section, first.text), 0.0));
+
+        Packed packed = new ContextPacker(Integer.MAX_VALUE).pack(ranked, 0);
+
+        assertEquals(chunks.size(), packed.includedChunks);
+        assertEquals(1, packed.skippedChunks);
+        assertEquals(1, occurrences(packed.context, "Garden Salad: $12"));
+    }
+
+    @Test
+    void staysWithinBudget() throws IOException {
+        Packed packed = new ContextPacker(400).pack(scored(menu()), 0);
+
+        assertTrue(packed.context.length() <= 400, "Context of " + packed.context.length() + " chars");
+        assertTrue(packed.includedChunks > 0);
+    }
+}
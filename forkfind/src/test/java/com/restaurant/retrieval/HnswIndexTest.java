@@ -0,0 +1,48 @@
+package com.restaurant.retrieval;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswIndexTest {
+
+    @Test
+    void findsEveryIndexedVectorAsItsOwnNearestNeighbour() {
+        HnswIndex index = new HnswIndex(16, 8, 64, 64);
+        Random random = new Random(7);
+        float[][] vectors = new float[2000][16];
+        for (float[] vector : vectors) {
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = (float) random.nextGaussian();
+            }
+            normalize(vector);
+            index.add(vector);
+        }
+
+        int found = 0;
+        for (int node = 0; node < vectors.length; node++) {
+            if (index.search(vectors[node], 1).nodes[0] == node) {
+                found++;
+            }
+        }
+        assertTrue(found >= vectors.length * 0.98, "self-recall " + found);
+    }
+
+    private static void normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] /= (float) Math.sqrt(norm);
+        }
+    }
+
+    @Test
+    void emptyIndexReturnsNoHits() {
+        assertEquals(0, new HnswIndex(4, 8, 32, 32).search(new float[4], 3).nodes.length);
+    }
+}
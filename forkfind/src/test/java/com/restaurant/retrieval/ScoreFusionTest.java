@@ -0,0 +1,37 @@
+package com.restaurant.retrieval;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScoreFusionTest {
+
+    private final ScoreFusion hybrid = new ScoreFusion(HybridRetriever.Mode.HYBRID, 0.4);
+
+    @Test
+    void hybridScalesEachSideByItsBest() {
+        assertEquals(0.6 * 0.5 + 0.4 * 1.0, hybrid.fuse(2.0, 0.8, 4.0, 0.8), 1e-9);
+        assertEquals(0.6, hybrid.fuse(4.0, 0.0, 4.0, 0.0), 1e-9);
+    }
+
+    @Test
+    void singleModesUseTheirRawScore() {
+        assertEquals(7.5, new ScoreFusion(HybridRetriever.Mode.KEYWORD, 0.4).fuse(7.5, 0.9, 10, 1), 1e-9);
+        assertEquals(0.9, new ScoreFusion(HybridRetriever.Mode.SEMANTIC, 0.4).fuse(7.5, 0.9, 10, 1), 1e-9);
+    }
+
+    @Test
+    void aWeakShardsTopHitRanksBelowAStrongOneAgainstTheGlobalBest() {
+        // Shard A's best hit is a strong match; shard B's best is a weak one
+        double strong = 9.0;
+        double weak = 1.5;
+
+        // Scaled by each shard's own best, both would score the full keyword weight
+        assertEquals(hybrid.fuse(strong, 0, strong, 0), hybrid.fuse(weak, 0, weak, 0), 1e-9);
+
+        // Scaled by the best of all shards, the weak hit falls behind
+        double globalMax = Math.max(strong, weak);
+        assertTrue(hybrid.fuse(weak, 0, globalMax, 0) < hybrid.fuse(strong, 0, globalMax, 0) / 3);
+    }
+}